@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Runs scripts/loadtest.py against the packaged backend twice, once on platform threads and
+# once on virtual threads, with everything else identical, and prints both results.
+#
+# Requires Java 21 and a jar built with: mvn -Pjava21 clean package
+# Database settings come from the environment as usual (SPRING_DATASOURCE_URL, ...); point
+# both runs at the same empty database for comparable numbers.
+#
+# Usage: scripts/compare-threading.sh [concurrency] [duration-seconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${1:-200}
+DURATION=${2:-60}
+PORT=${PORT:-18090}
+JAR=$(ls target/expense-tracker-backend-*.jar | grep -v -- '-exec' | head -1)
+
+run() {
+    local virtual=$1
+    local log="target/loadtest-virtual-${virtual}.log"
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    for _ in $(seq 1 120); do
+        if curl -sf "http://localhost:$PORT/health/ready" > /dev/null; then
+            break
+        fi
+        sleep 1
+    done
+    echo "== spring.threads.virtual.enabled=$virtual, $CONCURRENCY clients, ${DURATION}s =="
+    python3 scripts/loadtest.py --base-url "http://localhost:$PORT" \
+        --concurrency "$CONCURRENCY" --duration "$DURATION" --email "loadtest-$virtual@example.com"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run false
+run true
@@ -0,0 +1,166 @@
+#!/usr/bin/env python3
+"""Closed-loop HTTP load test for the expense API.
+
+Registers (or logs in) a user, seeds expenses, then keeps --concurrency clients busy for
+--duration seconds with a mix of list, summary, dashboard and create requests. Prints
+throughput, latency percentiles, errors and load-shedding rejections (429/503 from the
+bulkheads) per endpoint and overall. Rejected requests are not counted as throughput.
+
+Only the Python standard library is used, so it runs wherever the backend does:
+
+    python3 scripts/loadtest.py --base-url http://localhost:8080 --concurrency 200 --duration 60
+"""
+
+import argparse
+import json
+import random
+import threading
+import time
+import urllib.error
+import urllib.request
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor
+
+MIX = [
+    ("list", 5),
+    ("summary", 2),
+    ("dashboard", 2),
+    ("create", 1),
+]
+
+
+def request(base_url, method, path, token=None, body=None, timeout=30):
+    data = json.dumps(body).encode() if body is not None else None
+    req = urllib.request.Request(base_url + path, data=data, method=method)
+    req.add_header("Content-Type", "application/json")
+    if token:
+        req.add_header("Authorization", "Bearer " + token)
+    with urllib.request.urlopen(req, timeout=timeout) as response:
+        payload = response.read()
+        return response.status, payload
+
+
+def login(base_url, email, password):
+    try:
+        request(base_url, "POST", "/auth/register",
+                body={"username": email.split("@")[0], "email": email, "password": password})
+    except urllib.error.HTTPError:
+        pass  # Already registered by an earlier run
+    _, payload = request(base_url, "POST", "/auth/login", body={"email": email, "password": password})
+    return json.loads(payload)["token"]
+
+
+def new_expense(rng):
+    day = rng.randint(1, 28)
+    return {
+        "title": rng.choice(["Lunch", "Groceries", "Taxi", "Coffee", "Rent", "Cinema"]),
+        "amount": round(rng.uniform(1, 200), 2),
+        "date": time.strftime("%Y-%m-") + "%02d" % day,
+        "type": "expense",
+        "categoryId": rng.randint(1, 9),
+    }
+
+
+def percentile(sorted_values, fraction):
+    if not sorted_values:
+        return 0.0
+    index = min(len(sorted_values) - 1, int(round(fraction * (len(sorted_values) - 1))))
+    return sorted_values[index]
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--base-url", default="http://localhost:8080")
+    parser.add_argument("--email", default="loadtest@example.com")
+    parser.add_argument("--password", default="loadtest123")
+    parser.add_argument("--concurrency", type=int, default=100)
+    parser.add_argument("--duration", type=float, default=30, help="measured seconds")
+    parser.add_argument("--warmup", type=float, default=10, help="unmeasured seconds before measuring")
+    parser.add_argument("--seed-expenses", type=int, default=200)
+    parser.add_argument("--seed", type=int, default=42, help="random seed, for the same request mix per run")
+    parser.add_argument("--json", action="store_true", help="print the result as one JSON object")
+    args = parser.parse_args()
+
+    token = login(args.base_url, args.email, args.password)
+    rng = random.Random(args.seed)
+    for _ in range(args.seed_expenses):
+        request(args.base_url, "POST", "/expenses", token, new_expense(rng))
+
+    paths = {
+        "list": ("GET", "/expenses"),
+        "summary": ("GET", "/expenses/summary"),
+        "dashboard": ("GET", "/dashboard"),
+        "create": ("POST", "/expenses"),
+    }
+    weighted = [name for name, weight in MIX for _ in range(weight)]
+
+    lock = threading.Lock()
+    latencies = defaultdict(list)
+    errors = defaultdict(int)
+    rejected = defaultdict(int)
+    start = time.monotonic()
+    measure_from = start + args.warmup
+    stop_at = measure_from + args.duration
+
+    def client(index):
+        client_rng = random.Random(args.seed + index)
+        while True:
+            now = time.monotonic()
+            if now >= stop_at:
+                return
+            name = client_rng.choice(weighted)
+            method, path = paths[name]
+            body = new_expense(client_rng) if method == "POST" else None
+            began = time.monotonic()
+            outcome = "ok"
+            try:
+                request(args.base_url, method, path, token, body)
+            except urllib.error.HTTPError as e:
+                outcome = "rejected" if e.code in (429, 503) else "error"
+            except (urllib.error.URLError, OSError):
+                outcome = "error"
+            took = time.monotonic() - began
+            if began >= measure_from:
+                with lock:
+                    if outcome == "ok":
+                        latencies[name].append(took)
+                    elif outcome == "rejected":
+                        rejected[name] += 1
+                    else:
+                        errors[name] += 1
+
+    with ThreadPoolExecutor(max_workers=args.concurrency) as pool:
+        list(pool.map(client, range(args.concurrency)))
+
+    result = {"concurrency": args.concurrency, "duration": args.duration, "endpoints": {}}
+    everything = []
+    for name, _ in MIX:
+        values = sorted(latencies[name])
+        everything.extend(values)
+        result["endpoints"][name] = summarize(values, errors[name], rejected[name], args.duration)
+    everything.sort()
+    result["total"] = summarize(everything, sum(errors.values()), sum(rejected.values()), args.duration)
+
+    if args.json:
+        print(json.dumps(result))
+        return
+    print("%-10s %9s %9s %9s %9s %7s %9s" % (
+        "endpoint", "req/s", "p50 ms", "p95 ms", "p99 ms", "errors", "rejected"))
+    for name, row in list(result["endpoints"].items()) + [("total", result["total"])]:
+        print("%-10s %9.1f %9.1f %9.1f %9.1f %7d %9d" % (
+            name, row["throughput"], row["p50"], row["p95"], row["p99"], row["errors"], row["rejected"]))
+
+
+def summarize(sorted_values, error_count, rejected_count, duration):
+    return {
+        "throughput": len(sorted_values) / duration,
+        "errors": error_count,
+        "rejected": rejected_count,
+        "p50": percentile(sorted_values, 0.50) * 1000,
+        "p95": percentile(sorted_values, 0.95) * 1000,
+        "p99": percentile(sorted_values, 0.99) * 1000,
+    }
+
+
+if __name__ == "__main__":
+    main()
@@ -1,12 +1,28 @@
 package com.expensetracker;
 
+import org.springframework.aot.AotDetector;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+import java.util.Map;
+
+// The R2DBC pool is created by ReactiveReadConfig only when the reactive stack is enabled;
+// an auto-configured R2DBC transaction manager would otherwise displace the JPA one.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class ExpenseTrackerApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(ExpenseTrackerApplication.class, args);
+        SpringApplication application = new SpringApplication(ExpenseTrackerApplication.class);
+        // The client address comes from X-Forwarded-For only when the peer is one of
+        // server.tomcat.remoteip.internal-proxies (private and loopback ranges by default)
+        application.setDefaultProperties(Map.of("server.forward-headers-strategy", "native"));
+        if (AotDetector.useGeneratedArtifacts()) {
+            // Spring Security 6.2.1 registers mvcHandlerMappingIntrospectorRequestTransformer twice
+            // when started from AOT-generated bean definitions
+            application.setAllowBeanDefinitionOverriding(true);
+        }
+        application.run(args);
     }
 }
@@ -0,0 +1,258 @@
+package com.expensetracker.archive;
+
+import com.expensetracker.dto.ExpenseField;
+import com.expensetracker.entity.ArchivedExpense;
+import com.expensetracker.entity.Expense;
+import com.expensetracker.entity.User;
+import com.expensetracker.repository.ArchivedExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the archive tier. Each user has a small in-memory index entry (row count,
+ * totals per category, oldest and newest date) loaded with one aggregate query. Reads
+ * consult {@code expenses_archive} only when that entry says the requested range reaches
+ * into it, and summaries take the archived totals from the entry without reading rows.
+ *
+ * Every move of a user's rows into or out of the archive bumps the user's row in
+ * {@code expense_archive_versions} in the same transaction. Each lookup compares the cached
+ * entry's version with that row, so archive runs, restores and deletes on other instances
+ * are seen on the next read. Callers that read the version alongside the user's live
+ * expenses pass it in; otherwise it costs one primary-key read.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.archive", name = "enabled", havingValue = "true")
+public class ExpenseArchive {
+
+    static final String COLUMNS = "id, title, amount, description, date, type, currency, created_at, "
+            + "updated_at, occurrence_key, user_id, category_id";
+
+    private static final String RESTORE = "INSERT INTO expenses (" + COLUMNS + ") SELECT " + COLUMNS
+            + " FROM expenses_archive WHERE id = ? AND user_id = ?";
+
+    private static final String CURRENT_VERSION = "SELECT version FROM expense_archive_versions WHERE user_id = ?";
+
+    private static final String BUMP_VERSION = "UPDATE expense_archive_versions SET version = version + 1 "
+            + "WHERE user_id = ?";
+
+    private static final String INSERT_VERSION = "INSERT INTO expense_archive_versions (user_id, version) VALUES (?, 1)";
+
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int indexMaxUsers;
+
+    private final ConcurrentHashMap<Long, UserArchive> index = new ConcurrentHashMap<>();
+
+    public ExpenseArchive(ArchivedExpenseRepository archivedExpenseRepository,
+                          JdbcTemplate jdbcTemplate,
+                          @Value("${app.archive.index-max-users:100000}") int indexMaxUsers) {
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexMaxUsers = indexMaxUsers;
+    }
+
+    /**
+     * The user's index entry, loading it if absent or behind the user's archive version.
+     */
+    public UserArchive summaryFor(Long userId) {
+        return summaryFor(userId, currentVersion(userId));
+    }
+
+    /**
+     * The user's index entry as of at least {@code version}, a version the caller has already
+     * read in its transaction.
+     */
+    public UserArchive summaryFor(Long userId, long version) {
+        UserArchive entry = index.get(userId);
+        if (entry != null && entry.version() >= version) {
+            return entry;
+        }
+        UserArchive loaded = load(userId, version);
+        if (index.size() >= indexMaxUsers) {
+            // Any entry will do; it is reloaded on its user's next read
+            Iterator<Long> users = index.keySet().iterator();
+            if (users.hasNext()) {
+                users.next();
+                users.remove();
+            }
+        }
+        // A reader that loaded before a concurrent move committed must not replace the newer entry
+        index.merge(userId, loaded, (current, candidate) -> current.version() > candidate.version() ? current : candidate);
+        return loaded;
+    }
+
+    /**
+     * Records that the user's archived rows changed, within the caller's transaction.
+     */
+    public void bumpVersion(Long userId) {
+        if (jdbcTemplate.update(BUMP_VERSION, userId) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_VERSION, userId);
+            } catch (DuplicateKeyException e) {
+                // Another transaction created the row first
+                jdbcTemplate.update(BUMP_VERSION, userId);
+            }
+        }
+    }
+
+    public void invalidate(Collection<Long> userIds) {
+        userIds.forEach(index::remove);
+    }
+
+    public List<Expense> findAll(User user) {
+        return findAll(user, summaryFor(user.getId()));
+    }
+
+    public List<Expense> findAll(User user, UserArchive summary) {
+        if (summary.isEmpty()) {
+            return List.of();
+        }
+        return toExpenses(archivedExpenseRepository.findByUserOrderByDateDesc(user));
+    }
+
+    public List<Expense> findFrom(User user, int offset, int limit) {
+        return findFrom(user, summaryFor(user.getId()), offset, limit);
+    }
+
+    public List<Expense> findFrom(User user, UserArchive summary, int offset, int limit) {
+        if (summary.count() <= offset) {
+            return List.of();
+        }
+        return toExpenses(archivedExpenseRepository.findByUserFrom(user, offset, limit));
+    }
+
+    public List<Map<String, Object>> findFields(User user, Set<ExpenseField> fields) {
+        if (summaryFor(user.getId()).isEmpty()) {
+            return List.of();
+        }
+        return archivedExpenseRepository.findFieldsByUser(user, fields);
+    }
+
+    public List<Expense> findByCategory(User user, Long categoryId) {
+        if (!summaryFor(user.getId()).categories().containsKey(categoryId)) {
+            return List.of();
+        }
+        return toExpenses(archivedExpenseRepository.findByUserAndCategoryId(user, categoryId));
+    }
+
+    public List<Expense> findByType(User user, String type) {
+        if (summaryFor(user.getId()).isEmpty()) {
+            return List.of();
+        }
+        return toExpenses(archivedExpenseRepository.findByUserAndType(user, type));
+    }
+
+    public List<Expense> findByDateRange(User user, LocalDate startDate, LocalDate endDate) {
+        if (!summaryFor(user.getId()).overlaps(startDate, endDate)) {
+            return List.of();
+        }
+        return toExpenses(archivedExpenseRepository.findByUserAndDateBetween(user, startDate, endDate));
+    }
+
+    public List<Expense> findByIds(User user, Collection<Long> ids) {
+        if (ids.isEmpty() || summaryFor(user.getId()).isEmpty()) {
+            return List.of();
+        }
+        return toExpenses(archivedExpenseRepository.findByUserAndIdIn(user, ids));
+    }
+
+    public Optional<Expense> findById(Long id, User user) {
+        return findById(id, user, summaryFor(user.getId()));
+    }
+
+    public Optional<Expense> findById(Long id, User user, UserArchive summary) {
+        if (summary.isEmpty()) {
+            return Optional.empty();
+        }
+        return archivedExpenseRepository.findById(id)
+                .filter(archived -> archived.getUser().getId().equals(user.getId()))
+                .map(ArchivedExpense::toExpense);
+    }
+
+    /**
+     * Moves an archived expense back to {@code expenses} under the same id, within the
+     * caller's transaction. Returns false if the user has no such archived expense.
+     */
+    public boolean restore(Long id, User user) {
+        if (summaryFor(user.getId()).isEmpty() || jdbcTemplate.update(RESTORE, id, user.getId()) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("DELETE FROM expenses_archive WHERE id = ?", id);
+        bumpVersion(user.getId());
+        index.remove(user.getId());
+        return true;
+    }
+
+    public boolean delete(Long id, User user) {
+        if (summaryFor(user.getId()).isEmpty()
+                || jdbcTemplate.update("DELETE FROM expenses_archive WHERE id = ? AND user_id = ?", id, user.getId()) == 0) {
+            return false;
+        }
+        bumpVersion(user.getId());
+        index.remove(user.getId());
+        return true;
+    }
+
+    private long currentVersion(Long userId) {
+        List<Long> versions = jdbcTemplate.queryForList(CURRENT_VERSION, Long.class, userId);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    private UserArchive load(Long userId, long version) {
+        Map<Long, CategoryAggregate> categories = new HashMap<>();
+        long count = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        LocalDate oldest = null;
+        LocalDate newest = null;
+        for (Object[] row : archivedExpenseRepository.summarizeByUser(userId)) {
+            CategoryAggregate category = new CategoryAggregate((Long) row[0], (String) row[1],
+                    (Long) row[2], (BigDecimal) row[3]);
+            categories.put(category.categoryId(), category);
+            count += category.count();
+            total = total.add(category.total());
+            LocalDate min = (LocalDate) row[4];
+            LocalDate max = (LocalDate) row[5];
+            oldest = oldest == null || min.isBefore(oldest) ? min : oldest;
+            newest = newest == null || max.isAfter(newest) ? max : newest;
+        }
+        return new UserArchive(count, total, oldest, newest, Map.copyOf(categories), version);
+    }
+
+    private static List<Expense> toExpenses(List<ArchivedExpense> archived) {
+        return archived.stream().map(ArchivedExpense::toExpense).collect(Collectors.toList());
+    }
+
+    public record CategoryAggregate(Long categoryId, String name, long count, BigDecimal total) {
+    }
+
+    public record UserArchive(long count,
+                              BigDecimal total,
+                              LocalDate oldest,
+                              LocalDate newest,
+                              Map<Long, CategoryAggregate> categories,
+                              long version) {
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            return !isEmpty() && !startDate.isAfter(newest) && !endDate.isBefore(oldest);
+        }
+    }
+}
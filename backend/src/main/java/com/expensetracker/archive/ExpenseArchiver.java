@@ -0,0 +1,156 @@
+package com.expensetracker.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves expenses dated before the archive horizon from {@code expenses} to
+ * {@code expenses_archive}. The horizon is whole months: with a horizon of 24, everything
+ * before the first day of the month 24 months ago is moved.
+ *
+ * Rows are claimed in batches with {@code FOR UPDATE SKIP LOCKED}, copied and deleted in
+ * the same transaction, so a row is always in exactly one of the two tables and concurrent
+ * runs on several instances never move the same row twice.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.archive", name = "enabled", havingValue = "true")
+public class ExpenseArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseArchiver.class);
+
+    private static final String CLAIM_OLD_ROWS = "SELECT id, user_id FROM expenses WHERE date < ? "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpenseArchive expenseArchive;
+    private final int horizonMonths;
+    private final int batchSize;
+    private final Duration interval;
+    private final boolean shardingEnabled;
+
+    private final Counter archivedCounter;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expense-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExpenseArchiver(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ExpenseArchive expenseArchive,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.archive.horizon-months:24}") int horizonMonths,
+                           @Value("${app.archive.batch-size:1000}") int batchSize,
+                           @Value("${app.archive.interval:6h}") Duration interval,
+                           @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        // Budgets and statements read the current and previous month from expenses only
+        if (horizonMonths < 2) {
+            throw new IllegalStateException("app.archive.horizon-months must be at least 2");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expenseArchive = expenseArchive;
+        this.horizonMonths = horizonMonths;
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.shardingEnabled = shardingEnabled;
+
+        this.archivedCounter = Counter.builder("archive.expenses.moved")
+                .description("Expenses moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (shardingEnabled) {
+            // The shard rebalancer only moves the live table
+            logger.warn("Expenses are not archived while app.sharding is enabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::archiveSafely, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves everything older than the horizon as of {@code today}, returning the number of
+     * expenses moved.
+     */
+    public int archiveOnce(LocalDate today) {
+        LocalDate cutoff = YearMonth.from(today).minusMonths(horizonMonths).atDay(1);
+        long start = System.nanoTime();
+        Set<Long> users = new HashSet<>();
+        int moved = 0;
+        while (true) {
+            Set<Long> batchUsers = new HashSet<>();
+            Integer batch = transactionTemplate.execute(status -> moveBatch(cutoff, batchUsers));
+            if (batch == null || batch == 0) {
+                break;
+            }
+            // Right after the commit, so this instance's readers look at the archive from now on
+            expenseArchive.invalidate(batchUsers);
+            users.addAll(batchUsers);
+            moved += batch;
+        }
+        if (moved > 0) {
+            logger.info("Archived {} expenses dated before {} for {} users in {}ms", moved, cutoff, users.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return moved;
+    }
+
+    private int moveBatch(LocalDate cutoff, Set<Long> users) {
+        List<long[]> claimed = jdbcTemplate.query(CLAIM_OLD_ROWS,
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)}, Date.valueOf(cutoff), batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        Object[] ids = claimed.stream().map(row -> row[0]).toArray();
+        String placeholders = claimed.stream().map(row -> "?").collect(Collectors.joining(", "));
+        jdbcTemplate.update("INSERT INTO expenses_archive (" + ExpenseArchive.COLUMNS + ") SELECT "
+                + ExpenseArchive.COLUMNS + " FROM expenses WHERE id IN (" + placeholders + ")", ids);
+        jdbcTemplate.update("DELETE FROM expenses WHERE id IN (" + placeholders + ")", ids);
+        claimed.forEach(row -> users.add(row[1]));
+        // In id order, so concurrent runs lock version rows in the same order
+        users.stream().sorted().forEach(expenseArchive::bumpVersion);
+        archivedCounter.increment(claimed.size());
+        return claimed.size();
+    }
+
+    private void archiveSafely() {
+        try {
+            archiveOnce(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Expense archive run failed, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,497 @@
+package com.expensetracker.budget;
+
+import com.expensetracker.fx.ConversionBatch;
+import com.expensetracker.fx.FxRateTable;
+import com.expensetracker.fx.FxRates;
+import com.expensetracker.writebehind.ExpenseWriteBehindBuffer;
+import com.expensetracker.writebehind.PendingExpense;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running monthly spend per budgeted (user, category), kept in memory so that budget alerts
+ * are evaluated on the write path without re-aggregating the ledger.
+ *
+ * {@link com.expensetracker.service.ExpenseService} reports every create, update and delete
+ * as a signed delta; once the transaction commits the delta is added to the month's counter
+ * and the configured thresholds are checked, which costs two map lookups and an atomic add.
+ * A counter is loaded from the ledger the first time its month is touched. Only the current
+ * and previous month are tracked, and only for categories that have a budget.
+ *
+ * An alert is raised at most once per user, category, month and threshold: the in-memory
+ * flag stops repeat attempts and the unique key on {@code budget_alerts} arbitrates between
+ * instances and restarts. Counters can drift from the ledger, through rows written by other
+ * instances or plain SQL and through races with the initial load, so a reconciliation pass
+ * re-aggregates the tracked months every {@code app.budgets.reconcile-interval} and swaps in
+ * the ledger total wherever no delta arrived in the meantime.
+ *
+ * Limits and totals are in the user's base currency. Amounts in other currencies are
+ * converted at the rate of their own date, the same way the expense summary converts them;
+ * after a change of base currency the user's totals are reloaded.
+ */
+@Component
+public class BudgetEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetEngine.class);
+
+    private static final String LIMITS_FOR_USER = "SELECT u.base_currency, b.category_id, b.monthly_limit "
+            + "FROM users u LEFT JOIN budgets b ON b.user_id = u.id WHERE u.id = ?";
+
+    private static final String LEDGER_TOTAL = "SELECT currency, date, SUM(amount) FROM expenses "
+            + "WHERE user_id = ? AND category_id = ? AND type = 'expense' AND date BETWEEN ? AND ? "
+            + "GROUP BY currency, date";
+
+    private static final String LEDGER_TOTALS = "SELECT e.user_id, e.category_id, e.currency, e.date, SUM(e.amount), "
+            + "u.base_currency FROM expenses e "
+            + "JOIN budgets b ON b.user_id = e.user_id AND b.category_id = e.category_id "
+            + "JOIN users u ON u.id = e.user_id "
+            + "WHERE e.type = 'expense' AND e.date BETWEEN ? AND ? "
+            + "GROUP BY e.user_id, e.category_id, e.currency, e.date, u.base_currency";
+
+    private static final String INSERT_ALERT = "INSERT INTO budget_alerts "
+            + "(user_id, category_id, period, threshold, spent, monthly_limit, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate alertTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpenseWriteBehindBuffer writeBehindBuffer;
+    private final FxRateTable fxRateTable;
+    private final int[] thresholds;
+    private final Duration reconcileInterval;
+    private final boolean shardingEnabled;
+
+    // Base currency and limit in cents per category, per user; users without budgets have no limits
+    private final ConcurrentHashMap<Long, Limits> limitsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<PeriodKey, Tally> tallies = new ConcurrentHashMap<>();
+
+    private final Counter[] alertCounters;
+    private final Counter correctionsCounter;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "budget-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BudgetEngine(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher eventPublisher,
+                        ObjectProvider<ExpenseWriteBehindBuffer> writeBehindBuffer,
+                        FxRateTable fxRateTable,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.budgets.alert-thresholds:80,100}") int[] thresholds,
+                        @Value("${app.budgets.reconcile-interval:5m}") Duration reconcileInterval,
+                        @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Alerts are written after the expense transaction has committed, so they need their own
+        this.alertTransaction = new TransactionTemplate(transactionManager);
+        this.alertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.fxRateTable = fxRateTable;
+        this.thresholds = Arrays.stream(thresholds).sorted().toArray();
+        this.reconcileInterval = reconcileInterval;
+        this.shardingEnabled = shardingEnabled;
+
+        this.alertCounters = new Counter[this.thresholds.length];
+        for (int i = 0; i < this.thresholds.length; i++) {
+            alertCounters[i] = Counter.builder("budget.alerts")
+                    .description("Budget threshold alerts raised")
+                    .tag("threshold", Integer.toString(this.thresholds[i]))
+                    .register(meterRegistry);
+        }
+        this.correctionsCounter = Counter.builder("budget.reconcile.corrections")
+                .description("Monthly budget totals corrected from the ledger")
+                .register(meterRegistry);
+        Gauge.builder("budget.tracked", tallies, Map::size)
+                .description("Budgeted user, category and month totals held in memory")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (shardingEnabled) {
+            // Budgets and expenses are spread over the shards; the reconciliation query is single-database
+            logger.warn("Budget totals are not reconciled while app.sharding is enabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::reconcileSafely, reconcileInterval.toMillis(),
+                reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts an expense towards its month once the current transaction commits.
+     *
+     * @param currency the expense's currency, or null for the user's base currency
+     */
+    public void record(Long userId, Long categoryId, LocalDate date, String type, BigDecimal amount,
+                       String currency) {
+        apply(userId, categoryId, date, type, toCents(amount), currency);
+    }
+
+    /**
+     * Takes back an expense previously counted by {@link #record}, e.g. before an update or
+     * on delete.
+     */
+    public void reverse(Long userId, Long categoryId, LocalDate date, String type, BigDecimal amount,
+                        String currency) {
+        apply(userId, categoryId, date, type, -toCents(amount), currency);
+    }
+
+    /**
+     * Drops the user's totals once the current transaction commits, so they are reloaded in
+     * the new base currency.
+     */
+    public void baseCurrencyChanged(Long userId) {
+        afterCommit(() -> {
+            limitsByUser.remove(userId);
+            tallies.keySet().removeIf(key -> key.userId() == userId);
+        });
+    }
+
+    /**
+     * Picks up a created, changed or removed budget once the current transaction commits. A
+     * lower limit can raise this month's alerts straight away.
+     */
+    public void budgetChanged(Long userId, Long categoryId) {
+        afterCommit(() -> {
+            limitsByUser.remove(userId);
+            long limit = limitCents(userId, categoryId);
+            if (limit == 0) {
+                tallies.keySet().removeIf(key -> key.userId() == userId && key.categoryId() == categoryId);
+                return;
+            }
+            PeriodKey key = new PeriodKey(userId, categoryId, YearMonth.now());
+            evaluate(key, tally(key), limit);
+        });
+    }
+
+    /**
+     * Spend towards a budget in the given month, including expenses still queued for the
+     * database.
+     */
+    public BigDecimal spent(Long userId, Long categoryId, YearMonth period) {
+        PeriodKey key = new PeriodKey(userId, categoryId, period);
+        if (!isTracked(period) || limitCents(userId, categoryId) == 0) {
+            return fromCents(loadCents(key));
+        }
+        return fromCents(tally(key).cents.get());
+    }
+
+    /**
+     * Re-aggregates every tracked month from the ledger and corrects totals that have drifted.
+     * Returns the number of totals corrected.
+     */
+    public int reconcile() {
+        YearMonth current = YearMonth.now();
+        tallies.keySet().removeIf(key -> !isTracked(key.period()));
+        // Budgets may have been changed on another instance
+        limitsByUser.clear();
+
+        Set<YearMonth> periods = new HashSet<>();
+        tallies.keySet().forEach(key -> periods.add(key.period()));
+        int corrected = 0;
+        for (YearMonth period : periods) {
+            Map<PeriodKey, Long> before = new HashMap<>();
+            tallies.forEach((key, tally) -> {
+                if (key.period().equals(period)) {
+                    before.put(key, tally.cents.get());
+                }
+            });
+
+            // One batch per base currency, each converting the day totals of the users in it
+            FxRates rates = fxRateTable.current();
+            Map<String, ConversionBatch> batches = new HashMap<>();
+            Map<String, List<PeriodKey>> batchKeys = new HashMap<>();
+            jdbcTemplate.query(LEDGER_TOTALS, rs -> {
+                String baseCurrency = baseCurrencyOr(rs.getString(6));
+                batches.computeIfAbsent(baseCurrency, base -> new ConversionBatch(rates, base, 64))
+                        .add(rs.getBigDecimal(5), rs.getString(3), rs.getDate(4).toLocalDate());
+                batchKeys.computeIfAbsent(baseCurrency, base -> new ArrayList<>())
+                        .add(new PeriodKey(rs.getLong(1), rs.getLong(2), period));
+            }, Date.valueOf(period.atDay(1)), Date.valueOf(period.atEndOfMonth()));
+            // Queued expenses are read after the ledger: one flushed in between is missed
+            // until the next pass rather than counted twice
+            Set<Long> users = new HashSet<>();
+            before.keySet().forEach(key -> users.add(key.userId()));
+            for (Long userId : users) {
+                String baseCurrency = limits(userId).baseCurrency();
+                for (PendingExpense pending : pendingFor(userId)) {
+                    if ("expense".equals(pending.type()) && YearMonth.from(pending.date()).equals(period)) {
+                        batches.computeIfAbsent(baseCurrency, base -> new ConversionBatch(rates, base, 64))
+                                .add(pending.amount(), pending.currency(), pending.date());
+                        batchKeys.computeIfAbsent(baseCurrency, base -> new ArrayList<>())
+                                .add(new PeriodKey(userId, pending.categoryId(), period));
+                    }
+                }
+            }
+            Map<PeriodKey, Long> ledger = new HashMap<>();
+            batches.forEach((baseCurrency, batch) -> {
+                long[] converted = batch.convertTo(baseCurrency);
+                List<PeriodKey> keys = batchKeys.get(baseCurrency);
+                for (int i = 0; i < converted.length; i++) {
+                    ledger.merge(keys.get(i), converted[i], Long::sum);
+                }
+            });
+
+            for (Map.Entry<PeriodKey, Long> entry : before.entrySet()) {
+                PeriodKey key = entry.getKey();
+                Tally tally = tallies.get(key);
+                long limit = limitCents(key.userId(), key.categoryId());
+                if (tally == null || limit == 0) {
+                    tallies.remove(key);
+                    continue;
+                }
+                long expected = ledger.getOrDefault(key, 0L);
+                // A delta that arrived since the snapshot makes the swap fail; the next pass retries
+                if (expected != entry.getValue() && tally.cents.compareAndSet(entry.getValue(), expected)) {
+                    corrected++;
+                    correctionsCounter.increment();
+                    logger.debug("Corrected budget total for user {} category {} in {}: {} -> {} cents",
+                            key.userId(), key.categoryId(), period, entry.getValue(), expected);
+                }
+                evaluate(key, tally, limit);
+            }
+        }
+        if (corrected > 0) {
+            logger.info("Budget reconciliation for {} corrected {} totals", current, corrected);
+        }
+        return corrected;
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Budget reconciliation failed, will retry", e);
+        }
+    }
+
+    private void apply(Long userId, Long categoryId, LocalDate date, String type, long delta, String currency) {
+        if (!"expense".equals(type) || delta == 0 || !isTracked(YearMonth.from(date))) {
+            return;
+        }
+        PeriodKey key = new PeriodKey(userId, categoryId, YearMonth.from(date));
+        afterCommit(() -> {
+            long limit = limitCents(userId, categoryId);
+            if (limit == 0) {
+                return;
+            }
+            Tally tally = tallies.get(key);
+            if (tally == null) {
+                // Loaded after the commit, so the ledger total already includes this delta
+                tally = tally(key);
+            } else {
+                tally.cents.addAndGet(toBaseCents(userId, delta, currency, date));
+            }
+            evaluate(key, tally, limit);
+        });
+    }
+
+    private void evaluate(PeriodKey key, Tally tally, long limit) {
+        long spent = tally.cents.get();
+        for (int i = 0; i < thresholds.length; i++) {
+            if (spent * 100 >= limit * thresholds[i] && tally.markAlerted(i)) {
+                raiseAlert(key, i, spent, limit, tally);
+            }
+        }
+    }
+
+    private void raiseAlert(PeriodKey key, int index, long spent, long limit, Tally tally) {
+        int threshold = thresholds[index];
+        try {
+            alertTransaction.executeWithoutResult(status -> jdbcTemplate.update(INSERT_ALERT,
+                    key.userId(), key.categoryId(), key.period().toString(), threshold, fromCents(spent),
+                    fromCents(limit), Timestamp.valueOf(LocalDateTime.now())));
+        } catch (DuplicateKeyException e) {
+            // Already raised this month, by this instance before a restart or by another one
+            return;
+        } catch (RuntimeException e) {
+            tally.clearAlerted(index);
+            logger.warn("Could not record budget alert for user {} category {}, will retry: {}",
+                    key.userId(), key.categoryId(), e.getMessage());
+            return;
+        }
+        alertCounters[index].increment();
+        logger.info("User {} reached {}% of the {} budget for category {} ({} of {})",
+                key.userId(), threshold, key.period(), key.categoryId(), fromCents(spent), fromCents(limit));
+        eventPublisher.publishEvent(new BudgetThresholdCrossedEvent(key.userId(), key.categoryId(), key.period(),
+                threshold, fromCents(spent), fromCents(limit)));
+    }
+
+    private Tally tally(PeriodKey key) {
+        Tally tally = tallies.get(key);
+        if (tally != null) {
+            return tally;
+        }
+        Tally loaded = new Tally(loadCents(key));
+        // A concurrent loader may have won; either total is close, and reconciliation settles the rest
+        Tally existing = tallies.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private long loadCents(PeriodKey key) {
+        String baseCurrency = limits(key.userId()).baseCurrency();
+        ConversionBatch batch = new ConversionBatch(fxRateTable.current(), baseCurrency, 32);
+        jdbcTemplate.query(LEDGER_TOTAL, rs -> {
+            batch.add(rs.getBigDecimal(3), rs.getString(1), rs.getDate(2).toLocalDate());
+        }, key.userId(), key.categoryId(), Date.valueOf(key.period().atDay(1)),
+                Date.valueOf(key.period().atEndOfMonth()));
+        for (PendingExpense pending : pendingFor(key.userId())) {
+            if ("expense".equals(pending.type()) && pending.categoryId().equals(key.categoryId())
+                    && YearMonth.from(pending.date()).equals(key.period())) {
+                batch.add(pending.amount(), pending.currency(), pending.date());
+            }
+        }
+        long cents = 0;
+        for (long converted : batch.convertTo(baseCurrency)) {
+            cents += converted;
+        }
+        return cents;
+    }
+
+    private long toBaseCents(Long userId, long cents, String currency, LocalDate date) {
+        String baseCurrency = limits(userId).baseCurrency();
+        if (currency == null || currency.equals(baseCurrency)) {
+            return cents;
+        }
+        ConversionBatch batch = new ConversionBatch(fxRateTable.current(), baseCurrency, 1);
+        batch.add(cents, currency, date.toEpochDay());
+        return batch.convertTo(baseCurrency)[0];
+    }
+
+    private long limitCents(Long userId, Long categoryId) {
+        return limits(userId).cents().getOrDefault(categoryId, 0L);
+    }
+
+    private Limits limits(Long userId) {
+        Limits limits = limitsByUser.get(userId);
+        if (limits == null) {
+            String[] baseCurrency = {null};
+            Map<Long, Long> loaded = new HashMap<>();
+            jdbcTemplate.query(LIMITS_FOR_USER, rs -> {
+                baseCurrency[0] = rs.getString(1);
+                long categoryId = rs.getLong(2);
+                if (!rs.wasNull()) {
+                    loaded.put(categoryId, toCents(rs.getBigDecimal(3)));
+                }
+            }, userId);
+            Limits created = new Limits(baseCurrencyOr(baseCurrency[0]), loaded);
+            Limits existing = limitsByUser.putIfAbsent(userId, created);
+            limits = existing != null ? existing : created;
+        }
+        return limits;
+    }
+
+    private String baseCurrencyOr(String userCurrency) {
+        return userCurrency != null ? userCurrency : fxRateTable.getBaseCurrency();
+    }
+
+    private Iterable<PendingExpense> pendingFor(Long userId) {
+        return writeBehindBuffer != null ? writeBehindBuffer.pendingFor(userId) : List.of();
+    }
+
+    private static boolean isTracked(YearMonth period) {
+        return !period.isBefore(YearMonth.now().minusMonths(1));
+    }
+
+    private static void afterCommit(Runnable task) {
+        Runnable safeTask = () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                // The expense is already committed; a missed update is corrected by reconciliation
+                logger.warn("Could not update budget totals: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeTask.run();
+                }
+            });
+        } else {
+            safeTask.run();
+        }
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private record PeriodKey(long userId, long categoryId, YearMonth period) {
+    }
+
+    private record Limits(String baseCurrency, Map<Long, Long> cents) {
+    }
+
+    private static final class Tally {
+
+        private final AtomicLong cents;
+        // Bit i is set once thresholds[i] has been alerted for this month
+        private final AtomicInteger alerted = new AtomicInteger();
+
+        Tally(long cents) {
+            this.cents = new AtomicLong(cents);
+        }
+
+        boolean markAlerted(int index) {
+            int bit = 1 << index;
+            return (alerted.getAndUpdate(flags -> flags | bit) & bit) == 0;
+        }
+
+        void clearAlerted(int index) {
+            int bit = 1 << index;
+            alerted.getAndUpdate(flags -> flags & ~bit);
+        }
+    }
+}
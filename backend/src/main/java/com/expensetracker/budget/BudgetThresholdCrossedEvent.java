@@ -0,0 +1,17 @@
+package com.expensetracker.budget;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Published once per user, category, month and threshold when spending reaches
+ * {@code threshold} percent of the monthly limit. Listeners run on the thread that made the
+ * change, after its transaction has committed.
+ */
+public record BudgetThresholdCrossedEvent(Long userId,
+                                          Long categoryId,
+                                          YearMonth period,
+                                          int threshold,
+                                          BigDecimal spent,
+                                          BigDecimal monthlyLimit) {
+}
@@ -0,0 +1,25 @@
+package com.expensetracker.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the bulkhead a handler runs in. Handlers without the annotation run in
+ * {@link #CRUD}. Each bulkhead has its own adaptive concurrency limit and wait queue, so slow
+ * analytics or export requests cannot take the capacity that cheap reads and writes need.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    String CRUD = "crud";
+    String ANALYTICS = "analytics";
+    String EXPORT = "export";
+    String IMPORT = "import";
+
+    String value();
+}
@@ -0,0 +1,250 @@
+package com.expensetracker.concurrency;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One bulkhead: an adaptive concurrency limit with a per-user fair wait queue.
+ *
+ * A request runs immediately while the bulkhead is under its limit and the caller holds less
+ * than {@code max-user-share} of it. Otherwise it waits in its user's queue; when a slot frees
+ * up, users below their share are served in round-robin order, so one user with many queued
+ * requests delays the others by at most one request each. A caller that already has a full
+ * share waiting is refused with 429, and a full queue or a wait past {@code queue-timeout}
+ * with 503.
+ */
+public class BulkheadLimiter {
+
+    private final String name;
+    private final GradientLimit limit;
+    private final double maxUserShare;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> inFlightByUser = new HashMap<>();
+    // Insertion order is the round-robin order; a served user is moved to the back
+    private final LinkedHashMap<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+    private int inFlight;
+    private int queued;
+
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    public BulkheadLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                           double maxUserShare, int maxQueue, Duration queueTimeout) {
+        this.name = name;
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit);
+        this.maxUserShare = maxUserShare;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+    }
+
+    /**
+     * Takes a slot for {@code user}, waiting in the fair queue if necessary.
+     *
+     * @throws BulkheadRejectedException if no slot can be granted
+     */
+    public Permit acquire(String user) {
+        Waiter waiter;
+        lock.lock();
+        try {
+            int userInFlight = inFlightByUser.getOrDefault(user, 0);
+            if (queued == 0 && inFlight < limit.getLimit() && userInFlight < userCap()) {
+                return grant(user);
+            }
+            ArrayDeque<Waiter> userQueue = queues.get(user);
+            if (userQueue != null && userQueue.size() >= userCap()) {
+                throttled.incrementAndGet();
+                throw new BulkheadRejectedException(HttpStatus.TOO_MANY_REQUESTS, 1,
+                        "Too many concurrent " + name + " requests for this user");
+            }
+            if (queued >= maxQueue) {
+                shed.incrementAndGet();
+                throw overloaded();
+            }
+            waiter = new Waiter(user);
+            queues.computeIfAbsent(user, key -> new ArrayDeque<>()).addLast(waiter);
+            queued++;
+            // Grants straight away if the only waiters ahead are users already at their share
+            dispatchWaiters();
+            if (waiter.permit != null) {
+                return waiter.permit;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        boolean granted = false;
+        try {
+            granted = waiter.latch.await(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (granted) {
+            return waiter.permit;
+        }
+
+        lock.lock();
+        try {
+            // The slot may have been handed over just as the wait ran out
+            if (waiter.permit != null) {
+                return waiter.permit;
+            }
+            ArrayDeque<Waiter> userQueue = queues.get(user);
+            if (userQueue != null && userQueue.remove(waiter)) {
+                queued--;
+                if (userQueue.isEmpty()) {
+                    queues.remove(user);
+                }
+            }
+            shed.incrementAndGet();
+            // A request that timed out in the queue is a sign of overload
+            limit.onSample(0, inFlight, true);
+            throw overloaded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slot and feeds the request's latency to the limit. {@code dropped} marks a
+     * request that failed on the server side, which backs the limit off.
+     */
+    public void release(Permit permit, boolean dropped) {
+        long rtt = System.nanoTime() - permit.startNanos;
+        lock.lock();
+        try {
+            limit.onSample(rtt, inFlight, dropped);
+            inFlight--;
+            inFlightByUser.computeIfPresent(permit.user, (key, count) -> count > 1 ? count - 1 : null);
+            dispatchWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchWaiters() {
+        while (queued > 0 && inFlight < limit.getLimit()) {
+            Waiter next = null;
+            Iterator<Map.Entry<String, ArrayDeque<Waiter>>> iterator = queues.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ArrayDeque<Waiter>> entry = iterator.next();
+                if (inFlightByUser.getOrDefault(entry.getKey(), 0) < userCap()) {
+                    next = entry.getValue().pollFirst();
+                    iterator.remove();
+                    if (!entry.getValue().isEmpty()) {
+                        queues.put(entry.getKey(), entry.getValue());
+                    }
+                    break;
+                }
+            }
+            if (next == null) {
+                // Every queued user is at its share; their own releases will dispatch them
+                return;
+            }
+            queued--;
+            next.permit = grant(next.user);
+            next.latch.countDown();
+        }
+    }
+
+    private Permit grant(String user) {
+        inFlight++;
+        inFlightByUser.merge(user, 1, Integer::sum);
+        return new Permit(user, System.nanoTime());
+    }
+
+    private int userCap() {
+        return Math.max(1, (int) Math.ceil(limit.getLimit() * maxUserShare));
+    }
+
+    private BulkheadRejectedException overloaded() {
+        long retryAfter = Math.max(1, queueTimeout.toSeconds());
+        return new BulkheadRejectedException(HttpStatus.SERVICE_UNAVAILABLE, retryAfter,
+                "The " + name + " bulkhead is saturated");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit.getLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public double getShortRttMillis() {
+        lock.lock();
+        try {
+            return limit.getShortRttMillis();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLongRttMillis() {
+        lock.lock();
+        try {
+            return limit.getLongRttMillis();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getShed() {
+        return shed.get();
+    }
+
+    public static final class Permit {
+
+        private final String user;
+        private final long startNanos;
+
+        private Permit(String user, long startNanos) {
+            this.user = user;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final String user;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Permit permit;
+
+        Waiter(String user) {
+            this.user = user;
+        }
+    }
+}
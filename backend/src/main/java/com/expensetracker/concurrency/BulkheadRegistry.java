@@ -0,0 +1,76 @@
+package com.expensetracker.concurrency;
+
+import com.expensetracker.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates one {@link BulkheadLimiter} per bulkhead name on first use and publishes its
+ * state as {@code http.bulkhead.*} meters tagged with the bulkhead name.
+ */
+public class BulkheadRegistry {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, BulkheadLimiter> limiters = new ConcurrentHashMap<>();
+
+    public BulkheadRegistry(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        // Known bulkheads are created up front so their meters exist before the first request
+        for (String name : new String[] {Bulkhead.CRUD, Bulkhead.ANALYTICS, Bulkhead.EXPORT, Bulkhead.IMPORT}) {
+            get(name);
+        }
+    }
+
+    public BulkheadLimiter get(String name) {
+        return limiters.computeIfAbsent(name, this::create);
+    }
+
+    public Collection<BulkheadLimiter> all() {
+        return limiters.values();
+    }
+
+    private BulkheadLimiter create(String name) {
+        ConcurrencyLimitProperties.BulkheadSettings settings = properties.settingsFor(name);
+        BulkheadLimiter limiter = new BulkheadLimiter(name, settings.getInitialLimit(), settings.getMinLimit(),
+                settings.getMaxLimit(), settings.getMaxUserShare(), settings.getMaxQueue(),
+                settings.getQueueTimeout());
+
+        Gauge.builder("http.bulkhead.limit", limiter, BulkheadLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.inflight", limiter, BulkheadLimiter::getInFlight)
+                .description("Requests currently running in the bulkhead")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.queued", limiter, BulkheadLimiter::getQueued)
+                .description("Requests waiting for a slot in the bulkhead")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.latency.short", limiter, BulkheadLimiter::getShortRttMillis)
+                .description("Recent average request latency")
+                .tag("bulkhead", name)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.latency.long", limiter, BulkheadLimiter::getLongRttMillis)
+                .description("Long-run baseline request latency")
+                .tag("bulkhead", name)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        FunctionCounter.builder("http.bulkhead.rejected", limiter, BulkheadLimiter::getThrottled)
+                .description("Requests refused because the user already had its share waiting")
+                .tags("bulkhead", name, "reason", "user")
+                .register(meterRegistry);
+        FunctionCounter.builder("http.bulkhead.rejected", limiter, BulkheadLimiter::getShed)
+                .description("Requests refused because the bulkhead was saturated")
+                .tags("bulkhead", name, "reason", "overload")
+                .register(meterRegistry);
+        return limiter;
+    }
+}
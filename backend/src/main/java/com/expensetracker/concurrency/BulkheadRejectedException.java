@@ -0,0 +1,27 @@
+package com.expensetracker.concurrency;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A request could not get a slot in its bulkhead. {@code 429} means the caller already holds
+ * its share of the bulkhead; {@code 503} means the bulkhead as a whole is saturated.
+ */
+public class BulkheadRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public BulkheadRejectedException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
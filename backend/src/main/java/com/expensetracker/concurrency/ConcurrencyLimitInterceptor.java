@@ -0,0 +1,83 @@
+package com.expensetracker.concurrency;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Puts each handler call through the bulkhead named by its {@link Bulkhead} annotation,
+ * keyed by the authenticated user. The slot is held until the response completes, including
+ * the async part of a streaming response, and the observed latency adjusts the limit.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+    private static final String LIMITER_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".limiter";
+
+    private final BulkheadRegistry registry;
+
+    public ConcurrencyLimitInterceptor(BulkheadRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || request.getDispatcherType() == DispatcherType.ASYNC
+                || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+
+        BulkheadLimiter limiter = registry.get(bulkheadFor(handlerMethod));
+        try {
+            request.setAttribute(PERMIT_ATTRIBUTE, limiter.acquire(userKey(request)));
+            request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+            return true;
+        } catch (BulkheadRejectedException e) {
+            response.setStatus(e.getStatus().value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Error: " + e.getMessage() + "!");
+            return false;
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        BulkheadLimiter.Permit permit = (BulkheadLimiter.Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit == null) {
+            return;
+        }
+        BulkheadLimiter limiter = (BulkheadLimiter) request.getAttribute(LIMITER_ATTRIBUTE);
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        request.removeAttribute(LIMITER_ATTRIBUTE);
+        // Server-side failures back the limit off; client errors say nothing about capacity
+        boolean dropped = ex != null || response.getStatus() >= 500;
+        limiter.release(permit, dropped);
+    }
+
+    private static String bulkheadFor(HandlerMethod handlerMethod) {
+        Bulkhead bulkhead = handlerMethod.getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        }
+        return bulkhead != null ? bulkhead.value() : Bulkhead.CRUD;
+    }
+
+    private static String userKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return authentication.getName();
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,76 @@
+package com.expensetracker.concurrency;
+
+/**
+ * Latency-driven concurrency limit in the style of Netflix's Gradient2.
+ *
+ * Two moving averages of request latency are kept: a short one that follows the current
+ * load and a long one that approximates the unloaded baseline. While the short average stays
+ * near the baseline the limit grows by a queue allowance of {@code sqrt(limit)}; as queueing
+ * pushes latency up the ratio between them falls below one and the limit shrinks in
+ * proportion. A failed or timed-out request cuts the limit multiplicatively (AIMD backoff).
+ *
+ * Not thread-safe; {@link BulkheadLimiter} calls it under its lock.
+ */
+class GradientLimit {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.max(1, Math.min(minLimit, this.maxLimit));
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+    }
+
+    int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    double getShortRttMillis() {
+        return shortRtt / 1_000_000.0;
+    }
+
+    double getLongRttMillis() {
+        return longRtt / 1_000_000.0;
+    }
+
+    void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF);
+            return;
+        }
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+            longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+        }
+
+        // Let the baseline drift down quickly after a sustained latency drop
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Under light load latency says nothing about the limit, so leave it alone
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double queueAllowance = Math.sqrt(estimatedLimit);
+        double target = estimatedLimit * gradient + queueAllowance;
+        double smoothed = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+}
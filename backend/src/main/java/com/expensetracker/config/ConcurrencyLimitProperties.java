@@ -0,0 +1,138 @@
+package com.expensetracker.config;
+
+import com.expensetracker.concurrency.Bulkhead;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bulkhead limits bound from {@code app.concurrency.*}, one block per {@link Bulkhead} name.
+ * The analytics, export and import bulkheads start smaller than CRUD since each of their
+ * requests holds a connection for longer.
+ */
+@ConfigurationProperties(prefix = "app.concurrency")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+    private BulkheadSettings crud = new BulkheadSettings();
+    private BulkheadSettings analytics = BulkheadSettings.expensive();
+    private BulkheadSettings export = BulkheadSettings.expensive();
+    private BulkheadSettings importing = BulkheadSettings.expensive();
+
+    public BulkheadSettings settingsFor(String bulkhead) {
+        return switch (bulkhead) {
+            case Bulkhead.ANALYTICS -> analytics;
+            case Bulkhead.EXPORT -> export;
+            case Bulkhead.IMPORT -> importing;
+            default -> crud;
+        };
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public BulkheadSettings getCrud() {
+        return crud;
+    }
+
+    public void setCrud(BulkheadSettings crud) {
+        this.crud = crud;
+    }
+
+    public BulkheadSettings getAnalytics() {
+        return analytics;
+    }
+
+    public void setAnalytics(BulkheadSettings analytics) {
+        this.analytics = analytics;
+    }
+
+    public BulkheadSettings getExport() {
+        return export;
+    }
+
+    public void setExport(BulkheadSettings export) {
+        this.export = export;
+    }
+
+    public BulkheadSettings getImport() {
+        return importing;
+    }
+
+    public void setImport(BulkheadSettings importing) {
+        this.importing = importing;
+    }
+
+    public static class BulkheadSettings {
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private double maxUserShare = 0.5;
+        private int maxQueue = 100;
+        private Duration queueTimeout = Duration.ofSeconds(2);
+
+        static BulkheadSettings expensive() {
+            BulkheadSettings settings = new BulkheadSettings();
+            settings.setInitialLimit(4);
+            settings.setMinLimit(1);
+            settings.setMaxLimit(20);
+            settings.setMaxQueue(20);
+            settings.setQueueTimeout(Duration.ofSeconds(5));
+            return settings;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getMaxUserShare() {
+            return maxUserShare;
+        }
+
+        public void setMaxUserShare(double maxUserShare) {
+            this.maxUserShare = maxUserShare;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.expensetracker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Response encoding options for large expense histories.
+ *
+ * Clients that send {@code Accept: application/cbor} receive the same DTOs encoded as CBOR,
+ * and text responses above {@code app.compression.min-response-size} are gzip-compressed
+ * when the client advertises support for it.
+ */
+@Configuration
+public class ContentNegotiationConfig {
+
+    @Value("${app.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${app.compression.min-response-size:2KB}")
+    private DataSize compressionMinResponseSize;
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        // Reuse Boot's builder so CBOR output honours the same modules and date handling as JSON
+        ObjectMapper cborMapper = builder.factory(new CBORFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> responseCompressionCustomizer() {
+        return factory -> {
+            if (!compressionEnabled) {
+                return;
+            }
+            Compression compression = new Compression();
+            compression.setEnabled(true);
+            compression.setMinResponseSize(compressionMinResponseSize);
+            compression.setMimeTypes(new String[] {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    MediaType.APPLICATION_CBOR_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE,
+                    MediaType.TEXT_PLAIN_VALUE,
+                    MediaType.TEXT_HTML_VALUE
+            });
+            factory.setCompression(compression);
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.expensetracker.config;
+
+import com.expensetracker.datasource.ConcurrencyLimitingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a semaphore in front of the application DataSource when requests run on virtual
+ * threads ({@code spring.threads.virtual.enabled=true}) or when
+ * {@code app.datasource.max-concurrent-connections} is set explicitly.
+ */
+@Configuration
+public class DatabaseConcurrencyConfig {
+
+    private static final String APPLICATION_DATA_SOURCE = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment,
+                                                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        int maxConcurrentConnections = environment.getProperty(
+                "app.datasource.max-concurrent-connections", Integer.class, virtualThreads ? 10 : 0);
+        Duration acquireTimeout = environment.getProperty(
+                "app.datasource.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (maxConcurrentConnections <= 0 || !APPLICATION_DATA_SOURCE.equals(beanName)
+                        || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                ConcurrencyLimitingDataSource limited =
+                        new ConcurrencyLimitingDataSource(dataSource, maxConcurrentConnections, acquireTimeout);
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("db.permits.available", limited, ConcurrencyLimitingDataSource::getAvailablePermits)
+                            .register(registry);
+                    Gauge.builder("db.permits.waiting", limited, ConcurrencyLimitingDataSource::getQueueLength)
+                            .register(registry);
+                });
+                return limited;
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.expensetracker.config;
 
+import com.expensetracker.util.RequestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -31,7 +32,7 @@ public class LoggingConfig implements WebMvcConfigurer {
                 jakarta.servlet.http.HttpServletResponse response,
                 Object handler) throws Exception {
 
-            String clientIP = getClientIP(request);
+            String clientIP = RequestUtil.getClientIP(request);
             String userAgent = request.getHeader("User-Agent");
 
             requestLogger.info("REQUEST - Method: {}, URI: {}, ClientIP: {}, UserAgent: {}, SessionID: {}",
@@ -70,19 +71,5 @@ public class LoggingConfig implements WebMvcConfigurer {
                 requestLogger.error("EXCEPTION in request processing", ex);
             }
         }
-
-        private String getClientIP(jakarta.servlet.http.HttpServletRequest request) {
-            String xForwardedFor = request.getHeader("X-Forwarded-For");
-            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-                return xForwardedFor.split(",")[0].trim();
-            }
-
-            String xRealIP = request.getHeader("X-Real-IP");
-            if (xRealIP != null && !xRealIP.isEmpty()) {
-                return xRealIP;
-            }
-
-            return request.getRemoteAddr();
-        }
     }
 }
@@ -0,0 +1,66 @@
+package com.expensetracker.config;
+
+import com.expensetracker.observability.ObservedDataSource;
+import com.expensetracker.observability.SqlCaptureFilter;
+import com.expensetracker.observability.SqlStatistics;
+import com.expensetracker.observability.SqlStatsEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Times every JDBC statement by fingerprint, logs slow ones and flags requests that repeat
+ * the same statement often enough to look like an N+1. Results are published as metrics
+ * and through the {@code sqlstats} actuator endpoint.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sql.observability", name = "enabled", matchIfMissing = true)
+public class QueryObservabilityConfig {
+
+    private static final String APPLICATION_DATA_SOURCE = "dataSource";
+
+    @Bean
+    public SqlStatistics sqlStatistics(MeterRegistry meterRegistry,
+                                       @Value("${app.sql.slow-threshold:200ms}") Duration slowThreshold,
+                                       @Value("${app.sql.n-plus-one-threshold:10}") int nPlusOneThreshold,
+                                       @Value("${app.sql.window:5m}") Duration window,
+                                       @Value("${app.sql.max-fingerprints:2000}") int maxFingerprints) {
+        return new SqlStatistics(meterRegistry, slowThreshold, nPlusOneThreshold, window, maxFingerprints);
+    }
+
+    @Bean
+    public static BeanPostProcessor observedDataSourcePostProcessor(ObjectProvider<SqlStatistics> statistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!APPLICATION_DATA_SOURCE.equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return new ObservedDataSource(dataSource, statistics.getObject());
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlCaptureFilter> sqlCaptureFilter(SqlStatistics statistics) {
+        FilterRegistrationBean<SqlCaptureFilter> registration =
+                new FilterRegistrationBean<>(new SqlCaptureFilter(statistics));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(SqlStatistics statistics,
+                                             @Value("${app.sql.top-k:20}") int topK) {
+        return new SqlStatsEndpoint(statistics, topK);
+    }
+}
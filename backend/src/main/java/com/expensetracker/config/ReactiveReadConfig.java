@@ -0,0 +1,60 @@
+package com.expensetracker.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+/**
+ * Non-blocking connection pool for the reactive read endpoints, enabled with
+ * {@code app.reactive.enabled=true} and an {@code app.reactive.r2dbc.url}
+ * such as {@code r2dbc:mysql://localhost:3306/expense_tracker}.
+ *
+ * The reactive endpoints read the {@code expenses} table of one database, so they refuse to
+ * start next to features that keep a user's expenses elsewhere.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.reactive", name = "enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    public ReactiveReadConfig(@Value("${app.archive.enabled:false}") boolean archiveEnabled,
+                              @Value("${app.write-behind.enabled:false}") boolean writeBehindEnabled,
+                              @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        if (archiveEnabled || writeBehindEnabled || shardingEnabled) {
+            throw new IllegalStateException(
+                    "app.reactive cannot be combined with app.archive, app.write-behind or app.sharding");
+        }
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool reactiveConnectionFactory(
+            @Value("${app.reactive.r2dbc.url}") String url,
+            @Value("${app.reactive.r2dbc.username:${spring.datasource.username:}}") String username,
+            @Value("${app.reactive.r2dbc.password:${spring.datasource.password:}}") String password,
+            @Value("${app.reactive.r2dbc.max-size:20}") int maxSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (StringUtils.hasText(username)) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (StringUtils.hasText(password)) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .maxSize(maxSize)
+                .name("reactive-read")
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(ConnectionPool reactiveConnectionFactory) {
+        return DatabaseClient.create(reactiveConnectionFactory);
+    }
+}
@@ -0,0 +1,53 @@
+package com.expensetracker.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Hibernate second-level and query cache backed by Ehcache through JCache.
+ *
+ * Only entities annotated with {@code @Cacheable} and queries carrying the
+ * {@code org.hibernate.cacheable} hint are cached; regions and their bounds are defined in
+ * {@code ehcache.xml}. With statistics on, Spring Boot publishes them as
+ * {@code hibernate.second.level.cache.*} and {@code hibernate.cache.query.*} metrics.
+ * Disable with {@code app.cache.second-level.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.cache.second-level", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            ResourceLoader resourceLoader,
+            @Value("${app.cache.config-uri:classpath:ehcache.xml}") String configUri,
+            @Value("${app.cache.statistics.enabled:true}") boolean statistics) {
+        Resource config = resourceLoader.getResource(configUri);
+        String resolvedUri;
+        try {
+            resolvedUri = config.getURI().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cache configuration " + configUri + " not found", e);
+        }
+
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.PROVIDER, "org.ehcache.jsr107.EhcacheCachingProvider");
+            properties.put(ConfigSettings.CONFIG_URI, resolvedUri);
+            // Regions missing from the XML are created with defaults and logged, not silently unbounded
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+}
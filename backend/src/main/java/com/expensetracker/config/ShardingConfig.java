@@ -0,0 +1,205 @@
+package com.expensetracker.config;
+
+import com.expensetracker.datasource.ShardDirectory;
+import com.expensetracker.datasource.ShardFanOut;
+import com.expensetracker.datasource.ShardIdInterleaving;
+import com.expensetracker.datasource.ShardRebalancer;
+import com.expensetracker.datasource.ShardReferenceDataSync;
+import com.expensetracker.datasource.ShardRoutingDataSource;
+import com.expensetracker.datasource.ShardSelectionFilter;
+import com.expensetracker.datasource.ShardStatsEndpoint;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * User-id sharding, enabled with {@code app.sharding.enabled=true} and one
+ * {@code app.sharding.shards[n]} entry per shard.
+ *
+ * Every shard carries the full schema. Shard 0 is the directory: it owns users, categories
+ * and the shard override table, and serves unauthenticated requests. Authenticated requests
+ * are routed to the user's shard by {@link ShardSelectionFilter}. Categories created on the
+ * directory reach the other shards on the next directory poll. Admin reads that span
+ * shards go through {@link ShardFanOut}, e.g. the {@code shards} actuator endpoint.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig implements DisposableBean {
+
+    private final ShardingProperties shardingProperties;
+    private final List<HikariDataSource> shardDataSources = new ArrayList<>();
+    private final ExecutorService fanOutExecutor;
+
+    public ShardingConfig(ShardingProperties shardingProperties,
+                          DataSourceProperties dataSourceProperties,
+                          @Value("${app.datasource.replica.url:}") String replicaUrl) {
+        if (StringUtils.hasText(replicaUrl)) {
+            throw new IllegalStateException("app.sharding and app.datasource.replica cannot be enabled together");
+        }
+        if (shardingProperties.getShards().isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled requires at least one app.sharding.shards entry");
+        }
+        this.shardingProperties = shardingProperties;
+
+        int shardCount = shardingProperties.getShards().size();
+        for (int index = 0; index < shardCount; index++) {
+            shardDataSources.add(createShardDataSource(index, shardCount, dataSourceProperties));
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private HikariDataSource createShardDataSource(int index, int shardCount, DataSourceProperties defaults) {
+        ShardingProperties.Shard shard = shardingProperties.getShards().get(index);
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(defaults.determineDriverClassName())
+                .url(shard.getUrl())
+                .username(StringUtils.hasText(shard.getUsername()) ? shard.getUsername() : defaults.determineUsername())
+                .password(StringUtils.hasText(shard.getPassword()) ? shard.getPassword() : defaults.determinePassword())
+                .build();
+        dataSource.setPoolName("shard-" + index);
+        dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+        // Other databases are interleaved once the schema exists, see interleaveIdentityColumns
+        if (shardingProperties.isInterleaveIds() && ShardIdInterleaving.supportsSessionVariables(shard.getUrl())) {
+            dataSource.setConnectionInitSql(ShardIdInterleaving.connectionInitSql(index, shardCount));
+        }
+        return dataSource;
+    }
+
+    private List<JdbcTemplate> shardJdbcTemplates() {
+        List<JdbcTemplate> templates = new ArrayList<>();
+        for (DataSource dataSource : shardDataSources) {
+            templates.add(new JdbcTemplate(dataSource));
+        }
+        return templates;
+    }
+
+    @Bean(destroyMethod = "stop")
+    public ShardDirectory shardDirectory() {
+        ShardDirectory directory = new ShardDirectory(shardDataSources.size(),
+                new JdbcTemplate(shardDataSources.get(ShardDirectory.DIRECTORY_SHARD)),
+                shardingProperties.getDirectoryPollInterval(), shardingProperties.getNodeTimeout());
+        directory.initialize();
+        return directory;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDirectory shardDirectory) {
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shardDirectory);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int index = 0; index < shardDataSources.size(); index++) {
+            targets.put(index, shardDataSources.get(index));
+        }
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shardDataSources.get(ShardDirectory.DIRECTORY_SHARD));
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ShardReferenceDataSync shardReferenceDataSync(ShardDirectory shardDirectory) {
+        return new ShardReferenceDataSync(shardJdbcTemplates(), shardDirectory);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardDirectory shardDirectory, ShardReferenceDataSync referenceDataSync) {
+        return new ShardRebalancer(shardDirectory, shardJdbcTemplates(), referenceDataSync,
+                shardingProperties.getRebalanceBatchSize(), shardingProperties.getRebalanceDrainTimeout());
+    }
+
+    @Bean
+    public ShardFanOut shardFanOut() {
+        return new ShardFanOut(shardJdbcTemplates(), fanOutExecutor);
+    }
+
+    @Bean
+    public ShardStatsEndpoint shardStatsEndpoint(ShardFanOut shardFanOut, ShardDirectory shardDirectory,
+                                                 @Value("${app.sharding.top-users:20}") int topUsers) {
+        return new ShardStatsEndpoint(shardFanOut, shardDirectory, topUsers);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ShardSelectionFilter> shardSelectionFilter(ShardDirectory shardDirectory,
+                                                                              ShardReferenceDataSync referenceDataSync) {
+        FilterRegistrationBean<ShardSelectionFilter> registration =
+                new FilterRegistrationBean<>(new ShardSelectionFilter(shardDirectory, referenceDataSync));
+        // Directly after Spring Security, once the JWT has been turned into a principal
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void syncReferenceData(ApplicationReadyEvent event) {
+        ShardDirectory shardDirectory = event.getApplicationContext().getBean(ShardDirectory.class);
+        ShardReferenceDataSync referenceDataSync = event.getApplicationContext().getBean(ShardReferenceDataSync.class);
+        referenceDataSync.syncCategories();
+        shardDirectory.afterEachPoll(referenceDataSync::syncCategoriesIfChanged);
+    }
+
+    /**
+     * Interleaves the identity columns of shards whose database has no session variables for
+     * it (H2 in development and tests). Runs once the schema has been created.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void interleaveIdentityColumns() {
+        if (!shardingProperties.isInterleaveIds()) {
+            return;
+        }
+        int shardCount = shardDataSources.size();
+        for (int index = 0; index < shardCount; index++) {
+            if (!ShardIdInterleaving.supportsSessionVariables(shardingProperties.getShards().get(index).getUrl())) {
+                ShardIdInterleaving.applyToIdentityColumns(shardDataSources.get(index), index, shardCount);
+            }
+        }
+    }
+
+    /**
+     * Offline rebalancing tool: start the application with
+     * {@code --app.sharding.rebalance.user-id=42 --app.sharding.rebalance.target-shard=3}
+     * (optionally with {@code --spring.main.web-application-type=none}) to move one user.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding.rebalance", name = "user-id")
+    public ApplicationRunner shardRebalanceRunner(ShardRebalancer shardRebalancer,
+            @Value("${app.sharding.rebalance.user-id}") Long userId,
+            @Value("${app.sharding.rebalance.target-shard}") int targetShard) {
+        return args -> shardRebalancer.moveUser(userId, targetShard);
+    }
+
+    @Override
+    public void destroy() {
+        fanOutExecutor.shutdownNow();
+        shardDataSources.forEach(HikariDataSource::close);
+    }
+}
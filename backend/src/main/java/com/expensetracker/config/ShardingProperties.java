@@ -0,0 +1,119 @@
+package com.expensetracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shard pools bound from {@code app.sharding.*}. Shard 0 is the directory shard that also
+ * holds the canonical users and categories tables.
+ */
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    private boolean interleaveIds = true;
+    private int rebalanceBatchSize = 1000;
+    private Duration rebalanceDrainTimeout = Duration.ofMinutes(2);
+    private Duration directoryPollInterval = Duration.ofSeconds(1);
+    private Duration nodeTimeout = Duration.ofSeconds(30);
+    private List<Shard> shards = new ArrayList<>();
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isInterleaveIds() {
+        return interleaveIds;
+    }
+
+    public void setInterleaveIds(boolean interleaveIds) {
+        this.interleaveIds = interleaveIds;
+    }
+
+    public int getRebalanceBatchSize() {
+        return rebalanceBatchSize;
+    }
+
+    public void setRebalanceBatchSize(int rebalanceBatchSize) {
+        this.rebalanceBatchSize = rebalanceBatchSize;
+    }
+
+    public Duration getRebalanceDrainTimeout() {
+        return rebalanceDrainTimeout;
+    }
+
+    public void setRebalanceDrainTimeout(Duration rebalanceDrainTimeout) {
+        this.rebalanceDrainTimeout = rebalanceDrainTimeout;
+    }
+
+    public Duration getDirectoryPollInterval() {
+        return directoryPollInterval;
+    }
+
+    public void setDirectoryPollInterval(Duration directoryPollInterval) {
+        this.directoryPollInterval = directoryPollInterval;
+    }
+
+    public Duration getNodeTimeout() {
+        return nodeTimeout;
+    }
+
+    public void setNodeTimeout(Duration nodeTimeout) {
+        this.nodeTimeout = nodeTimeout;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.expensetracker.controller;
 
 import com.expensetracker.dto.AuthResponse;
+import com.expensetracker.dto.AvailabilityResponse;
 import com.expensetracker.dto.LoginRequest;
 import com.expensetracker.dto.RegisterRequest;
 import com.expensetracker.entity.User;
 import com.expensetracker.security.JwtUtils;
+import com.expensetracker.security.LoginOverloadedException;
+import com.expensetracker.security.LoginThrottle;
+import com.expensetracker.security.PasswordHashingExecutor;
 import com.expensetracker.security.UserPrincipal;
+import com.expensetracker.service.DuplicateAccountException;
 import com.expensetracker.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -35,11 +44,36 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    LoginThrottle loginThrottle;
+
     @PostMapping("/login")
     @CrossOrigin()
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                              HttpServletRequest request) {
+        // Keyed on the peer address; server.forward-headers-strategy resolves it behind a trusted proxy
+        String clientIp = request.getRemoteAddr();
+        long retryAfter = loginThrottle.tryAcquire(clientIp, loginRequest.getEmail());
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body("Error: Too many login attempts, please try again later!");
+        }
+
+        Authentication authentication;
+        try {
+            // BCrypt verification runs on the bounded hashing pool, not the request thread
+            authentication = passwordHashingExecutor.execute(() -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())));
+        } catch (LoginOverloadedException e) {
+            return serviceBusy();
+        } catch (BadCredentialsException e) {
+            loginThrottle.recordFailure(clientIp, loginRequest.getEmail());
+            throw e;
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
@@ -53,26 +87,55 @@ public class AuthController {
 
     @PostMapping("/register")
     @CrossOrigin()
-    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest signUpRequest) {
-        if (userService.existsByUsername(signUpRequest.getUsername())) {
-            return ResponseEntity
-                    .badRequest()
-                    .body("Error: Username is already taken!");
+    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest signUpRequest,
+                                          HttpServletRequest request) {
+        long retryAfter = loginThrottle.tryAcquire(request.getRemoteAddr(), null);
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body("Error: Too many requests, please try again later!");
         }
 
-        if (userService.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity
-                    .badRequest()
-                    .body("Error: Email is already in use!");
+        String encodedPassword;
+        try {
+            encodedPassword = passwordHashingExecutor.execute(() -> encoder.encode(signUpRequest.getPassword()));
+        } catch (LoginOverloadedException e) {
+            return serviceBusy();
         }
 
         // Create new user's account
         User user = new User(signUpRequest.getUsername(),
                 signUpRequest.getEmail(),
-                encoder.encode(signUpRequest.getPassword()));
+                encodedPassword);
 
-        userService.saveUser(user);
+        try {
+            userService.createUser(user);
+        } catch (DuplicateAccountException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body("Error: " + e.getMessage() + "!");
+        }
 
         return ResponseEntity.ok("User registered successfully!");
     }
+
+    @GetMapping("/availability")
+    @CrossOrigin()
+    public ResponseEntity<AvailabilityResponse> checkAvailability(@RequestParam(required = false) String username,
+                                                                  @RequestParam(required = false) String email) {
+        AvailabilityResponse response = new AvailabilityResponse();
+        if (username != null && !username.isBlank()) {
+            response.setUsernameAvailable(userService.isUsernameAvailable(username));
+        }
+        if (email != null && !email.isBlank()) {
+            response.setEmailAvailable(userService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<String> serviceBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Error: Server is busy, please try again shortly!");
+    }
 }
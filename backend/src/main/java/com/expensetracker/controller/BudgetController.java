@@ -0,0 +1,61 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.dto.BudgetAlertResponse;
+import com.expensetracker.dto.BudgetRequest;
+import com.expensetracker.dto.BudgetResponse;
+import com.expensetracker.entity.User;
+import com.expensetracker.service.BudgetService;
+import com.expensetracker.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.time.YearMonth;
+import java.util.List;
+
+@CrossOrigin()
+@RestController
+@RequestMapping("/budgets")
+public class BudgetController {
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping
+    @CrossOrigin()
+    public ResponseEntity<List<BudgetResponse>> getBudgets(Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        return ResponseEntity.ok(budgetService.getBudgetsByUser(user));
+    }
+
+    @PutMapping
+    @CrossOrigin()
+    public ResponseEntity<BudgetResponse> setBudget(@Valid @RequestBody BudgetRequest request,
+                                                    Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        return ResponseEntity.ok(budgetService.setBudget(request, user));
+    }
+
+    @DeleteMapping("/{id}")
+    @CrossOrigin()
+    public ResponseEntity<Void> deleteBudget(@PathVariable Long id, Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        budgetService.deleteBudget(id, user);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/alerts")
+    @CrossOrigin()
+    public ResponseEntity<List<BudgetAlertResponse>> getAlerts(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        return ResponseEntity.ok(budgetService.getAlertsByUser(user, month != null ? month : YearMonth.now()));
+    }
+}
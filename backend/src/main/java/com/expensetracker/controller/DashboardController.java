@@ -0,0 +1,50 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.concurrency.Bulkhead;
+import com.expensetracker.dto.DashboardResponse;
+import com.expensetracker.entity.User;
+import com.expensetracker.service.DashboardService;
+import com.expensetracker.service.DashboardUnavailableException;
+import com.expensetracker.service.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/dashboard")
+@CrossOrigin()
+public class DashboardController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final DashboardService dashboardService;
+    private final UserService userService;
+
+    public DashboardController(DashboardService dashboardService, UserService userService) {
+        this.dashboardService = dashboardService;
+        this.userService = userService;
+    }
+
+    @GetMapping
+    @CrossOrigin()
+    @Bulkhead(Bulkhead.ANALYTICS)
+    public ResponseEntity<DashboardResponse> getDashboard(@RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "20") int size,
+                                                          Authentication authentication) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // The user is resolved once and shared by every sub-query
+        User user = userService.findByEmail(authentication.getName());
+        try {
+            return ResponseEntity.ok(dashboardService.getDashboard(user, page, size));
+        } catch (DashboardUnavailableException e) {
+            return ResponseEntity.status(e.getStatus()).build();
+        }
+    }
+}
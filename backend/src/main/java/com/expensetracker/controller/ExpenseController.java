@@ -1,12 +1,19 @@
 package com.expensetracker.controller;
 
+import com.expensetracker.concurrency.Bulkhead;
+import com.expensetracker.dto.ExpenseField;
 import com.expensetracker.dto.ExpenseRequest;
 import com.expensetracker.dto.ExpenseResponse;
 import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.dto.NormalizedExpenseListResponse;
+import com.expensetracker.dto.TagSummaryResponse;
+import com.expensetracker.dto.TitleSuggestionResponse;
 import com.expensetracker.entity.User;
+import com.expensetracker.idempotency.IdempotencyStore;
 import com.expensetracker.service.ExpenseService;
 import com.expensetracker.service.UserService;
 import com.expensetracker.util.AuthUtil;
+import com.expensetracker.writebehind.ExpenseWriteBehindBuffer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +22,8 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @CrossOrigin()
 @RestController
@@ -30,6 +39,9 @@ public class ExpenseController {
     @Autowired
     private AuthUtil authUtil;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @GetMapping
     @CrossOrigin()
     public ResponseEntity<List<ExpenseResponse>> getAllExpenses(Authentication authentication) {
@@ -40,13 +52,40 @@ public class ExpenseController {
         return ResponseEntity.ok(expenses);
     }
 
+    @GetMapping(params = "fields")
+    @CrossOrigin()
+    public ResponseEntity<List<Map<String, Object>>> getAllExpensesWithFields(@RequestParam String fields,
+                                                                            Authentication authentication) {
+        Set<ExpenseField> requestedFields;
+        try {
+            requestedFields = ExpenseField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        User user = userService.findByEmail(authentication.getName());
+        List<Map<String, Object>> expenses = expenseService.getAllExpensesByUser(user, requestedFields);
+        return ResponseEntity.ok(expenses);
+    }
+
+    @GetMapping(params = "shape=normalized")
+    @CrossOrigin()
+    public ResponseEntity<NormalizedExpenseListResponse> getAllExpensesNormalized(Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        NormalizedExpenseListResponse expenses = expenseService.getAllExpensesByUserNormalized(user);
+        return ResponseEntity.ok(expenses);
+    }
+
     @GetMapping("/{id}")
     @CrossOrigin()
     public ResponseEntity<ExpenseResponse> getExpenseById(@PathVariable Long id, Authentication authentication) {
         User user = userService.findByEmail(authentication.getName());
         ExpenseResponse expense = expenseService.getExpenseByIdAndUser(id, user).orElse(null);
         if (expense == null) {
-            return ResponseEntity.notFound().build();
+            // A provisional id stops resolving once the queued expense is written under its real id
+            return ExpenseWriteBehindBuffer.isProvisionalId(id)
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(expense);
     }
@@ -54,26 +93,41 @@ public class ExpenseController {
     @PostMapping
     @CrossOrigin()
     public ResponseEntity<ExpenseResponse> createExpense(@Valid @RequestBody ExpenseRequest expenseRequest,
+                                                         @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                                                          Authentication authentication) {
-
-        User user = userService.findByEmail(authentication.getName());
-        ExpenseResponse createdExpense = expenseService.createExpense(expenseRequest, user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdExpense);
+        // A retried request with the same key gets the stored response without creating another row
+        return idempotencyStore.execute(authentication.getName(), idempotencyKey, "POST /expenses",
+                expenseRequest, ExpenseResponse.class, () -> {
+                    User user = userService.findByEmail(authentication.getName());
+                    ExpenseResponse createdExpense = expenseService.createExpense(expenseRequest, user);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(createdExpense);
+                });
     }
 
     @PutMapping("/{id}")
     @CrossOrigin()
     public ResponseEntity<ExpenseResponse> updateExpense(@PathVariable Long id,
                                                          @Valid @RequestBody ExpenseRequest expenseRequest,
+                                                         @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                                                          Authentication authentication) {
-        User user = userService.findByEmail(authentication.getName());
-        ExpenseResponse updatedExpense = expenseService.updateExpense(id, expenseRequest, user);
-        return ResponseEntity.ok(updatedExpense);
+        // Queued expenses cannot be changed until they are written and listed with their real id
+        if (ExpenseWriteBehindBuffer.isProvisionalId(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return idempotencyStore.execute(authentication.getName(), idempotencyKey, "PUT /expenses/" + id,
+                expenseRequest, ExpenseResponse.class, () -> {
+                    User user = userService.findByEmail(authentication.getName());
+                    ExpenseResponse updatedExpense = expenseService.updateExpense(id, expenseRequest, user);
+                    return ResponseEntity.ok(updatedExpense);
+                });
     }
 
     @DeleteMapping("/{id}")
     @CrossOrigin()
     public ResponseEntity<Void> deleteExpense(@PathVariable Long id, Authentication authentication) {
+        if (ExpenseWriteBehindBuffer.isProvisionalId(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         User user = userService.findByEmail(authentication.getName());
         expenseService.deleteExpense(id, user);
         return ResponseEntity.noContent().build();
@@ -81,9 +135,40 @@ public class ExpenseController {
 
     @GetMapping("/summary")
     @CrossOrigin()
+    @Bulkhead(Bulkhead.ANALYTICS)
     public ResponseEntity<ExpenseSummaryResponse> getExpenseSummary(Authentication authentication) {
         User user = userService.findByEmail(authentication.getName());
         ExpenseSummaryResponse summary = expenseService.getExpenseSummaryByUser(user);
         return ResponseEntity.ok(summary);
     }
+
+    @GetMapping("/tagged")
+    @CrossOrigin()
+    public ResponseEntity<List<ExpenseResponse>> getExpensesByTags(@RequestParam(required = false) List<String> all,
+                                                                   @RequestParam(required = false) List<String> any,
+                                                                   @RequestParam(required = false) List<String> none,
+                                                                   Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        List<ExpenseResponse> expenses = expenseService.getExpensesByTags(user, all, any, none);
+        return ResponseEntity.ok(expenses);
+    }
+
+    @GetMapping("/tags")
+    @CrossOrigin()
+    @Bulkhead(Bulkhead.ANALYTICS)
+    public ResponseEntity<List<TagSummaryResponse>> getTagSummaries(Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        List<TagSummaryResponse> tags = expenseService.getTagSummaries(user);
+        return ResponseEntity.ok(tags);
+    }
+
+    @GetMapping("/suggest")
+    @CrossOrigin()
+    public ResponseEntity<List<TitleSuggestionResponse>> suggestTitles(@RequestParam(defaultValue = "") String prefix,
+                                                                       @RequestParam(defaultValue = "5") int limit,
+                                                                       Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        List<TitleSuggestionResponse> suggestions = expenseService.suggestTitles(user, prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
 }
@@ -0,0 +1,47 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.health.HealthSnapshot;
+import com.expensetracker.health.SaturationMonitor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Unauthenticated probes for the orchestrator. Both only read state kept up to date in the
+ * background by {@link SaturationMonitor}.
+ */
+@RestController
+@RequestMapping("/health")
+public class HealthController {
+
+    private final SaturationMonitor saturationMonitor;
+
+    public HealthController(SaturationMonitor saturationMonitor) {
+        this.saturationMonitor = saturationMonitor;
+    }
+
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, Object>> live() {
+        boolean live = saturationMonitor.isLive();
+        return ResponseEntity.status(live ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("status", live ? "UP" : "DOWN"));
+    }
+
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        HealthSnapshot snapshot = saturationMonitor.getSnapshot();
+        boolean ready = saturationMonitor.isReady();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", ready ? "UP" : "OUT_OF_SERVICE");
+        body.put("checkedAt", snapshot.checkedAt());
+        body.put("stale", !saturationMonitor.isFresh(snapshot));
+        body.put("checks", snapshot.checks());
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+}
@@ -0,0 +1,73 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.repository.ReactiveExpenseQueries;
+import com.expensetracker.security.UserPrincipal;
+import com.expensetracker.tag.TagIndex;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking alternative to the read endpoints of {@link ExpenseController}.
+ *
+ * With {@code Accept: application/x-ndjson} rows are streamed one per line as the driver
+ * produces them, with backpressure; plain JSON clients get the usual array.
+ */
+@CrossOrigin()
+@RestController
+@RequestMapping("/reactive/expenses")
+@ConditionalOnProperty(prefix = "app.reactive", name = "enabled", havingValue = "true")
+public class ReactiveExpenseController {
+
+    private final ReactiveExpenseQueries reactiveExpenseQueries;
+    private final TagIndex tagIndex;
+
+    public ReactiveExpenseController(ReactiveExpenseQueries reactiveExpenseQueries, TagIndex tagIndex) {
+        this.reactiveExpenseQueries = reactiveExpenseQueries;
+        this.tagIndex = tagIndex;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @CrossOrigin()
+    public Flux<ExpenseResponse> getAllExpenses(@AuthenticationPrincipal UserPrincipal principal) {
+        return withTags(principal.getId(), reactiveExpenseQueries.findByUserOrderByDateDesc(principal.getId()));
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @CrossOrigin()
+    public Flux<ExpenseResponse> searchExpenses(@AuthenticationPrincipal UserPrincipal principal,
+                                                @RequestParam(required = false) Long categoryId,
+                                                @RequestParam(required = false) String type,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return withTags(principal.getId(),
+                reactiveExpenseQueries.search(principal.getId(), categoryId, type, startDate, endDate));
+    }
+
+    @GetMapping("/summary")
+    @CrossOrigin()
+    public Mono<ExpenseSummaryResponse> getExpenseSummary(@AuthenticationPrincipal UserPrincipal principal) {
+        return reactiveExpenseQueries.summarize(principal.getId());
+    }
+
+    // The user's tag index may have to be loaded over JDBC, so that happens off the event loop
+    private Flux<ExpenseResponse> withTags(Long userId, Flux<ExpenseResponse> expenses) {
+        return Mono.fromCallable(() -> tagIndex.forUser(userId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(tags -> expenses.map(expense -> {
+                    expense.setTags(tags.tagsOf(expense.getId()));
+                    return expense;
+                }));
+    }
+}
@@ -0,0 +1,51 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.dto.RecurringExpenseRequest;
+import com.expensetracker.dto.RecurringExpenseResponse;
+import com.expensetracker.entity.User;
+import com.expensetracker.service.RecurringExpenseService;
+import com.expensetracker.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+@CrossOrigin()
+@RestController
+@RequestMapping("/recurring-expenses")
+public class RecurringExpenseController {
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping
+    @CrossOrigin()
+    public ResponseEntity<List<RecurringExpenseResponse>> getRules(Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        return ResponseEntity.ok(recurringExpenseService.getRulesByUser(user));
+    }
+
+    @PostMapping
+    @CrossOrigin()
+    public ResponseEntity<RecurringExpenseResponse> createRule(@Valid @RequestBody RecurringExpenseRequest request,
+                                                               Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        RecurringExpenseResponse rule = recurringExpenseService.createRule(request, user);
+        return ResponseEntity.status(HttpStatus.CREATED).body(rule);
+    }
+
+    @DeleteMapping("/{id}")
+    @CrossOrigin()
+    public ResponseEntity<Void> deleteRule(@PathVariable Long id, Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        recurringExpenseService.deleteRule(id, user);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.dto.CurrencyRequest;
+import com.expensetracker.entity.User;
+import com.expensetracker.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+@CrossOrigin()
+@RestController
+@RequestMapping("/users")
+public class UserController {
+
+    @Autowired
+    private UserService userService;
+
+    @PutMapping("/me/base-currency")
+    @CrossOrigin()
+    public ResponseEntity<Void> changeBaseCurrency(@Valid @RequestBody CurrencyRequest request,
+                                                   Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        userService.changeBaseCurrency(user, request.getCurrency());
+        return ResponseEntity.noContent().build();
+    }
+}
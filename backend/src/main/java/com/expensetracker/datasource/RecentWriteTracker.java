@@ -0,0 +1,47 @@
+package com.expensetracker.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each user last wrote to the primary so their reads can stay on the
+ * primary until the replica has had time to catch up (read-your-writes).
+ */
+public class RecentWriteTracker {
+
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final long maxLagNanos;
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public RecentWriteTracker(Duration maxLag) {
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    public void recordWrite(String username) {
+        if (username == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWriteNanos.put(username, now);
+        if (lastWriteNanos.size() > SWEEP_THRESHOLD) {
+            lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt > maxLagNanos);
+        }
+    }
+
+    public boolean hasRecentWrite(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long writtenAt = lastWriteNanos.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt > maxLagNanos) {
+            lastWriteNanos.remove(username, writtenAt);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,157 @@
+package com.expensetracker.datasource;
+
+import com.expensetracker.util.AuthUtil;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ *
+ * A user counts as a recent writer only once a statement that changes data has run on a
+ * primary connection and its transaction has committed; a read-write transaction that only
+ * reads, or that rolls back, does not pin the user to the primary.
+ *
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is fetched after the transaction's read-only flag has been set.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final RecentWriteTracker recentWriteTracker;
+
+    public ReplicaRoutingDataSource(RecentWriteTracker recentWriteTracker) {
+        this.recentWriteTracker = recentWriteTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+
+        // A user's own recent write may not have reached the replica yet
+        if (recentWriteTracker.hasRecentWrite(AuthUtil.getCurrentUsername())) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return watchWrites(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return watchWrites(super.getConnection(username, password));
+    }
+
+    private Connection watchWrites(Connection connection) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return connection;
+        }
+        PendingWrite pendingWrite = pendingWrite();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ((name.equals("prepareStatement") || name.equals("prepareCall")) && changesData(args)) {
+                        pendingWrite.wrote();
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (name.equals("createStatement")) {
+                        return watchWrites((Statement) result, pendingWrite);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement watchWrites(Statement statement, PendingWrite pendingWrite) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[] {Statement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ((name.startsWith("execute") || name.equals("addBatch")) && changesData(args)) {
+                        pendingWrite.wrote();
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    /**
+     * The write marker of the current transaction, registering it on first use. Outside a
+     * transaction every statement commits on its own, so writes are recorded immediately.
+     */
+    private PendingWrite pendingWrite() {
+        String username = AuthUtil.getCurrentUsername();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingWrite(username, true);
+        }
+        PendingWrite pendingWrite = (PendingWrite) TransactionSynchronizationManager.getResource(this);
+        if (pendingWrite == null) {
+            PendingWrite registered = new PendingWrite(username, false);
+            TransactionSynchronizationManager.bindResource(this, registered);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (registered.written) {
+                        recentWriteTracker.recordWrite(registered.username);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+                }
+            });
+            pendingWrite = registered;
+        }
+        return pendingWrite;
+    }
+
+    private static boolean changesData(Object[] args) {
+        if (args == null || args.length == 0 || !(args[0] instanceof String sql)) {
+            return false;
+        }
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return !statement.startsWith("select") && !statement.startsWith("with")
+                && !statement.startsWith("show") && !statement.startsWith("explain");
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class PendingWrite {
+        private final String username;
+        private final boolean recordImmediately;
+        private volatile boolean written;
+
+        private PendingWrite(String username, boolean recordImmediately) {
+            this.username = username;
+            this.recordImmediately = recordImmediately;
+        }
+
+        private void wrote() {
+            written = true;
+            if (recordImmediately) {
+                recentWriteTracker.recordWrite(username);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.expensetracker.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound shard selection for the current request or job.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static void bind(Long userId, int shard) {
+        CURRENT.set(new Binding(userId, shard));
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Integer currentShard() {
+        Binding binding = CURRENT.get();
+        return binding != null ? binding.shard : null;
+    }
+
+    public static Long currentUserId() {
+        Binding binding = CURRENT.get();
+        return binding != null ? binding.userId : null;
+    }
+
+    /**
+     * Runs the callback against a specific shard, restoring the previous binding afterwards.
+     */
+    public static <T> T callOn(int shard, Supplier<T> callback) {
+        Binding previous = CURRENT.get();
+        CURRENT.set(new Binding(previous != null ? previous.userId : null, shard));
+        try {
+            return callback.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private record Binding(Long userId, int shard) {}
+}
@@ -0,0 +1,295 @@
+package com.expensetracker.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic user-id to shard mapping, with persisted per-user overrides for users that
+ * were moved by {@link ShardRebalancer}. Overrides and write freezes live in the directory
+ * shard (shard 0) together with a version number that is bumped on every change.
+ *
+ * Every instance polls the version every {@code app.sharding.directory-poll-interval},
+ * reloads on a change and then acknowledges the version in {@code shard_directory_nodes}.
+ * An instance only acknowledges once it has no write transaction in flight for a frozen
+ * user, so an acknowledged freeze means the instance has drained that user's writers and
+ * rejects new ones. The rebalancer waits for every live instance before each step.
+ */
+public class ShardDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardDirectory.class);
+
+    public static final int DIRECTORY_SHARD = 0;
+
+    private static final String CURRENT_VERSION = "SELECT version FROM shard_directory_state WHERE id = 1";
+    private static final String BUMP_VERSION = "UPDATE shard_directory_state SET version = version + 1 WHERE id = 1";
+    private static final String ACKNOWLEDGE = "UPDATE shard_directory_nodes SET version = ?, seen_at = ? "
+            + "WHERE node_id = ?";
+    private static final String REGISTER_NODE = "INSERT INTO shard_directory_nodes (node_id, version, seen_at) "
+            + "VALUES (?, ?, ?)";
+    private static final String LAGGING_NODES = "SELECT node_id FROM shard_directory_nodes "
+            + "WHERE version < ? AND seen_at > ?";
+
+    private final int shardCount;
+    private final JdbcTemplate directoryJdbcTemplate;
+    private final Duration pollInterval;
+    private final Duration nodeTimeout;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, Integer> overrides = new ConcurrentHashMap<>();
+    private final Set<Long> frozenUsers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> writesInFlight = new ConcurrentHashMap<>();
+    private volatile long loadedVersion = -1;
+    private long acknowledgedVersion;
+    private final List<Runnable> pollListeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shard-directory-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardDirectory(int shardCount, JdbcTemplate directoryJdbcTemplate, Duration pollInterval,
+                          Duration nodeTimeout) {
+        this.shardCount = shardCount;
+        this.directoryJdbcTemplate = directoryJdbcTemplate;
+        this.pollInterval = pollInterval;
+        this.nodeTimeout = nodeTimeout;
+    }
+
+    public void initialize() {
+        directoryJdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_shard_overrides ("
+                + "user_id BIGINT NOT NULL PRIMARY KEY, shard_index INT NOT NULL)");
+        directoryJdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_shard_freezes ("
+                + "user_id BIGINT NOT NULL PRIMARY KEY, source_shard INT NOT NULL, target_shard INT NOT NULL, "
+                + "frozen_at TIMESTAMP NOT NULL)");
+        directoryJdbcTemplate.execute("CREATE TABLE IF NOT EXISTS shard_directory_state ("
+                + "id INT NOT NULL PRIMARY KEY, version BIGINT NOT NULL)");
+        directoryJdbcTemplate.execute("CREATE TABLE IF NOT EXISTS shard_directory_nodes ("
+                + "node_id VARCHAR(64) NOT NULL PRIMARY KEY, version BIGINT NOT NULL, seen_at TIMESTAMP NOT NULL)");
+        try {
+            directoryJdbcTemplate.update("INSERT INTO shard_directory_state (id, version) VALUES (1, 0)");
+        } catch (DuplicateKeyException e) {
+            // Created by an earlier start or another instance
+        }
+        reload();
+        acknowledgedVersion = loadedVersion;
+        directoryJdbcTemplate.update(REGISTER_NODE, nodeId, acknowledgedVersion, databaseNow());
+
+        long millis = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::pollSafely, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            directoryJdbcTemplate.update("DELETE FROM shard_directory_nodes WHERE node_id = ?", nodeId);
+        } catch (Exception e) {
+            // Left behind rows stop counting once they are older than the node timeout
+            logger.debug("Could not deregister shard directory node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs {@code listener} on the poller thread after every poll.
+     */
+    public void afterEachPoll(Runnable listener) {
+        pollListeners.add(listener);
+    }
+
+    public void reload() {
+        long version = currentVersion();
+        Map<Long, Integer> loaded = new ConcurrentHashMap<>();
+        directoryJdbcTemplate.query("SELECT user_id, shard_index FROM user_shard_overrides",
+                rs -> {
+                    loaded.put(rs.getLong("user_id"), rs.getInt("shard_index"));
+                });
+        Set<Long> frozen = new HashSet<>(
+                directoryJdbcTemplate.queryForList("SELECT user_id FROM user_shard_freezes", Long.class));
+
+        // Freeze before switching routes, so a moved user never takes writes on either shard in between
+        frozenUsers.addAll(frozen);
+        overrides.keySet().retainAll(loaded.keySet());
+        overrides.putAll(loaded);
+        frozenUsers.retainAll(frozen);
+        loadedVersion = version;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(Long userId) {
+        Integer override = overrides.get(userId);
+        if (override != null) {
+            return override;
+        }
+        return homeShard(userId);
+    }
+
+    /**
+     * Hash placement used when no override exists. Mixing the bits keeps consecutive ids
+     * from landing on shards in lock step.
+     */
+    public int homeShard(Long userId) {
+        long mixed = userId * 0x9E3779B97F4A7C15L;
+        mixed ^= (mixed >>> 32);
+        return Math.floorMod(mixed, shardCount);
+    }
+
+    /**
+     * The shard the directory table currently assigns, which may be ahead of this instance's
+     * last poll.
+     */
+    public int persistedShardFor(Long userId) {
+        List<Integer> shard = directoryJdbcTemplate.queryForList(
+                "SELECT shard_index FROM user_shard_overrides WHERE user_id = ?", Integer.class, userId);
+        return shard.isEmpty() ? homeShard(userId) : shard.get(0);
+    }
+
+    /**
+     * Persists the user's new shard and returns the directory version that carries it.
+     */
+    public long assign(Long userId, int shard) {
+        if (shard == homeShard(userId)) {
+            directoryJdbcTemplate.update("DELETE FROM user_shard_overrides WHERE user_id = ?", userId);
+        } else {
+            int updated = directoryJdbcTemplate.update(
+                    "UPDATE user_shard_overrides SET shard_index = ? WHERE user_id = ?", shard, userId);
+            if (updated == 0) {
+                directoryJdbcTemplate.update(
+                        "INSERT INTO user_shard_overrides (user_id, shard_index) VALUES (?, ?)", userId, shard);
+            }
+        }
+        return bumpVersion();
+    }
+
+    /**
+     * Persists a write freeze for a move from {@code sourceShard} to {@code targetShard} and
+     * returns the directory version that carries it.
+     */
+    public long freeze(Long userId, int sourceShard, int targetShard) {
+        directoryJdbcTemplate.update("INSERT INTO user_shard_freezes (user_id, source_shard, target_shard, frozen_at) "
+                + "VALUES (?, ?, ?, ?)", userId, sourceShard, targetShard, databaseNow());
+        return bumpVersion();
+    }
+
+    public long unfreeze(Long userId) {
+        directoryJdbcTemplate.update("DELETE FROM user_shard_freezes WHERE user_id = ?", userId);
+        return bumpVersion();
+    }
+
+    /**
+     * The persisted freeze of an unfinished move, as {@code [sourceShard, targetShard]}, or
+     * null when the user is not being moved.
+     */
+    public int[] pendingMove(Long userId) {
+        List<int[]> moves = directoryJdbcTemplate.query(
+                "SELECT source_shard, target_shard FROM user_shard_freezes WHERE user_id = ?",
+                (rs, rowNum) -> new int[] {rs.getInt("source_shard"), rs.getInt("target_shard")}, userId);
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
+    public boolean isFrozen(Long userId) {
+        return userId != null && frozenUsers.contains(userId);
+    }
+
+    /**
+     * Registers a write transaction for the user on this instance.
+     *
+     * @throws IllegalStateException if the user's writes are frozen
+     */
+    public void beginWrite(Long userId) {
+        // Counted before the check: a concurrent poll either sees this writer or this writer sees the freeze
+        writesInFlight.merge(userId, 1, Integer::sum);
+        if (frozenUsers.contains(userId)) {
+            endWrite(userId);
+            throw new IllegalStateException("User data is being rebalanced, please retry shortly");
+        }
+    }
+
+    public void endWrite(Long userId) {
+        writesInFlight.computeIfPresent(userId, (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Blocks until every instance seen within {@code app.sharding.node-timeout} has
+     * acknowledged {@code version}.
+     *
+     * @throws IllegalStateException if that does not happen within {@code timeout}
+     */
+    public void awaitAcknowledged(long version, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Timestamp liveSince = new Timestamp(databaseNow().getTime() - nodeTimeout.toMillis());
+            List<String> lagging = directoryJdbcTemplate.queryForList(LAGGING_NODES, String.class, version, liveSince);
+            if (lagging.isEmpty()) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Shard directory version " + version
+                        + " not acknowledged by instances " + lagging);
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for shard directory version " + version);
+            }
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            // Not acknowledging holds any rebalance back until the directory is reachable again
+            logger.warn("Could not poll the shard directory: {}", e.getMessage());
+        }
+    }
+
+    void poll() {
+        if (currentVersion() != loadedVersion) {
+            reload();
+        }
+        long version = loadedVersion;
+        // Until a frozen user's writers have finished, keep heartbeating with the older version
+        if (frozenUsers.stream().noneMatch(writesInFlight::containsKey)) {
+            acknowledgedVersion = version;
+        }
+        Timestamp now = databaseNow();
+        if (directoryJdbcTemplate.update(ACKNOWLEDGE, acknowledgedVersion, now, nodeId) == 0) {
+            directoryJdbcTemplate.update(REGISTER_NODE, nodeId, acknowledgedVersion, now);
+        }
+        pollListeners.forEach(Runnable::run);
+    }
+
+    public long currentVersion() {
+        Long version = directoryJdbcTemplate.queryForObject(CURRENT_VERSION, Long.class);
+        return version != null ? version : 0;
+    }
+
+    private long bumpVersion() {
+        directoryJdbcTemplate.update(BUMP_VERSION);
+        return currentVersion();
+    }
+
+    // Heartbeats are compared on the directory's clock, so clock skew between instances does not matter
+    private Timestamp databaseNow() {
+        return directoryJdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.expensetracker.datasource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the same query on every shard in parallel and merges the results, for admin and
+ * reporting queries that are not scoped to a single user. A failure on any shard fails the
+ * whole query rather than returning a partial result.
+ */
+public class ShardFanOut {
+
+    private final List<JdbcTemplate> shardJdbcTemplates;
+    private final ExecutorService executor;
+
+    public ShardFanOut(List<JdbcTemplate> shardJdbcTemplates, ExecutorService executor) {
+        this.shardJdbcTemplates = shardJdbcTemplates;
+        this.executor = executor;
+    }
+
+    public int getShardCount() {
+        return shardJdbcTemplates.size();
+    }
+
+    /**
+     * Each shard's rows, indexed by shard.
+     */
+    public <T> List<List<T>> queryEach(String sql, RowMapper<T> rowMapper, Object... args) {
+        List<CompletableFuture<List<T>>> futures = shardJdbcTemplates.stream()
+                .map(jdbcTemplate -> CompletableFuture.supplyAsync(
+                        () -> jdbcTemplate.query(sql, rowMapper, args), executor))
+                .collect(Collectors.toList());
+
+        List<List<T>> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    public <T> List<T> queryAll(String sql, RowMapper<T> rowMapper, Object... args) {
+        List<T> merged = new ArrayList<>();
+        queryEach(sql, rowMapper, args).forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Merges per-shard results that are each ordered by {@code order} and keeps the first
+     * {@code limit}. The query itself should apply the same ORDER BY and LIMIT per shard.
+     */
+    public <T> List<T> queryTop(String sql, RowMapper<T> rowMapper, Comparator<? super T> order,
+                                int limit, Object... args) {
+        return queryAll(sql, rowMapper, args).stream()
+                .sorted(order)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public long sumLong(String sql, Object... args) {
+        return queryAll(sql, (rs, rowNum) -> rs.getLong(1), args).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+}
@@ -0,0 +1,82 @@
+package com.expensetracker.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shard-local ids that never collide across shards: shard k of n hands out k+1, k+1+n,
+ * k+1+2n, ... so rows keep their ids when {@link ShardRebalancer} moves them.
+ *
+ * MySQL does this per connection with its {@code auto_increment_increment} and
+ * {@code auto_increment_offset} session variables ({@link #connectionInitSql}). Databases
+ * without them, such as H2 standing in for shards in tests, get the same sequence by
+ * altering every identity column once the schema exists ({@link #applyToIdentityColumns}).
+ */
+public final class ShardIdInterleaving {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardIdInterleaving.class);
+
+    private ShardIdInterleaving() {}
+
+    public static boolean supportsSessionVariables(String jdbcUrl) {
+        return jdbcUrl != null && (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:"));
+    }
+
+    public static String connectionInitSql(int shard, int shardCount) {
+        return "SET SESSION auto_increment_increment = " + shardCount
+                + ", auto_increment_offset = " + (shard + 1);
+    }
+
+    /**
+     * Makes every identity column in the shard's current schema step by {@code shardCount}
+     * from the next value above its largest id that belongs to the shard. Returns the number
+     * of columns changed.
+     */
+    public static int applyToIdentityColumns(DataSource dataSource, int shard, int shardCount) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String[]> columns = identityColumns(dataSource);
+        for (String[] column : columns) {
+            Long max = jdbcTemplate.queryForObject(
+                    "SELECT MAX(" + column[1] + ") FROM " + column[0], Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + column[0] + " ALTER COLUMN " + column[1]
+                    + " RESTART WITH " + nextId(max, shard, shardCount) + " SET INCREMENT BY " + shardCount);
+        }
+        logger.debug("Interleaved {} identity columns on shard {}", columns.size(), shard);
+        return columns.size();
+    }
+
+    /**
+     * The smallest id above {@code max} that shard {@code shard} of {@code shardCount} hands out.
+     */
+    static long nextId(Long max, int shard, int shardCount) {
+        long next = (max != null ? max : 0) + 1;
+        return next + Math.floorMod(shard + 1 - next, (long) shardCount);
+    }
+
+    // Pairs of table and column
+    private static List<String[]> identityColumns(DataSource dataSource) {
+        List<String[]> columns = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), "%", "%")) {
+                while (rs.next()) {
+                    if ("YES".equals(rs.getString("IS_AUTOINCREMENT"))) {
+                        columns.add(new String[] {rs.getString("TABLE_NAME"), rs.getString("COLUMN_NAME")});
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the identity columns of a shard", e);
+        }
+        return columns;
+    }
+}
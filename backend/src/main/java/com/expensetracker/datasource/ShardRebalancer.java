@@ -0,0 +1,171 @@
+package com.expensetracker.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves one user's rows to another shard while the application keeps serving traffic.
+ *
+ * Every step is coordinated through {@link ShardDirectory} and waits until every live
+ * instance has acknowledged it:
+ * <ol>
+ *   <li>freeze: the user's writes are rejected everywhere and in-flight writers have finished</li>
+ *   <li>copy the user's rows, then switch the directory entry to the target shard</li>
+ *   <li>once every instance routes to the target, delete from the source and lift the freeze</li>
+ * </ol>
+ * The freeze is persisted with the source and target shard, so running the same move again
+ * after a failure resumes it. Ids are copied verbatim, which is safe because shards
+ * interleave their auto-increment sequences.
+ */
+public class ShardRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    // Parents before children; each scope selects the user's rows with one id parameter
+    private static final List<UserTable> USER_TABLES = List.of(
+            new UserTable("expenses", "user_id = ?", "id"),
+            new UserTable("expenses_archive", "user_id = ?", "id"),
+            new UserTable("expense_archive_versions", "user_id = ?", null),
+            new UserTable("tags", "user_id = ?", "id"),
+            new UserTable("expense_tags", "tag_id IN (SELECT id FROM tags WHERE user_id = ?)", null),
+            new UserTable("recurring_expenses", "user_id = ?", "id"),
+            new UserTable("budgets", "user_id = ?", "id"),
+            new UserTable("budget_alerts", "user_id = ?", "id"),
+            new UserTable("tag_index_snapshots", "user_id = ?", null));
+
+    private final ShardDirectory shardDirectory;
+    private final List<JdbcTemplate> shardJdbcTemplates;
+    private final ShardReferenceDataSync referenceDataSync;
+    private final int batchSize;
+    private final Duration drainTimeout;
+
+    public ShardRebalancer(ShardDirectory shardDirectory, List<JdbcTemplate> shardJdbcTemplates,
+                           ShardReferenceDataSync referenceDataSync, int batchSize, Duration drainTimeout) {
+        this.shardDirectory = shardDirectory;
+        this.shardJdbcTemplates = shardJdbcTemplates;
+        this.referenceDataSync = referenceDataSync;
+        this.batchSize = batchSize;
+        this.drainTimeout = drainTimeout;
+    }
+
+    public long moveUser(Long userId, int targetShard) {
+        if (targetShard < 0 || targetShard >= shardDirectory.getShardCount()) {
+            throw new IllegalArgumentException("Unknown shard: " + targetShard);
+        }
+
+        int sourceShard;
+        int[] pendingMove = shardDirectory.pendingMove(userId);
+        if (pendingMove == null) {
+            sourceShard = shardDirectory.persistedShardFor(userId);
+            if (sourceShard == targetShard) {
+                return 0;
+            }
+            long frozen = shardDirectory.freeze(userId, sourceShard, targetShard);
+            try {
+                shardDirectory.awaitAcknowledged(frozen, drainTimeout);
+            } catch (RuntimeException e) {
+                shardDirectory.unfreeze(userId);
+                throw e;
+            }
+        } else {
+            if (pendingMove[1] != targetShard) {
+                throw new IllegalStateException("User " + userId + " is already being moved to shard "
+                        + pendingMove[1]);
+            }
+            sourceShard = pendingMove[0];
+            logger.info("Resuming the move of user {} from shard {} to shard {}", userId, sourceShard, targetShard);
+        }
+
+        long copied = 0;
+        if (shardDirectory.persistedShardFor(userId) != targetShard) {
+            try {
+                copied = copy(userId, sourceShard, targetShard);
+            } catch (RuntimeException e) {
+                // Nothing routes to the target yet, so the move can simply be abandoned
+                deleteUserRows(shardJdbcTemplates.get(targetShard), userId);
+                shardDirectory.unfreeze(userId);
+                throw e;
+            }
+            shardDirectory.awaitAcknowledged(shardDirectory.assign(userId, targetShard), drainTimeout);
+        } else {
+            shardDirectory.awaitAcknowledged(shardDirectory.currentVersion(), drainTimeout);
+        }
+
+        // Every live instance routes the user to the target now, so the source copy is unreachable
+        deleteUserRows(shardJdbcTemplates.get(sourceShard), userId);
+        shardDirectory.unfreeze(userId);
+
+        logger.info("Moved {} rows for user {} from shard {} to shard {}",
+                copied, userId, sourceShard, targetShard);
+        return copied;
+    }
+
+    private long copy(Long userId, int sourceShard, int targetShard) {
+        JdbcTemplate source = shardJdbcTemplates.get(sourceShard);
+        JdbcTemplate target = shardJdbcTemplates.get(targetShard);
+
+        // The source holds the freshest copy of the user's row
+        referenceDataSync.copyUser(userId, sourceShard, targetShard);
+        // Clear leftovers from an earlier interrupted move before copying
+        deleteUserRows(target, userId);
+
+        long copied = 0;
+        for (UserTable table : USER_TABLES) {
+            copied += copyTable(table, userId, source, target);
+        }
+        return copied;
+    }
+
+    private long copyTable(UserTable table, Long userId, JdbcTemplate source, JdbcTemplate target) {
+        String select = "SELECT * FROM " + table.name() + " WHERE " + table.scope();
+        if (table.key() == null) {
+            return insert(table, target, source.queryForList(select, userId));
+        }
+
+        long copied = 0;
+        Object lastKey = 0L;
+        String batchSelect = select + " AND " + table.key() + " > ? ORDER BY " + table.key() + " LIMIT ?";
+        while (true) {
+            List<Map<String, Object>> rows = source.queryForList(batchSelect, userId, lastKey, batchSize);
+            if (rows.isEmpty()) {
+                return copied;
+            }
+            copied += insert(table, target, rows);
+            lastKey = rows.get(rows.size() - 1).get(table.key());
+        }
+    }
+
+    private static long insert(UserTable table, JdbcTemplate target, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String insert = "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        List<Object[]> batch = rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .collect(Collectors.toList());
+        target.batchUpdate(insert, batch);
+        return rows.size();
+    }
+
+    private static void deleteUserRows(JdbcTemplate shard, Long userId) {
+        // Children before parents
+        for (int i = USER_TABLES.size() - 1; i >= 0; i--) {
+            UserTable table = USER_TABLES.get(i);
+            shard.update("DELETE FROM " + table.name() + " WHERE " + table.scope(), userId);
+        }
+    }
+
+    /**
+     * @param key column the copy is paged by, or null to copy the table's rows for the user at once
+     */
+    private record UserTable(String name, String scope, String key) {}
+}
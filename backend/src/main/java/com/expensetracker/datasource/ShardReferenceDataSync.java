@@ -0,0 +1,154 @@
+package com.expensetracker.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the reference rows that expenses point at (users and categories) present on every
+ * shard. Categories are owned by the directory shard and copied to the others, keyed by the
+ * same ids so foreign keys and joins work locally.
+ *
+ * A user's row exists on the directory shard, which serves login, and on the user's current
+ * shard, which serves everything else. Whichever copy a change is written to is copied to
+ * the other after commit ({@link #userChanged}). Rows are copied with all their columns, so
+ * columns added later travel too.
+ */
+public class ShardReferenceDataSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardReferenceDataSync.class);
+
+    private final List<JdbcTemplate> shardJdbcTemplates;
+    private final ShardDirectory shardDirectory;
+    private final Set<Long> syncedUsers = ConcurrentHashMap.newKeySet();
+    private volatile String syncedCategories;
+
+    public ShardReferenceDataSync(List<JdbcTemplate> shardJdbcTemplates, ShardDirectory shardDirectory) {
+        this.shardJdbcTemplates = shardJdbcTemplates;
+        this.shardDirectory = shardDirectory;
+    }
+
+    /**
+     * Copies categories missing from any shard when the directory's catalogue has changed
+     * since the last call. Cheap enough to run on every directory poll.
+     */
+    public void syncCategoriesIfChanged() {
+        Map<String, Object> catalogue = shardJdbcTemplates.get(ShardDirectory.DIRECTORY_SHARD)
+                .queryForMap("SELECT COUNT(*) AS categories, MAX(id) AS last_id FROM categories");
+        String fingerprint = catalogue.values().toString();
+        if (!fingerprint.equals(syncedCategories)) {
+            syncCategories();
+            syncedCategories = fingerprint;
+        }
+    }
+
+    public void syncCategories() {
+        JdbcTemplate directory = shardJdbcTemplates.get(ShardDirectory.DIRECTORY_SHARD);
+        List<Map<String, Object>> categories = directory.queryForList(
+                "SELECT id, name, icon, created_at, updated_at FROM categories");
+
+        for (int shard = 0; shard < shardJdbcTemplates.size(); shard++) {
+            if (shard == ShardDirectory.DIRECTORY_SHARD) {
+                continue;
+            }
+            JdbcTemplate target = shardJdbcTemplates.get(shard);
+            Set<Long> existing = new HashSet<>(target.queryForList("SELECT id FROM categories", Long.class));
+            List<Object[]> missing = categories.stream()
+                    .filter(category -> !existing.contains(((Number) category.get("id")).longValue()))
+                    .map(category -> new Object[] {
+                            category.get("id"), category.get("name"), category.get("icon"),
+                            category.get("created_at"), category.get("updated_at")})
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                target.batchUpdate("INSERT INTO categories (id, name, icon, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?)", missing);
+            }
+        }
+    }
+
+    /**
+     * Makes sure the user has a row on {@code shard}, copying it from the directory the first
+     * time. An existing copy is left alone: it may be newer than the directory's.
+     */
+    public void ensureUserOnShard(Long userId, int shard) {
+        if (shard == ShardDirectory.DIRECTORY_SHARD || syncedUsers.contains(shardKey(userId, shard))) {
+            return;
+        }
+        JdbcTemplate target = shardJdbcTemplates.get(shard);
+        Integer present = target.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+        if (present == null || present == 0) {
+            copyUser(userId, ShardDirectory.DIRECTORY_SHARD, shard);
+        }
+        syncedUsers.add(shardKey(userId, shard));
+    }
+
+    /**
+     * Records that the user's row was changed on the shard bound to the current thread (the
+     * directory when none is bound). After commit, the row is copied to the other copy.
+     */
+    public void userChanged(Long userId) {
+        Integer bound = ShardContext.currentShard();
+        int source = bound != null ? bound : ShardDirectory.DIRECTORY_SHARD;
+        int target = source == ShardDirectory.DIRECTORY_SHARD ? shardDirectory.shardFor(userId)
+                : ShardDirectory.DIRECTORY_SHARD;
+        if (source == target) {
+            return;
+        }
+        Runnable publish = () -> {
+            try {
+                copyUser(userId, source, target);
+            } catch (Exception e) {
+                logger.warn("Could not copy user {} from shard {} to shard {}: {}", userId, source, target,
+                        e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    /**
+     * Inserts or overwrites the user's row on {@code targetShard} with the one on
+     * {@code sourceShard}.
+     */
+    public void copyUser(Long userId, int sourceShard, int targetShard) {
+        Map<String, Object> user = shardJdbcTemplates.get(sourceShard)
+                .queryForMap("SELECT * FROM users WHERE id = ?", userId);
+        JdbcTemplate target = shardJdbcTemplates.get(targetShard);
+
+        List<String> columns = new ArrayList<>(user.keySet());
+        List<Object> values = new ArrayList<>(user.values());
+        StringJoiner assignments = new StringJoiner(", ");
+        columns.forEach(column -> assignments.add(column + " = ?"));
+        List<Object> updateArgs = new ArrayList<>(values);
+        updateArgs.add(userId);
+        if (target.update("UPDATE users SET " + assignments + " WHERE id = ?", updateArgs.toArray()) == 0) {
+            target.update("INSERT INTO users (" + String.join(", ", columns) + ") VALUES ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")", values.toArray());
+        }
+        syncedUsers.add(shardKey(userId, targetShard));
+    }
+
+    private static Long shardKey(Long userId, int shard) {
+        // Shard counts are small, so the low bits are free for the shard index
+        return (userId << 8) | shard;
+    }
+}
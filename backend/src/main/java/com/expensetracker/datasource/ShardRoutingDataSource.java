@@ -0,0 +1,105 @@
+package com.expensetracker.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Routes each connection to the shard bound in {@link ShardContext}, falling back to the
+ * directory shard for unauthenticated work such as login and registration.
+ *
+ * Every write connection for a user is registered with {@link ShardDirectory#beginWrite}
+ * until its transaction completes (or, outside a transaction, until it is closed), so a
+ * freeze can wait for the user's in-flight writers instead of racing them.
+ *
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the transaction's read-only flag is known when the connection is fetched.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardDirectory shardDirectory;
+
+    public ShardRoutingDataSource(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.currentShard();
+        return shard != null ? shard : ShardDirectory.DIRECTORY_SHARD;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long writer = currentWriter();
+        if (writer == null) {
+            return super.getConnection();
+        }
+        // Writes are rejected while the user's rows are being moved to another shard
+        shardDirectory.beginWrite(writer);
+        try {
+            return untilDone(writer, super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            shardDirectory.endWrite(writer);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Long writer = currentWriter();
+        if (writer == null) {
+            return super.getConnection(username, password);
+        }
+        shardDirectory.beginWrite(writer);
+        try {
+            return untilDone(writer, super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            shardDirectory.endWrite(writer);
+            throw e;
+        }
+    }
+
+    private static Long currentWriter() {
+        if (ShardContext.currentShard() == null || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        return ShardContext.currentUserId();
+    }
+
+    private Connection untilDone(Long userId, Connection connection) {
+        AtomicBoolean ended = new AtomicBoolean();
+        Runnable end = () -> {
+            if (ended.compareAndSet(false, true)) {
+                shardDirectory.endWrite(userId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    end.run();
+                }
+            });
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        end.run();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
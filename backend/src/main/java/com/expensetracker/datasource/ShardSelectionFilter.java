@@ -0,0 +1,46 @@
+package com.expensetracker.datasource;
+
+import com.expensetracker.security.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the authenticated user's shard for the rest of the request. Runs after the
+ * Spring Security chain so the JWT has already been resolved to a {@link UserPrincipal}.
+ */
+public class ShardSelectionFilter extends OncePerRequestFilter {
+
+    private final ShardDirectory shardDirectory;
+    private final ShardReferenceDataSync referenceDataSync;
+
+    public ShardSelectionFilter(ShardDirectory shardDirectory, ShardReferenceDataSync referenceDataSync) {
+        this.shardDirectory = shardDirectory;
+        this.referenceDataSync = referenceDataSync;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int shard = shardDirectory.shardFor(principal.getId());
+        referenceDataSync.ensureUserOnShard(principal.getId(), shard);
+        ShardContext.bind(principal.getId(), shard);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardContext.clear();
+        }
+    }
+}
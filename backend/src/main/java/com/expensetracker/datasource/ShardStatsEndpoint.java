@@ -0,0 +1,72 @@
+package com.expensetracker.datasource;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/shards}: users and expenses per shard, the totals across shards, and the
+ * users with the most expenses, read from every shard through {@link ShardFanOut}. Used to
+ * pick users to move with {@link ShardRebalancer}. Not exposed over HTTP unless added to
+ * {@code management.endpoints.web.exposure.include}.
+ *
+ * A user in the middle of a move may be counted on both shards.
+ */
+@Endpoint(id = "shards")
+public class ShardStatsEndpoint {
+
+    private static final String SHARD_TOTALS = "SELECT COUNT(DISTINCT user_id), COUNT(*) FROM expenses";
+    private static final String LARGEST_USERS = "SELECT user_id, COUNT(*) AS expenses FROM expenses "
+            + "GROUP BY user_id ORDER BY expenses DESC, user_id LIMIT ?";
+
+    private final ShardFanOut shardFanOut;
+    private final ShardDirectory shardDirectory;
+    private final int topK;
+
+    public ShardStatsEndpoint(ShardFanOut shardFanOut, ShardDirectory shardDirectory, int topK) {
+        this.shardFanOut = shardFanOut;
+        this.shardDirectory = shardDirectory;
+        this.topK = topK;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        List<List<long[]>> totals = shardFanOut.queryEach(SHARD_TOTALS,
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)});
+        List<Map<String, Object>> shards = new ArrayList<>();
+        long users = 0;
+        long expenses = 0;
+        for (int shard = 0; shard < totals.size(); shard++) {
+            long[] shardTotals = totals.get(shard).get(0);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("shard", shard);
+            row.put("users", shardTotals[0]);
+            row.put("expenses", shardTotals[1]);
+            shards.add(row);
+            users += shardTotals[0];
+            expenses += shardTotals[1];
+        }
+
+        List<UserExpenses> largest = shardFanOut.queryTop(LARGEST_USERS,
+                (rs, rowNum) -> new UserExpenses(rs.getLong(1), shardDirectory.shardFor(rs.getLong(1)),
+                        rs.getLong(2)),
+                Comparator.comparingLong(UserExpenses::expenses).reversed()
+                        .thenComparingLong(UserExpenses::userId),
+                topK, topK);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("shards", shards);
+        report.put("users", users);
+        report.put("expenses", expenses);
+        report.put("largestUsers", largest);
+        return report;
+    }
+
+    public record UserExpenses(long userId, int shard, long expenses) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.expensetracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityResponse {
+
+    // Only the fields that were asked about are set
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+
+    // Constructors
+    public AvailabilityResponse() {}
+}
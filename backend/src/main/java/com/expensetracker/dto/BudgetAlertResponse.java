@@ -0,0 +1,77 @@
+package com.expensetracker.dto;
+
+import com.expensetracker.entity.BudgetAlert;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class BudgetAlertResponse {
+
+    private Long categoryId;
+    private String period;
+    private int threshold;
+    private BigDecimal spent;
+    private BigDecimal monthlyLimit;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public BudgetAlertResponse() {}
+
+    public BudgetAlertResponse(BudgetAlert alert) {
+        this.categoryId = alert.getCategoryId();
+        this.period = alert.getPeriod();
+        this.threshold = alert.getThreshold();
+        this.spent = alert.getSpent();
+        this.monthlyLimit = alert.getMonthlyLimit();
+        this.createdAt = alert.getCreatedAt();
+    }
+
+    // Getters and Setters
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public BigDecimal getSpent() {
+        return spent;
+    }
+
+    public void setSpent(BigDecimal spent) {
+        this.spent = spent;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(BigDecimal monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,99 @@
+package com.expensetracker.dto;
+
+import com.expensetracker.entity.Budget;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+
+public class BudgetResponse {
+
+    private Long id;
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal monthlyLimit;
+    private YearMonth month;
+    private BigDecimal spent;
+    private BigDecimal remaining;
+    private BigDecimal percentUsed;
+
+    // Constructors
+    public BudgetResponse() {}
+
+    public BudgetResponse(Budget budget, YearMonth month, BigDecimal spent) {
+        this.id = budget.getId();
+        this.categoryId = budget.getCategory().getId();
+        this.categoryName = budget.getCategory().getName();
+        this.monthlyLimit = budget.getMonthlyLimit();
+        this.month = month;
+        this.spent = spent;
+        this.remaining = budget.getMonthlyLimit().subtract(spent);
+        this.percentUsed = spent.multiply(BigDecimal.valueOf(100))
+                .divide(budget.getMonthlyLimit(), 1, RoundingMode.HALF_UP);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(BigDecimal monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public void setMonth(YearMonth month) {
+        this.month = month;
+    }
+
+    public BigDecimal getSpent() {
+        return spent;
+    }
+
+    public void setSpent(BigDecimal spent) {
+        this.spent = spent;
+    }
+
+    public BigDecimal getRemaining() {
+        return remaining;
+    }
+
+    public void setRemaining(BigDecimal remaining) {
+        this.remaining = remaining;
+    }
+
+    public BigDecimal getPercentUsed() {
+        return percentUsed;
+    }
+
+    public void setPercentUsed(BigDecimal percentUsed) {
+        this.percentUsed = percentUsed;
+    }
+}
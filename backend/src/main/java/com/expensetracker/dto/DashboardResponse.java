@@ -0,0 +1,118 @@
+package com.expensetracker.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Everything the dashboard view needs in one response: the first page of expenses, the
+ * summary, the category catalog and the current month's day-by-day totals.
+ */
+public class DashboardResponse {
+
+    private List<ExpenseResponse> expenses;
+    private int page;
+    private int size;
+    private boolean hasMore;
+    private ExpenseSummaryResponse summary;
+    private List<CategoryResponse> categories;
+    private List<DailyTotal> trend;
+
+    // Constructors
+    public DashboardResponse() {}
+
+    // Getters and Setters
+    public List<ExpenseResponse> getExpenses() {
+        return expenses;
+    }
+
+    public void setExpenses(List<ExpenseResponse> expenses) {
+        this.expenses = expenses;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public ExpenseSummaryResponse getSummary() {
+        return summary;
+    }
+
+    public void setSummary(ExpenseSummaryResponse summary) {
+        this.summary = summary;
+    }
+
+    public List<CategoryResponse> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryResponse> categories) {
+        this.categories = categories;
+    }
+
+    public List<DailyTotal> getTrend() {
+        return trend;
+    }
+
+    public void setTrend(List<DailyTotal> trend) {
+        this.trend = trend;
+    }
+
+    public static class DailyTotal {
+        private LocalDate date;
+        private BigDecimal total;
+        private Long count;
+
+        public DailyTotal() {}
+
+        public DailyTotal(LocalDate date, BigDecimal total, Long count) {
+            this.date = date;
+            this.total = total;
+            this.count = count;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public void setTotal(BigDecimal total) {
+            this.total = total;
+        }
+
+        public Long getCount() {
+            return count;
+        }
+
+        public void setCount(Long count) {
+            this.count = count;
+        }
+    }
+}
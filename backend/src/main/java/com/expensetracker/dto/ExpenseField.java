@@ -0,0 +1,91 @@
+package com.expensetracker.dto;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Properties of {@link ExpenseResponse} that can be requested individually through the
+ * {@code fields=} parameter, together with the JPQL path each one is read from.
+ */
+public enum ExpenseField {
+
+    ID("id", "e.id", ExpenseResponse::getId),
+    TITLE("title", "e.title", ExpenseResponse::getTitle),
+    AMOUNT("amount", "e.amount", ExpenseResponse::getAmount),
+    DESCRIPTION("description", "e.description", ExpenseResponse::getDescription),
+    DATE("date", "e.date", ExpenseResponse::getDate),
+    TYPE("type", "e.type", ExpenseResponse::getType),
+    CREATED_AT("createdAt", "e.createdAt", ExpenseResponse::getCreatedAt),
+    UPDATED_AT("updatedAt", "e.updatedAt", ExpenseResponse::getUpdatedAt),
+    CATEGORY_ID("categoryId", "e.category.id", ExpenseResponse::getCategoryId),
+    CATEGORY_NAME("categoryName", "c.name", ExpenseResponse::getCategoryName),
+    CATEGORY_ICON("categoryIcon", "c.icon", ExpenseResponse::getCategoryIcon);
+
+    private final String propertyName;
+    private final String path;
+    private final Function<ExpenseResponse, Object> accessor;
+
+    ExpenseField(String propertyName, String path, Function<ExpenseResponse, Object> accessor) {
+        this.propertyName = propertyName;
+        this.path = path;
+        this.accessor = accessor;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * The requested fields of an expense that is not read from the database, in the same
+     * shape as the rows of a {@code fields=} query.
+     */
+    public static Map<String, Object> select(ExpenseResponse expense, Set<ExpenseField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (ExpenseField field : fields) {
+            row.put(field.propertyName, field.accessor.apply(expense));
+        }
+        return row;
+    }
+
+    public boolean requiresCategoryJoin() {
+        return this == CATEGORY_NAME || this == CATEGORY_ICON;
+    }
+
+    public static ExpenseField fromPropertyName(String propertyName) {
+        return Arrays.stream(values())
+                .filter(field -> field.propertyName.equals(propertyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown expense field: " + propertyName));
+    }
+
+    /**
+     * Parses a comma separated list such as {@code id,title,amount,date,categoryId}.
+     * Blank input selects every field.
+     *
+     * @throws IllegalArgumentException if a name is unknown, or if the list names no field
+     *         at all (such as {@code fields=,})
+     */
+    public static Set<ExpenseField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(ExpenseField.class);
+        }
+        Set<ExpenseField> parsed = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(ExpenseField::fromPropertyName)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(ExpenseField.class)));
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("No expense fields selected: " + fields);
+        }
+        return parsed;
+    }
+}
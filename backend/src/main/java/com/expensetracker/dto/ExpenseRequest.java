@@ -3,10 +3,12 @@ package com.expensetracker.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 public class ExpenseRequest {
 
@@ -30,6 +32,14 @@ public class ExpenseRequest {
     @NotNull(message = "Category ID is required")
     private Long categoryId;
 
+    // Defaults to the user's base currency
+    @Pattern(regexp = "[A-Za-z]{3}", message = "Currency must be a three-letter ISO 4217 code")
+    private String currency;
+
+    // Replaces the expense's tags when present; leaving it out keeps them
+    @Size(max = 20, message = "At most 20 tags per expense")
+    private List<@Size(max = 50, message = "Tags must not exceed 50 characters") String> tags;
+
     // Constructors
     public ExpenseRequest() {}
 
@@ -91,4 +101,20 @@ public class ExpenseRequest {
     public void setCategoryId(Long categoryId) {
         this.categoryId = categoryId;
     }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
 }
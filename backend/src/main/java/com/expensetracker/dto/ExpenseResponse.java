@@ -4,6 +4,7 @@ import com.expensetracker.entity.Expense;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class ExpenseResponse {
 
@@ -13,11 +14,13 @@ public class ExpenseResponse {
     private String description;
     private LocalDate date;
     private String type;
+    private String currency;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String categoryName;
     private String categoryIcon;
     private Long categoryId;
+    private List<String> tags = List.of();
 
     // Constructors
     public ExpenseResponse() {}
@@ -29,6 +32,7 @@ public class ExpenseResponse {
         this.description = expense.getDescription();
         this.date = expense.getDate();
         this.type = expense.getType();
+        this.currency = expense.getCurrency();
         this.createdAt = expense.getCreatedAt();
         this.updatedAt = expense.getUpdatedAt();
         this.categoryName = expense.getCategory().getName();
@@ -124,4 +128,20 @@ public class ExpenseResponse {
     public void setCategoryId(Long categoryId) {
         this.categoryId = categoryId;
     }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
 }
@@ -9,6 +9,9 @@ public class ExpenseSummaryResponse {
     private Long totalCount;
     private Map<String, CategorySummary> categorySummary;
     private BigDecimal monthlyTotal;
+    private String currency;
+    // Daily amounts left out of the totals because their currency has no exchange rates
+    private long unconvertedCount;
 
     // Constructors
     public ExpenseSummaryResponse() {}
@@ -54,6 +57,22 @@ public class ExpenseSummaryResponse {
         this.monthlyTotal = monthlyTotal;
     }
 
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
+
     public static class CategorySummary {
         private BigDecimal total;
         private Long count;
@@ -0,0 +1,153 @@
+package com.expensetracker.dto;
+
+import com.expensetracker.entity.Expense;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expense list shape that sends each category once and refers to it by id from every row,
+ * instead of repeating the category name and icon per expense.
+ */
+public class NormalizedExpenseListResponse {
+
+    private Map<Long, CategoryResponse> categories;
+    private List<ExpenseRow> expenses;
+
+    // Constructors
+    public NormalizedExpenseListResponse() {}
+
+    public NormalizedExpenseListResponse(Map<Long, CategoryResponse> categories, List<ExpenseRow> expenses) {
+        this.categories = categories;
+        this.expenses = expenses;
+    }
+
+    // Getters and Setters
+    public Map<Long, CategoryResponse> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<Long, CategoryResponse> categories) {
+        this.categories = categories;
+    }
+
+    public List<ExpenseRow> getExpenses() {
+        return expenses;
+    }
+
+    public void setExpenses(List<ExpenseRow> expenses) {
+        this.expenses = expenses;
+    }
+
+    public static class ExpenseRow {
+        private Long id;
+        private String title;
+        private BigDecimal amount;
+        private String description;
+        private LocalDate date;
+        private String type;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private Long categoryId;
+
+        public ExpenseRow() {}
+
+        public ExpenseRow(Expense expense) {
+            this.id = expense.getId();
+            this.title = expense.getTitle();
+            this.amount = expense.getAmount();
+            this.description = expense.getDescription();
+            this.date = expense.getDate();
+            this.type = expense.getType();
+            this.createdAt = expense.getCreatedAt();
+            this.updatedAt = expense.getUpdatedAt();
+            this.categoryId = expense.getCategory().getId();
+        }
+
+        public ExpenseRow(ExpenseResponse expense) {
+            this.id = expense.getId();
+            this.title = expense.getTitle();
+            this.amount = expense.getAmount();
+            this.description = expense.getDescription();
+            this.date = expense.getDate();
+            this.type = expense.getType();
+            this.createdAt = expense.getCreatedAt();
+            this.updatedAt = expense.getUpdatedAt();
+            this.categoryId = expense.getCategoryId();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public void setUpdatedAt(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public void setCategoryId(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.expensetracker.dto;
+
+import com.expensetracker.entity.RecurrenceFrequency;
+import com.expensetracker.entity.RecurringExpense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class RecurringExpenseResponse {
+
+    private Long id;
+    private String title;
+    private BigDecimal amount;
+    private String description;
+    private String type;
+    private String currency;
+    private RecurrenceFrequency frequency;
+    private int interval;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer occurrences;
+    private int posted;
+    private LocalDate nextDueDate;
+    private boolean active;
+    private Long categoryId;
+    private String categoryName;
+
+    // Constructors
+    public RecurringExpenseResponse() {}
+
+    public RecurringExpenseResponse(RecurringExpense rule) {
+        this.id = rule.getId();
+        this.title = rule.getTitle();
+        this.amount = rule.getAmount();
+        this.description = rule.getDescription();
+        this.type = rule.getType();
+        this.currency = rule.getCurrency();
+        this.frequency = rule.getFrequency();
+        this.interval = rule.getIntervalCount();
+        this.startDate = rule.getStartDate();
+        this.endDate = rule.getEndDate();
+        this.occurrences = rule.getMaxOccurrences();
+        this.posted = rule.getNextOccurrence();
+        this.nextDueDate = rule.isActive() ? rule.getNextDueDate() : null;
+        this.active = rule.isActive();
+        this.categoryId = rule.getCategory().getId();
+        this.categoryName = rule.getCategory().getName();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(RecurrenceFrequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public Integer getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(Integer occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public int getPosted() {
+        return posted;
+    }
+
+    public void setPosted(int posted) {
+        this.posted = posted;
+    }
+
+    public LocalDate getNextDueDate() {
+        return nextDueDate;
+    }
+
+    public void setNextDueDate(LocalDate nextDueDate) {
+        this.nextDueDate = nextDueDate;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+}
@@ -0,0 +1,54 @@
+package com.expensetracker.dto;
+
+import java.math.BigDecimal;
+
+public class TagSummaryResponse {
+
+    private String name;
+    private Long count;
+    private BigDecimal total;
+    private String currency;
+
+    // Constructors
+    public TagSummaryResponse() {}
+
+    public TagSummaryResponse(String name, Long count, BigDecimal total, String currency) {
+        this.name = name;
+        this.count = count;
+        this.total = total;
+        this.currency = currency;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,63 @@
+package com.expensetracker.dto;
+
+public class TitleSuggestionResponse {
+
+    private String title;
+    private Long categoryId;
+    private String categoryName;
+    private String categoryIcon;
+    private Integer count;
+
+    // Constructors
+    public TitleSuggestionResponse() {}
+
+    public TitleSuggestionResponse(String title, Long categoryId, String categoryName, String categoryIcon,
+                                   Integer count) {
+        this.title = title;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryIcon = categoryIcon;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public String getCategoryIcon() {
+        return categoryIcon;
+    }
+
+    public void setCategoryIcon(String categoryIcon) {
+        this.categoryIcon = categoryIcon;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,41 @@
+package com.expensetracker.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Per-user version of the archive tier. Bumped in the same transaction as every move of the
+ * user's rows into or out of {@code expenses_archive}, so each instance can tell whether its
+ * cached archive index is current. Written through JDBC by
+ * {@link com.expensetracker.archive.ExpenseArchive}; mapped so the schema is managed with the rest.
+ */
+@Entity
+@Table(name = "expense_archive_versions")
+public class ArchiveVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version;
+
+    // Constructors
+    public ArchiveVersion() {}
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,177 @@
+package com.expensetracker.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An expense moved out of {@code expenses} once it fell behind the archive horizon. Rows
+ * keep their original id, so links to them stay valid and a restored row goes back under
+ * the same id. Archived rows are only written by the archiver and by restore and delete.
+ */
+@Entity
+@Table(name = "expenses_archive", indexes = {
+        @Index(name = "idx_expenses_archive_user_date", columnList = "user_id, date")
+})
+public class ArchivedExpense {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false, length = 20)
+    private String type;
+
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "occurrence_key", unique = true, length = 40)
+    private String occurrenceKey;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", nullable = false)
+    private Category category;
+
+    // Constructors
+    public ArchivedExpense() {}
+
+    /**
+     * Detached {@link Expense} view of this row, so archived rows can be mapped and
+     * aggregated by the same code as live ones.
+     */
+    public Expense toExpense() {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setTitle(title);
+        expense.setAmount(amount);
+        expense.setDescription(description);
+        expense.setDate(date);
+        expense.setType(type);
+        expense.setCurrency(currency);
+        expense.setCreatedAt(createdAt);
+        expense.setUpdatedAt(updatedAt);
+        expense.setOccurrenceKey(occurrenceKey);
+        expense.setUser(user);
+        expense.setCategory(category);
+        return expense;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getOccurrenceKey() {
+        return occurrenceKey;
+    }
+
+    public void setOccurrenceKey(String occurrenceKey) {
+        this.occurrenceKey = occurrenceKey;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+}
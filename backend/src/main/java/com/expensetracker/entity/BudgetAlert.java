@@ -0,0 +1,113 @@
+package com.expensetracker.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Record of a budget threshold having been reached in a month. The unique key on
+ * {@code (user_id, category_id, period, threshold)} is what makes an alert fire once per
+ * month, across restarts and instances: only the insert that succeeds publishes the alert.
+ */
+@Entity
+@Table(name = "budget_alerts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_budget_alert_period",
+                columnNames = {"user_id", "category_id", "period", "threshold"})
+})
+public class BudgetAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    // yyyy-MM
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    // Percent of the monthly limit
+    @Column(nullable = false)
+    private int threshold;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal spent;
+
+    @Column(name = "monthly_limit", nullable = false, precision = 10, scale = 2)
+    private BigDecimal monthlyLimit;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public BudgetAlert() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public BigDecimal getSpent() {
+        return spent;
+    }
+
+    public void setSpent(BigDecimal spent) {
+        this.spent = spent;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(BigDecimal monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
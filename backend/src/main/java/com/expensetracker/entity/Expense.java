@@ -8,9 +8,13 @@ import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expenses_user_date", columnList = "user_id, date")
+})
 public class Expense {
 
     @Id
@@ -39,12 +43,21 @@ public class Expense {
     @Column(nullable = false)
     private String type; // "income" or "expense"
 
+    // ISO 4217 code; null on rows written before multi-currency, which are in the user's base currency
+    @Size(max = 3)
+    @Column(length = 3)
+    private String currency;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Set only on rows posted by a recurring rule, so a rerun can never post the same occurrence twice
+    @Column(name = "occurrence_key", unique = true, length = 40, updatable = false)
+    private String occurrenceKey;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -53,6 +66,14 @@ public class Expense {
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
+    // No foreign key to expenses, so archived expenses keep their tags under the same id
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "expense_tags",
+            joinColumns = @JoinColumn(name = "expense_id"),
+            inverseJoinColumns = @JoinColumn(name = "tag_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Set<Tag> tags = new HashSet<>();
+
     // Constructors
     public Expense() {}
 
@@ -130,6 +151,22 @@ public class Expense {
         this.type = type;
     }
 
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getOccurrenceKey() {
+        return occurrenceKey;
+    }
+
+    public void setOccurrenceKey(String occurrenceKey) {
+        this.occurrenceKey = occurrenceKey;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -161,4 +198,12 @@ public class Expense {
     public void setCategory(Category category) {
         this.category = category;
     }
+
+    public Set<Tag> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<Tag> tags) {
+        this.tags = tags;
+    }
 }
@@ -0,0 +1,29 @@
+package com.expensetracker.entity;
+
+import java.time.LocalDate;
+
+/**
+ * How often a {@link RecurringExpense} repeats, in the spirit of an RRULE FREQ. Occurrences
+ * are always computed from the start date, so a rule starting on the 31st falls on the last
+ * day of shorter months without drifting to the 28th afterwards.
+ */
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    YEARLY;
+
+    /**
+     * Date of the {@code index}-th occurrence (0 is the start date) repeating every
+     * {@code interval} periods.
+     */
+    public LocalDate occurrence(LocalDate start, int interval, int index) {
+        long periods = (long) interval * index;
+        return switch (this) {
+            case DAILY -> start.plusDays(periods);
+            case WEEKLY -> start.plusWeeks(periods);
+            case MONTHLY -> start.plusMonths(periods);
+            case YEARLY -> start.plusYears(periods);
+        };
+    }
+}
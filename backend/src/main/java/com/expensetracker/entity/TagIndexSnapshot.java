@@ -0,0 +1,76 @@
+package com.expensetracker.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user state of the tag bitmap index. {@code version} is bumped in the same transaction
+ * as every change to the user's tag assignments; {@code payload} is a serialized index that
+ * is current only while {@code snapshotVersion} equals {@code version}. Written through JDBC
+ * by {@link com.expensetracker.tag.TagIndex}; mapped so the schema is managed with the rest.
+ */
+@Entity
+@Table(name = "tag_index_snapshots")
+public class TagIndexSnapshot {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "snapshot_version", nullable = false)
+    private long snapshotVersion;
+
+    @Lob
+    @Column(length = 16777215)
+    private byte[] payload;
+
+    @Column(name = "saved_at")
+    private LocalDateTime savedAt;
+
+    // Constructors
+    public TagIndexSnapshot() {}
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    public void setSnapshotVersion(long snapshotVersion) {
+        this.snapshotVersion = snapshotVersion;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getSavedAt() {
+        return savedAt;
+    }
+
+    public void setSavedAt(LocalDateTime savedAt) {
+        this.savedAt = savedAt;
+    }
+}
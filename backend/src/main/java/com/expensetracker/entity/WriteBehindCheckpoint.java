@@ -0,0 +1,64 @@
+package com.expensetracker.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Highest write-ahead log sequence whose expense has been committed to the database, per
+ * instance. Each instance has its own log, so its checkpoint is keyed by its node id.
+ * Updated in the same transaction as the drained rows, so replay never inserts twice.
+ */
+@Entity
+@Table(name = "write_behind_checkpoints")
+public class WriteBehindCheckpoint {
+
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public WriteBehindCheckpoint() {}
+
+    public WriteBehindCheckpoint(String nodeId, Long lastSequence) {
+        this.nodeId = nodeId;
+        this.lastSequence = lastSequence;
+    }
+
+    // Lifecycle methods
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,114 @@
+package com.expensetracker.fx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Amounts collected for one bulk conversion. Each added amount is stored as cents, a
+ * currency index and an epoch day in parallel primitive arrays, so {@link #convertTo}
+ * is a single pass of array reads over the rate table instead of a lookup per amount.
+ *
+ * A currency without rates (e.g. one dropped from the rates file since the amount was
+ * stored) does not fail the batch: its amounts convert to 0, unless the target is that same
+ * currency, and are counted by {@link #unconverted()} so callers can flag the total.
+ */
+public final class ConversionBatch {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversionBatch.class);
+
+    private final FxRates rates;
+    private final int fallbackCurrency;
+    // Currencies without rates, indexed by -1 - index
+    private final List<String> unknownCurrencies = new ArrayList<>(0);
+
+    private long[] cents;
+    private int[] currencies;
+    private long[] epochDays;
+    private int size;
+    private int unconverted;
+
+    /**
+     * @param fallbackCurrency currency of amounts added without one
+     */
+    public ConversionBatch(FxRates rates, String fallbackCurrency, int expectedSize) {
+        this.rates = rates;
+        this.fallbackCurrency = indexOf(fallbackCurrency);
+        int capacity = Math.max(expectedSize, 16);
+        this.cents = new long[capacity];
+        this.currencies = new int[capacity];
+        this.epochDays = new long[capacity];
+    }
+
+    /**
+     * Adds an amount and returns its position in the converted result.
+     */
+    public int add(BigDecimal amount, String currency, LocalDate date) {
+        return add(toCents(amount), currency, date.toEpochDay());
+    }
+
+    public int add(long amountCents, String currency, long epochDay) {
+        if (size == cents.length) {
+            int capacity = size * 2;
+            cents = Arrays.copyOf(cents, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+        }
+        cents[size] = amountCents;
+        currencies[size] = currency != null ? indexOf(currency) : fallbackCurrency;
+        epochDays[size] = epochDay;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Every amount converted to {@code currency} at the rate of its own date, in cents, in
+     * the order they were added. Amounts that could not be converted are 0.
+     */
+    public long[] convertTo(String currency) {
+        long[] converted = new long[size];
+        unconverted = rates.convert(cents, currencies, epochDays, indexOf(currency), converted, size);
+        if (unconverted > 0) {
+            logger.warn("No exchange rates for {}; left {} amounts out of a total in {}", unknownCurrencies,
+                    unconverted, currency);
+        }
+        return converted;
+    }
+
+    /**
+     * Number of amounts the last {@link #convertTo} left out for lack of rates.
+     */
+    public int unconverted() {
+        return unconverted;
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private int indexOf(String currency) {
+        int index = rates.indexOf(currency);
+        if (index >= 0) {
+            return index;
+        }
+        int unknown = unknownCurrencies.indexOf(currency);
+        if (unknown < 0) {
+            unknown = unknownCurrencies.size();
+            unknownCurrencies.add(currency);
+        }
+        return -1 - unknown;
+    }
+}
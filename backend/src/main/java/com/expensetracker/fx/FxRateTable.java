@@ -0,0 +1,202 @@
+package com.expensetracker.fx;
+
+import com.expensetracker.entity.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily exchange rates loaded from a local CSV file ({@code app.fx.rates-file}) with one
+ * {@code date,currency,rate} line per published rate, where the rate is units of the
+ * currency per one unit of {@code app.fx.base-currency}. Lines starting with {@code #} and a
+ * {@code date,...} header are skipped.
+ *
+ * The whole table is held in memory as an immutable {@link FxRates} snapshot and replaced
+ * atomically when the file changes. A currency dropped from the file keeps its last known rate
+ * until restart. Without a rates file only the base currency is known.
+ */
+@Component
+public class FxRateTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateTable.class);
+
+    private final ResourceLoader resourceLoader;
+    private final String ratesFile;
+    private final String baseCurrency;
+    private final Duration reloadInterval;
+
+    private volatile FxRates rates;
+    private volatile long loadedModified = -1;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fx-rate-reloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FxRateTable(ResourceLoader resourceLoader,
+                       @Value("${app.fx.rates-file:}") String ratesFile,
+                       @Value("${app.fx.base-currency:USD}") String baseCurrency,
+                       @Value("${app.fx.reload-interval:1h}") Duration reloadInterval) {
+        this.resourceLoader = resourceLoader;
+        this.ratesFile = ratesFile;
+        this.baseCurrency = baseCurrency.toUpperCase(Locale.ROOT);
+        this.reloadInterval = reloadInterval;
+        this.rates = FxRates.baseOnly(this.baseCurrency);
+        if (StringUtils.hasText(ratesFile)) {
+            // Fail startup on a malformed file rather than serving wrong totals
+            reload();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!StringUtils.hasText(ratesFile)) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::reloadSafely, reloadInterval.toMillis(), reloadInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public FxRates current() {
+        return rates;
+    }
+
+    /**
+     * The currency rates are quoted against, and the base currency of users who never chose one.
+     */
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * The currency the user's summaries are reported in, which is also the currency of their
+     * expenses stored without one.
+     */
+    public String baseCurrencyOf(User user) {
+        return user.getBaseCurrency() != null ? user.getBaseCurrency() : baseCurrency;
+    }
+
+    /**
+     * Whether expenses in currencies other than the user's base can exist. Without rates for
+     * other currencies every stored amount is already in the base currency.
+     */
+    public boolean convertsFor(User user) {
+        FxRates current = rates;
+        return current.getCurrencies().size() > 1 || !baseCurrencyOf(user).equals(current.getBaseCurrency());
+    }
+
+    public boolean isSupported(String currency) {
+        return currency != null && rates.supports(currency);
+    }
+
+    private void reload() {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        try {
+            long modified = lastModified(resource);
+            if (modified != -1 && modified == loadedModified) {
+                return;
+            }
+            List<FxRates.Quote> quotes = parse(resource);
+            carryForwardDropped(rates, quotes);
+            FxRates loaded = FxRates.of(baseCurrency, quotes);
+            rates = loaded;
+            loadedModified = modified;
+            logger.info("Loaded FX rates for {} currencies over {} days from {}", loaded.getCurrencies().size(),
+                    loaded.getDays(), ratesFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read FX rates from " + ratesFile, e);
+        }
+    }
+
+    /**
+     * Keeps currencies that the previous table knew and the new file no longer lists, at their
+     * last known rate, so amounts already stored in them still convert.
+     */
+    private static void carryForwardDropped(FxRates previous, List<FxRates.Quote> quotes) {
+        Set<String> listed = new HashSet<>();
+        quotes.forEach(quote -> listed.add(quote.currency()));
+        for (String currency : previous.getCurrencies()) {
+            if (!listed.contains(currency) && !currency.equals(previous.getBaseCurrency())) {
+                double rate = previous.lastRate(previous.indexOf(currency));
+                logger.warn("FX rates file no longer lists {}, keeping its last known rate {}", currency, rate);
+                quotes.add(new FxRates.Quote(currency, previous.getLastDay(), rate));
+            }
+        }
+    }
+
+    private List<FxRates.Quote> parse(Resource resource) throws IOException {
+        List<FxRates.Quote> quotes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("date")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length != 3) {
+                    throw new IOException("Malformed FX rate on line " + lineNumber + ": " + line);
+                }
+                try {
+                    double rate = Double.parseDouble(parts[2].trim());
+                    if (!(rate > 0)) {
+                        throw new IOException("Non-positive FX rate on line " + lineNumber + ": " + line);
+                    }
+                    quotes.add(new FxRates.Quote(parts[1].trim().toUpperCase(Locale.ROOT),
+                            LocalDate.parse(parts[0].trim()).toEpochDay(), rate));
+                } catch (RuntimeException e) {
+                    throw new IOException("Malformed FX rate on line " + lineNumber + ": " + line, e);
+                }
+            }
+        }
+        return quotes;
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // Classpath resources inside a jar have no modification time; reload every time
+            return -1;
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.error("FX rate reload failed, keeping the previous rates", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,174 @@
+package com.expensetracker.fx;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable table of daily exchange rates, quoted as units of each currency per one unit
+ * of the base currency.
+ *
+ * Rates live in one flat {@code double[]} with a row of consecutive days per currency, so
+ * the rate of any currency on any day is a single array read at
+ * {@code currency * days + (epochDay - firstDay)}. Days without a published rate (weekends,
+ * holidays) carry the previous day's rate forward; days before a currency's first rate use
+ * that first rate, and days after the table's last day use the last one.
+ */
+public final class FxRates {
+
+    private final String baseCurrency;
+    private final String[] currencies;
+    private final Map<String, Integer> indexes;
+    private final long firstDay;
+    private final int days;
+    private final double[] rates;
+
+    private FxRates(String baseCurrency, String[] currencies, long firstDay, int days, double[] rates) {
+        this.baseCurrency = baseCurrency;
+        this.currencies = currencies;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.rates = rates;
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < currencies.length; i++) {
+            indexes.put(currencies[i], i);
+        }
+    }
+
+    /**
+     * A table that only knows the base currency.
+     */
+    public static FxRates baseOnly(String baseCurrency) {
+        return new FxRates(baseCurrency, new String[] {baseCurrency}, 0, 1, new double[] {1.0});
+    }
+
+    /**
+     * Builds the table from published rates, one {@code (currency, epochDay, rate)} entry per
+     * quote, in any order.
+     */
+    public static FxRates of(String baseCurrency, List<Quote> quotes) {
+        if (quotes.isEmpty()) {
+            return baseOnly(baseCurrency);
+        }
+        Map<String, Integer> indexes = new HashMap<>();
+        indexes.put(baseCurrency, 0);
+        long firstDay = Long.MAX_VALUE;
+        long lastDay = Long.MIN_VALUE;
+        for (Quote quote : quotes) {
+            indexes.putIfAbsent(quote.currency(), indexes.size());
+            firstDay = Math.min(firstDay, quote.epochDay());
+            lastDay = Math.max(lastDay, quote.epochDay());
+        }
+        int days = Math.toIntExact(lastDay - firstDay + 1);
+        String[] currencies = new String[indexes.size()];
+        indexes.forEach((code, index) -> currencies[index] = code);
+
+        double[] rates = new double[Math.multiplyExact(currencies.length, days)];
+        Arrays.fill(rates, Double.NaN);
+        Arrays.fill(rates, 0, days, 1.0);
+        for (Quote quote : quotes) {
+            if (!quote.currency().equals(baseCurrency)) {
+                rates[indexes.get(quote.currency()) * days + (int) (quote.epochDay() - firstDay)] = quote.rate();
+            }
+        }
+        for (int currency = 1; currency < currencies.length; currency++) {
+            fill(rates, currency * days, days);
+        }
+        return new FxRates(baseCurrency, currencies, firstDay, days, rates);
+    }
+
+    private static void fill(double[] rates, int from, int days) {
+        double first = Double.NaN;
+        for (int i = from; i < from + days && Double.isNaN(first); i++) {
+            first = rates[i];
+        }
+        double last = first;
+        for (int i = from; i < from + days; i++) {
+            if (Double.isNaN(rates[i])) {
+                rates[i] = last;
+            } else {
+                last = rates[i];
+            }
+        }
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public List<String> getCurrencies() {
+        return List.of(currencies);
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public long getLastDay() {
+        return firstDay + days - 1;
+    }
+
+    /**
+     * The currency's rate on the table's last day.
+     */
+    public double lastRate(int currency) {
+        return rates[currency * days + days - 1];
+    }
+
+    /**
+     * Index of the currency in this table, or -1 if it has no rates.
+     */
+    public int indexOf(String currency) {
+        Integer index = indexes.get(currency);
+        return index != null ? index : -1;
+    }
+
+    public boolean supports(String currency) {
+        return indexes.containsKey(currency);
+    }
+
+    /**
+     * Converts amounts in cents to the {@code target} currency, each at the rate of its own
+     * day, rounding each result to the cent. The arrays are parallel; {@code out} may be
+     * {@code cents} itself. A negative index stands for a currency without rates: such an
+     * amount is only passed through to the same index and otherwise converts to 0. Returns
+     * the number of amounts that could not be converted.
+     */
+    public int convert(long[] cents, int[] currencies, long[] epochDays, int target, long[] out, int length) {
+        double[] table = rates;
+        int targetRow = target * days;
+        int lastDay = days - 1;
+        int unconverted = 0;
+        for (int i = 0; i < length; i++) {
+            int currency = currencies[i];
+            if (currency == target) {
+                out[i] = cents[i];
+                continue;
+            }
+            if (currency < 0 || target < 0) {
+                out[i] = 0;
+                unconverted++;
+                continue;
+            }
+            int day = (int) Math.max(0, Math.min(lastDay, epochDays[i] - firstDay));
+            out[i] = Math.round(cents[i] * (table[targetRow + day] / table[currency * days + day]));
+        }
+        return unconverted;
+    }
+
+    /**
+     * Converts one amount the same way as the bulk {@link #convert(long[], int[], long[], int, long[], int)},
+     * for callers that see amounts one at a time. Both indexes must be known to this table.
+     */
+    public long convert(long cents, int currency, long epochDay, int target) {
+        if (currency == target) {
+            return cents;
+        }
+        int day = (int) Math.max(0, Math.min(days - 1, epochDay - firstDay));
+        return Math.round(cents * (rates[target * days + day] / rates[currency * days + day]));
+    }
+
+    public record Quote(String currency, long epochDay, double rate) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.expensetracker.health;
+
+/**
+ * One saturation check from the latest {@link SaturationMonitor} refresh. {@code value} and
+ * {@code threshold} share the unit named by {@code unit}; the check fails once the value
+ * exceeds the threshold.
+ */
+public record HealthCheckResult(String name, boolean ok, double value, double threshold, String unit) {
+
+    static HealthCheckResult atMost(String name, double value, double threshold, String unit) {
+        return new HealthCheckResult(name, value <= threshold, value, threshold, unit);
+    }
+
+    static HealthCheckResult failed(String name, double threshold, String unit) {
+        return new HealthCheckResult(name, false, Double.NaN, threshold, unit);
+    }
+}
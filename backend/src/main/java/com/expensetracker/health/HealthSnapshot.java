@@ -0,0 +1,16 @@
+package com.expensetracker.health;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of one background refresh. Probes only ever read the latest snapshot.
+ */
+public record HealthSnapshot(Instant checkedAt, long refreshMillis, List<HealthCheckResult> checks) {
+
+    static final HealthSnapshot PENDING = new HealthSnapshot(Instant.EPOCH, 0, List.of());
+
+    public boolean allOk() {
+        return checks.stream().allMatch(HealthCheckResult::ok);
+    }
+}
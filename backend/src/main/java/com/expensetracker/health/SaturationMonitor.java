@@ -0,0 +1,262 @@
+package com.expensetracker.health;
+
+import com.expensetracker.concurrency.BulkheadLimiter;
+import com.expensetracker.concurrency.BulkheadRegistry;
+import com.expensetracker.security.PasswordHashingExecutor;
+import com.expensetracker.writebehind.ExpenseWriteBehindBuffer;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how close the instance is to saturation and keeps the result as a
+ * {@link HealthSnapshot}, refreshed on a background thread every
+ * {@code app.health.refresh-interval}. Readiness probes read the snapshot, so a probe never
+ * opens a connection or walks the pools itself.
+ *
+ * Checks, each against its own threshold:
+ * <ul>
+ *     <li>per connection pool: active connections as a share of the maximum, and the longest
+ *     recent wait for a connection</li>
+ *     <li>database ping latency per pool, including the wait for a connection</li>
+ *     <li>queue fill of the login hashing pool and of each bulkhead, and write-behind backlog</li>
+ *     <li>old-generation heap still in use after the last collection, which covers the
+ *     on-heap caches</li>
+ * </ul>
+ * The instance is ready when every check passes and the snapshot is recent; a refresh that
+ * hangs (for example on an exhausted pool) therefore also takes the instance out of rotation.
+ */
+@Component
+public class SaturationMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaturationMonitor.class);
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationAvailability availability;
+    private final ObjectProvider<PasswordHashingExecutor> passwordHashingExecutor;
+    private final ObjectProvider<BulkheadRegistry> bulkheadRegistry;
+    private final ObjectProvider<ExpenseWriteBehindBuffer> writeBehindBuffer;
+
+    private final Duration refreshInterval;
+    private final double maxPoolUtilization;
+    private final Duration maxPoolWait;
+    private final Duration maxPingLatency;
+    private final double maxQueueUtilization;
+    private final int maxWriteBehindBacklog;
+    private final double maxHeapAfterGc;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "saturation-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<HikariDataSource> pools = List.of();
+    private volatile HealthSnapshot snapshot = HealthSnapshot.PENDING;
+
+    public SaturationMonitor(DataSource dataSource,
+                             MeterRegistry meterRegistry,
+                             ApplicationAvailability availability,
+                             ObjectProvider<PasswordHashingExecutor> passwordHashingExecutor,
+                             ObjectProvider<BulkheadRegistry> bulkheadRegistry,
+                             ObjectProvider<ExpenseWriteBehindBuffer> writeBehindBuffer,
+                             @Value("${app.health.refresh-interval:2s}") Duration refreshInterval,
+                             @Value("${app.health.pool.max-utilization:0.9}") double maxPoolUtilization,
+                             @Value("${app.health.pool.max-wait:500ms}") Duration maxPoolWait,
+                             @Value("${app.health.db.max-ping:250ms}") Duration maxPingLatency,
+                             @Value("${app.health.queue.max-utilization:0.8}") double maxQueueUtilization,
+                             @Value("${app.health.write-behind.max-backlog:50000}") int maxWriteBehindBacklog,
+                             @Value("${app.health.heap.max-used-after-gc:0.9}") double maxHeapAfterGc) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.availability = availability;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.refreshInterval = refreshInterval;
+        this.maxPoolUtilization = maxPoolUtilization;
+        this.maxPoolWait = maxPoolWait;
+        this.maxPingLatency = maxPingLatency;
+        this.maxQueueUtilization = maxQueueUtilization;
+        this.maxWriteBehindBacklog = maxWriteBehindBacklog;
+        this.maxHeapAfterGc = maxHeapAfterGc;
+
+        Gauge.builder("health.ready", this, monitor -> monitor.isReady() ? 1 : 0)
+                .description("1 while the readiness probe reports ready")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        Set<HikariDataSource> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectPools(dataSource, found);
+        pools = List.copyOf(found);
+        scheduler.scheduleWithFixedDelay(this::refreshSafely, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public HealthSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isLive() {
+        return availability.getLivenessState() != LivenessState.BROKEN;
+    }
+
+    public boolean isReady() {
+        return availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC
+                && isFresh(snapshot)
+                && snapshot.allOk();
+    }
+
+    /**
+     * Whether the snapshot is recent enough to trust; a refresh stuck for three intervals is
+     * itself a sign of saturation.
+     */
+    public boolean isFresh(HealthSnapshot current) {
+        return Duration.between(current.checkedAt(), Instant.now()).compareTo(refreshInterval.multipliedBy(3)) <= 0;
+    }
+
+    private void refreshSafely() {
+        try {
+            long start = System.nanoTime();
+            List<HealthCheckResult> checks = new ArrayList<>();
+            for (HikariDataSource pool : pools) {
+                checkPool(pool, checks);
+            }
+            checkQueues(checks);
+            checkHeap(checks);
+
+            HealthSnapshot refreshed = new HealthSnapshot(Instant.now(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), List.copyOf(checks));
+            if (snapshot.allOk() && !refreshed.allOk()) {
+                logger.warn("Saturation checks failing: {}", refreshed.checks().stream()
+                        .filter(check -> !check.ok()).map(HealthCheckResult::name).toList());
+            }
+            snapshot = refreshed;
+        } catch (Exception e) {
+            // The snapshot goes stale and readiness follows
+            logger.error("Saturation check refresh failed", e);
+        }
+    }
+
+    private void checkPool(HikariDataSource pool, List<HealthCheckResult> checks) {
+        String name = pool.getPoolName();
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        if (mxBean != null) {
+            checks.add(HealthCheckResult.atMost("pool." + name + ".active",
+                    (double) mxBean.getActiveConnections() / pool.getMaximumPoolSize(), maxPoolUtilization, "ratio"));
+        }
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", name).timer();
+        if (acquire != null) {
+            checks.add(HealthCheckResult.atMost("pool." + name + ".wait",
+                    acquire.max(TimeUnit.MILLISECONDS), maxPoolWait.toMillis(), "ms"));
+        }
+
+        String ping = "db." + name + ".ping";
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection()) {
+            if (!connection.isValid(Math.max(1, (int) maxPingLatency.toSeconds()))) {
+                checks.add(HealthCheckResult.failed(ping, maxPingLatency.toMillis(), "ms"));
+                return;
+            }
+            checks.add(HealthCheckResult.atMost(ping,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), maxPingLatency.toMillis(), "ms"));
+        } catch (Exception e) {
+            logger.warn("Database ping on pool {} failed: {}", name, e.getMessage());
+            checks.add(HealthCheckResult.failed(ping, maxPingLatency.toMillis(), "ms"));
+        }
+    }
+
+    private void checkQueues(List<HealthCheckResult> checks) {
+        PasswordHashingExecutor hashing = passwordHashingExecutor.getIfAvailable();
+        if (hashing != null && hashing.getQueueCapacity() > 0) {
+            checks.add(HealthCheckResult.atMost("queue.login",
+                    (double) hashing.getQueueSize() / hashing.getQueueCapacity(), maxQueueUtilization, "ratio"));
+        }
+        BulkheadRegistry bulkheads = bulkheadRegistry.getIfAvailable();
+        if (bulkheads != null) {
+            for (BulkheadLimiter bulkhead : bulkheads.all()) {
+                if (bulkhead.getMaxQueue() > 0) {
+                    checks.add(HealthCheckResult.atMost("queue.bulkhead." + bulkhead.getName(),
+                            (double) bulkhead.getQueued() / bulkhead.getMaxQueue(), maxQueueUtilization, "ratio"));
+                }
+            }
+        }
+        ExpenseWriteBehindBuffer writeBehind = writeBehindBuffer.getIfAvailable();
+        if (writeBehind != null) {
+            checks.add(HealthCheckResult.atMost("queue.write-behind",
+                    writeBehind.getQueueDepth(), maxWriteBehindBacklog, "expenses"));
+        }
+    }
+
+    private void checkHeap(List<HealthCheckResult> checks) {
+        // Usage after the last collection of the pools a full GC reclaims, i.e. live data
+        // rather than garbage that has not been collected yet
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null && afterGc.getMax() > 0
+                    && isTenured(pool.getName())) {
+                used += afterGc.getUsed();
+                max += afterGc.getMax();
+            }
+        }
+        if (max > 0) {
+            checks.add(HealthCheckResult.atMost("heap.after-gc", (double) used / max, maxHeapAfterGc, "ratio"));
+        }
+    }
+
+    private static boolean isTenured(String poolName) {
+        return poolName.contains("Old Gen") || poolName.contains("Tenured") || poolName.equals("ZHeap")
+                || poolName.contains("ZGC Old") || poolName.equals("Shenandoah");
+    }
+
+    private static void collectPools(DataSource candidate, Set<HikariDataSource> pools) {
+        if (candidate instanceof HikariDataSource hikari) {
+            pools.add(hikari);
+        } else if (candidate instanceof DelegatingDataSource delegating && delegating.getTargetDataSource() != null) {
+            collectPools(delegating.getTargetDataSource(), pools);
+        } else if (candidate instanceof AbstractRoutingDataSource routing) {
+            routing.getResolvedDataSources().values().forEach(target -> collectPools(target, pools));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
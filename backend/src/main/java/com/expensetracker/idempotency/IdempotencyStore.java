@@ -0,0 +1,408 @@
+package com.expensetracker.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response to each {@code Idempotency-Key} so a retried mutation is answered
+ * from memory instead of running again.
+ *
+ * Keys are spread over a fixed number of lock stripes, each a small insertion-ordered map,
+ * so unrelated keys never contend on the same lock and expired entries are trimmed from the
+ * head of each stripe. The first request for a key runs the action; concurrent requests with
+ * the same key wait for its result. With {@code app.idempotency.persistent.enabled=true} the
+ * key is also claimed in the {@code idempotency_keys} table, so retries that land on another
+ * instance are answered from there.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long SHARED_POLL_MILLIS = 50;
+
+    private final Stripe[] stripes;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration lease;
+    private final int maxEntriesPerStripe;
+    private final Counter replayCounter;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.idempotency.stripes:64}") int stripeCount,
+                            @Value("${app.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${app.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                            @Value("${app.idempotency.persistent.enabled:false}") boolean persistent,
+                            @Value("${app.idempotency.persistent.lease:30s}") Duration lease,
+                            @Value("${app.idempotency.cleanup-interval:1m}") Duration cleanupInterval) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.lease = lease;
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / stripes.length);
+
+        Gauge.builder("idempotency.entries", this, IdempotencyStore::size)
+                .description("Idempotency keys held in memory")
+                .register(meterRegistry);
+        this.replayCounter = Counter.builder("idempotency.replays")
+                .description("Requests answered with a previously stored response")
+                .register(meterRegistry);
+
+        sweeper.scheduleWithFixedDelay(this::sweep,
+                cleanupInterval.toMillis(), cleanupInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code action} at most once per {@code scope} and {@code key} within the TTL and
+     * returns its response to every request carrying that key. Without a key the action
+     * simply runs. A key reused for a different request is answered with 422, and a key still
+     * in progress after {@code app.idempotency.wait-timeout} with 409.
+     *
+     * @param scope     owner of the key, so different users cannot see each other's responses
+     * @param operation method and path of the endpoint, part of the request fingerprint
+     * @param request   request body, part of the request fingerprint
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, String operation, Object request,
+                                         Class<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String id = scope + ":" + key;
+        String fingerprint = fingerprint(operation, request);
+        Stripe stripe = stripeFor(id);
+        long now = System.nanoTime();
+        Entry entry;
+        boolean owner = false;
+
+        stripe.lock.lock();
+        try {
+            entry = stripe.entries.get(id);
+            if (entry != null && entry.isExpired(now)) {
+                stripe.entries.remove(id);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(fingerprint, now + ttl.toNanos());
+                stripe.entries.put(id, entry);
+                stripe.trim(now, maxEntriesPerStripe);
+                owner = true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        if (owner) {
+            return runAsOwner(stripe, id, entry, bodyType, action);
+        }
+        return awaitResult(entry, bodyType);
+    }
+
+    private <T> ResponseEntity<T> runAsOwner(Stripe stripe, String id, Entry entry, Class<T> bodyType,
+                                             Supplier<ResponseEntity<T>> action) {
+        StoredResponse stored;
+        boolean replayed = false;
+        try {
+            stored = persistent ? claimShared(id, entry.fingerprint, bodyType) : null;
+            if (stored != null) {
+                replayed = stored.cacheable;
+            } else {
+                ResponseEntity<T> response = action.get();
+                stored = new StoredResponse(response.getStatusCode().value(), response.getBody(), true);
+                if (persistent) {
+                    completeShared(id, stored);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            forget(stripe, id, entry);
+            if (persistent) {
+                releaseShared(id);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+
+        if (!stored.cacheable) {
+            forget(stripe, id, entry);
+        }
+        entry.result.complete(stored);
+        if (replayed) {
+            replayCounter.increment();
+        }
+        return stored.toResponse(bodyType, replayed);
+    }
+
+    private <T> ResponseEntity<T> awaitResult(Entry entry, Class<T> bodyType) {
+        StoredResponse stored;
+        try {
+            stored = entry.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ExecutionException e) {
+            // The first request failed; report the same failure rather than running it again
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw (Error) cause;
+        }
+        if (stored.cacheable) {
+            replayCounter.increment();
+        }
+        return stored.toResponse(bodyType, stored.cacheable);
+    }
+
+    /**
+     * Inserts a pending row to claim the key across instances. Returns null if this instance
+     * now owns it, otherwise the response stored by the instance that does.
+     */
+    private StoredResponse claimShared(String id, String fingerprint, Class<?> bodyType) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_keys (id, fingerprint, completed, expires_at) "
+                        + "VALUES (?, ?, false, ?)", id, fingerprint, Timestamp.valueOf(LocalDateTime.now().plus(lease)));
+                return null;
+            } catch (DuplicateKeyException e) {
+                // Claimed elsewhere; fall through and read what it has stored
+            }
+
+            List<SharedRow> rows = jdbcTemplate.query(
+                    "SELECT fingerprint, completed, status_code, response_body, expires_at "
+                            + "FROM idempotency_keys WHERE id = ?",
+                    (rs, rowNum) -> new SharedRow(rs.getString(1), rs.getBoolean(2), rs.getInt(3),
+                            rs.getString(4), rs.getTimestamp(5).toLocalDateTime()),
+                    id);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            SharedRow row = rows.get(0);
+            if (row.expiresAt.isBefore(LocalDateTime.now())) {
+                // Expired, or abandoned by an instance that died mid-request
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND expires_at = ?",
+                        id, Timestamp.valueOf(row.expiresAt));
+                continue;
+            }
+            if (!row.fingerprint.equals(fingerprint)) {
+                return new StoredResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(), null, false);
+            }
+            if (row.completed) {
+                return new StoredResponse(row.statusCode, readBody(row.responseBody, bodyType), true);
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return new StoredResponse(HttpStatus.CONFLICT.value(), null, false);
+            }
+            try {
+                Thread.sleep(SHARED_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new StoredResponse(HttpStatus.CONFLICT.value(), null, false);
+            }
+        }
+    }
+
+    private void completeShared(String id, StoredResponse stored) {
+        try {
+            jdbcTemplate.update("UPDATE idempotency_keys SET completed = true, status_code = ?, response_body = ?, "
+                            + "expires_at = ? WHERE id = ?",
+                    stored.status, stored.body != null ? objectMapper.writeValueAsString(stored.body) : null,
+                    Timestamp.valueOf(LocalDateTime.now().plus(ttl)), id);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent response", e);
+        }
+    }
+
+    private void releaseShared(String id) {
+        try {
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND completed = false", id);
+        } catch (RuntimeException e) {
+            // The lease runs out on its own; the original failure matters more
+            logger.warn("Could not release idempotency key {}", id, e);
+        }
+    }
+
+    private Object readBody(String json, Class<?> bodyType) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, bodyType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private void forget(Stripe stripe, String id, Entry entry) {
+        stripe.lock.lock();
+        try {
+            stripe.entries.remove(id, entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeFor(String id) {
+        int hash = id.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.entries.size();
+        }
+        return size;
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.trim(now, maxEntriesPerStripe);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (persistent) {
+            try {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?",
+                        Timestamp.valueOf(LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                logger.warn("Could not delete expired idempotency keys", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        /**
+         * Every entry gets the same TTL, so insertion order is expiry order: drop expired
+         * entries from the head, then the oldest finished ones while over capacity.
+         */
+        void trim(long now, int maxEntries) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                boolean expired = entry.isExpired(now);
+                boolean evictable = entries.size() > maxEntries && entry.result.isDone();
+                if (!expired && !evictable) {
+                    break;
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final long expiresAtNanos;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAtNanos) {
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos > 0 && result.isDone();
+        }
+    }
+
+    private record StoredResponse(int status, Object body, boolean cacheable) {
+
+        <T> ResponseEntity<T> toResponse(Class<T> bodyType, boolean replayed) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+            if (replayed) {
+                builder.header(REPLAYED_HEADER, "true");
+            }
+            return builder.body(bodyType.cast(body));
+        }
+    }
+
+    private record SharedRow(String fingerprint, boolean completed, int statusCode, String responseBody,
+                             LocalDateTime expiresAt) {
+    }
+}
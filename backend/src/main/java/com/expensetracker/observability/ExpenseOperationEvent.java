@@ -0,0 +1,70 @@
+package com.expensetracker.observability;
+
+import com.expensetracker.entity.User;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Flight Recorder event around an {@code ExpenseService} operation, so pauses in a recording
+ * can be matched to the business call that was running. While no recording has the event
+ * enabled, {@link #shouldCommit()} is false and nothing is written; what remains is the
+ * allocation of the event object.
+ */
+@Name(ExpenseOperationEvent.NAME)
+@Label("Expense Operation")
+@Category({"Expense Tracker", "Service"})
+@Description("An ExpenseService call")
+@StackTrace(false)
+public class ExpenseOperationEvent extends Event {
+
+    public static final String NAME = "com.expensetracker.ExpenseOperation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("User Id")
+    long userId;
+
+    @Label("Rows")
+    @Description("Expenses created, changed, deleted or returned")
+    long rows;
+
+    public static ExpenseOperationEvent start(String operation, User user) {
+        ExpenseOperationEvent event = new ExpenseOperationEvent();
+        event.operation = operation;
+        event.userId = user.getId() != null ? user.getId() : 0;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+
+    /**
+     * Finishes the event once the surrounding transaction has completed, so a write's flush
+     * and commit fall inside it. A rolled back write reports no rows.
+     */
+    public void finishAfterCompletion(long rows) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            finish(rows);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                finish(status == STATUS_COMMITTED ? rows : 0);
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.expensetracker.observability;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Offline report over a Flight Recorder file: one latency table row per application event
+ * type and operation. Uses only JDK classes, so it runs straight from the build output:
+ *
+ * <pre>
+ * java -cp target/classes com.expensetracker.observability.JfrLatencyReport recording.jfr
+ * </pre>
+ */
+public final class JfrLatencyReport {
+
+    private static final Set<String> EVENTS = Set.of(
+            ExpenseOperationEvent.NAME, JwtVerificationEvent.NAME, PasswordHashEvent.NAME);
+
+    private JfrLatencyReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrLatencyReport <recording.jfr>");
+            System.exit(2);
+        }
+
+        Map<String, Samples> byOperation = new TreeMap<>();
+        try (RecordingFile recording = new RecordingFile(Path.of(args[0]))) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+                if (!EVENTS.contains(type)) {
+                    continue;
+                }
+                String key = type.substring(type.lastIndexOf('.') + 1);
+                if (event.hasField("operation")) {
+                    key += "/" + event.getString("operation");
+                }
+                byOperation.computeIfAbsent(key, k -> new Samples()).add(event.getDuration().toNanos());
+            }
+        }
+
+        if (byOperation.isEmpty()) {
+            System.out.println("No expense tracker events in " + args[0]);
+            return;
+        }
+        System.out.printf("%-40s %8s %10s %10s %10s %10s %12s%n",
+                "operation", "count", "p50 ms", "p95 ms", "p99 ms", "max ms", "total ms");
+        byOperation.forEach((operation, samples) -> {
+            long[] sorted = samples.sorted();
+            System.out.printf("%-40s %8d %10.3f %10.3f %10.3f %10.3f %12.1f%n",
+                    operation, sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6, samples.total / 1e6);
+        });
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Samples {
+
+        private long[] durations = new long[64];
+        private int size;
+        private long total;
+
+        void add(long nanos) {
+            if (size == durations.length) {
+                durations = Arrays.copyOf(durations, size * 2);
+            }
+            durations[size++] = nanos;
+            total += nanos;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(durations, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
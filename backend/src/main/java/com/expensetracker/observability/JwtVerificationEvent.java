@@ -0,0 +1,38 @@
+package com.expensetracker.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for validating a request's bearer token.
+ */
+@Name(JwtVerificationEvent.NAME)
+@Label("JWT Verification")
+@Category({"Expense Tracker", "Security"})
+@Description("Bearer token signature and expiry check in AuthTokenFilter")
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+    public static final String NAME = "com.expensetracker.JwtVerification";
+
+    @Label("Valid")
+    boolean valid;
+
+    public static JwtVerificationEvent start() {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(boolean valid) {
+        end();
+        if (shouldCommit()) {
+            this.valid = valid;
+            commit();
+        }
+    }
+}
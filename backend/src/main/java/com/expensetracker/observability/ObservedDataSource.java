@@ -0,0 +1,83 @@
+package com.expensetracker.observability;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every statement executed through the wrapped DataSource and hands the SQL and
+ * elapsed time to {@link SqlStatistics}. Connections and statements are JDK proxies, so
+ * the driver and pool underneath are unchanged.
+ */
+public class ObservedDataSource extends DelegatingDataSource {
+
+    private final SqlStatistics statistics;
+
+    public ObservedDataSource(DataSource targetDataSource, SqlStatistics statistics) {
+        super(targetDataSource);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observe(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return observe(super.getConnection(username, password));
+    }
+
+    private Connection observe(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "createStatement" -> observe((Statement) result, Statement.class, null);
+                        case "prepareStatement" -> observe((Statement) result, PreparedStatement.class, (String) args[0]);
+                        case "prepareCall" -> observe((Statement) result, CallableStatement.class, (String) args[0]);
+                        default -> result;
+                    };
+                });
+    }
+
+    private Object observe(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        String[] batchSql = new String[1];
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("addBatch") && args != null && args.length == 1 && batchSql[0] == null) {
+                        batchSql[0] = (String) args[0];
+                    }
+                    if (!name.startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text
+                            ? text : preparedSql != null ? preparedSql : batchSql[0];
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        statistics.record(sql, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.expensetracker.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a BCrypt hash or verification.
+ */
+@Name(PasswordHashEvent.NAME)
+@Label("Password Hash")
+@Category({"Expense Tracker", "Security"})
+@Description("BCrypt encode or matches call")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    public static final String NAME = "com.expensetracker.PasswordHash";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Matched")
+    @Description("Whether the password matched; always false for encode")
+    boolean matched;
+
+    public static PasswordHashEvent start(String operation) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    public void finish(boolean matched) {
+        end();
+        if (shouldCommit()) {
+            this.matched = matched;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.expensetracker.observability;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Counts the statements executed on the current thread between {@link #start()} and
+ * {@link #close()}, grouped by fingerprint. {@link SqlCaptureFilter} opens one per HTTP
+ * request; tests can open their own and use the {@code assert*} methods to fail when a code
+ * path starts issuing more queries than expected:
+ *
+ * <pre>
+ * try (SqlCapture capture = SqlCapture.start()) {
+ *     expenseService.getAllExpensesByUser(user);
+ *     capture.assertMaxStatements(2).assertNoRepeatedStatements(1);
+ * }
+ * </pre>
+ *
+ * Requires {@code app.sql.observability.enabled} (the default) so statements are recorded.
+ */
+public final class SqlCapture implements AutoCloseable {
+
+    private static final ThreadLocal<SqlCapture> CURRENT = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final SqlCapture previous;
+
+    private SqlCapture(SqlCapture previous) {
+        this.previous = previous;
+    }
+
+    public static SqlCapture start() {
+        SqlCapture capture = new SqlCapture(CURRENT.get());
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    public static SqlCapture current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs work on another thread against this capture, so statements issued by helper
+     * threads of a request are counted with it.
+     */
+    public static <T> T callWith(SqlCapture capture, Supplier<T> work) {
+        if (capture == null) {
+            return work.get();
+        }
+        SqlCapture previous = CURRENT.get();
+        CURRENT.set(capture);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    void record(String fingerprint) {
+        total.incrementAndGet();
+        counts.computeIfAbsent(fingerprint, key -> new AtomicInteger()).incrementAndGet();
+        if (previous != null) {
+            previous.record(fingerprint);
+        }
+    }
+
+    public int getStatementCount() {
+        return total.get();
+    }
+
+    /**
+     * Executions per fingerprint, most frequent first.
+     */
+    public Map<String, Integer> getCountsByFingerprint() {
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue().get(), a.getValue().get()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue().get()));
+        return sorted;
+    }
+
+    public SqlCapture assertStatementCount(int expected) {
+        if (getStatementCount() != expected) {
+            throw new AssertionError("Expected " + expected + " SQL statements but " + getStatementCount()
+                    + " ran: " + getCountsByFingerprint());
+        }
+        return this;
+    }
+
+    public SqlCapture assertMaxStatements(int max) {
+        if (getStatementCount() > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but " + getStatementCount()
+                    + " ran: " + getCountsByFingerprint());
+        }
+        return this;
+    }
+
+    /**
+     * Fails if any single fingerprint ran more than {@code maxPerFingerprint} times, the usual
+     * sign of a lazy association being loaded row by row.
+     */
+    public SqlCapture assertNoRepeatedStatements(int maxPerFingerprint) {
+        counts.forEach((fingerprint, count) -> {
+            if (count.get() > maxPerFingerprint) {
+                throw new AssertionError("Statement ran " + count.get() + " times (limit " + maxPerFingerprint
+                        + "), likely N+1: " + fingerprint);
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.expensetracker.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link SqlCapture} for each HTTP request and reports its statement counts to
+ * {@link SqlStatistics} when the request finishes.
+ */
+public class SqlCaptureFilter extends OncePerRequestFilter {
+
+    private final SqlStatistics statistics;
+
+    public SqlCaptureFilter(SqlStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (SqlCapture capture = SqlCapture.start()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                statistics.completeRequest(request.getMethod() + " " + request.getRequestURI(), capture);
+            }
+        }
+    }
+}
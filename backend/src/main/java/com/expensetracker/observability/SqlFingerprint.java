@@ -0,0 +1,46 @@
+package com.expensetracker.observability;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a SQL statement to its shape so executions of the same query group together:
+ * literals become {@code ?}, IN lists collapse to {@code (?...)} and whitespace is normalised.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int CACHE_LIMIT = 10_000;
+
+    // Statements are mostly prepared with the same text, so fingerprints are memoised per SQL string
+    private static final ConcurrentHashMap<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlFingerprint() {}
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "<unknown>";
+        }
+        String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String fingerprint = compute(sql);
+        if (CACHE.size() < CACHE_LIMIT) {
+            CACHE.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    static String compute(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?...)");
+        return normalized.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,222 @@
+package com.expensetracker.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates statement timings recorded by {@link ObservedDataSource}.
+ *
+ * Totals are kept per fingerprint since startup, plus a rolling window made of a ring of
+ * time buckets from which the slowest fingerprints are ranked. Statements slower than the
+ * threshold are logged, and requests that run one fingerprint more than the N+1 threshold
+ * are logged and kept in a short list of recent suspects.
+ */
+public class SqlStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatistics.class);
+    private static final int BUCKETS = 6;
+    private static final int MAX_SUSPECTS = 50;
+    private static final String OVERFLOW_FINGERPRINT = "<other>";
+
+    private final long slowThresholdNanos;
+    private final int nPlusOneThreshold;
+    private final int maxFingerprints;
+    private final long bucketNanos;
+    private final long originNanos = System.nanoTime();
+
+    private final ConcurrentHashMap<String, FingerprintStats> totals = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final Deque<NPlusOneSuspect> suspects = new ConcurrentLinkedDeque<>();
+
+    private final Timer statementTimer;
+    private final Counter slowCounter;
+    private final Counter nPlusOneCounter;
+    private final DistributionSummary statementsPerRequest;
+
+    public SqlStatistics(MeterRegistry meterRegistry, Duration slowThreshold, int nPlusOneThreshold,
+                         Duration window, int maxFingerprints) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.maxFingerprints = maxFingerprints;
+        this.bucketNanos = Math.max(1, window.toNanos() / BUCKETS);
+
+        this.statementTimer = Timer.builder("sql.statements")
+                .description("Execution time of JDBC statements")
+                .register(meterRegistry);
+        this.slowCounter = Counter.builder("sql.statements.slow")
+                .description("Statements slower than app.sql.slow-threshold")
+                .register(meterRegistry);
+        this.nPlusOneCounter = Counter.builder("sql.n_plus_one.suspected")
+                .description("Requests that ran one statement more often than app.sql.n-plus-one-threshold")
+                .register(meterRegistry);
+        this.statementsPerRequest = DistributionSummary.builder("sql.statements.per_request")
+                .description("JDBC statements executed per HTTP request")
+                .register(meterRegistry);
+    }
+
+    void record(String sql, long elapsedNanos) {
+        String fingerprint = SqlFingerprint.of(sql);
+        statsFor(totals, fingerprint).add(elapsedNanos);
+        statsFor(currentBucket().stats, fingerprint).add(elapsedNanos);
+        statementTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        SqlCapture capture = SqlCapture.current();
+        if (capture != null) {
+            capture.record(fingerprint);
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            slowCounter.increment();
+            logger.warn("Slow SQL ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), fingerprint);
+        }
+    }
+
+    /**
+     * Called when a request finishes with the statements it ran.
+     */
+    void completeRequest(String request, SqlCapture capture) {
+        statementsPerRequest.record(capture.getStatementCount());
+        capture.getCountsByFingerprint().forEach((fingerprint, count) -> {
+            if (count > nPlusOneThreshold) {
+                nPlusOneCounter.increment();
+                logger.warn("Likely N+1 in {}: statement ran {} times: {}", request, count, fingerprint);
+                suspects.addFirst(new NPlusOneSuspect(Instant.now(), request, fingerprint, count));
+                while (suspects.size() > MAX_SUSPECTS) {
+                    suspects.pollLast();
+                }
+            }
+        });
+    }
+
+    /**
+     * The {@code limit} fingerprints with the most total time in the rolling window.
+     */
+    public List<FingerprintSummary> topSlow(int limit) {
+        long currentEpoch = epoch();
+        Map<String, FingerprintStats> merged = new HashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && currentEpoch - bucket.epoch < BUCKETS) {
+                bucket.stats.forEach((fingerprint, stats) ->
+                        merged.computeIfAbsent(fingerprint, key -> new FingerprintStats()).merge(stats));
+            }
+        }
+        return rank(merged, limit);
+    }
+
+    /**
+     * The {@code limit} fingerprints with the most total time since startup or the last reset.
+     */
+    public List<FingerprintSummary> topTotal(int limit) {
+        return rank(totals, limit);
+    }
+
+    public List<NPlusOneSuspect> recentSuspects() {
+        return new ArrayList<>(suspects);
+    }
+
+    public void reset() {
+        totals.clear();
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, null);
+        }
+        suspects.clear();
+    }
+
+    private FingerprintStats statsFor(ConcurrentHashMap<String, FingerprintStats> map, String fingerprint) {
+        FingerprintStats stats = map.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        // Unbounded distinct SQL (e.g. generated IN lists that escaped normalisation) folds into one entry
+        String key = map.size() < maxFingerprints ? fingerprint : OVERFLOW_FINGERPRINT;
+        return map.computeIfAbsent(key, k -> new FingerprintStats());
+    }
+
+    private Bucket currentBucket() {
+        long currentEpoch = epoch();
+        int slot = (int) (currentEpoch % BUCKETS);
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.epoch != currentEpoch) {
+            Bucket fresh = new Bucket(currentEpoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = buckets.get(slot);
+        }
+        return bucket;
+    }
+
+    private long epoch() {
+        return (System.nanoTime() - originNanos) / bucketNanos;
+    }
+
+    private static List<FingerprintSummary> rank(Map<String, FingerprintStats> stats, int limit) {
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().summarize(entry.getKey()))
+                .sorted(Comparator.comparingDouble(FingerprintSummary::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+        private final ConcurrentHashMap<String, FingerprintStats> stats = new ConcurrentHashMap<>();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class FingerprintStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        void merge(FingerprintStats other) {
+            count.add(other.count.sum());
+            totalNanos.add(other.totalNanos.sum());
+            maxNanos.accumulate(other.maxNanos.get());
+        }
+
+        FingerprintSummary summarize(String fingerprint) {
+            long executions = count.sum();
+            double total = totalNanos.sum() / 1_000_000.0;
+            return new FingerprintSummary(fingerprint, executions, total,
+                    executions > 0 ? total / executions : 0, maxNanos.get() / 1_000_000.0);
+        }
+    }
+
+    public record FingerprintSummary(String fingerprint, long count, double totalMillis, double meanMillis,
+                                     double maxMillis) {
+    }
+
+    public record NPlusOneSuspect(Instant detectedAt, String request, String fingerprint, int executions) {
+    }
+}
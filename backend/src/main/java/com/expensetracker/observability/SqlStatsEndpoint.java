@@ -0,0 +1,39 @@
+package com.expensetracker.observability;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/sqlstats}: slowest statement fingerprints in the rolling window and since
+ * startup, plus recent N+1 suspects. DELETE resets the counters. Not exposed over HTTP
+ * unless added to {@code management.endpoints.web.exposure.include}.
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final SqlStatistics statistics;
+    private final int topK;
+
+    public SqlStatsEndpoint(SqlStatistics statistics, int topK) {
+        this.statistics = statistics;
+        this.topK = topK;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("slowestInWindow", statistics.topSlow(topK));
+        report.put("slowestSinceStart", statistics.topTotal(topK));
+        report.put("nPlusOneSuspects", statistics.recentSuspects());
+        return report;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+}
@@ -0,0 +1,269 @@
+package com.expensetracker.recurring;
+
+import com.expensetracker.budget.BudgetEngine;
+import com.expensetracker.entity.RecurrenceFrequency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Posts the due occurrences of every user's recurring expenses.
+ *
+ * Each run drains the due queue (the {@code (active, next_due_date)} index) in chunks. A
+ * chunk is claimed with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so several workers and
+ * several instances take disjoint chunks without coordinating. Within the claiming
+ * transaction the occurrences are inserted with one JDBC batch and the rules advanced with
+ * another, so a chunk is either fully posted or not at all.
+ *
+ * Every posted expense carries an occurrence key ({@code r<rule id>:<date>}) under a unique
+ * index. Keys already present are skipped before inserting, so rerunning a chunk, or
+ * resetting a rule's schedule, never posts an occurrence twice.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.recurring", name = "enabled", matchIfMissing = true)
+public class RecurringExpenseMaterializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringExpenseMaterializer.class);
+
+    private static final String CLAIM_DUE_RULES = "SELECT id, user_id, category_id, title, amount, description, "
+            + "type, currency, frequency, interval_count, start_date, end_date, max_occurrences, next_occurrence, next_due_date "
+            + "FROM recurring_expenses WHERE active = TRUE AND next_due_date <= ? "
+            + "ORDER BY next_due_date LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String INSERT_EXPENSE = "INSERT INTO expenses "
+            + "(title, amount, description, date, type, created_at, updated_at, user_id, category_id, occurrence_key, "
+            + "currency) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ADVANCE_RULE = "UPDATE recurring_expenses "
+            + "SET next_occurrence = ?, next_due_date = ?, active = ?, updated_at = ? WHERE id = ?";
+
+    private static final int KEY_LOOKUP_BATCH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BudgetEngine budgetEngine;
+    private final int chunkSize;
+    private final int workers;
+    private final int maxCatchUp;
+    private final Duration pollInterval;
+    private final boolean shardingEnabled;
+
+    private final Counter postedCounter;
+    private final Counter rulesCounter;
+    private final Timer runTimer;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recurring-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService workerPool;
+
+    public RecurringExpenseMaterializer(JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        BudgetEngine budgetEngine,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.recurring.chunk-size:1000}") int chunkSize,
+                                        @Value("${app.recurring.workers:2}") int workers,
+                                        @Value("${app.recurring.max-catch-up:100}") int maxCatchUp,
+                                        @Value("${app.recurring.poll-interval:1m}") Duration pollInterval,
+                                        @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.budgetEngine = budgetEngine;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.maxCatchUp = maxCatchUp;
+        this.pollInterval = pollInterval;
+        this.shardingEnabled = shardingEnabled;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "recurring-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.postedCounter = Counter.builder("recurring.occurrences.posted")
+                .description("Expenses posted from recurring rules")
+                .register(meterRegistry);
+        this.rulesCounter = Counter.builder("recurring.rules.processed")
+                .description("Recurring rules claimed and advanced")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("recurring.run.duration")
+                .description("Time to drain the recurring expense due queue")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (shardingEnabled) {
+            // Rules and expenses would live on different shards; the claim query is single-database
+            logger.warn("Recurring expenses are not materialized while app.sharding is enabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::runSafely, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Posts everything due up to and including {@code today}, returning the number of
+     * expenses posted.
+     */
+    public int runOnce(LocalDate today) {
+        long start = System.nanoTime();
+        List<CompletableFuture<int[]>> drains = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            drains.add(CompletableFuture.supplyAsync(() -> drain(today), workerPool));
+        }
+        int rules = 0;
+        int posted = 0;
+        for (CompletableFuture<int[]> drain : drains) {
+            int[] result = drain.join();
+            rules += result[0];
+            posted += result[1];
+        }
+        runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (rules > 0) {
+            logger.info("Posted {} recurring expenses from {} rules in {}ms", posted, rules,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return posted;
+    }
+
+    private void runSafely() {
+        try {
+            runOnce(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Recurring expense run failed, will retry", e);
+        }
+    }
+
+    private int[] drain(LocalDate today) {
+        int rules = 0;
+        int posted = 0;
+        while (true) {
+            int[] chunk = transactionTemplate.execute(status -> materializeChunk(today));
+            if (chunk == null || chunk[0] == 0) {
+                return new int[] {rules, posted};
+            }
+            rules += chunk[0];
+            posted += chunk[1];
+        }
+    }
+
+    private int[] materializeChunk(LocalDate today) {
+        List<Rule> rules = jdbcTemplate.query(CLAIM_DUE_RULES, (rs, rowNum) -> new Rule(
+                rs.getLong("id"), rs.getLong("user_id"), rs.getLong("category_id"), rs.getString("title"),
+                rs.getBigDecimal("amount"), rs.getString("description"), rs.getString("type"),
+                rs.getString("currency"), RecurrenceFrequency.valueOf(rs.getString("frequency")), rs.getInt("interval_count"),
+                rs.getDate("start_date").toLocalDate(),
+                rs.getDate("end_date") != null ? rs.getDate("end_date").toLocalDate() : null,
+                rs.getObject("max_occurrences", Integer.class), rs.getInt("next_occurrence"),
+                rs.getDate("next_due_date").toLocalDate()), Date.valueOf(today), chunkSize);
+        if (rules.isEmpty()) {
+            return new int[] {0, 0};
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> occurrences = new ArrayList<>();
+        List<Object[]> advances = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            int index = rule.nextOccurrence();
+            LocalDate due = rule.nextDueDate();
+            int posted = 0;
+            // A rule far behind is advanced by at most maxCatchUp occurrences per claim and comes back in a later chunk
+            while (!due.isAfter(today) && rule.allows(index, due) && posted < maxCatchUp) {
+                occurrences.add(new Object[] {rule.title(), rule.amount(), rule.description(), Date.valueOf(due),
+                        rule.type(), now, now, rule.userId(), rule.categoryId(), occurrenceKey(rule.id(), due),
+                        rule.currency()});
+                index++;
+                due = rule.frequency().occurrence(rule.startDate(), rule.interval(), index);
+                posted++;
+            }
+            advances.add(new Object[] {index, Date.valueOf(due), rule.allows(index, due), now, rule.id()});
+        }
+
+        Set<String> existing = existingKeys(occurrences.stream().map(row -> (String) row[9]).toList());
+        if (!existing.isEmpty()) {
+            occurrences.removeIf(row -> existing.contains((String) row[9]));
+        }
+        if (!occurrences.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EXPENSE, occurrences);
+            for (Object[] row : occurrences) {
+                budgetEngine.record((Long) row[7], (Long) row[8], ((Date) row[3]).toLocalDate(), (String) row[4],
+                        (BigDecimal) row[1], (String) row[10]);
+            }
+        }
+        jdbcTemplate.batchUpdate(ADVANCE_RULE, advances);
+
+        rulesCounter.increment(rules.size());
+        postedCounter.increment(occurrences.size());
+        return new int[] {rules.size(), occurrences.size()};
+    }
+
+    private Set<String> existingKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += KEY_LOOKUP_BATCH) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + KEY_LOOKUP_BATCH));
+            String placeholders = batch.stream().map(key -> "?").collect(Collectors.joining(", "));
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT occurrence_key FROM expenses WHERE occurrence_key IN (" + placeholders + ")",
+                    String.class, batch.toArray()));
+        }
+        return existing;
+    }
+
+    static String occurrenceKey(long ruleId, LocalDate date) {
+        return "r" + ruleId + ":" + date;
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    private record Rule(long id, long userId, long categoryId, String title, BigDecimal amount,
+                        String description, String type, String currency, RecurrenceFrequency frequency,
+                        int interval, LocalDate startDate, LocalDate endDate, Integer maxOccurrences,
+                        int nextOccurrence, LocalDate nextDueDate) {
+
+        boolean allows(int index, LocalDate date) {
+            return (endDate == null || !date.isAfter(endDate))
+                    && (maxOccurrences == null || index < maxOccurrences);
+        }
+    }
+}
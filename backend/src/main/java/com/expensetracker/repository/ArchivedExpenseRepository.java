@@ -0,0 +1,49 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.entity.ArchivedExpense;
+import com.expensetracker.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedExpenseRepository extends JpaRepository<ArchivedExpense, Long>, ArchivedExpenseRepositoryCustom {
+
+    @EntityGraph(attributePaths = "category")
+    List<ArchivedExpense> findByUserOrderByDateDesc(User user);
+
+    @EntityGraph(attributePaths = "category")
+    List<ArchivedExpense> findByUserAndCategoryId(User user, Long categoryId);
+
+    @EntityGraph(attributePaths = "category")
+    List<ArchivedExpense> findByUserAndType(User user, String type);
+
+    @EntityGraph(attributePaths = "category")
+    List<ArchivedExpense> findByUserAndDateBetween(User user, LocalDate startDate, LocalDate endDate);
+
+    @EntityGraph(attributePaths = "category")
+    List<ArchivedExpense> findByUserAndIdIn(User user, Collection<Long> ids);
+
+    /**
+     * Per-category count, total and date range of a user's archived expenses; the source of
+     * the in-memory archive index.
+     */
+    @Query("SELECT c.id, c.name, COUNT(e), SUM(e.amount), MIN(e.date), MAX(e.date) "
+            + "FROM ArchivedExpense e JOIN e.category c WHERE e.user.id = :userId GROUP BY c.id, c.name")
+    List<Object[]> summarizeByUser(@Param("userId") Long userId);
+
+    @Query("SELECT c.name, e.currency, e.date, SUM(e.amount), COUNT(e) FROM ArchivedExpense e JOIN e.category c "
+            + "WHERE e.user = :user GROUP BY c.name, e.currency, e.date")
+    List<Object[]> getTotalsByCategoryCurrencyAndDate(@Param("user") User user);
+
+    @Modifying
+    @Query("UPDATE ArchivedExpense e SET e.currency = :currency WHERE e.user = :user AND e.currency IS NULL")
+    int assignMissingCurrency(@Param("user") User user, @Param("currency") String currency);
+}
@@ -0,0 +1,23 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.dto.ExpenseField;
+import com.expensetracker.entity.ArchivedExpense;
+import com.expensetracker.entity.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ArchivedExpenseRepositoryCustom {
+
+    /**
+     * Archived expenses newest first, starting at an arbitrary row rather than a page
+     * boundary, for continuing a listing where the live rows ran out.
+     */
+    List<ArchivedExpense> findByUserFrom(User user, int offset, int limit);
+
+    /**
+     * Same as {@link ExpenseRepositoryCustom#findFieldsByUser}, over the archive.
+     */
+    List<Map<String, Object>> findFieldsByUser(User user, Set<ExpenseField> fields);
+}
@@ -0,0 +1,32 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.dto.ExpenseField;
+import com.expensetracker.entity.ArchivedExpense;
+import com.expensetracker.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ArchivedExpenseRepositoryImpl implements ArchivedExpenseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ArchivedExpense> findByUserFrom(User user, int offset, int limit) {
+        return entityManager.createQuery("SELECT e FROM ArchivedExpense e JOIN FETCH e.category "
+                        + "WHERE e.user = :user ORDER BY e.date DESC, e.id DESC", ArchivedExpense.class)
+                .setParameter("user", user)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUser(User user, Set<ExpenseField> fields) {
+        return ExpenseRepositoryImpl.findFields(entityManager, "ArchivedExpense", user, fields);
+    }
+}
@@ -0,0 +1,13 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.entity.BudgetAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BudgetAlertRepository extends JpaRepository<BudgetAlert, Long> {
+
+    List<BudgetAlert> findByUserIdAndPeriodOrderByCreatedAtDesc(Long userId, String period);
+}
@@ -0,0 +1,19 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.entity.Budget;
+import com.expensetracker.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetRepository extends JpaRepository<Budget, Long> {
+
+    @EntityGraph(attributePaths = "category")
+    List<Budget> findByUserOrderByIdAsc(User user);
+
+    Optional<Budget> findByUserAndCategoryId(User user, Long categoryId);
+}
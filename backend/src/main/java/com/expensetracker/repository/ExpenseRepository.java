@@ -2,24 +2,51 @@ package com.expensetracker.repository;
 
 import com.expensetracker.entity.Expense;
 import com.expensetracker.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseRepositoryCustom {
+
+    /**
+     * The user's tag index and archive versions as two uncorrelated scalar subqueries, selected
+     * next to each expense so the in-memory indexes are checked without a query of their own.
+     * Either is null while the user has no version row.
+     */
+    String INDEX_VERSIONS = "(SELECT t.version FROM TagIndexSnapshot t WHERE t.userId = :#{#user.id}), "
+            + "(SELECT a.version FROM ArchiveVersion a WHERE a.userId = :#{#user.id})";
 
     List<Expense> findByUserOrderByDateDesc(User user);
 
+    @Query("SELECT e, " + INDEX_VERSIONS + " FROM Expense e WHERE e.user = :user ORDER BY e.date DESC")
+    List<Object[]> findWithIndexVersionsByUser(@Param("user") User user);
+
+    // Slice rather than Page: reads one extra row to detect a next page instead of running a count
+    @Query("SELECT e, " + INDEX_VERSIONS + " FROM Expense e JOIN FETCH e.category WHERE e.user = :user "
+            + "ORDER BY e.date DESC, e.id DESC")
+    Slice<Object[]> findPageWithIndexVersionsByUser(@Param("user") User user, Pageable pageable);
+
+    @Query("SELECT e, " + INDEX_VERSIONS + " FROM Expense e WHERE e.id = :id AND e.user = :user")
+    List<Object[]> findWithIndexVersionsByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
     List<Expense> findByUserAndCategoryId(User user, Long categoryId);
 
     List<Expense> findByUserAndType(User user, String type);
 
+    @EntityGraph(attributePaths = "category")
+    List<Expense> findByUserAndIdIn(User user, Collection<Long> ids);
+
     List<Expense> findByUserAndDateBetween(User user, LocalDate startDate, LocalDate endDate);
 
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.user = :user")
@@ -36,4 +63,24 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.user = :user AND YEAR(e.date) = :year AND MONTH(e.date) = :month")
     BigDecimal getMonthlyTotalByUser(@Param("user") User user, @Param("year") int year, @Param("month") int month);
+
+    @Query("SELECT e.date, e.currency, SUM(e.amount), COUNT(e) FROM Expense e "
+            + "WHERE e.user = :user AND e.date BETWEEN :startDate AND :endDate "
+            + "GROUP BY e.date, e.currency ORDER BY e.date")
+    List<Object[]> getDailyTotalsByUser(@Param("user") User user, @Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
+
+    // One row per category, currency and day: the inputs of a converted summary
+    @Query("SELECT c.name, e.currency, e.date, SUM(e.amount), COUNT(e) FROM Expense e JOIN e.category c "
+            + "WHERE e.user = :user GROUP BY c.name, e.currency, e.date")
+    List<Object[]> getTotalsByCategoryCurrencyAndDate(@Param("user") User user);
+
+    // One row per title and category with its use count and latest date: the input of title suggestions
+    @Query("SELECT e.title, c.id, c.name, c.icon, COUNT(e), MAX(e.date) FROM Expense e JOIN e.category c "
+            + "WHERE e.user = :user GROUP BY e.title, c.id, c.name, c.icon")
+    List<Object[]> getTitleUsageByUser(@Param("user") User user);
+
+    @Modifying
+    @Query("UPDATE Expense e SET e.currency = :currency WHERE e.user = :user AND e.currency IS NULL")
+    int assignMissingCurrency(@Param("user") User user, @Param("currency") String currency);
 }
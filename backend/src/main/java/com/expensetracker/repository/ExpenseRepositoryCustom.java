@@ -0,0 +1,17 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.dto.ExpenseField;
+import com.expensetracker.entity.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ExpenseRepositoryCustom {
+
+    /**
+     * Reads only the requested columns for a user's expenses, newest first.
+     * Each row maps property name to value, in {@link ExpenseField} order.
+     */
+    List<Map<String, Object>> findFieldsByUser(User user, Set<ExpenseField> fields);
+}
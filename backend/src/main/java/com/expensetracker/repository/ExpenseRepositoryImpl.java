@@ -0,0 +1,58 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.dto.ExpenseField;
+import com.expensetracker.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ExpenseRepositoryImpl implements ExpenseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUser(User user, Set<ExpenseField> fields) {
+        return findFields(entityManager, "Expense", user, fields);
+    }
+
+    /**
+     * Shared with the archive, whose entity has the same property names.
+     */
+    static List<Map<String, Object>> findFields(EntityManager entityManager, String entity,
+                                                User user, Set<ExpenseField> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one expense field must be requested");
+        }
+
+        String selection = fields.stream()
+                .map(field -> field.getPath() + " AS " + field.getPropertyName())
+                .collect(Collectors.joining(", "));
+        // Only join categories when a category column other than its id is requested
+        boolean joinCategory = fields.stream().anyMatch(ExpenseField::requiresCategoryJoin);
+
+        String jpql = "SELECT " + selection + " FROM " + entity + " e"
+                + (joinCategory ? " JOIN e.category c" : "")
+                + " WHERE e.user = :user ORDER BY e.date DESC";
+
+        List<Tuple> tuples = entityManager.createQuery(jpql, Tuple.class)
+                .setParameter("user", user)
+                .getResultList();
+
+        return tuples.stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (ExpenseField field : fields) {
+                        row.put(field.getPropertyName(), tuple.get(field.getPropertyName()));
+                    }
+                    return row;
+                })
+                .collect(Collectors.toList());
+    }
+}
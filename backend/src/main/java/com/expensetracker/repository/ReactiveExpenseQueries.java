@@ -0,0 +1,164 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.fx.ConversionBatch;
+import com.expensetracker.fx.FxRateTable;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterparts of the {@link ExpenseRepository} read queries, mapped straight
+ * to the shared DTOs so rows can be streamed to the client as they arrive.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "app.reactive", name = "enabled", havingValue = "true")
+public class ReactiveExpenseQueries {
+
+    private static final String SELECT_EXPENSES = "SELECT e.id, e.title, e.amount, e.description, e.date, e.type, "
+            + "e.currency, e.created_at, e.updated_at, c.id AS category_id, c.name AS category_name, "
+            + "c.icon AS category_icon FROM expenses e JOIN categories c ON c.id = e.category_id ";
+
+    private final DatabaseClient databaseClient;
+    private final FxRateTable fxRateTable;
+
+    public ReactiveExpenseQueries(DatabaseClient reactiveDatabaseClient, FxRateTable fxRateTable) {
+        this.databaseClient = reactiveDatabaseClient;
+        this.fxRateTable = fxRateTable;
+    }
+
+    public Flux<ExpenseResponse> findByUserOrderByDateDesc(Long userId) {
+        return databaseClient.sql(SELECT_EXPENSES + "WHERE e.user_id = :userId ORDER BY e.date DESC")
+                .bind("userId", userId)
+                .map(ReactiveExpenseQueries::toResponse)
+                .all();
+    }
+
+    /**
+     * Filters by any combination of category, type and inclusive date range; null means "any".
+     */
+    public Flux<ExpenseResponse> search(Long userId, Long categoryId, String type,
+                                        LocalDate startDate, LocalDate endDate) {
+        StringBuilder sql = new StringBuilder(SELECT_EXPENSES).append("WHERE e.user_id = :userId");
+        if (categoryId != null) {
+            sql.append(" AND e.category_id = :categoryId");
+        }
+        if (type != null) {
+            sql.append(" AND e.type = :type");
+        }
+        if (startDate != null) {
+            sql.append(" AND e.date >= :startDate");
+        }
+        if (endDate != null) {
+            sql.append(" AND e.date <= :endDate");
+        }
+        sql.append(" ORDER BY e.date DESC");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("userId", userId);
+        if (categoryId != null) {
+            spec = spec.bind("categoryId", categoryId);
+        }
+        if (type != null) {
+            spec = spec.bind("type", type);
+        }
+        if (startDate != null) {
+            spec = spec.bind("startDate", startDate);
+        }
+        if (endDate != null) {
+            spec = spec.bind("endDate", endDate);
+        }
+        return spec.map(ReactiveExpenseQueries::toResponse).all();
+    }
+
+    /**
+     * Summary in the user's base currency, computed like the blocking summary: totals per
+     * category, currency and day are converted in one batch at each day's rate.
+     */
+    public Mono<ExpenseSummaryResponse> summarize(Long userId) {
+        Mono<String> baseCurrency = databaseClient
+                .sql("SELECT base_currency FROM users WHERE id = :userId")
+                .bind("userId", userId)
+                .map(row -> {
+                    String currency = row.get("base_currency", String.class);
+                    return currency != null ? currency : fxRateTable.current().getBaseCurrency();
+                })
+                .one()
+                .defaultIfEmpty(fxRateTable.current().getBaseCurrency());
+
+        Mono<List<DailyTotal>> totals = databaseClient
+                .sql("SELECT c.name AS name, e.currency AS currency, e.date AS date, SUM(e.amount) AS total, "
+                        + "COUNT(*) AS count FROM expenses e JOIN categories c ON c.id = e.category_id "
+                        + "WHERE e.user_id = :userId GROUP BY c.name, e.currency, e.date")
+                .bind("userId", userId)
+                .map(row -> new DailyTotal(row.get("name", String.class), row.get("currency", String.class),
+                        row.get("date", LocalDate.class), row.get("total", BigDecimal.class),
+                        row.get("count", Long.class)))
+                .all()
+                .collectList();
+
+        return Mono.zip(baseCurrency, totals).map(result -> convert(result.getT1(), result.getT2()));
+    }
+
+    private ExpenseSummaryResponse convert(String baseCurrency, List<DailyTotal> totals) {
+        ConversionBatch batch = new ConversionBatch(fxRateTable.current(), baseCurrency, totals.size());
+        totals.forEach(total -> batch.add(total.amount(), total.currency(), total.date()));
+        long[] converted = batch.convertTo(baseCurrency);
+
+        YearMonth currentMonth = YearMonth.now();
+        long totalCents = 0;
+        long monthlyCents = 0;
+        long totalCount = 0;
+        Map<String, long[]> byCategory = new LinkedHashMap<>();
+        for (int i = 0; i < converted.length; i++) {
+            DailyTotal total = totals.get(i);
+            totalCents += converted[i];
+            totalCount += total.count();
+            long[] category = byCategory.computeIfAbsent(total.category(), name -> new long[2]);
+            category[0] += converted[i];
+            category[1] += total.count();
+            if (YearMonth.from(total.date()).equals(currentMonth)) {
+                monthlyCents += converted[i];
+            }
+        }
+
+        Map<String, ExpenseSummaryResponse.CategorySummary> categorySummary = new LinkedHashMap<>();
+        byCategory.forEach((name, category) -> categorySummary.put(name,
+                new ExpenseSummaryResponse.CategorySummary(ConversionBatch.toAmount(category[0]), category[1])));
+        ExpenseSummaryResponse summary = new ExpenseSummaryResponse(ConversionBatch.toAmount(totalCents), totalCount,
+                categorySummary, ConversionBatch.toAmount(monthlyCents));
+        summary.setCurrency(baseCurrency);
+        summary.setUnconvertedCount(batch.unconverted());
+        return summary;
+    }
+
+    private static ExpenseResponse toResponse(Readable row) {
+        ExpenseResponse response = new ExpenseResponse();
+        response.setId(row.get("id", Long.class));
+        response.setTitle(row.get("title", String.class));
+        response.setAmount(row.get("amount", BigDecimal.class));
+        response.setDescription(row.get("description", String.class));
+        response.setDate(row.get("date", LocalDate.class));
+        response.setType(row.get("type", String.class));
+        response.setCurrency(row.get("currency", String.class));
+        response.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        response.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        response.setCategoryId(row.get("category_id", Long.class));
+        response.setCategoryName(row.get("category_name", String.class));
+        response.setCategoryIcon(row.get("category_icon", String.class));
+        return response;
+    }
+
+    private record DailyTotal(String category, String currency, LocalDate date, BigDecimal amount, long count) {}
+}
@@ -0,0 +1,23 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.entity.RecurringExpense;
+import com.expensetracker.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+
+    @EntityGraph(attributePaths = "category")
+    List<RecurringExpense> findByUserOrderByNextDueDateAsc(User user);
+
+    @Modifying
+    @Query("UPDATE RecurringExpense r SET r.currency = :currency WHERE r.user = :user AND r.currency IS NULL")
+    int assignMissingCurrency(@Param("user") User user, @Param("currency") String currency);
+}
@@ -0,0 +1,15 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.entity.Tag;
+import com.expensetracker.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TagRepository extends JpaRepository<Tag, Long> {
+
+    List<Tag> findByUserAndNameIn(User user, Collection<String> names);
+}
@@ -0,0 +1,9 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.entity.WriteBehindCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WriteBehindCheckpointRepository extends JpaRepository<WriteBehindCheckpoint, String> {
+}
@@ -1,5 +1,6 @@
 package com.expensetracker.security;
 
+import com.expensetracker.observability.JwtVerificationEvent;
 import com.expensetracker.security.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -39,7 +40,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+            JwtVerificationEvent event = JwtVerificationEvent.start();
+            boolean valid = jwt != null && jwtUtils.validateJwtToken(jwt);
+            if (jwt != null) {
+                event.finish(valid);
+            }
+            if (valid) {
                 String email = jwtUtils.getUserNameFromJwtToken(jwt);
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(email);
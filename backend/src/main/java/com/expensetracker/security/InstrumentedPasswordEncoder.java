@@ -0,0 +1,37 @@
+package com.expensetracker.security;
+
+import com.expensetracker.observability.PasswordHashEvent;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Emits a {@link PasswordHashEvent} around each hash and verification of the wrapped encoder.
+ */
+public class InstrumentedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public InstrumentedPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = PasswordHashEvent.start("encode");
+        String encoded = delegate.encode(rawPassword);
+        event.finish(false);
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = PasswordHashEvent.start("matches");
+        boolean matched = delegate.matches(rawPassword, encodedPassword);
+        event.finish(matched);
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
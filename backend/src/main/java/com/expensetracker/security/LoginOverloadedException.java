@@ -0,0 +1,12 @@
+package com.expensetracker.security;
+
+/**
+ * Thrown when the password hashing pool cannot take more work, so the caller can answer
+ * 503 straight away instead of queueing behind other BCrypt checks.
+ */
+public class LoginOverloadedException extends RuntimeException {
+
+    public LoginOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,132 @@
+package com.expensetracker.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket throttling for authentication attempts. Every attempt takes a token from the
+ * client IP's bucket; only failed logins take one from the bucket of the account and client IP
+ * together, so nobody can lock an account out for its owner by failing logins elsewhere.
+ *
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA):
+ * an attempt is allowed while that time is less than {@code capacity} refill periods ahead of
+ * now, and is recorded with one compare-and-set, so no lock is taken on the login path.
+ * Buckets that have refilled completely carry no state and are swept once the map grows
+ * past {@code max-keys}.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Buckets ipBuckets;
+    private final Buckets failureBuckets;
+    private final Counter throttledCounter;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.security.login-throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${app.security.login-throttle.ip.refill-period:3s}") Duration ipRefillPeriod,
+                         @Value("${app.security.login-throttle.account.capacity:5}") int accountCapacity,
+                         @Value("${app.security.login-throttle.account.refill-period:60s}") Duration accountRefillPeriod,
+                         @Value("${app.security.login-throttle.max-keys:100000}") int maxKeys) {
+        this.ipBuckets = new Buckets(ipCapacity, ipRefillPeriod, maxKeys);
+        this.failureBuckets = new Buckets(accountCapacity, accountRefillPeriod, maxKeys);
+        this.throttledCounter = Counter.builder("auth.throttled")
+                .description("Authentication attempts refused by the per-IP or per-account limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the IP bucket and, when {@code account} is given, checks that the
+     * client has failed logins to that account fewer than {@code capacity} times recently.
+     *
+     * @return zero if the attempt may proceed, otherwise the number of seconds to wait
+     */
+    public long tryAcquire(String clientIp, String account) {
+        long now = System.nanoTime();
+        long waitNanos = ipBuckets.tryAcquire(clientIp, now);
+        if (waitNanos == 0 && account != null) {
+            waitNanos = failureBuckets.waitTime(failureKey(clientIp, account), now);
+        }
+        if (waitNanos == 0) {
+            return 0;
+        }
+        throttledCounter.increment();
+        return Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+
+    /**
+     * Records a login to {@code account} from {@code clientIp} that was refused for bad
+     * credentials.
+     */
+    public void recordFailure(String clientIp, String account) {
+        failureBuckets.tryAcquire(failureKey(clientIp, account), System.nanoTime());
+    }
+
+    private static String failureKey(String clientIp, String account) {
+        return account.toLowerCase(Locale.ROOT) + '|' + clientIp;
+    }
+
+    private static final class Buckets {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final int maxKeys;
+        private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+
+        Buckets(int capacity, Duration refillPeriod, int maxKeys) {
+            this.intervalNanos = refillPeriod.toNanos();
+            this.burstNanos = intervalNanos * capacity;
+            this.maxKeys = maxKeys;
+        }
+
+        long tryAcquire(String key, long now) {
+            AtomicLong arrival = arrivals.get(key);
+            if (arrival == null) {
+                sweepIfFull(now);
+                arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (arrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        long waitTime(String key, long now) {
+            AtomicLong arrival = arrivals.get(key);
+            if (arrival == null) {
+                return 0;
+            }
+            long ahead = Math.max(arrival.get(), now) + intervalNanos - now;
+            return Math.max(0, ahead - burstNanos);
+        }
+
+        private void sweepIfFull(long now) {
+            if (arrivals.size() < maxKeys || !sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                // A full bucket is indistinguishable from a new one, so dropping it loses nothing
+                arrivals.values().removeIf(arrival -> arrival.get() - now <= 0);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+}
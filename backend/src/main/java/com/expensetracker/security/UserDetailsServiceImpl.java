@@ -1,29 +1,49 @@
 package com.expensetracker.security;
 
+import com.expensetracker.datasource.ShardReferenceDataSync;
 import com.expensetracker.entity.User;
 import com.expensetracker.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final ObjectProvider<ShardReferenceDataSync> referenceDataSync;
 
-
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  ObjectProvider<ShardReferenceDataSync> referenceDataSync) {
         this.userRepository = userRepository;
+        this.referenceDataSync = referenceDataSync;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + email));
 
         return UserPrincipal.create(user);
     }
+
+    /**
+     * Called after a successful login when the stored hash was made with a lower BCrypt
+     * strength than the current setting, so existing accounts move to the new cost over time.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        User saved = userRepository.save(user);
+        referenceDataSync.ifAvailable(sync -> sync.userChanged(saved.getId()));
+        return UserPrincipal.create(saved);
+    }
 }
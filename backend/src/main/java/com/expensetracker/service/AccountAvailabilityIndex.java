@@ -0,0 +1,133 @@
+package com.expensetracker.service;
+
+import com.expensetracker.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory Bloom filters of taken usernames and emails, so the sign-up form's availability
+ * check usually needs no query. A positive answer may be a false positive and is confirmed
+ * against the database. A negative answer is only a hint: accounts registered on another
+ * instance reach this filter on the next refresh, every {@code app.registration.bloom.refresh-interval}.
+ * Registration itself never relies on the filter; the unique indexes decide.
+ *
+ * Values are lower-cased before hashing, so a case variant of a taken name is reported as
+ * "maybe taken" and checked, which suits the case-insensitive MySQL collation.
+ */
+@Component
+public class AccountAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountAvailabilityIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+    private final Duration refreshInterval;
+    private volatile boolean warmed;
+    // Refreshes re-read from the id seen one refresh earlier, so rows committed late are still picked up
+    private long previousMaxId;
+    private long maxId;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-availability-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AccountAvailabilityIndex(JdbcTemplate jdbcTemplate,
+                                    @Value("${app.registration.bloom.expected-users:1000000}") long expectedUsers,
+                                    @Value("${app.registration.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                    @Value("${app.registration.bloom.refresh-interval:10s}") Duration refreshInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.usernames = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.emails = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Loads every existing account. Until this has finished both filters answer "maybe",
+     * so callers fall back to the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        int count = load(0);
+        previousMaxId = maxId;
+        warmed = true;
+        logger.info("Loaded {} accounts into the availability filter in {}ms",
+                count, System.currentTimeMillis() - start);
+
+        long millis = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshSafely, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds accounts registered since the previous refresh, including those registered on
+     * other instances.
+     */
+    public synchronized void refresh() {
+        long from = previousMaxId;
+        previousMaxId = maxId;
+        load(from);
+    }
+
+    private synchronized int load(long afterId) {
+        int[] count = {0};
+        jdbcTemplate.query("SELECT id, username, email FROM users WHERE id > ?", rs -> {
+            maxId = Math.max(maxId, rs.getLong(1));
+            add(rs.getString(2), rs.getString(3));
+            count[0]++;
+        }, afterId);
+        return count[0];
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.warn("Could not refresh the availability filter: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void add(String username, String email) {
+        addUsername(username);
+        addEmail(email);
+    }
+
+    public void addUsername(String username) {
+        usernames.put(normalize(username));
+    }
+
+    public void addEmail(String email) {
+        emails.put(normalize(email));
+    }
+
+    public boolean mightHaveUsername(String username) {
+        return !warmed || usernames.mightContain(normalize(username));
+    }
+
+    public boolean mightHaveEmail(String email) {
+        return !warmed || emails.mightContain(normalize(email));
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
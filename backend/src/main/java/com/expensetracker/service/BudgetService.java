@@ -0,0 +1,84 @@
+package com.expensetracker.service;
+
+import com.expensetracker.budget.BudgetEngine;
+import com.expensetracker.dto.BudgetAlertResponse;
+import com.expensetracker.dto.BudgetRequest;
+import com.expensetracker.dto.BudgetResponse;
+import com.expensetracker.entity.Budget;
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.User;
+import com.expensetracker.repository.BudgetAlertRepository;
+import com.expensetracker.repository.BudgetRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class BudgetService {
+
+    private final BudgetRepository budgetRepository;
+    private final BudgetAlertRepository budgetAlertRepository;
+    private final CategoryService categoryService;
+    private final BudgetEngine budgetEngine;
+
+    public BudgetService(BudgetRepository budgetRepository, BudgetAlertRepository budgetAlertRepository,
+                         CategoryService categoryService, BudgetEngine budgetEngine) {
+        this.budgetRepository = budgetRepository;
+        this.budgetAlertRepository = budgetAlertRepository;
+        this.categoryService = categoryService;
+        this.budgetEngine = budgetEngine;
+    }
+
+    /**
+     * The user's budgets with what has been spent against them this month.
+     */
+    @Transactional(readOnly = true)
+    public List<BudgetResponse> getBudgetsByUser(User user) {
+        YearMonth month = YearMonth.now();
+        return budgetRepository.findByUserOrderByIdAsc(user)
+                .stream()
+                .map(budget -> new BudgetResponse(budget, month,
+                        budgetEngine.spent(user.getId(), budget.getCategory().getId(), month)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the category's budget or replaces its limit.
+     */
+    public BudgetResponse setBudget(BudgetRequest request, User user) {
+        Category category = categoryService.findById(request.getCategoryId())
+                .orElseThrow(() -> new RuntimeException("Category not found"));
+
+        Budget budget = budgetRepository.findByUserAndCategoryId(user, category.getId())
+                .orElseGet(Budget::new);
+        budget.setUser(user);
+        budget.setCategory(category);
+        budget.setMonthlyLimit(request.getMonthlyLimit());
+        Budget saved = budgetRepository.save(budget);
+        budgetEngine.budgetChanged(user.getId(), category.getId());
+
+        YearMonth month = YearMonth.now();
+        return new BudgetResponse(saved, month, budgetEngine.spent(user.getId(), category.getId(), month));
+    }
+
+    public void deleteBudget(Long id, User user) {
+        Budget budget = budgetRepository.findById(id)
+                .filter(existing -> existing.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new RuntimeException("Budget not found"));
+
+        budgetRepository.delete(budget);
+        budgetEngine.budgetChanged(user.getId(), budget.getCategory().getId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<BudgetAlertResponse> getAlertsByUser(User user, YearMonth month) {
+        return budgetAlertRepository.findByUserIdAndPeriodOrderByCreatedAtDesc(user.getId(), month.toString())
+                .stream()
+                .map(BudgetAlertResponse::new)
+                .collect(Collectors.toList());
+    }
+}
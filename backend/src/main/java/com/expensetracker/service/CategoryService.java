@@ -1,10 +1,13 @@
 package com.expensetracker.service;
 
+import com.expensetracker.datasource.ShardContext;
+import com.expensetracker.datasource.ShardDirectory;
 import com.expensetracker.dto.CategoryResponse;
 import com.expensetracker.entity.Category;
 import com.expensetracker.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -20,9 +23,9 @@ public class CategoryService {
     @Autowired
     public CategoryService(CategoryRepository categoryRepository) {
         this.categoryRepository = categoryRepository;
-        initializeDefaultCategories();
     }
 
+    @Transactional(readOnly = true)
     public List<CategoryResponse> getAllCategories() {
         return categoryRepository.findAll()
                 .stream()
@@ -30,15 +33,26 @@ public class CategoryService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Optional<Category> findById(Long id) {
         return categoryRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Category> findByName(String name) {
         return categoryRepository.findByName(name);
     }
 
+    /**
+     * Categories are owned by the directory shard when sharding is enabled; the other
+     * shards pick the new row up on the next directory poll.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Category createCategory(String name, String icon) {
+        return ShardContext.callOn(ShardDirectory.DIRECTORY_SHARD, () -> insertCategory(name, icon));
+    }
+
+    private Category insertCategory(String name, String icon) {
         if (categoryRepository.existsByName(name)) {
             throw new RuntimeException("Category with name '" + name + "' already exists");
         }
@@ -46,19 +60,4 @@ public class CategoryService {
         Category category = new Category(name, icon);
         return categoryRepository.save(category);
     }
-
-    private void initializeDefaultCategories() {
-        if (categoryRepository.count() == 0) {
-            // Create default categories based on frontend requirements
-            createCategory("Food & Dining", "🍽️");
-            createCategory("Transportation", "🚗");
-            createCategory("Shopping", "🛍️");
-            createCategory("Entertainment", "🎬");
-            createCategory("Healthcare", "⚕️");
-            createCategory("Education", "📚");
-            createCategory("Utilities", "💡");
-            createCategory("Travel", "✈️");
-            createCategory("Others", "📦");
-        }
-    }
 }
@@ -0,0 +1,171 @@
+package com.expensetracker.service;
+
+import com.expensetracker.datasource.ShardContext;
+import com.expensetracker.dto.CategoryResponse;
+import com.expensetracker.dto.DashboardResponse;
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.entity.User;
+import com.expensetracker.observability.SqlCapture;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Builds the dashboard from independent read-only sub-queries run in parallel, so the view
+ * costs one request, one token check and one user lookup instead of one per panel.
+ *
+ * Each sub-query runs in a read-only transaction whose timeout becomes the JDBC query
+ * timeout, so a slow query is stopped by the database rather than left running after the
+ * caller has given up. The pool's queue is bounded; a saturated pool refuses new dashboards.
+ */
+@Service
+public class DashboardService {
+
+    private final ExpenseService expenseService;
+    private final CategoryService categoryService;
+    private final Duration timeout;
+    private final TransactionTemplate queryTransaction;
+    private final ThreadPoolExecutor executor;
+
+    public DashboardService(ExpenseService expenseService,
+                            CategoryService categoryService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.dashboard.threads:8}") int threads,
+                            @Value("${app.dashboard.queue-capacity:64}") int queueCapacity,
+                            @Value("${app.dashboard.timeout:10s}") Duration timeout) {
+        this.expenseService = expenseService;
+        this.categoryService = categoryService;
+        this.timeout = timeout;
+        this.queryTransaction = new TransactionTemplate(transactionManager);
+        queryTransaction.setReadOnly(true);
+        // Transaction timeouts are whole seconds
+        queryTransaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @throws DashboardUnavailableException if the pool is saturated or the sub-queries time out
+     */
+    public DashboardResponse getDashboard(User user, int page, int size) {
+        YearMonth currentMonth = YearMonth.now();
+        List<Future<?>> submitted = new ArrayList<>(4);
+        try {
+            Future<Slice<ExpenseResponse>> expenses =
+                    submit(submitted, () -> expenseService.getExpensePage(user, page, size));
+            Future<ExpenseSummaryResponse> summary =
+                    submit(submitted, () -> expenseService.getExpenseSummaryByUser(user));
+            Future<List<CategoryResponse>> categories =
+                    submit(submitted, categoryService::getAllCategories);
+            Future<List<DashboardResponse.DailyTotal>> trend =
+                    submit(submitted, () -> expenseService.getDailyTotals(user, currentMonth));
+
+            long deadline = System.nanoTime() + timeout.toNanos();
+            Slice<ExpenseResponse> expensePage = await(expenses, deadline);
+            DashboardResponse response = new DashboardResponse();
+            response.setExpenses(expensePage.getContent());
+            response.setPage(page);
+            response.setSize(size);
+            response.setHasMore(expensePage.hasNext());
+            response.setSummary(await(summary, deadline));
+            response.setCategories(await(categories, deadline));
+            response.setTrend(await(trend, deadline));
+            return response;
+        } catch (RuntimeException e) {
+            // Interrupts sub-queries that are still running and drops those still queued
+            submitted.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    private <T> T await(Future<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw timedOut();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DashboardUnavailableException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Interrupted while loading the dashboard");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof QueryTimeoutException || cause instanceof TransactionTimedOutException) {
+                throw timedOut();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private DashboardUnavailableException timedOut() {
+        return new DashboardUnavailableException(HttpStatus.GATEWAY_TIMEOUT,
+                "Dashboard took longer than " + timeout.toMillis() + "ms");
+    }
+
+    /**
+     * Runs the sub-query on the dashboard pool with the caller's security context and shard
+     * binding, which the routing data sources read from the current thread.
+     */
+    private <T> Future<T> submit(List<Future<?>> submitted, Supplier<T> query) {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        Long shardUserId = ShardContext.currentUserId();
+        Integer shard = ShardContext.currentShard();
+        SqlCapture capture = SqlCapture.current();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                SecurityContextHolder.setContext(securityContext);
+                if (shard != null) {
+                    ShardContext.bind(shardUserId, shard);
+                }
+                try {
+                    return SqlCapture.callWith(capture, () -> queryTransaction.execute(status -> query.get()));
+                } finally {
+                    ShardContext.clear();
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new DashboardUnavailableException(HttpStatus.SERVICE_UNAVAILABLE, "Dashboard pool is saturated");
+        }
+        submitted.add(future);
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package com.expensetracker.service;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The dashboard could not be built in time. {@code 503} means its pool was saturated and the
+ * request was not started; {@code 504} means the sub-queries did not finish within
+ * {@code app.dashboard.timeout}.
+ */
+public class DashboardUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HttpStatus status;
+
+    public DashboardUnavailableException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,88 @@
+package com.expensetracker.service;
+
+import com.expensetracker.entity.Category;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Inserts the default categories into an empty table once the context is up, in a single
+ * statement. Runs before the application reports ready, so no request sees an empty category
+ * list. Once any category exists nothing is inserted, so deleted defaults stay deleted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DefaultCategorySeeder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCategorySeeder.class);
+
+    private static final Map<String, String> DEFAULT_CATEGORIES = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_CATEGORIES.put("Food & Dining", "🍽️");
+        DEFAULT_CATEGORIES.put("Transportation", "🚗");
+        DEFAULT_CATEGORIES.put("Shopping", "🛍️");
+        DEFAULT_CATEGORIES.put("Entertainment", "🎬");
+        DEFAULT_CATEGORIES.put("Healthcare", "⚕️");
+        DEFAULT_CATEGORIES.put("Education", "📚");
+        DEFAULT_CATEGORIES.put("Utilities", "💡");
+        DEFAULT_CATEGORIES.put("Travel", "✈️");
+        DEFAULT_CATEGORIES.put("Others", "📦");
+    }
+
+    private static final String INSERT_MISSING = buildInsert();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public DefaultCategorySeeder(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(INSERT_MISSING);
+        } catch (DuplicateKeyException e) {
+            // Another instance seeded the same names at the same moment
+            logger.info("Default categories were inserted concurrently by another instance");
+            inserted = 0;
+        }
+
+        if (inserted > 0) {
+            logger.info("Inserted {} default categories", inserted);
+            // The rows bypassed Hibernate, so drop anything it may already have cached about categories
+            SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+            sessionFactory.getCache().evictEntityData(Category.class);
+            sessionFactory.getCache().evictQueryRegions();
+        }
+    }
+
+    // The defaults are inlined as literals: bind parameters in a derived table have no type some databases can infer
+    private static String buildInsert() {
+        StringJoiner defaults = new StringJoiner(" UNION ALL ");
+        DEFAULT_CATEGORIES.forEach((name, icon) ->
+                defaults.add("SELECT " + literal(name) + " AS name, " + literal(icon) + " AS icon"));
+        return "INSERT INTO categories (name, icon, created_at, updated_at) "
+                + "SELECT d.name, d.icon, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM (" + defaults + ") d "
+                + "WHERE NOT EXISTS (SELECT 1 FROM categories)";
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,13 @@
+package com.expensetracker.service;
+
+/**
+ * Registration hit the unique constraint on the username or email column.
+ */
+public class DuplicateAccountException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateAccountException(String message) {
+        super(message);
+    }
+}
@@ -1,51 +1,263 @@
 package com.expensetracker.service;
 
+import com.expensetracker.archive.ExpenseArchive;
+import com.expensetracker.budget.BudgetEngine;
+import com.expensetracker.dto.ExpenseField;
 import com.expensetracker.dto.ExpenseRequest;
 import com.expensetracker.dto.ExpenseResponse;
 import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.dto.CategoryResponse;
+import com.expensetracker.dto.DashboardResponse;
+import com.expensetracker.dto.NormalizedExpenseListResponse;
+import com.expensetracker.dto.TagSummaryResponse;
+import com.expensetracker.dto.TitleSuggestionResponse;
 import com.expensetracker.entity.Expense;
 import com.expensetracker.entity.User;
 import com.expensetracker.entity.Category;
+import com.expensetracker.fx.ConversionBatch;
+import com.expensetracker.fx.FxRateTable;
+import com.expensetracker.observability.ExpenseOperationEvent;
+import com.expensetracker.repository.ArchivedExpenseRepository;
 import com.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.suggest.TitleSuggester;
+import com.expensetracker.tag.TagIndex;
+import com.expensetracker.writebehind.ExpenseWriteBehindBuffer;
+import com.expensetracker.writebehind.PendingExpense;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ExpenseService {
 
+    // Ids per query when reading the expenses a tag filter matched
+    private static final int TAGGED_BATCH_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 10;
+    // The stored page order, newest date then highest id first; queued writes lead their day,
+    // the most recently queued (most negative provisional id) first
+    private static final Comparator<ExpenseResponse> PAGE_ORDER = Comparator
+            .comparing(ExpenseResponse::getDate, Comparator.reverseOrder())
+            .thenComparing(expense -> !ExpenseWriteBehindBuffer.isProvisionalId(expense.getId()))
+            .thenComparing(expense -> Math.abs(expense.getId()), Comparator.reverseOrder());
+
     private final ExpenseRepository expenseRepository;
     private final CategoryService categoryService;
+    private final ExpenseWriteBehindBuffer writeBehindBuffer;
+    private final BudgetEngine budgetEngine;
+    private final ExpenseArchive archive;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final FxRateTable fxRateTable;
+    private final TagService tagService;
+    private final TagIndex tagIndex;
+    private final TitleSuggester titleSuggester;
 
     @Autowired
-    public ExpenseService(ExpenseRepository expenseRepository, CategoryService categoryService) {
+    public ExpenseService(ExpenseRepository expenseRepository, CategoryService categoryService,
+                          ObjectProvider<ExpenseWriteBehindBuffer> writeBehindBuffer, BudgetEngine budgetEngine,
+                          ObjectProvider<ExpenseArchive> archive, ArchivedExpenseRepository archivedExpenseRepository,
+                          FxRateTable fxRateTable, TagService tagService, TagIndex tagIndex,
+                          TitleSuggester titleSuggester) {
         this.expenseRepository = expenseRepository;
         this.categoryService = categoryService;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.budgetEngine = budgetEngine;
+        this.archive = archive.getIfAvailable();
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.fxRateTable = fxRateTable;
+        this.tagService = tagService;
+        this.tagIndex = tagIndex;
+        this.titleSuggester = titleSuggester;
     }
 
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> getAllExpensesByUser(User user) {
-        return expenseRepository.findByUserOrderByDateDesc(user)
-                .stream()
-                .map(ExpenseResponse::new)
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("list", user);
+        List<Object[]> rows = expenseRepository.findWithIndexVersionsByUser(user);
+        IndexVersions versions = IndexVersions.of(rows);
+        List<ExpenseResponse> expenses = withPending(user,
+                withArchived(IndexVersions.expenses(rows),
+                        archive != null ? archive.findAll(user, archiveSummary(user, versions)) : List.of()),
+                expense -> true);
+        withTags(user, expenses, versions);
+        event.finish(expenses.size());
+        return expenses;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ExpenseResponse> getExpensePage(User user, int page, int size) {
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("page", user);
+        List<ExpenseResponse> pending = getPendingExpenses(user);
+        StoredPage result = pending.isEmpty()
+                ? storedPage(user, page, size)
+                : mergePending(user, page, size, pending);
+        Slice<ExpenseResponse> slice = result.slice();
+        withTags(user, slice.getContent(), result.versions());
+        event.finish(slice.getNumberOfElements());
+        return slice;
+    }
+
+    /**
+     * Totals per day of the month in the user's base currency. The query returns one row per
+     * day and currency; all rows are converted in one batch at their own day's rate.
+     */
+    @Transactional(readOnly = true)
+    public List<DashboardResponse.DailyTotal> getDailyTotals(User user, YearMonth month) {
+        List<Object[]> rows = expenseRepository.getDailyTotalsByUser(user, month.atDay(1), month.atEndOfMonth());
+        List<ExpenseResponse> pending = getPendingExpenses(user).stream()
+                .filter(expense -> YearMonth.from(expense.getDate()).equals(month))
+                .toList();
+
+        String baseCurrency = fxRateTable.baseCurrencyOf(user);
+        ConversionBatch batch = new ConversionBatch(fxRateTable.current(), baseCurrency, rows.size() + pending.size());
+        List<LocalDate> dates = new ArrayList<>(rows.size() + pending.size());
+        List<Long> counts = new ArrayList<>(rows.size() + pending.size());
+        for (Object[] row : rows) {
+            batch.add((BigDecimal) row[2], (String) row[1], (LocalDate) row[0]);
+            dates.add((LocalDate) row[0]);
+            counts.add((Long) row[3]);
+        }
+        for (ExpenseResponse expense : pending) {
+            batch.add(expense.getAmount(), expense.getCurrency(), expense.getDate());
+            dates.add(expense.getDate());
+            counts.add(1L);
+        }
+        long[] converted = batch.convertTo(baseCurrency);
+
+        Map<LocalDate, long[]> totals = new TreeMap<>();
+        for (int i = 0; i < converted.length; i++) {
+            long[] total = totals.computeIfAbsent(dates.get(i), date -> new long[2]);
+            total[0] += converted[i];
+            total[1] += counts.get(i);
+        }
+        List<DashboardResponse.DailyTotal> trend = new ArrayList<>(totals.size());
+        totals.forEach((date, total) -> trend.add(
+                new DashboardResponse.DailyTotal(date, ConversionBatch.toAmount(total[0]), total[1])));
+        return trend;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllExpensesByUser(User user, Set<ExpenseField> fields) {
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("list-fields", user);
+        List<ExpenseResponse> pending = getPendingExpenses(user);
+        if (archive == null && pending.isEmpty()) {
+            List<Map<String, Object>> expenses = expenseRepository.findFieldsByUser(user, fields);
+            event.finish(expenses.size());
+            return expenses;
+        }
+
+        // Queued, live and archived rows are merged by date, so the date is read even when not requested
+        Set<ExpenseField> selected = fields;
+        if (!fields.contains(ExpenseField.DATE)) {
+            selected = EnumSet.copyOf(fields);
+            selected.add(ExpenseField.DATE);
+        }
+        List<Map<String, Object>> expenses = new ArrayList<>();
+        for (ExpenseResponse expense : pending) {
+            expenses.add(ExpenseField.select(expense, selected));
+        }
+        expenses.addAll(expenseRepository.findFieldsByUser(user, selected));
+        if (archive != null) {
+            expenses.addAll(archive.findFields(user, selected));
+        }
+        // A live expense can be backdated past archived ones until the next archive run
+        String date = ExpenseField.DATE.getPropertyName();
+        expenses.sort(Comparator.comparing((Map<String, Object> row) -> (LocalDate) row.get(date)).reversed());
+        if (selected != fields) {
+            expenses.forEach(row -> row.remove(date));
+        }
+        event.finish(expenses.size());
+        return expenses;
+    }
+
+    @Transactional(readOnly = true)
+    public NormalizedExpenseListResponse getAllExpensesByUserNormalized(User user) {
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("list-normalized", user);
+        List<Expense> expenses = expenseRepository.findByUserOrderByDateDesc(user);
+        if (archive != null) {
+            List<Expense> archived = archive.findAll(user);
+            if (!archived.isEmpty()) {
+                expenses = new ArrayList<>(expenses);
+                expenses.addAll(archived);
+                // A live expense can be backdated past archived ones until the next archive run
+                expenses.sort(Comparator.comparing(Expense::getDate).reversed());
+            }
+        }
+
+        // Each category is sent once; rows only carry its id
+        Map<Long, CategoryResponse> categories = new LinkedHashMap<>();
+        List<NormalizedExpenseListResponse.ExpenseRow> rows = expenses.stream()
+                .map(expense -> {
+                    Category category = expense.getCategory();
+                    categories.computeIfAbsent(category.getId(), id -> new CategoryResponse(category));
+                    return new NormalizedExpenseListResponse.ExpenseRow(expense);
+                })
                 .collect(Collectors.toList());
+
+        List<PendingExpense> pending = writeBehindBuffer != null ? writeBehindBuffer.pendingFor(user.getId()) : List.of();
+        if (!pending.isEmpty()) {
+            List<NormalizedExpenseListResponse.ExpenseRow> merged = new ArrayList<>(pending.size() + rows.size());
+            for (PendingExpense expense : pending) {
+                categoryService.findById(expense.categoryId()).ifPresent(category -> {
+                    categories.computeIfAbsent(category.getId(), id -> new CategoryResponse(category));
+                    merged.add(new NormalizedExpenseListResponse.ExpenseRow(
+                            ExpenseWriteBehindBuffer.toResponse(expense, category)));
+                });
+            }
+            merged.addAll(rows);
+            merged.sort(Comparator.comparing(NormalizedExpenseListResponse.ExpenseRow::getDate).reversed());
+            rows = merged;
+        }
+
+        event.finish(rows.size());
+        return new NormalizedExpenseListResponse(categories, rows);
     }
 
+    @Transactional(readOnly = true)
     public Optional<ExpenseResponse> getExpenseByIdAndUser(Long id, User user) {
-        return expenseRepository.findById(id)
-                .filter(expense -> expense.getUser().getId().equals(user.getId()))
-                .map(ExpenseResponse::new);
+        if (ExpenseWriteBehindBuffer.isProvisionalId(id)) {
+            // Only found while still queued; once written the row has a regular id
+            return getPendingExpenses(user).stream()
+                    .filter(pending -> pending.getId().equals(id))
+                    .findFirst();
+        }
+        List<Object[]> rows = expenseRepository.findWithIndexVersionsByIdAndUser(id, user);
+        IndexVersions versions = IndexVersions.of(rows);
+        Optional<Expense> expense = IndexVersions.expenses(rows).stream().findFirst();
+        if (expense.isEmpty() && archive != null) {
+            expense = archive.findById(id, user);
+        }
+        return expense.map(found -> {
+            ExpenseResponse response = new ExpenseResponse(found);
+            response.setTags(tagIndex(user, versions).tagsOf(found.getId()));
+            return response;
+        });
     }
 
     public ExpenseResponse createExpense(ExpenseRequest request, User user) {
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("create", user);
         // Validate category exists
         Category category = categoryService.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found"));
@@ -55,23 +267,55 @@ public class ExpenseService {
             throw new RuntimeException("Invalid expense type. Must be 'income' or 'expense'");
         }
 
+        String currency = resolveCurrency(request.getCurrency(), fxRateTable.baseCurrencyOf(user));
+        Set<String> tagNames = TagService.normalize(request.getTags());
+
+        // A tagged expense is written directly: its tag links need the row's id
+        if (writeBehindBuffer != null && tagNames.isEmpty()) {
+            ExpenseResponse accepted = writeBehindBuffer.accept(request.getTitle(), request.getAmount(),
+                    request.getDescription(), request.getDate(), request.getType(), currency, user, category);
+            budgetEngine.record(user.getId(), category.getId(), request.getDate(), request.getType(),
+                    request.getAmount(), currency);
+            titleSuggester.added(user.getId(), request.getTitle(), category, request.getDate());
+            event.finishAfterCompletion(1);
+            return accepted;
+        }
+
         Expense expense = new Expense();
         expense.setTitle(request.getTitle());
         expense.setAmount(request.getAmount());
         expense.setDescription(request.getDescription());
         expense.setDate(request.getDate());
         expense.setType(request.getType());
+        expense.setCurrency(currency);
         expense.setUser(user);
         expense.setCategory(category);
+        expense.setTags(tagService.resolve(user, tagNames));
 
         Expense savedExpense = expenseRepository.save(expense);
-        return new ExpenseResponse(savedExpense);
+        budgetEngine.record(user.getId(), category.getId(), expense.getDate(), expense.getType(), expense.getAmount(),
+                currency);
+        if (!tagNames.isEmpty()) {
+            tagIndex.tagged(user.getId(), savedExpense.getId(), tagNames, expense.getAmount(), currency,
+                    expense.getDate());
+        }
+        titleSuggester.added(user.getId(), expense.getTitle(), category, expense.getDate());
+        event.finishAfterCompletion(1);
+        ExpenseResponse response = new ExpenseResponse(savedExpense);
+        response.setTags(List.copyOf(tagNames));
+        return response;
     }
 
     public ExpenseResponse updateExpense(Long id, ExpenseRequest request, User user) {
-        Expense expense = expenseRepository.findById(id)
-                .filter(exp -> exp.getUser().getId().equals(user.getId()))
-                .orElseThrow(() -> new RuntimeException("Expense not found"));
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("update", user);
+        Optional<Expense> existing = expenseRepository.findById(id)
+                .filter(exp -> exp.getUser().getId().equals(user.getId()));
+        // An edited archived expense moves back to the live table; the archiver moves it again if still old
+        boolean restored = existing.isEmpty() && archive != null && archive.restore(id, user);
+        if (restored) {
+            existing = expenseRepository.findById(id);
+        }
+        Expense expense = existing.orElseThrow(() -> new RuntimeException("Expense not found"));
 
         // Validate category exists
         Category category = categoryService.findById(request.getCategoryId())
@@ -82,26 +326,66 @@ public class ExpenseService {
             throw new RuntimeException("Invalid expense type. Must be 'income' or 'expense'");
         }
 
+        // Without a currency in the request the expense keeps the one it has
+        String currency = resolveCurrency(request.getCurrency(),
+                expense.getCurrency() != null ? expense.getCurrency() : fxRateTable.baseCurrencyOf(user));
+
+        budgetEngine.reverse(user.getId(), expense.getCategory().getId(), expense.getDate(), expense.getType(),
+                expense.getAmount(), expense.getCurrency());
+        boolean wasTagged = !expense.getTags().isEmpty();
+        // Title suggestions only count live expenses, so a restored one was not counted yet
+        String previousTitle = restored ? null : expense.getTitle();
+        if (request.getTags() != null) {
+            expense.setTags(tagService.resolve(user, request.getTags()));
+        }
         expense.setTitle(request.getTitle());
         expense.setAmount(request.getAmount());
         expense.setDescription(request.getDescription());
         expense.setDate(request.getDate());
         expense.setType(request.getType());
+        expense.setCurrency(currency);
         expense.setCategory(category);
 
         Expense updatedExpense = expenseRepository.save(expense);
-        return new ExpenseResponse(updatedExpense);
+        budgetEngine.record(user.getId(), category.getId(), expense.getDate(), expense.getType(), expense.getAmount(),
+                currency);
+        List<String> tagNames = TagService.names(expense.getTags());
+        // Tagged expenses are indexed with their amount, so any change to one is reported
+        if (wasTagged || !tagNames.isEmpty()) {
+            tagIndex.tagged(user.getId(), id, tagNames, expense.getAmount(), currency, expense.getDate());
+        }
+        titleSuggester.changed(user.getId(), previousTitle, expense.getTitle(), category, expense.getDate());
+        event.finishAfterCompletion(1);
+        ExpenseResponse response = new ExpenseResponse(updatedExpense);
+        response.setTags(tagNames);
+        return response;
     }
 
     public void deleteExpense(Long id, User user) {
-        Expense expense = expenseRepository.findById(id)
-                .filter(exp -> exp.getUser().getId().equals(user.getId()))
-                .orElseThrow(() -> new RuntimeException("Expense not found"));
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("delete", user);
+        Optional<Expense> existing = expenseRepository.findById(id)
+                .filter(exp -> exp.getUser().getId().equals(user.getId()));
+        if (existing.isEmpty() && archive != null && archive.delete(id, user)) {
+            tagIndex.deleted(user.getId(), id);
+            event.finishAfterCompletion(1);
+            return;
+        }
+        Expense expense = existing.orElseThrow(() -> new RuntimeException("Expense not found"));
 
         expenseRepository.delete(expense);
+        tagIndex.deleted(user.getId(), id);
+        titleSuggester.removed(user.getId(), expense.getTitle());
+        budgetEngine.reverse(user.getId(), expense.getCategory().getId(), expense.getDate(), expense.getType(),
+                expense.getAmount(), expense.getCurrency());
+        event.finishAfterCompletion(1);
     }
 
+    @Transactional(readOnly = true)
     public ExpenseSummaryResponse getExpenseSummaryByUser(User user) {
+        if (fxRateTable.convertsFor(user)) {
+            return getConvertedSummaryByUser(user);
+        }
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("summary", user);
         List<Expense> expenses = expenseRepository.findByUserOrderByDateDesc(user);
 
         // Calculate totals
@@ -116,7 +400,116 @@ public class ExpenseService {
         }
 
         // Calculate category summary
-        Map<String, ExpenseSummaryResponse.CategorySummary> categorySummary = expenses.stream()
+        Map<String, ExpenseSummaryResponse.CategorySummary> categorySummary = summarizeByCategory(expenses);
+
+        // Calculate monthly total
+        YearMonth currentMonth = YearMonth.now();
+        BigDecimal monthlyTotal = expenseRepository.getMonthlyTotalByUser(
+                user, currentMonth.getYear(), currentMonth.getMonthValue());
+        if (monthlyTotal == null) {
+            monthlyTotal = BigDecimal.ZERO;
+        }
+
+        // Archived totals come from the in-memory archive index, without reading archived rows
+        if (archive != null) {
+            ExpenseArchive.UserArchive archived = archive.summaryFor(user.getId());
+            if (!archived.isEmpty()) {
+                totalExpenses = totalExpenses.add(archived.total());
+                totalCount += archived.count();
+                for (ExpenseArchive.CategoryAggregate category : archived.categories().values()) {
+                    categorySummary.merge(category.name(),
+                            new ExpenseSummaryResponse.CategorySummary(category.total(), category.count()),
+                            (current, added) -> new ExpenseSummaryResponse.CategorySummary(
+                                    current.getTotal().add(added.getTotal()), current.getCount() + added.getCount()));
+                }
+            }
+        }
+
+        // Include the user's own writes that are still queued for the database
+        for (ExpenseResponse pending : getPendingExpenses(user)) {
+            totalExpenses = totalExpenses.add(pending.getAmount());
+            totalCount++;
+            categorySummary.merge(pending.getCategoryName(),
+                    new ExpenseSummaryResponse.CategorySummary(pending.getAmount(), 1L),
+                    (current, added) -> new ExpenseSummaryResponse.CategorySummary(
+                            current.getTotal().add(added.getTotal()), current.getCount() + added.getCount()));
+            if (YearMonth.from(pending.getDate()).equals(currentMonth)) {
+                monthlyTotal = monthlyTotal.add(pending.getAmount());
+            }
+        }
+
+        event.finish(expenses.size());
+        ExpenseSummaryResponse summary = new ExpenseSummaryResponse(totalExpenses, totalCount, categorySummary,
+                monthlyTotal);
+        summary.setCurrency(fxRateTable.baseCurrencyOf(user));
+        return summary;
+    }
+
+    /**
+     * Summary in the user's base currency when expenses may be in other currencies. Totals
+     * are read per category, currency and day, converted in one batch at each day's rate
+     * and then added up, so the cost grows with distinct days rather than with rows.
+     */
+    private ExpenseSummaryResponse getConvertedSummaryByUser(User user) {
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("summary", user);
+        List<Object[]> rows = new ArrayList<>(expenseRepository.getTotalsByCategoryCurrencyAndDate(user));
+        if (archive != null && !archive.summaryFor(user.getId()).isEmpty()) {
+            rows.addAll(archivedExpenseRepository.getTotalsByCategoryCurrencyAndDate(user));
+        }
+        List<ExpenseResponse> pending = getPendingExpenses(user);
+
+        String baseCurrency = fxRateTable.baseCurrencyOf(user);
+        ConversionBatch batch = new ConversionBatch(fxRateTable.current(), baseCurrency, rows.size() + pending.size());
+        List<String> categories = new ArrayList<>(rows.size() + pending.size());
+        List<Long> counts = new ArrayList<>(rows.size() + pending.size());
+        for (Object[] row : rows) {
+            batch.add((BigDecimal) row[3], (String) row[1], (LocalDate) row[2]);
+            categories.add((String) row[0]);
+            counts.add((Long) row[4]);
+        }
+        for (ExpenseResponse expense : pending) {
+            batch.add(expense.getAmount(), expense.getCurrency(), expense.getDate());
+            categories.add(expense.getCategoryName());
+            counts.add(1L);
+        }
+        long[] converted = batch.convertTo(baseCurrency);
+
+        long currentMonthStart = YearMonth.now().atDay(1).toEpochDay();
+        long currentMonthEnd = YearMonth.now().atEndOfMonth().toEpochDay();
+        long totalCents = 0;
+        long monthlyCents = 0;
+        long totalCount = 0;
+        Map<String, long[]> byCategory = new LinkedHashMap<>();
+        for (int i = 0; i < converted.length; i++) {
+            totalCents += converted[i];
+            totalCount += counts.get(i);
+            long[] category = byCategory.computeIfAbsent(categories.get(i), name -> new long[2]);
+            category[0] += converted[i];
+            category[1] += counts.get(i);
+            long day = i < rows.size() ? ((LocalDate) rows.get(i)[2]).toEpochDay()
+                    : pending.get(i - rows.size()).getDate().toEpochDay();
+            if (day >= currentMonthStart && day <= currentMonthEnd) {
+                monthlyCents += converted[i];
+            }
+        }
+
+        Map<String, ExpenseSummaryResponse.CategorySummary> categorySummary = new LinkedHashMap<>();
+        byCategory.forEach((name, category) -> categorySummary.put(name,
+                new ExpenseSummaryResponse.CategorySummary(ConversionBatch.toAmount(category[0]), category[1])));
+        event.finish(rows.size() + pending.size());
+        ExpenseSummaryResponse summary = new ExpenseSummaryResponse(ConversionBatch.toAmount(totalCents), totalCount,
+                categorySummary, ConversionBatch.toAmount(monthlyCents));
+        summary.setCurrency(baseCurrency);
+        summary.setUnconvertedCount(batch.unconverted());
+        return summary;
+    }
+
+    /**
+     * Total and count per category name. Pure function of its input, so the warm-up can
+     * run it over synthetic expenses.
+     */
+    public static Map<String, ExpenseSummaryResponse.CategorySummary> summarizeByCategory(List<Expense> expenses) {
+        return expenses.stream()
                 .collect(Collectors.groupingBy(
                         expense -> expense.getCategory().getName(),
                         Collectors.collectingAndThen(
@@ -129,36 +522,282 @@ public class ExpenseService {
                                 }
                         )
                 ));
-
-        // Calculate monthly total
-        YearMonth currentMonth = YearMonth.now();
-        BigDecimal monthlyTotal = expenseRepository.getMonthlyTotalByUser(
-                user, currentMonth.getYear(), currentMonth.getMonthValue());
-        if (monthlyTotal == null) {
-            monthlyTotal = BigDecimal.ZERO;
-        }
-
-        return new ExpenseSummaryResponse(totalExpenses, totalCount, categorySummary, monthlyTotal);
     }
 
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> getExpensesByCategory(User user, Long categoryId) {
-        return expenseRepository.findByUserAndCategoryId(user, categoryId)
-                .stream()
-                .map(ExpenseResponse::new)
-                .collect(Collectors.toList());
+        return withTags(user, withPending(user,
+                withArchived(expenseRepository.findByUserAndCategoryId(user, categoryId),
+                        archive != null ? archive.findByCategory(user, categoryId) : List.of()),
+                expense -> expense.getCategoryId().equals(categoryId)));
     }
 
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> getExpensesByType(User user, String type) {
-        return expenseRepository.findByUserAndType(user, type)
-                .stream()
-                .map(ExpenseResponse::new)
-                .collect(Collectors.toList());
+        return withTags(user, withPending(user,
+                withArchived(expenseRepository.findByUserAndType(user, type),
+                        archive != null ? archive.findByType(user, type) : List.of()),
+                expense -> expense.getType().equals(type)));
     }
 
+    @Transactional(readOnly = true)
     public List<ExpenseResponse> getExpensesByDateRange(User user, LocalDate startDate, LocalDate endDate) {
-        return expenseRepository.findByUserAndDateBetween(user, startDate, endDate)
-                .stream()
-                .map(ExpenseResponse::new)
+        return withTags(user, withPending(user,
+                withArchived(expenseRepository.findByUserAndDateBetween(user, startDate, endDate),
+                        archive != null ? archive.findByDateRange(user, startDate, endDate) : List.of()),
+                expense -> !expense.getDate().isBefore(startDate) && !expense.getDate().isAfter(endDate)));
+    }
+
+    /**
+     * Expenses carrying every tag in {@code all}, at least one in {@code any} and none in
+     * {@code none}. The tag index answers the filter with bitmap operations; only the
+     * matching rows are then read, by id.
+     */
+    @Transactional(readOnly = true)
+    public List<ExpenseResponse> getExpensesByTags(User user, List<String> all, List<String> any, List<String> none) {
+        ExpenseOperationEvent event = ExpenseOperationEvent.start("tagged", user);
+        TagIndex.TagMatch match = tagIndex.forUser(user.getId())
+                .match(TagService.normalize(all), TagService.normalize(any), TagService.normalize(none));
+
+        List<ExpenseResponse> expenses;
+        if (match.included() == null) {
+            // Only exclusions: every expense of the user except the excluded ones
+            expenses = getAllExpensesByUser(user).stream()
+                    .filter(expense -> !match.excluded().contains(expense.getId()))
+                    .collect(Collectors.toList());
+        } else {
+            List<Expense> live = new ArrayList<>();
+            List<Expense> archived = new ArrayList<>();
+            long[] ids = match.included().toArray();
+            for (int from = 0; from < ids.length; from += TAGGED_BATCH_SIZE) {
+                List<Long> batch = Arrays.stream(ids, from, Math.min(ids.length, from + TAGGED_BATCH_SIZE))
+                        .boxed().collect(Collectors.toList());
+                List<Expense> found = expenseRepository.findByUserAndIdIn(user, batch);
+                live.addAll(found);
+                if (archive != null && found.size() < batch.size()) {
+                    archived.addAll(archive.findByIds(user, batch));
+                }
+            }
+            expenses = withTags(user, withArchived(live, archived));
+        }
+        event.finish(expenses.size());
+        return expenses;
+    }
+
+    /**
+     * Count and total of each of the user's tags in their base currency, computed from the
+     * tag index without reading expense rows.
+     */
+    @Transactional(readOnly = true)
+    public List<TagSummaryResponse> getTagSummaries(User user) {
+        String baseCurrency = fxRateTable.baseCurrencyOf(user);
+        return tagIndex.forUser(user.getId()).totals(fxRateTable.current(), baseCurrency).stream()
+                .map(total -> new TagSummaryResponse(total.name(), total.count(),
+                        ConversionBatch.toAmount(total.cents()), baseCurrency))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The user's most used recent titles starting with {@code prefix}, each with the category
+     * it was last filed under. Served from memory once the user's title index is loaded, so
+     * no transaction is held open.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TitleSuggestionResponse> suggestTitles(User user, String prefix, int limit) {
+        int capped = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return titleSuggester.suggest(user, prefix, capped).stream()
+                .map(suggestion -> new TitleSuggestionResponse(suggestion.title(), suggestion.category().id(),
+                        suggestion.category().name(), suggestion.category().icon(), suggestion.count()))
                 .collect(Collectors.toList());
     }
+
+    private <T extends List<ExpenseResponse>> T withTags(User user, T responses) {
+        return withTags(user, responses, IndexVersions.UNKNOWN);
+    }
+
+    private <T extends List<ExpenseResponse>> T withTags(User user, T responses, IndexVersions versions) {
+        if (responses.isEmpty()) {
+            return responses;
+        }
+        TagIndex.UserTags tags = tagIndex(user, versions);
+        for (ExpenseResponse response : responses) {
+            // Queued writes have negative provisional ids and are never tagged
+            if (response.getId() != null && response.getId() > 0) {
+                response.setTags(tags.tagsOf(response.getId()));
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Adds the user's queued writes that match {@code filter}, keeping the list newest first.
+     */
+    private List<ExpenseResponse> withPending(User user, List<ExpenseResponse> responses,
+                                              Predicate<ExpenseResponse> filter) {
+        List<ExpenseResponse> pending = getPendingExpenses(user).stream().filter(filter).toList();
+        if (pending.isEmpty()) {
+            return responses;
+        }
+        List<ExpenseResponse> merged = new ArrayList<>(pending.size() + responses.size());
+        merged.addAll(pending);
+        merged.addAll(responses);
+        merged.sort(Comparator.comparing(ExpenseResponse::getDate).reversed());
+        return merged;
+    }
+
+    private static List<ExpenseResponse> withArchived(List<Expense> live, List<Expense> archived) {
+        List<ExpenseResponse> responses = new ArrayList<>(live.size() + archived.size());
+        live.forEach(expense -> responses.add(new ExpenseResponse(expense)));
+        if (!archived.isEmpty()) {
+            archived.forEach(expense -> responses.add(new ExpenseResponse(expense)));
+            // A live expense can be backdated past archived ones until the next archive run
+            responses.sort(Comparator.comparing(ExpenseResponse::getDate).reversed());
+        }
+        return responses;
+    }
+
+    private StoredPage storedPage(User user, int page, int size) {
+        Slice<Object[]> rows = expenseRepository.findPageWithIndexVersionsByUser(user, PageRequest.of(page, size));
+        IndexVersions versions = IndexVersions.of(rows.getContent());
+        Slice<ExpenseResponse> slice = rows.map(row -> new ExpenseResponse((Expense) row[0]));
+        if (archive != null && !slice.hasNext()) {
+            slice = continueIntoArchive(user, page, size, slice, versions);
+        }
+        return new StoredPage(slice, versions);
+    }
+
+    /**
+     * Places queued writes among the stored rows by date. With {@code n} queued rows, a stored
+     * row moves down by at most {@code n} positions, so the page is cut from the stored rows
+     * starting {@code n} positions before it merged with the queued ones.
+     */
+    private StoredPage mergePending(User user, int page, int size, List<ExpenseResponse> pending) {
+        List<ExpenseResponse> queued = new ArrayList<>(pending);
+        queued.sort(PAGE_ORDER);
+        long start = (long) page * size;
+        int firstPage = (int) (Math.max(0, start - queued.size()) / size);
+
+        List<ExpenseResponse> stored = new ArrayList<>();
+        boolean storedHasMore = false;
+        IndexVersions versions = null;
+        for (int storedPage = firstPage; storedPage <= page; storedPage++) {
+            StoredPage read = storedPage(user, storedPage, size);
+            Slice<ExpenseResponse> slice = read.slice();
+            // The first read's versions are the oldest, so they are safe for the whole window
+            versions = versions != null ? versions : read.versions();
+            stored.addAll(slice.getContent());
+            storedHasMore = slice.hasNext();
+            if (!storedHasMore) {
+                break;
+            }
+        }
+
+        // A row's merged position is the stored rows before it plus the queued rows before it.
+        // Queued rows ahead of the window are known to fall before this page, and those behind
+        // a window that has more after it fall after this page.
+        long base = (long) firstPage * size;
+        List<ExpenseResponse> content = new ArrayList<>(size);
+        boolean hasNext = storedHasMore;
+        int storedIndex = 0;
+        int queuedIndex = 0;
+        while (storedIndex < stored.size() || queuedIndex < queued.size()) {
+            boolean takeQueued = storedIndex == stored.size() || (queuedIndex < queued.size()
+                    && PAGE_ORDER.compare(queued.get(queuedIndex), stored.get(storedIndex)) < 0);
+            if (takeQueued && storedIndex == stored.size() && storedHasMore) {
+                break;
+            }
+            long position = base + storedIndex + queuedIndex;
+            if (position >= start + size) {
+                hasNext = true;
+                break;
+            }
+            ExpenseResponse next = takeQueued ? queued.get(queuedIndex++) : stored.get(storedIndex++);
+            if (position >= start) {
+                content.add(next);
+            }
+        }
+        return new StoredPage(new SliceImpl<>(content, PageRequest.of(page, size), hasNext), versions);
+    }
+
+    /**
+     * Fills the last live page, and the pages after it, from the archive. The live row count
+     * is only needed once a page lies entirely past the live rows.
+     */
+    private Slice<ExpenseResponse> continueIntoArchive(User user, int page, int size, Slice<ExpenseResponse> live,
+                                                       IndexVersions versions) {
+        int liveRows = live.getNumberOfElements();
+        int offset = 0;
+        if (liveRows == 0) {
+            Long liveCount = expenseRepository.getExpenseCountByUser(user);
+            offset = Math.max(0, page * size - (liveCount != null ? liveCount.intValue() : 0));
+        }
+        int wanted = size - liveRows;
+        // One extra row tells whether there is a next page
+        List<Expense> archived = archive.findFrom(user, archiveSummary(user, versions), offset, wanted + 1);
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<ExpenseResponse> content = new ArrayList<>(live.getContent());
+        archived.stream().limit(wanted).forEach(expense -> content.add(new ExpenseResponse(expense)));
+        return new SliceImpl<>(content, live.getPageable(), archived.size() > wanted);
+    }
+
+    private String resolveCurrency(String requested, String fallback) {
+        String currency = requested != null ? requested.toUpperCase(Locale.ROOT) : fallback;
+        if (!fxRateTable.isSupported(currency)) {
+            throw new RuntimeException("Unsupported currency: " + currency);
+        }
+        return currency;
+    }
+
+    private TagIndex.UserTags tagIndex(User user, IndexVersions versions) {
+        return versions.tags() != null ? tagIndex.forUser(user.getId(), versions.tags())
+                : tagIndex.forUser(user.getId());
+    }
+
+    private ExpenseArchive.UserArchive archiveSummary(User user, IndexVersions versions) {
+        return versions.archive() != null ? archive.summaryFor(user.getId(), versions.archive())
+                : archive.summaryFor(user.getId());
+    }
+
+    private List<ExpenseResponse> getPendingExpenses(User user) {
+        if (writeBehindBuffer == null) {
+            return List.of();
+        }
+        List<PendingExpense> pending = writeBehindBuffer.pendingFor(user.getId());
+        List<ExpenseResponse> responses = new ArrayList<>(pending.size());
+        for (PendingExpense expense : pending) {
+            categoryService.findById(expense.categoryId())
+                    .ifPresent(category -> responses.add(ExpenseWriteBehindBuffer.toResponse(expense, category)));
+        }
+        return responses;
+    }
+
+    private record StoredPage(Slice<ExpenseResponse> slice, IndexVersions versions) {
+    }
+
+    /**
+     * The tag index and archive versions read alongside expense rows, see
+     * {@link ExpenseRepository#INDEX_VERSIONS}. Both are null when no row was read, and the
+     * indexes then look their versions up themselves.
+     */
+    private record IndexVersions(Long tags, Long archive) {
+
+        static final IndexVersions UNKNOWN = new IndexVersions(null, null);
+
+        static IndexVersions of(List<Object[]> rows) {
+            if (rows.isEmpty()) {
+                return UNKNOWN;
+            }
+            Object[] row = rows.get(0);
+            // No version row yet is version 0
+            return new IndexVersions(row[1] != null ? (Long) row[1] : 0L, row[2] != null ? (Long) row[2] : 0L);
+        }
+
+        static List<Expense> expenses(List<Object[]> rows) {
+            List<Expense> expenses = new ArrayList<>(rows.size());
+            rows.forEach(row -> expenses.add((Expense) row[0]));
+            return expenses;
+        }
+    }
 }
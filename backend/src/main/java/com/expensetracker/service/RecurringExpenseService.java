@@ -0,0 +1,90 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.RecurringExpenseRequest;
+import com.expensetracker.dto.RecurringExpenseResponse;
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.RecurringExpense;
+import com.expensetracker.entity.User;
+import com.expensetracker.fx.FxRateTable;
+import com.expensetracker.repository.RecurringExpenseRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class RecurringExpenseService {
+
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final CategoryService categoryService;
+    private final FxRateTable fxRateTable;
+
+    public RecurringExpenseService(RecurringExpenseRepository recurringExpenseRepository,
+                                   CategoryService categoryService, FxRateTable fxRateTable) {
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.categoryService = categoryService;
+        this.fxRateTable = fxRateTable;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecurringExpenseResponse> getRulesByUser(User user) {
+        return recurringExpenseRepository.findByUserOrderByNextDueDateAsc(user)
+                .stream()
+                .map(RecurringExpenseResponse::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Stores the rule; the materializer posts its occurrences, including any already due. The
+     * rule keeps the currency it was created in (the user's base currency by default), so its
+     * occurrences do not change currency when the base currency does.
+     */
+    public RecurringExpenseResponse createRule(RecurringExpenseRequest request, User user) {
+        Category category = categoryService.findById(request.getCategoryId())
+                .orElseThrow(() -> new RuntimeException("Category not found"));
+
+        if (!request.getType().equals("income") && !request.getType().equals("expense")) {
+            throw new RuntimeException("Invalid expense type. Must be 'income' or 'expense'");
+        }
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new RuntimeException("End date must not be before the start date");
+        }
+        String currency = request.getCurrency() != null ? request.getCurrency().toUpperCase(Locale.ROOT)
+                : fxRateTable.baseCurrencyOf(user);
+        if (!fxRateTable.isSupported(currency)) {
+            throw new RuntimeException("Unsupported currency: " + currency);
+        }
+
+        RecurringExpense rule = new RecurringExpense();
+        rule.setTitle(request.getTitle());
+        rule.setAmount(request.getAmount());
+        rule.setDescription(request.getDescription());
+        rule.setType(request.getType());
+        rule.setCurrency(currency);
+        rule.setFrequency(request.getFrequency());
+        rule.setIntervalCount(request.getInterval());
+        rule.setStartDate(request.getStartDate());
+        rule.setEndDate(request.getEndDate());
+        rule.setMaxOccurrences(request.getOccurrences());
+        rule.setNextOccurrence(0);
+        rule.setNextDueDate(request.getStartDate());
+        rule.setUser(user);
+        rule.setCategory(category);
+
+        return new RecurringExpenseResponse(recurringExpenseRepository.save(rule));
+    }
+
+    /**
+     * Stops the rule. Expenses it already posted are kept.
+     */
+    public void deleteRule(Long id, User user) {
+        RecurringExpense rule = recurringExpenseRepository.findById(id)
+                .filter(existing -> existing.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new RuntimeException("Recurring expense not found"));
+
+        recurringExpenseRepository.delete(rule);
+    }
+}
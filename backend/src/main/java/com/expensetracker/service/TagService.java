@@ -0,0 +1,63 @@
+package com.expensetracker.service;
+
+import com.expensetracker.entity.Tag;
+import com.expensetracker.entity.User;
+import com.expensetracker.repository.TagRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class TagService {
+
+    private final TagRepository tagRepository;
+
+    @Autowired
+    public TagService(TagRepository tagRepository) {
+        this.tagRepository = tagRepository;
+    }
+
+    /**
+     * The user's tags with these names, creating the ones that do not exist yet.
+     */
+    public Set<Tag> resolve(User user, Collection<String> names) {
+        Set<String> normalized = normalize(names);
+        if (normalized.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<Tag> tags = new HashSet<>(tagRepository.findByUserAndNameIn(user, normalized));
+        Set<String> existing = tags.stream().map(Tag::getName).collect(Collectors.toSet());
+        for (String name : normalized) {
+            if (!existing.contains(name)) {
+                tags.add(tagRepository.save(new Tag(name, user)));
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Trimmed, lower-cased, de-duplicated and sorted, without blanks.
+     */
+    public static Set<String> normalize(Collection<String> names) {
+        if (names == null) {
+            return new TreeSet<>();
+        }
+        return names.stream()
+                .filter(name -> name != null && !name.isBlank())
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    public static List<String> names(Collection<Tag> tags) {
+        return tags.stream().map(Tag::getName).sorted().collect(Collectors.toList());
+    }
+}
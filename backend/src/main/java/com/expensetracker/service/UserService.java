@@ -1,13 +1,23 @@
 package com.expensetracker.service;
 
+import com.expensetracker.budget.BudgetEngine;
+import com.expensetracker.datasource.ShardReferenceDataSync;
 import com.expensetracker.dto.RegisterRequest;
 import com.expensetracker.entity.User;
+import com.expensetracker.fx.FxRateTable;
+import com.expensetracker.repository.ArchivedExpenseRepository;
+import com.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.repository.RecurringExpenseRepository;
 import com.expensetracker.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -16,63 +26,151 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AccountAvailabilityIndex availabilityIndex;
+    private final ExpenseRepository expenseRepository;
+    private final ArchivedExpenseRepository archivedExpenseRepository;
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final FxRateTable fxRateTable;
+    private final BudgetEngine budgetEngine;
+    private final ObjectProvider<ShardReferenceDataSync> referenceDataSync;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       AccountAvailabilityIndex availabilityIndex, ExpenseRepository expenseRepository,
+                       ArchivedExpenseRepository archivedExpenseRepository,
+                       RecurringExpenseRepository recurringExpenseRepository, FxRateTable fxRateTable,
+                       BudgetEngine budgetEngine, ObjectProvider<ShardReferenceDataSync> referenceDataSync) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.availabilityIndex = availabilityIndex;
+        this.expenseRepository = expenseRepository;
+        this.archivedExpenseRepository = archivedExpenseRepository;
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.fxRateTable = fxRateTable;
+        this.budgetEngine = budgetEngine;
+        this.referenceDataSync = referenceDataSync;
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
+    @Transactional(readOnly = true)
     public User findByEmail(String email) {
         return userRepository.findByEmail(email).orElseThrow(()->
                 new RuntimeException("User not found with email :" +email));
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public User getUserByUsername(String username) {
         return findByUsername(username).orElseThrow(() ->
             new RuntimeException("User not found with username: " + username));
     }
 
+    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
 
+    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userChanged(saved);
+        return saved;
     }
 
-    public User registerUser(RegisterRequest registerRequest) {
-        // Check if username already exists
-        if (userRepository.existsByUsername(registerRequest.getUsername())) {
-            throw new RuntimeException("Username is already taken");
+    /**
+     * Changes the currency the user's summaries are reported in. Expenses and recurring rules
+     * stored without a currency are in the old base currency, so they are pinned to it first.
+     */
+    public User changeBaseCurrency(User user, String currency) {
+        String code = currency.toUpperCase(Locale.ROOT);
+        if (!fxRateTable.isSupported(code)) {
+            throw new RuntimeException("Unsupported currency: " + code);
         }
-
-        // Check if email already exists
-        if (userRepository.existsByEmail(registerRequest.getEmail())) {
-            throw new RuntimeException("Email is already in use");
+        String previous = fxRateTable.baseCurrencyOf(user);
+        if (!previous.equals(code)) {
+            expenseRepository.assignMissingCurrency(user, previous);
+            archivedExpenseRepository.assignMissingCurrency(user, previous);
+            recurringExpenseRepository.assignMissingCurrency(user, previous);
         }
+        user.setBaseCurrency(code);
+        User saved = userRepository.save(user);
+        userChanged(saved);
+        if (!previous.equals(code)) {
+            budgetEngine.baseCurrencyChanged(saved.getId());
+        }
+        return saved;
+    }
 
-        // Create new user
+    // With sharding, the user's row also lives on the directory shard
+    private void userChanged(User user) {
+        referenceDataSync.ifAvailable(sync -> sync.userChanged(user.getId()));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public User registerUser(RegisterRequest registerRequest) {
         User user = new User();
         user.setUsername(registerRequest.getUsername());
         user.setEmail(registerRequest.getEmail());
         user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
 
-        return userRepository.save(user);
+        return createUser(user);
+    }
+
+    /**
+     * Inserts a new account in one statement and lets the unique constraints decide whether the
+     * username or email is taken. Runs outside any surrounding transaction so a rejected insert
+     * leaves nothing to roll back and the follow-up lookup gets a clean persistence context.
+     *
+     * @throws DuplicateAccountException if the username or email already exists
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public User createUser(User user) {
+        try {
+            User saved = userRepository.save(user);
+            availabilityIndex.add(saved.getUsername(), saved.getEmail());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // Only the failure path pays for a second query, to pick the right message. The value
+            // found taken may have been inserted elsewhere since the last refresh, so the filter learns it
+            if (userRepository.existsByUsername(user.getUsername())) {
+                availabilityIndex.addUsername(user.getUsername());
+                throw new DuplicateAccountException("Username is already taken");
+            }
+            if (userRepository.existsByEmail(user.getEmail())) {
+                availabilityIndex.addEmail(user.getEmail());
+                throw new DuplicateAccountException("Email is already in use");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Availability check for the sign-up form. Values the Bloom filter has never seen are
+     * reported free without touching the database.
+     */
+    @Transactional(readOnly = true)
+    public boolean isUsernameAvailable(String username) {
+        return !availabilityIndex.mightHaveUsername(username) || !userRepository.existsByUsername(username);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isEmailAvailable(String email) {
+        return !availabilityIndex.mightHaveEmail(email) || !userRepository.existsByEmail(email);
     }
 
+    @Transactional(readOnly = true)
     public boolean authenticateUser(String username, String rawPassword) {
         Optional<User> userOptional = userRepository.findByUsername(username);
         if (userOptional.isPresent()) {
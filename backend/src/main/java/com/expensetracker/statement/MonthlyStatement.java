@@ -0,0 +1,31 @@
+package com.expensetracker.statement;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * One user's statement for a calendar month, as written to {@code <userId>.json.gz}.
+ * Amounts are in {@code currency}, the user's base currency; {@code unconverted} counts the
+ * rows left out of the totals because their currency has no exchange rates. Categories are
+ * ordered by expense total, largest first.
+ */
+public record MonthlyStatement(Long userId,
+                               String username,
+                               YearMonth period,
+                               String currency,
+                               BigDecimal totalExpenses,
+                               BigDecimal totalIncome,
+                               BigDecimal net,
+                               long count,
+                               long unconverted,
+                               List<CategoryTotal> categories,
+                               List<TopExpense> topExpenses) {
+
+    public record CategoryTotal(String category, BigDecimal total, long count) {
+    }
+
+    public record TopExpense(String title, BigDecimal amount, LocalDate date, String category) {
+    }
+}
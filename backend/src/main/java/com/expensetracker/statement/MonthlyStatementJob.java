@@ -0,0 +1,395 @@
+package com.expensetracker.statement;
+
+import com.expensetracker.fx.FxRateTable;
+import com.expensetracker.fx.FxRates;
+import com.expensetracker.health.SaturationMonitor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes every user's statement for a finished month to
+ * {@code <output-dir>/<yyyy-MM>/<first id>-<last id>/<user id>.json.gz}.
+ *
+ * Users are split into id ranges of {@code app.statements.partition-size}; the workers take
+ * the next range from a shared cursor until none are left. A partition reads its users and
+ * then streams the month's expenses for the range in user order, writing each statement as
+ * soon as the next user's rows begin, so memory stays at one user's aggregate however large
+ * the partition. A finished partition leaves a {@code .done} marker and is skipped when the
+ * run is restarted; {@code _SUCCESS} marks the whole month.
+ *
+ * Reads run in read-only transactions, so they go to the replica when one is configured.
+ * To share the database with live traffic, each partition waits while the instance reports
+ * itself saturated (the {@code /health/ready} checks) and the workers together read at most
+ * {@code app.statements.max-rows-per-second} rows.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.statements", name = "enabled", havingValue = "true")
+public class MonthlyStatementJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyStatementJob.class);
+
+    private static final String USER_ID_RANGE = "SELECT MIN(id), MAX(id) FROM users";
+
+    private static final String USERS_IN_RANGE = "SELECT id, username, base_currency FROM users "
+            + "WHERE id BETWEEN ? AND ? ORDER BY id";
+
+    private static final String EXPENSES_IN_RANGE = "SELECT user_id, title, amount, type, date, category_id, currency "
+            + "FROM expenses WHERE user_id BETWEEN ? AND ? AND date BETWEEN ? AND ? ORDER BY user_id";
+
+    private static final String SUCCESS_MARKER = "_SUCCESS";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter statementWriter;
+    private final SaturationMonitor saturationMonitor;
+    private final FxRateTable fxRateTable;
+    private final Path outputDir;
+    private final int partitionSize;
+    private final int workers;
+    private final int topExpenses;
+    private final int maxRowsPerSecond;
+    private final Duration checkInterval;
+    private final boolean shardingEnabled;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Time up to which the row budget has been spent, shared by all workers
+    private final AtomicLong paceClock = new AtomicLong(System.nanoTime());
+
+    private final Counter statementsCounter;
+    private final Counter partitionsCounter;
+    private final Counter backoffCounter;
+    private final Timer runTimer;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statement-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService workerPool;
+
+    public MonthlyStatementJob(DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               SaturationMonitor saturationMonitor,
+                               FxRateTable fxRateTable,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.statements.output-dir:statements}") Path outputDir,
+                               @Value("${app.statements.partition-size:1000}") int partitionSize,
+                               @Value("${app.statements.workers:2}") int workers,
+                               @Value("${app.statements.fetch-size:500}") int fetchSize,
+                               @Value("${app.statements.top-expenses:5}") int topExpenses,
+                               @Value("${app.statements.max-rows-per-second:20000}") int maxRowsPerSecond,
+                               @Value("${app.statements.check-interval:1h}") Duration checkInterval,
+                               @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.statementWriter = objectMapper.writerFor(MonthlyStatement.class);
+        this.saturationMonitor = saturationMonitor;
+        this.fxRateTable = fxRateTable;
+        this.outputDir = outputDir;
+        this.partitionSize = partitionSize;
+        this.workers = workers;
+        this.topExpenses = topExpenses;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.checkInterval = checkInterval;
+        this.shardingEnabled = shardingEnabled;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "statement-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.statementsCounter = Counter.builder("statements.written")
+                .description("Monthly statement files written")
+                .register(meterRegistry);
+        this.partitionsCounter = Counter.builder("statements.partitions")
+                .description("Statement partitions completed")
+                .register(meterRegistry);
+        this.backoffCounter = Counter.builder("statements.backoffs")
+                .description("Times a statement partition waited for the instance to stop being saturated")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("statements.run.duration")
+                .description("Time to write all statements for a month")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (shardingEnabled) {
+            // Users are spread over the shards; the partition queries are single-database
+            logger.warn("Monthly statements are not written while app.sharding is enabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::runDueSafely, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the statements for {@code period}, resuming after the partitions already marked
+     * done. Returns null if a run is already in progress.
+     */
+    public RunResult run(YearMonth period) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return runExclusively(period);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isComplete(YearMonth period) {
+        return Files.exists(outputDir.resolve(period.toString()).resolve(SUCCESS_MARKER));
+    }
+
+    private RunResult runExclusively(YearMonth period) throws IOException {
+        long start = System.nanoTime();
+        Path periodDir = Files.createDirectories(outputDir.resolve(period.toString()));
+
+        Map<Long, String> categories = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM categories", rs -> {
+            categories.put(rs.getLong(1), rs.getString(2));
+        });
+        // One snapshot for the whole run, so a rate reload midway does not mix two tables
+        FxRates rates = fxRateTable.current();
+        long[] range = jdbcTemplate.queryForObject(USER_ID_RANGE,
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.wasNull() ? -1 : rs.getLong(2)});
+
+        // Aligned to the partition size, so partition names do not move when the lowest id changes
+        AtomicLong cursor = new AtomicLong(Math.floorDiv(range[0], partitionSize) * partitionSize);
+        List<CompletableFuture<RunResult>> drains = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            drains.add(CompletableFuture.supplyAsync(
+                    () -> drain(period, periodDir, categories, rates, cursor, range[1]), workerPool));
+        }
+        RunResult result = new RunResult(period, 0, 0, 0, 0);
+        for (CompletableFuture<RunResult> drain : drains) {
+            result = result.plus(drain.join());
+        }
+
+        new StatementFileWriter(statementWriter).writeMarker(periodDir.resolve(SUCCESS_MARKER),
+                result.statements() + " statements\n");
+        runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Wrote {} statements for {} from {} rows in {} partitions ({} already done) in {}ms",
+                result.statements(), period, result.rows(), result.partitions(), result.skipped(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    private RunResult drain(YearMonth period, Path periodDir, Map<Long, String> categories, FxRates rates,
+                            AtomicLong cursor, long maxUserId) {
+        StatementFileWriter writer = new StatementFileWriter(statementWriter);
+        RunResult result = new RunResult(period, 0, 0, 0, 0);
+        while (true) {
+            long from = cursor.getAndAdd(partitionSize);
+            if (from > maxUserId) {
+                return result;
+            }
+            // Not clamped to the current maximum id, for the same reason
+            long to = from + partitionSize - 1;
+            Path marker = periodDir.resolve(from + "-" + to + ".done");
+            if (Files.exists(marker)) {
+                result = result.plus(new RunResult(period, 0, 1, 0, 0));
+                continue;
+            }
+            try {
+                awaitCapacity();
+                long partitionStart = System.nanoTime();
+                PartitionWriter partition = new PartitionWriter(period, periodDir.resolve(from + "-" + to),
+                        categories, rates, writer);
+                readOnlyTransaction.executeWithoutResult(status -> partition.write(from, to));
+                writer.writeMarker(marker, partition.statements + " statements\n");
+                partitionsCounter.increment();
+                result = result.plus(new RunResult(period, 1, 0, partition.statements, partition.rows));
+                pace(partition.rows, partitionStart);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Statement run interrupted", e);
+            }
+        }
+    }
+
+    private void awaitCapacity() throws InterruptedException {
+        while (!saturationMonitor.isReady()) {
+            backoffCounter.increment();
+            Thread.sleep(1000);
+        }
+    }
+
+    /**
+     * Holds the worker until the rows it just read fit into the shared rows-per-second budget.
+     */
+    private void pace(long rows, long partitionStart) throws InterruptedException {
+        if (maxRowsPerSecond <= 0 || rows == 0) {
+            return;
+        }
+        long cost = TimeUnit.SECONDS.toNanos(rows) / maxRowsPerSecond;
+        long due = paceClock.accumulateAndGet(cost, (spentUntil, added) -> Math.max(spentUntil, partitionStart) + added);
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void runDueSafely() {
+        YearMonth previous = YearMonth.now().minusMonths(1);
+        try {
+            if (!isComplete(previous)) {
+                run(previous);
+            }
+        } catch (Exception e) {
+            logger.error("Statement run for {} failed, finished partitions are kept", previous, e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    public record RunResult(YearMonth period, int partitions, int skipped, long statements, long rows) {
+
+        RunResult plus(RunResult other) {
+            return new RunResult(period, partitions + other.partitions, skipped + other.skipped,
+                    statements + other.statements, rows + other.rows);
+        }
+    }
+
+    private record UserRow(long id, String username, String baseCurrency) {
+    }
+
+    /**
+     * Turns one partition's ordered expense stream into statement files, including empty
+     * statements for users with no rows in the month.
+     */
+    private final class PartitionWriter implements RowCallbackHandler {
+
+        private final YearMonth period;
+        private final Path dir;
+        private final Map<Long, String> categories;
+        private final FxRates rates;
+        private final StatementFileWriter writer;
+
+        private List<UserRow> users;
+        private int nextUser;
+        private StatementBuilder current;
+        private long currentUserId;
+        private long statements;
+        private long rows;
+
+        PartitionWriter(YearMonth period, Path dir, Map<Long, String> categories, FxRates rates,
+                        StatementFileWriter writer) {
+            this.period = period;
+            this.dir = dir;
+            this.categories = categories;
+            this.rates = rates;
+            this.writer = writer;
+        }
+
+        void write(long from, long to) {
+            users = jdbcTemplate.query(USERS_IN_RANGE,
+                    (rs, rowNum) -> new UserRow(rs.getLong(1), rs.getString(2), rs.getString(3)), from, to);
+            try {
+                Files.createDirectories(dir);
+                jdbcTemplate.query(EXPENSES_IN_RANGE, this, from, to,
+                        Date.valueOf(period.atDay(1)), Date.valueOf(period.atEndOfMonth()));
+                flushUpTo(Long.MAX_VALUE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long userId = rs.getLong(1);
+            try {
+                if (current == null || currentUserId != userId) {
+                    flushUpTo(userId);
+                    UserRow user = nextUser < users.size() && users.get(nextUser).id() == userId
+                            ? users.get(nextUser++) : null;
+                    current = builder(userId, user);
+                    currentUserId = userId;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current.add(rs.getString(2), rs.getBigDecimal(3), rs.getString(7), rs.getString(4),
+                    rs.getDate(5).toLocalDate(), categories.get(rs.getLong(6)));
+            rows++;
+        }
+
+        /**
+         * Writes the statement being built and those of users without rows before {@code userId}.
+         */
+        private void flushUpTo(long userId) throws IOException {
+            if (current != null) {
+                emit(current);
+                current = null;
+            }
+            while (nextUser < users.size() && users.get(nextUser).id() < userId) {
+                UserRow user = users.get(nextUser++);
+                emit(builder(user.id(), user));
+            }
+        }
+
+        private StatementBuilder builder(long userId, UserRow user) {
+            String currency = user != null && user.baseCurrency() != null ? user.baseCurrency()
+                    : fxRateTable.getBaseCurrency();
+            return new StatementBuilder(userId, user != null ? user.username() : null, period, rates, currency,
+                    topExpenses);
+        }
+
+        private void emit(StatementBuilder builder) throws IOException {
+            MonthlyStatement statement = builder.build();
+            writer.write(dir.resolve(statement.userId() + ".json.gz"), statement);
+            statements++;
+            statementsCounter.increment();
+        }
+    }
+}
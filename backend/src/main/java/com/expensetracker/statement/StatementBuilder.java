@@ -0,0 +1,96 @@
+package com.expensetracker.statement;
+
+import com.expensetracker.fx.ConversionBatch;
+import com.expensetracker.fx.FxRates;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Accumulates one user's rows as they stream past. Memory is bounded by the number of
+ * categories plus {@code topCount} expenses, however many rows the user has. Rows in another
+ * currency are converted to the user's base currency at the rate of their own date.
+ */
+class StatementBuilder {
+
+    private static final Comparator<MonthlyStatement.TopExpense> BY_AMOUNT =
+            Comparator.comparing(MonthlyStatement.TopExpense::amount);
+
+    private final Long userId;
+    private final String username;
+    private final YearMonth period;
+    private final FxRates rates;
+    private final String currency;
+    private final int currencyIndex;
+    private final int topCount;
+
+    private BigDecimal totalExpenses = BigDecimal.ZERO;
+    private BigDecimal totalIncome = BigDecimal.ZERO;
+    private long count;
+    private long unconverted;
+    private final Map<String, BigDecimal> categoryTotals = new HashMap<>();
+    private final Map<String, Long> categoryCounts = new HashMap<>();
+    // Min-heap holding the largest expenses seen so far
+    private final PriorityQueue<MonthlyStatement.TopExpense> top;
+
+    /**
+     * @param currency the user's base currency, which rows without a currency are in
+     */
+    StatementBuilder(Long userId, String username, YearMonth period, FxRates rates, String currency, int topCount) {
+        this.userId = userId;
+        this.username = username;
+        this.period = period;
+        this.rates = rates;
+        this.currency = currency;
+        this.currencyIndex = rates.indexOf(currency);
+        this.topCount = topCount;
+        this.top = new PriorityQueue<>(topCount + 1, BY_AMOUNT);
+    }
+
+    void add(String title, BigDecimal amount, String rowCurrency, String type, LocalDate date, String category) {
+        count++;
+        if (rowCurrency != null && !rowCurrency.equals(currency)) {
+            int rowIndex = rates.indexOf(rowCurrency);
+            if (rowIndex < 0 || currencyIndex < 0) {
+                unconverted++;
+                return;
+            }
+            amount = ConversionBatch.toAmount(
+                    rates.convert(ConversionBatch.toCents(amount), rowIndex, date.toEpochDay(), currencyIndex));
+        }
+        if (!"expense".equals(type)) {
+            totalIncome = totalIncome.add(amount);
+            return;
+        }
+        totalExpenses = totalExpenses.add(amount);
+        categoryTotals.merge(category, amount, BigDecimal::add);
+        categoryCounts.merge(category, 1L, Long::sum);
+
+        if (topCount > 0 && (top.size() < topCount || amount.compareTo(top.peek().amount()) > 0)) {
+            top.add(new MonthlyStatement.TopExpense(title, amount, date, category));
+            if (top.size() > topCount) {
+                top.poll();
+            }
+        }
+    }
+
+    MonthlyStatement build() {
+        List<MonthlyStatement.CategoryTotal> categories = new ArrayList<>(categoryTotals.size());
+        categoryTotals.forEach((name, total) ->
+                categories.add(new MonthlyStatement.CategoryTotal(name, total, categoryCounts.get(name))));
+        categories.sort(Comparator.comparing(MonthlyStatement.CategoryTotal::total).reversed());
+
+        List<MonthlyStatement.TopExpense> topExpenses = new ArrayList<>(top);
+        topExpenses.sort(BY_AMOUNT.reversed());
+
+        return new MonthlyStatement(userId, username, period, currency, totalExpenses, totalIncome,
+                totalIncome.subtract(totalExpenses), count, unconverted, categories, topExpenses);
+    }
+}
@@ -0,0 +1,66 @@
+package com.expensetracker.statement;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes gzipped statement files for one worker. The statement is compressed into a buffer
+ * that is reused from file to file and handed to the file channel without copying, so a
+ * file costs one open, one write and one close.
+ */
+class StatementFileWriter {
+
+    private final ObjectWriter writer;
+    private final ReusableBuffer buffer = new ReusableBuffer();
+
+    StatementFileWriter(ObjectWriter writer) {
+        this.writer = writer;
+    }
+
+    void write(Path file, MonthlyStatement statement) throws IOException {
+        buffer.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 4096)) {
+            writer.writeValue(gzip, statement);
+        }
+        writeFully(file, buffer.asByteBuffer(), false);
+    }
+
+    /**
+     * Marks a partition as finished. Only the marker is forced to disk; it is written after
+     * every statement file of the partition has been closed.
+     */
+    void writeMarker(Path file, String content) throws IOException {
+        writeFully(file, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)), true);
+    }
+
+    private static void writeFully(Path file, ByteBuffer bytes, boolean force) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (force) {
+                channel.force(true);
+            }
+        }
+    }
+
+    private static final class ReusableBuffer extends ByteArrayOutputStream {
+
+        ReusableBuffer() {
+            super(8192);
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
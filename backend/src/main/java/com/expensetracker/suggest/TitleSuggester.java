@@ -0,0 +1,583 @@
+package com.expensetracker.suggest;
+
+import com.expensetracker.datasource.ShardContext;
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.User;
+import com.expensetracker.repository.ExpenseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Expense title autocomplete. Each active user has an in-memory index of the distinct titles
+ * they have used, kept as a sorted array of lower-cased keys with the display title, use
+ * count, latest date and latest category in parallel arrays. A prefix lookup is a binary
+ * search for the first key at or after the prefix followed by a scan while keys still start
+ * with it, keeping the best few. A title's score is its use count halved for every
+ * {@code app.suggest.half-life} since it was last used, so frequent and recent titles rank
+ * first.
+ *
+ * An index is loaded with one aggregate query on a small background pool
+ * ({@code app.suggest.load-threads}), never on the request thread: a lookup for a user
+ * without an index starts the load and waits at most {@code app.suggest.cold-wait} for it,
+ * answering with no suggestions if it is not ready. Afterwards the index is updated after
+ * every create committed through {@code ExpenseService} on this instance. An edit or delete
+ * can leave a title's latest date and category pointing at a row that no longer has them, so
+ * it marks the index for reload instead. An index older than
+ * {@code app.suggest.refresh-interval} is reloaded too, which bounds how long writes made
+ * elsewhere (other instances, recurring expenses) go unseen. A reload keeps serving the old
+ * index until the new one is in place.
+ *
+ * A load only replaces the index if no write of the user began or finished while it ran,
+ * since such a write may be missing from the loaded rows or already applied to the old
+ * index; otherwise its result answers the waiting lookup and the next lookup loads again.
+ * Writes are counted in {@link #STRIPES} stripes by user id, so a collision only costs a
+ * reload. Memory is bounded by dropping the indexes
+ * of users idle for {@code app.suggest.idle-timeout}, by keeping at most
+ * {@code app.suggest.max-users} of them (least recently used out first), and by keeping at
+ * most {@code app.suggest.max-titles} titles per user.
+ */
+@Component
+public class TitleSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(TitleSuggester.class);
+
+    static final int STRIPES = 1024;
+
+    // Loads waiting for a thread; more than this are refused and retried by a later lookup
+    private static final int LOAD_QUEUE_CAPACITY = 1000;
+
+    private final ExpenseRepository expenseRepository;
+    private final long refreshNanos;
+    private final long idleTimeoutNanos;
+    private final long coldWaitNanos;
+    private final int maxTitles;
+    private final double halfLifeDays;
+    private final Timer lookups;
+
+    // Access-ordered, so iteration starts at the least recently used user
+    private final Map<Long, UserTitles> index;
+    // Per stripe, writes that have begun and writes that have finished; guarded by index
+    private final long[] writesBegun = new long[STRIPES];
+    private final long[] writesFinished = new long[STRIPES];
+    private final ConcurrentHashMap<Long, CompletableFuture<UserTitles>> loading = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor loader;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "title-suggester-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TitleSuggester(ExpenseRepository expenseRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.suggest.refresh-interval:10m}") Duration refreshInterval,
+                          @Value("${app.suggest.idle-timeout:30m}") Duration idleTimeout,
+                          @Value("${app.suggest.max-users:10000}") int maxUsers,
+                          @Value("${app.suggest.max-titles:2000}") int maxTitles,
+                          @Value("${app.suggest.half-life:30d}") Duration halfLife,
+                          @Value("${app.suggest.load-threads:2}") int loadThreads,
+                          @Value("${app.suggest.cold-wait:0ms}") Duration coldWait) {
+        this.expenseRepository = expenseRepository;
+        this.refreshNanos = refreshInterval.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.coldWaitNanos = coldWait.toNanos();
+        this.maxTitles = Math.max(1, maxTitles);
+        this.halfLifeDays = Math.max(1, halfLife.toDays());
+        this.lookups = Timer.builder("expenses.suggest.lookups")
+                .description("Title suggestion lookups")
+                .register(meterRegistry);
+        this.index = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserTitles> eldest) {
+                return size() > maxUsers;
+            }
+        });
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.loader = new ThreadPoolExecutor(loadThreads, loadThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LOAD_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "title-suggester-loader-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long period = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(idleTimeoutNanos) / 4);
+        scheduler.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Up to {@code limit} of the user's titles starting with {@code prefix} (ignoring case),
+     * best first. A blank prefix matches every title. Empty while the user's index is still
+     * loading.
+     */
+    public List<Suggestion> suggest(User user, String prefix, int limit) {
+        String key = prefix != null ? normalize(prefix) : "";
+        return lookups.record(() -> {
+            UserTitles entry = forUser(user);
+            return entry != null ? entry.suggest(key, limit, LocalDate.now().toEpochDay()) : List.of();
+        });
+    }
+
+    /**
+     * Records a new expense. Call in the transaction that writes it.
+     */
+    public void added(Long userId, String title, Category category, LocalDate date) {
+        changed(userId, null, title, category, date);
+    }
+
+    /**
+     * Records an edited expense that was titled {@code oldTitle}. Call in the transaction
+     * that writes it.
+     */
+    public void changed(Long userId, String oldTitle, String title, Category category, LocalDate date) {
+        SuggestedCategory suggested = new SuggestedCategory(category.getId(), category.getName(), category.getIcon());
+        long epochDay = date.toEpochDay();
+        afterCommit(userId, entry -> {
+            if (oldTitle != null) {
+                // The old title's latest date and category may have come from this expense
+                entry.stale = true;
+                entry.remove(oldTitle);
+            }
+            entry.add(title, suggested, 1, epochDay, LocalDate.now().toEpochDay());
+        });
+    }
+
+    /**
+     * Records a deleted expense. Call in the transaction that deletes it.
+     */
+    public void removed(Long userId, String title) {
+        afterCommit(userId, entry -> {
+            entry.stale = true;
+            entry.remove(title);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        loader.shutdownNow();
+    }
+
+    /**
+     * The user's index, or null if it is not loaded within {@code app.suggest.cold-wait}.
+     */
+    private UserTitles forUser(User user) {
+        long now = System.nanoTime();
+        UserTitles entry = index.get(user.getId());
+        if (entry != null) {
+            entry.lastAccess = now;
+            if (entry.stale || now - entry.loadedAt >= refreshNanos) {
+                loadInBackground(user);
+            }
+            return entry;
+        }
+        CompletableFuture<UserTitles> load = loadInBackground(user);
+        if (coldWaitNanos <= 0) {
+            return load.getNow(null);
+        }
+        try {
+            return load.get(coldWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Starts loading the user's index unless a load is already running, and returns the load.
+     * It completes with null if the load was refused or failed.
+     */
+    private CompletableFuture<UserTitles> loadInBackground(User user) {
+        Long userId = user.getId();
+        CompletableFuture<UserTitles> running = loading.get(userId);
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<UserTitles> started = new CompletableFuture<>();
+        running = loading.putIfAbsent(userId, started);
+        if (running != null) {
+            return running;
+        }
+        // Read before the query, so any write the query might miss shows up as a change
+        long[] writes = writesOf(userId);
+        // The routing data sources read the shard from the current thread
+        Long shardUserId = ShardContext.currentUserId();
+        Integer shard = ShardContext.currentShard();
+        try {
+            loader.execute(() -> {
+                if (shard != null) {
+                    ShardContext.bind(shardUserId, shard);
+                }
+                try {
+                    started.complete(install(userId, writes, load(user)));
+                } catch (RuntimeException e) {
+                    logger.warn("Could not load the title suggestions of user {}: {}", userId, e.getMessage());
+                    started.complete(null);
+                } finally {
+                    ShardContext.clear();
+                    loading.remove(userId, started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(userId, started);
+            started.complete(null);
+        }
+        return started;
+    }
+
+    private long[] writesOf(Long userId) {
+        int stripe = stripe(userId);
+        synchronized (index) {
+            return new long[] {writesBegun[stripe], writesFinished[stripe]};
+        }
+    }
+
+    /**
+     * Puts the loaded index in place if no write of the user began before the load and
+     * finished after it started, or began since; either may be missing from it or counted twice.
+     */
+    private UserTitles install(Long userId, long[] writesBefore, UserTitles loaded) {
+        int stripe = stripe(userId);
+        synchronized (index) {
+            if (writesBefore[0] == writesBefore[1] && writesBegun[stripe] == writesBefore[0]) {
+                index.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private UserTitles load(User user) {
+        long now = System.nanoTime();
+        long today = LocalDate.now().toEpochDay();
+        // The same key can come from several rows: other casings, or other categories
+        Map<String, Usage> usages = new HashMap<>();
+        Map<Long, SuggestedCategory> categories = new HashMap<>();
+        for (Object[] row : expenseRepository.getTitleUsageByUser(user)) {
+            String title = ((String) row[0]).trim();
+            if (title.isEmpty()) {
+                continue;
+            }
+            SuggestedCategory category = categories.computeIfAbsent((Long) row[1],
+                    id -> new SuggestedCategory(id, (String) row[2], (String) row[3]));
+            int count = ((Number) row[4]).intValue();
+            long lastDay = ((LocalDate) row[5]).toEpochDay();
+            Usage usage = usages.computeIfAbsent(normalize(title), key -> new Usage(key));
+            if (lastDay > usage.lastDay
+                    || (lastDay == usage.lastDay && count > usage.latestCount)) {
+                usage.title = title;
+                usage.category = category;
+                usage.latestCount = count;
+            }
+            usage.count += count;
+            usage.lastDay = Math.max(usage.lastDay, lastDay);
+        }
+
+        List<Usage> kept = new ArrayList<>(usages.values());
+        if (kept.size() > maxTitles) {
+            kept.sort(Comparator.comparingDouble((Usage usage) -> -score(usage.count, usage.lastDay, today,
+                    halfLifeDays)));
+            kept = new ArrayList<>(kept.subList(0, maxTitles));
+        }
+        kept.sort(Comparator.comparing(usage -> usage.key));
+        return new UserTitles(kept, maxTitles, halfLifeDays, now);
+    }
+
+    void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        synchronized (index) {
+            Iterator<UserTitles> entries = index.values().iterator();
+            while (entries.hasNext()) {
+                if (now - entries.next().lastAccess < idleTimeoutNanos) {
+                    break;
+                }
+                entries.remove();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Dropped the title indexes of {} idle users", evicted);
+        }
+    }
+
+    /**
+     * Counts the write as begun before the transaction commits, and applies {@code change} to
+     * the user's index and counts the write as finished once it has.
+     */
+    private void afterCommit(Long userId, Consumer<UserTitles> change) {
+        int stripe = stripe(userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            begin(stripe);
+            finish(userId, stripe, change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean begun;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                begin(stripe);
+                begun = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (begun) {
+                    finish(userId, stripe, status == STATUS_COMMITTED ? change : null);
+                }
+            }
+        });
+    }
+
+    private void begin(int stripe) {
+        synchronized (index) {
+            writesBegun[stripe]++;
+        }
+    }
+
+    private void finish(Long userId, int stripe, Consumer<UserTitles> change) {
+        UserTitles entry;
+        synchronized (index) {
+            writesFinished[stripe]++;
+            entry = change != null ? index.get(userId) : null;
+        }
+        // Users without a loaded index pick the write up when it loads
+        if (entry != null) {
+            entry.lastAccess = System.nanoTime();
+            change.accept(entry);
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+
+    static String normalize(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static double score(int count, long lastDay, long today, double halfLifeDays) {
+        return count * Math.pow(0.5, Math.max(0, today - lastDay) / halfLifeDays);
+    }
+
+    public record SuggestedCategory(Long id, String name, String icon) {
+    }
+
+    public record Suggestion(String title, SuggestedCategory category, int count) {
+    }
+
+    private static final class Usage {
+        final String key;
+        String title;
+        SuggestedCategory category;
+        int latestCount;
+        int count;
+        long lastDay = Long.MIN_VALUE;
+
+        Usage(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * One user's titles, sorted by key. Not shared outside this class; every method
+     * synchronizes on the instance.
+     */
+    static final class UserTitles {
+
+        private final int maxTitles;
+        private final double halfLifeDays;
+        private final long loadedAt;
+        private volatile long lastAccess;
+        // Set when an edit or delete may have left a title's latest date or category behind
+        private volatile boolean stale;
+
+        private String[] keys;
+        private String[] titles;
+        private SuggestedCategory[] categories;
+        private int[] counts;
+        private long[] lastDays;
+        private int size;
+
+        private UserTitles(List<Usage> sorted, int maxTitles, double halfLifeDays, long loadedAt) {
+            this.maxTitles = maxTitles;
+            this.halfLifeDays = halfLifeDays;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+            int capacity = Math.max(sorted.size(), 16);
+            keys = new String[capacity];
+            titles = new String[capacity];
+            categories = new SuggestedCategory[capacity];
+            counts = new int[capacity];
+            lastDays = new long[capacity];
+            for (Usage usage : sorted) {
+                keys[size] = usage.key;
+                titles[size] = usage.title;
+                categories[size] = usage.category;
+                counts[size] = usage.count;
+                lastDays[size] = usage.lastDay;
+                size++;
+            }
+        }
+
+        synchronized void add(String title, SuggestedCategory category, int count, long epochDay, long today) {
+            String display = title.trim();
+            if (display.isEmpty()) {
+                return;
+            }
+            String key = normalize(display);
+            int at = Arrays.binarySearch(keys, 0, size, key);
+            if (at >= 0) {
+                counts[at] += count;
+                // A back-dated entry counts but does not replace the latest title and category
+                if (epochDay >= lastDays[at]) {
+                    titles[at] = display;
+                    categories[at] = category;
+                    lastDays[at] = epochDay;
+                }
+                return;
+            }
+            at = -at - 1;
+            if (size == maxTitles) {
+                int weakest = weakest(today);
+                if (TitleSuggester.score(count, epochDay, today, halfLifeDays) <= score(weakest, today)) {
+                    return;
+                }
+                delete(weakest);
+                if (weakest < at) {
+                    at--;
+                }
+            }
+            if (size == keys.length) {
+                int capacity = Math.min(Math.max(size * 2, 16), Math.max(maxTitles, 16));
+                keys = Arrays.copyOf(keys, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                lastDays = Arrays.copyOf(lastDays, capacity);
+            }
+            int moved = size - at;
+            System.arraycopy(keys, at, keys, at + 1, moved);
+            System.arraycopy(titles, at, titles, at + 1, moved);
+            System.arraycopy(categories, at, categories, at + 1, moved);
+            System.arraycopy(counts, at, counts, at + 1, moved);
+            System.arraycopy(lastDays, at, lastDays, at + 1, moved);
+            keys[at] = key;
+            titles[at] = display;
+            categories[at] = category;
+            counts[at] = count;
+            lastDays[at] = epochDay;
+            size++;
+        }
+
+        synchronized void remove(String title) {
+            int at = Arrays.binarySearch(keys, 0, size, normalize(title));
+            if (at < 0) {
+                return;
+            }
+            if (--counts[at] <= 0) {
+                delete(at);
+            }
+        }
+
+        synchronized List<Suggestion> suggest(String prefix, int limit, long today) {
+            int start = Arrays.binarySearch(keys, 0, size, prefix);
+            if (start < 0) {
+                start = -start - 1;
+            }
+            // The best matches so far, best first; equal scores stay in key order
+            int[] best = new int[limit];
+            double[] bestScores = new double[limit];
+            int found = 0;
+            for (int i = start; i < size && keys[i].startsWith(prefix); i++) {
+                double score = score(i, today);
+                if (found == limit && score <= bestScores[found - 1]) {
+                    continue;
+                }
+                int at = found < limit ? found++ : found - 1;
+                while (at > 0 && bestScores[at - 1] < score) {
+                    best[at] = best[at - 1];
+                    bestScores[at] = bestScores[at - 1];
+                    at--;
+                }
+                best[at] = i;
+                bestScores[at] = score;
+            }
+            List<Suggestion> suggestions = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                suggestions.add(new Suggestion(titles[best[i]], categories[best[i]], counts[best[i]]));
+            }
+            return suggestions;
+        }
+
+        private double score(int at, long today) {
+            return TitleSuggester.score(counts[at], lastDays[at], today, halfLifeDays);
+        }
+
+        private int weakest(long today) {
+            int weakest = 0;
+            double weakestScore = score(0, today);
+            for (int i = 1; i < size; i++) {
+                double score = score(i, today);
+                if (score < weakestScore) {
+                    weakest = i;
+                    weakestScore = score;
+                }
+            }
+            return weakest;
+        }
+
+        private void delete(int at) {
+            int moved = size - at - 1;
+            System.arraycopy(keys, at + 1, keys, at, moved);
+            System.arraycopy(titles, at + 1, titles, at, moved);
+            System.arraycopy(categories, at + 1, categories, at, moved);
+            System.arraycopy(counts, at + 1, counts, at, moved);
+            System.arraycopy(lastDays, at + 1, lastDays, at, moved);
+            size--;
+            keys[size] = null;
+            titles[size] = null;
+            categories[size] = null;
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.expensetracker.tag;
+
+import com.expensetracker.fx.ConversionBatch;
+import com.expensetracker.fx.FxRates;
+import com.expensetracker.util.CompressedBitmap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Per-user bitmap index of tag assignments: for each tag, a {@link CompressedBitmap} of the
+ * ids of the user's expenses carrying it, plus the amount, currency and date of every tagged
+ * expense. Tag filters are answered with AND, OR and AND NOT over bitmaps and tag totals by
+ * walking them, so neither joins {@code expense_tags} at query time.
+ *
+ * Every change to a user's assignments bumps {@code tag_index_snapshots.version} in the
+ * writing transaction and is applied to the cached index once it commits. Each read checks
+ * the cached version against that row, so changes made on other instances are never missed.
+ * Expense reads select the version in their own statement and pass it in; other callers pay
+ * one primary-key lookup. A stale entry is replaced from the persisted snapshot when the
+ * snapshot is current, and otherwise rebuilt with one join query. Changed entries are written
+ * back as snapshots every {@code app.tags.snapshot-interval} and on shutdown, so a restart
+ * loads indexes instead of rebuilding them.
+ */
+@Component
+public class TagIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagIndex.class);
+
+    private static final int FORMAT = 1;
+
+    private static final String CURRENT_VERSION = "SELECT version FROM tag_index_snapshots WHERE user_id = ?";
+
+    private static final String LOAD_SNAPSHOT = "SELECT payload FROM tag_index_snapshots "
+            + "WHERE user_id = ? AND snapshot_version = ? AND payload IS NOT NULL";
+
+    private static final String BUMP_VERSION = "UPDATE tag_index_snapshots SET version = version + 1 WHERE user_id = ?";
+
+    private static final String INSERT_VERSION = "INSERT INTO tag_index_snapshots (user_id, version, snapshot_version) "
+            + "VALUES (?, 1, 0)";
+
+    private static final String SAVE_SNAPSHOT = "UPDATE tag_index_snapshots SET payload = ?, snapshot_version = ?, "
+            + "saved_at = ? WHERE user_id = ? AND version = ?";
+
+    // Archived expenses keep their tag links, so amounts come from whichever table holds the row
+    private static final String ASSIGNMENTS = "SELECT et.expense_id, t.name, COALESCE(e.amount, a.amount), "
+            + "COALESCE(e.currency, a.currency), COALESCE(e.date, a.date) FROM expense_tags et "
+            + "JOIN tags t ON t.id = et.tag_id "
+            + "LEFT JOIN expenses e ON e.id = et.expense_id "
+            + "LEFT JOIN expenses_archive a ON a.id = et.expense_id "
+            + "WHERE t.user_id = ?";
+
+    private static final String UNLINK = "DELETE FROM expense_tags WHERE expense_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration snapshotInterval;
+    private final int maxUsers;
+    private final boolean shardingEnabled;
+
+    private final ConcurrentHashMap<Long, UserTags> index = new ConcurrentHashMap<>();
+
+    private final Counter snapshotLoads;
+    private final Counter rebuilds;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tag-index-snapshots");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TagIndex(JdbcTemplate jdbcTemplate,
+                    MeterRegistry meterRegistry,
+                    @Value("${app.tags.snapshot-interval:1m}") Duration snapshotInterval,
+                    @Value("${app.tags.index-max-users:100000}") int maxUsers,
+                    @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotInterval = snapshotInterval;
+        this.maxUsers = maxUsers;
+        this.shardingEnabled = shardingEnabled;
+
+        this.snapshotLoads = Counter.builder("tags.index.loads").tag("source", "snapshot")
+                .description("Per-user tag indexes loaded into memory")
+                .register(meterRegistry);
+        this.rebuilds = Counter.builder("tags.index.loads").tag("source", "rebuild")
+                .description("Per-user tag indexes loaded into memory")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (shardingEnabled) {
+            // The flusher has no request to pick a shard from
+            logger.warn("Tag index snapshots are not saved while app.sharding is enabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::saveSnapshotsSafely, snapshotInterval.toMillis(),
+                snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The user's current index, loading it if absent or out of date.
+     */
+    public UserTags forUser(Long userId) {
+        return forUser(userId, currentVersion(userId));
+    }
+
+    /**
+     * The user's index as of at least {@code version}, a version the caller has already read
+     * in its transaction.
+     */
+    public UserTags forUser(Long userId, long version) {
+        UserTags entry = index.get(userId);
+        if (entry != null && entry.version() >= version) {
+            return entry;
+        }
+        UserTags loaded = loadSnapshot(userId, version);
+        if (loaded == null) {
+            loaded = rebuild(userId, version);
+        }
+        if (index.size() >= maxUsers) {
+            // Any entry will do; it is reloaded on its user's next read
+            Iterator<Long> users = index.keySet().iterator();
+            if (users.hasNext()) {
+                users.next();
+                users.remove();
+            }
+        }
+        index.put(userId, loaded);
+        return loaded;
+    }
+
+    /**
+     * Records that the expense now carries exactly {@code tags}, with the given amount,
+     * currency and date. Must run in the transaction that writes the assignment.
+     */
+    public void tagged(Long userId, Long expenseId, Collection<String> tags, BigDecimal amount, String currency,
+                       LocalDate date) {
+        List<String> names = List.copyOf(tags);
+        long cents = ConversionBatch.toCents(amount);
+        long epochDay = date.toEpochDay();
+        long version = bumpVersion(userId);
+        afterCommit(userId, version, entry -> entry.put(expenseId, names, cents, currency, epochDay));
+    }
+
+    /**
+     * Removes the expense's tag links. Must run in the transaction that deletes the expense.
+     */
+    public void deleted(Long userId, Long expenseId) {
+        if (jdbcTemplate.update(UNLINK, expenseId) == 0) {
+            return;
+        }
+        long version = bumpVersion(userId);
+        afterCommit(userId, version, entry -> entry.put(expenseId, List.of(), 0, null, 0));
+    }
+
+    private long currentVersion(Long userId) {
+        List<Long> versions = jdbcTemplate.queryForList(CURRENT_VERSION, Long.class, userId);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    private long bumpVersion(Long userId) {
+        if (jdbcTemplate.update(BUMP_VERSION, userId) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_VERSION, userId);
+            } catch (DuplicateKeyException e) {
+                // Another transaction created the row first
+                jdbcTemplate.update(BUMP_VERSION, userId);
+            }
+        }
+        return currentVersion(userId);
+    }
+
+    private void afterCommit(Long userId, long version, Consumer<UserTags> change) {
+        Runnable apply = () -> {
+            UserTags entry = index.get(userId);
+            if (entry != null && !entry.advance(version, change)) {
+                // Another change landed in between; the next read reloads
+                index.remove(userId, entry);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private UserTags loadSnapshot(Long userId, long version) {
+        if (version == 0) {
+            return null;
+        }
+        List<byte[]> payloads = jdbcTemplate.query(LOAD_SNAPSHOT, (rs, rowNum) -> rs.getBytes(1), userId, version);
+        if (payloads.isEmpty()) {
+            return null;
+        }
+        try {
+            UserTags loaded = UserTags.decode(version, payloads.get(0));
+            snapshotLoads.increment();
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Discarding unreadable tag index snapshot of user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private UserTags rebuild(Long userId, long version) {
+        UserTags rebuilt = new UserTags(version);
+        Map<Long, List<String>> tagsByExpense = new HashMap<>();
+        jdbcTemplate.query(ASSIGNMENTS, rs -> {
+            BigDecimal amount = rs.getBigDecimal(3);
+            if (amount == null) {
+                // A link to an expense that no longer exists
+                return;
+            }
+            long expenseId = rs.getLong(1);
+            tagsByExpense.computeIfAbsent(expenseId, id -> new ArrayList<>()).add(rs.getString(2));
+            Date date = rs.getDate(5);
+            rebuilt.expenses.putIfAbsent(expenseId, new Tagged(ConversionBatch.toCents(amount), rs.getString(4),
+                    date.toLocalDate().toEpochDay(), List.of()));
+        }, userId);
+        tagsByExpense.forEach((expenseId, names) -> {
+            Tagged expense = rebuilt.expenses.get(expenseId);
+            rebuilt.put(expenseId, names, expense.cents(), expense.currency(), expense.epochDay());
+        });
+        // Only a versioned row can hold a snapshot
+        rebuilt.dirty = version > 0;
+        rebuilds.increment();
+        return rebuilt;
+    }
+
+    public void saveSnapshots() {
+        for (Map.Entry<Long, UserTags> entry : index.entrySet()) {
+            UserTags tags = entry.getValue();
+            byte[] payload;
+            long version;
+            synchronized (tags) {
+                if (!tags.dirty) {
+                    continue;
+                }
+                payload = tags.encode();
+                version = tags.version;
+                tags.dirty = false;
+            }
+            try {
+                // Skipped if the version moved on; the newer state is saved on a later pass
+                jdbcTemplate.update(SAVE_SNAPSHOT, payload, version, Timestamp.valueOf(LocalDateTime.now()),
+                        entry.getKey(), version);
+            } catch (RuntimeException e) {
+                synchronized (tags) {
+                    tags.dirty = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void saveSnapshotsSafely() {
+        try {
+            saveSnapshots();
+        } catch (Exception e) {
+            logger.error("Saving tag index snapshots failed, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (!shardingEnabled) {
+            saveSnapshotsSafely();
+        }
+    }
+
+    record Tagged(long cents, String currency, long epochDay, List<String> tags) {
+    }
+
+    /**
+     * Which expenses a filter selects: those in {@code included} (every expense of the user
+     * when null) that are not in {@code excluded}.
+     */
+    public record TagMatch(CompressedBitmap included, CompressedBitmap excluded) {
+    }
+
+    public record TagTotal(String name, long count, long cents) {
+    }
+
+    /**
+     * One user's index. All access is synchronized on the instance.
+     */
+    public static final class UserTags {
+
+        private long version;
+        private boolean dirty;
+        private final Map<String, CompressedBitmap> bitmaps = new TreeMap<>();
+        private final Map<Long, Tagged> expenses = new HashMap<>();
+
+        UserTags(long version) {
+            this.version = version;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized boolean advance(long newVersion, Consumer<UserTags> change) {
+            if (version != newVersion - 1) {
+                return false;
+            }
+            change.accept(this);
+            version = newVersion;
+            dirty = true;
+            return true;
+        }
+
+        /**
+         * Sorted tag names of the expense, empty if it has none.
+         */
+        public synchronized List<String> tagsOf(Long expenseId) {
+            Tagged expense = expenses.get(expenseId);
+            return expense != null ? expense.tags() : List.of();
+        }
+
+        /**
+         * Expenses carrying every tag in {@code all}, at least one in {@code any} and none in
+         * {@code none}; an empty list places no constraint.
+         */
+        public synchronized TagMatch match(Collection<String> all, Collection<String> any, Collection<String> none) {
+            CompressedBitmap included = null;
+            for (String tag : all) {
+                CompressedBitmap bitmap = bitmapOf(tag);
+                included = included == null ? bitmap.copy() : CompressedBitmap.and(included, bitmap);
+            }
+            if (!any.isEmpty()) {
+                CompressedBitmap union = union(any);
+                included = included == null ? union : CompressedBitmap.and(included, union);
+            }
+            CompressedBitmap excluded = union(none);
+            if (included != null) {
+                return new TagMatch(CompressedBitmap.andNot(included, excluded), new CompressedBitmap());
+            }
+            return new TagMatch(null, excluded);
+        }
+
+        /**
+         * Count and total of every tag, in cents of {@code currency}. Each tagged expense is
+         * converted once, in one batch, and then added to each of its tags' totals.
+         */
+        public synchronized List<TagTotal> totals(FxRates rates, String currency) {
+            ConversionBatch batch = new ConversionBatch(rates, currency, expenses.size());
+            Map<Long, Integer> positions = new HashMap<>(expenses.size() * 2);
+            expenses.forEach((expenseId, expense) -> positions.put(expenseId,
+                    batch.add(expense.cents(), expense.currency(), expense.epochDay())));
+            long[] converted = batch.convertTo(currency);
+
+            List<TagTotal> totals = new ArrayList<>(bitmaps.size());
+            bitmaps.forEach((name, bitmap) -> {
+                long[] sum = {0};
+                bitmap.forEach(expenseId -> sum[0] += converted[positions.get(expenseId)]);
+                totals.add(new TagTotal(name, bitmap.cardinality(), sum[0]));
+            });
+            return totals;
+        }
+
+        private CompressedBitmap bitmapOf(String tag) {
+            CompressedBitmap bitmap = bitmaps.get(tag);
+            return bitmap != null ? bitmap : new CompressedBitmap();
+        }
+
+        private CompressedBitmap union(Collection<String> tags) {
+            CompressedBitmap union = new CompressedBitmap();
+            for (String tag : tags) {
+                union = CompressedBitmap.or(union, bitmapOf(tag));
+            }
+            return union;
+        }
+
+        private void put(Long expenseId, List<String> tags, long cents, String currency, long epochDay) {
+            Tagged previous = expenses.remove(expenseId);
+            if (previous != null) {
+                for (String tag : previous.tags()) {
+                    CompressedBitmap bitmap = bitmaps.get(tag);
+                    if (bitmap != null && bitmap.remove(expenseId) && bitmap.isEmpty()) {
+                        bitmaps.remove(tag);
+                    }
+                }
+            }
+            if (tags.isEmpty()) {
+                return;
+            }
+            List<String> sorted = tags.stream().distinct().sorted().toList();
+            expenses.put(expenseId, new Tagged(cents, currency, epochDay, sorted));
+            for (String tag : sorted) {
+                bitmaps.computeIfAbsent(tag, name -> new CompressedBitmap()).add(expenseId);
+            }
+        }
+
+        private byte[] encode() {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + expenses.size() * 32);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(FORMAT);
+                out.writeInt(expenses.size());
+                for (Map.Entry<Long, Tagged> entry : expenses.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getValue().cents());
+                    out.writeUTF(entry.getValue().currency() != null ? entry.getValue().currency() : "");
+                    out.writeLong(entry.getValue().epochDay());
+                }
+                out.writeInt(bitmaps.size());
+                for (Map.Entry<String, CompressedBitmap> entry : bitmaps.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().writeTo(out);
+                }
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static UserTags decode(long version, byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (in.readInt() != FORMAT) {
+                throw new IOException("Unknown snapshot format");
+            }
+            int expenseCount = in.readInt();
+            Map<Long, Tagged> amounts = new HashMap<>(expenseCount * 2);
+            for (int i = 0; i < expenseCount; i++) {
+                long expenseId = in.readLong();
+                long cents = in.readLong();
+                String currency = in.readUTF();
+                amounts.put(expenseId, new Tagged(cents, currency.isEmpty() ? null : currency, in.readLong(),
+                        List.of()));
+            }
+            UserTags tags = new UserTags(version);
+            Map<Long, List<String>> tagsByExpense = new HashMap<>(expenseCount * 2);
+            int tagCount = in.readInt();
+            for (int i = 0; i < tagCount; i++) {
+                String name = in.readUTF();
+                CompressedBitmap bitmap = CompressedBitmap.readFrom(in);
+                tags.bitmaps.put(name, bitmap);
+                bitmap.forEach(expenseId -> tagsByExpense.computeIfAbsent(expenseId, id -> new ArrayList<>()).add(name));
+            }
+            // Bitmaps were written in name order, so each expense's list is already sorted
+            tagsByExpense.forEach((expenseId, names) -> {
+                Tagged expense = amounts.get(expenseId);
+                tags.expenses.put(expenseId, new Tagged(expense.cents(), expense.currency(), expense.epochDay(),
+                        List.copyOf(names)));
+            });
+            return tags;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.expensetracker.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed set of non-negative longs in the style of a Roaring bitmap. Values are split
+ * into a high part, which selects a container, and a low 16 bits stored in it. A container
+ * holding up to 4096 values is a sorted {@code char[]}; a denser one is a 65536-bit bitmap.
+ * A sparse set therefore costs about two bytes per value, a dense one one bit per value,
+ * and AND, OR and AND NOT work a container pair at a time, word by word where dense.
+ *
+ * Not thread-safe; callers serialize access.
+ */
+public class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private long[] keys;
+    private Container[] containers;
+    private int size;
+
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        this.keys = new long[capacity];
+        this.containers = new Container[capacity];
+    }
+
+    public void add(long value) {
+        long key = value >>> 16;
+        int index = indexOf(key);
+        if (index >= 0) {
+            containers[index] = containers[index].add((char) value);
+            return;
+        }
+        Container container = new ArrayContainer(new char[4], 0).add((char) value);
+        insertAt(-index - 1, key, container);
+    }
+
+    public boolean remove(long value) {
+        int index = indexOf(value >>> 16);
+        if (index < 0 || !containers[index].contains((char) value)) {
+            return false;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        int index = indexOf(value >>> 16);
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap(Math.max(4, size));
+        for (int i = 0; i < size; i++) {
+            copy.keys[i] = keys[i];
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Calls {@code action} for every value in ascending order.
+     */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public long[] toArray() {
+        long[] values = new long[Math.toIntExact(cardinality())];
+        int[] position = {0};
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    public static CompressedBitmap and(CompressedBitmap left, CompressedBitmap right) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(4, Math.min(left.size, right.size)));
+        int i = 0;
+        int j = 0;
+        while (i < left.size && j < right.size) {
+            int order = Long.compare(left.keys[i], right.keys[j]);
+            if (order == 0) {
+                result.append(left.keys[i], left.containers[i].and(right.containers[j]));
+                i++;
+                j++;
+            } else if (order < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static CompressedBitmap or(CompressedBitmap left, CompressedBitmap right) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(4, left.size + right.size));
+        int i = 0;
+        int j = 0;
+        while (i < left.size || j < right.size) {
+            int order = i == left.size ? 1 : j == right.size ? -1 : Long.compare(left.keys[i], right.keys[j]);
+            if (order == 0) {
+                result.append(left.keys[i], left.containers[i].or(right.containers[j]));
+                i++;
+                j++;
+            } else if (order < 0) {
+                result.append(left.keys[i], left.containers[i].copy());
+                i++;
+            } else {
+                result.append(right.keys[j], right.containers[j].copy());
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static CompressedBitmap andNot(CompressedBitmap left, CompressedBitmap right) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(4, left.size));
+        int j = 0;
+        for (int i = 0; i < left.size; i++) {
+            while (j < right.size && right.keys[j] < left.keys[i]) {
+                j++;
+            }
+            if (j < right.size && right.keys[j] == left.keys[i]) {
+                result.append(left.keys[i], left.containers[i].andNot(right.containers[j]));
+            } else {
+                result.append(left.keys[i], left.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(keys[i]);
+            containers[i].writeTo(out);
+        }
+    }
+
+    public static CompressedBitmap readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        CompressedBitmap bitmap = new CompressedBitmap(Math.max(4, size));
+        for (int i = 0; i < size; i++) {
+            bitmap.keys[i] = in.readLong();
+            bitmap.containers[i] = Container.readFrom(in);
+        }
+        bitmap.size = size;
+        return bitmap;
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertAt(int index, long key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void append(long key, Container container) {
+        if (container.cardinality() > 0) {
+            insertAt(size, key, container);
+        }
+    }
+
+    private abstract static class Container {
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container copy();
+
+        abstract void forEach(long base, LongConsumer action);
+
+        abstract long[] toWords();
+
+        Container and(Container other) {
+            if (this instanceof ArrayContainer array) {
+                return array.filter(other, true);
+            }
+            if (other instanceof ArrayContainer array) {
+                return array.filter(this, true);
+            }
+            long[] words = toWords();
+            long[] otherWords = ((BitmapContainer) other).words;
+            for (int i = 0; i < WORDS; i++) {
+                words[i] &= otherWords[i];
+            }
+            return BitmapContainer.of(words);
+        }
+
+        Container or(Container other) {
+            if (this instanceof ArrayContainer left && other instanceof ArrayContainer right
+                    && left.cardinality + right.cardinality <= ARRAY_MAX) {
+                return left.union(right);
+            }
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for (int i = 0; i < WORDS; i++) {
+                words[i] |= otherWords[i];
+            }
+            return BitmapContainer.of(words);
+        }
+
+        Container andNot(Container other) {
+            if (this instanceof ArrayContainer array) {
+                return array.filter(other, false);
+            }
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for (int i = 0; i < WORDS; i++) {
+                words[i] &= ~otherWords[i];
+            }
+            return BitmapContainer.of(words);
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            if (this instanceof ArrayContainer array) {
+                out.writeShort(array.cardinality);
+                for (int i = 0; i < array.cardinality; i++) {
+                    out.writeChar(array.values[i]);
+                }
+            } else {
+                // Dense containers hold more than 4096 values, which no array length can be
+                out.writeShort(-1);
+                for (long word : ((BitmapContainer) this).words) {
+                    out.writeLong(word);
+                }
+            }
+        }
+
+        static Container readFrom(DataInput in) throws IOException {
+            int cardinality = in.readShort();
+            if (cardinality >= 0) {
+                char[] values = new char[Math.max(4, cardinality)];
+                for (int i = 0; i < cardinality; i++) {
+                    values[i] = in.readChar();
+                }
+                return new ArrayContainer(values, cardinality);
+            }
+            long[] words = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                words[i] = in.readLong();
+            }
+            return BitmapContainer.of(words);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return new BitmapContainer(toWords(), cardinality).add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+        }
+
+        @Override
+        void forEach(long base, LongConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        long[] toWords() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return words;
+        }
+
+        /**
+         * The values of this container that are ({@code keep}) or are not in {@code other}.
+         */
+        ArrayContainer filter(Container other, boolean keep) {
+            char[] kept = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]) == keep) {
+                    kept[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(kept, count);
+        }
+
+        ArrayContainer union(ArrayContainer other) {
+            char[] merged = new char[Math.max(4, cardinality + other.cardinality)];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < cardinality || j < other.cardinality) {
+                if (j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                    merged[count++] = values[i++];
+                } else if (i == cardinality || other.values[j] < values[i]) {
+                    merged[count++] = other.values[j++];
+                } else {
+                    merged[count++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(merged, count);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * The container for these bits, as an array when sparse enough.
+         */
+        static Container of(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_MAX) {
+                return new BitmapContainer(words, cardinality);
+            }
+            char[] values = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) == 0) {
+                words[value >>> 6] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) != 0) {
+                words[value >>> 6] &= ~mask;
+                if (--cardinality <= ARRAY_MAX) {
+                    return of(words);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(long base, LongConsumer action) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(base | (i * 64L + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.expensetracker.warmup;
+
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.Expense;
+import com.expensetracker.entity.User;
+import com.expensetracker.security.JwtUtils;
+import com.expensetracker.service.ExpenseService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the request hot paths (JWT parsing, entity to DTO mapping, summary aggregation and
+ * JSON serialization) over a synthetic in-memory dataset before the application reports
+ * ready, so the first real requests do not run interpreted or at the lower JIT tiers.
+ *
+ * Nothing touches the database. Rounds repeat until several in a row finish without
+ * noticeable JIT compilation activity, or until {@code app.warmup.max-duration} runs out.
+ * Spring Boot only moves readiness to ACCEPTING_TRAFFIC once the ApplicationReadyEvent
+ * listeners have returned, so the readiness probe keeps failing while this runs.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.warmup", name = "enabled", matchIfMissing = true)
+public class JitWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(JitWarmUp.class);
+    private static final String[] CATEGORIES = {"Food & Dining", "Transportation", "Shopping",
+            "Entertainment", "Healthcare", "Education", "Utilities", "Travel", "Others"};
+    private static final int TOKENS = 16;
+
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final Duration maxDuration;
+    private final int datasetSize;
+    private final int settleRounds;
+
+    private volatile long durationMillis;
+    private volatile int rounds;
+    private long sink;
+
+    public JitWarmUp(JwtUtils jwtUtils, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                     @Value("${app.warmup.max-duration:10s}") Duration maxDuration,
+                     @Value("${app.warmup.dataset-size:500}") int datasetSize,
+                     @Value("${app.warmup.settle-rounds:3}") int settleRounds) {
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.maxDuration = maxDuration;
+        this.datasetSize = datasetSize;
+        this.settleRounds = settleRounds;
+
+        TimeGauge.builder("jit.warmup.duration", this, TimeUnit.MILLISECONDS, warmUp -> warmUp.durationMillis)
+                .description("Time spent in the startup warm-up")
+                .register(meterRegistry);
+        Gauge.builder("jit.warmup.rounds", this, warmUp -> warmUp.rounds)
+                .description("Warm-up rounds run before reporting ready")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void warmUp() {
+        List<Expense> dataset = syntheticExpenses();
+        List<String> tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(jwtUtils.generateTokenFromUsername("warmup-" + i + "@example.invalid"));
+        }
+
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean canMeasure = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        long lastCompilationMillis = canMeasure ? compiler.getTotalCompilationTime() : 0;
+        int quietRounds = 0;
+        int completed = 0;
+
+        try {
+            while (System.nanoTime() < deadline && quietRounds < settleRounds) {
+                long roundStart = System.nanoTime();
+                runRound(dataset, tokens);
+                completed++;
+
+                if (canMeasure) {
+                    // Quiet means the JIT spent under 5% of the round compiling
+                    long compilationMillis = compiler.getTotalCompilationTime();
+                    long roundMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStart);
+                    quietRounds = compilationMillis - lastCompilationMillis <= Math.max(1, roundMillis / 20)
+                            ? quietRounds + 1 : 0;
+                    lastCompilationMillis = compilationMillis;
+                }
+            }
+        } catch (Exception e) {
+            // Warm-up is best effort; never keep the application from becoming ready
+            logger.warn("Warm-up stopped early", e);
+        }
+
+        rounds = completed;
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Warm-up ran {} rounds in {}ms ({})", completed, durationMillis,
+                quietRounds >= settleRounds ? "compilation settled" : "time budget reached");
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    private void runRound(List<Expense> dataset, List<String> tokens) throws JsonProcessingException {
+        for (String token : tokens) {
+            if (jwtUtils.validateJwtToken(token)) {
+                sink += jwtUtils.getUserNameFromJwtToken(token).length();
+            }
+        }
+
+        List<ExpenseResponse> responses = new ArrayList<>(dataset.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Expense expense : dataset) {
+            responses.add(new ExpenseResponse(expense));
+            total = total.add(expense.getAmount());
+        }
+        Map<String, ExpenseSummaryResponse.CategorySummary> byCategory = ExpenseService.summarizeByCategory(dataset);
+        ExpenseSummaryResponse summary =
+                new ExpenseSummaryResponse(total, (long) dataset.size(), byCategory, total);
+
+        sink += objectMapper.writeValueAsBytes(responses).length;
+        sink += objectMapper.writeValueAsBytes(summary).length;
+    }
+
+    private List<Expense> syntheticExpenses() {
+        Random random = new Random(42);
+        User user = new User("warmup", "warmup@example.invalid", "");
+        user.setId(-1L);
+
+        Category[] categories = new Category[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            categories[i] = new Category(CATEGORIES[i], "*");
+            categories[i].setId((long) -(i + 1));
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        List<Expense> expenses = new ArrayList<>(datasetSize);
+        for (int i = 0; i < datasetSize; i++) {
+            Expense expense = new Expense("Synthetic expense " + i,
+                    BigDecimal.valueOf(random.nextInt(100_000) + 1, 2),
+                    i % 3 == 0 ? null : "Generated for JIT warm-up",
+                    today.minusDays(random.nextInt(90)),
+                    i % 10 == 0 ? "income" : "expense",
+                    user, categories[random.nextInt(categories.length)]);
+            expense.setId((long) -(i + 1));
+            expense.setCreatedAt(now);
+            expense.setUpdatedAt(now);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
@@ -0,0 +1,230 @@
+package com.expensetracker.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted expenses, stored in fixed-size memory-mapped segment files.
+ *
+ * Record layout: {@code [int length][long sequence][payload][int crc32]}. A zero length marks
+ * the end of a segment; a record whose checksum does not match is treated as a torn write
+ * and ends replay. Segments whose records have all been drained are deleted.
+ */
+public class ExpenseWriteAheadLog implements Closeable {
+
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSequence = 1;
+
+    public ExpenseWriteAheadLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Maps the existing segments and returns every record after {@code checkpoint}, in order.
+     */
+    public List<PendingExpense> open(long checkpoint) throws IOException {
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing
+                        .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                        .collect(Collectors.toList());
+            }
+
+            List<PendingExpense> unfinished = new ArrayList<>();
+            long lastSequence = checkpoint;
+            for (Path file : files) {
+                Segment segment = Segment.map(file, segmentSize);
+                for (PendingExpense record : segment.scan()) {
+                    if (record.sequence() > checkpoint) {
+                        unfinished.add(record);
+                    }
+                    lastSequence = Math.max(lastSequence, record.sequence());
+                }
+                segments.addLast(segment);
+            }
+            nextSequence = lastSequence + 1;
+            if (segments.isEmpty()) {
+                segments.addLast(newSegment(nextSequence));
+            }
+            release(checkpoint);
+            return unfinished;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the expense and forces it to disk. The returned copy carries its log sequence.
+     * The callback runs under the append lock, so callers can enqueue in sequence order.
+     */
+    public PendingExpense append(PendingExpense expense, Consumer<PendingExpense> onDurable)
+            throws IOException {
+        lock.lock();
+        try {
+            PendingExpense sequenced = expense.withSequence(nextSequence);
+            byte[] payload = sequenced.encode();
+            int recordSize = RECORD_OVERHEAD + payload.length;
+            if (recordSize > segmentSize) {
+                throw new IllegalArgumentException("Expense record exceeds the write-ahead log segment size");
+            }
+
+            Segment active = segments.peekLast();
+            if (active.remaining() < recordSize) {
+                active = newSegment(nextSequence);
+                segments.addLast(active);
+            }
+            active.write(sequenced.sequence(), payload);
+            nextSequence++;
+            onDurable.accept(sequenced);
+            return sequenced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes segments whose records are all at or below {@code drainedSequence}.
+     * The active segment is always kept.
+     */
+    public void release(long drainedSequence) throws IOException {
+        lock.lock();
+        try {
+            Iterator<Segment> iterator = segments.iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (segment == segments.peekLast() || segment.lastSequence > drainedSequence) {
+                    break;
+                }
+                iterator.remove();
+                segment.delete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Segment newSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        return Segment.map(file, segmentSize);
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long lastSequence;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(Path file, int size) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(file, channel, buffer);
+        }
+
+        List<PendingExpense> scan() {
+            List<PendingExpense> records = new ArrayList<>();
+            int offset = 0;
+            while (offset + RECORD_OVERHEAD <= buffer.capacity()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + RECORD_OVERHEAD + length > buffer.capacity()) {
+                    break;
+                }
+                long sequence = buffer.getLong(offset + Integer.BYTES);
+                byte[] payload = new byte[length];
+                buffer.get(offset + Integer.BYTES + Long.BYTES, payload);
+                int storedCrc = buffer.getInt(offset + Integer.BYTES + Long.BYTES + length);
+                if (storedCrc != checksum(sequence, payload)) {
+                    break;
+                }
+                records.add(PendingExpense.decode(sequence, payload));
+                lastSequence = sequence;
+                offset += RECORD_OVERHEAD + length;
+            }
+            position = offset;
+            return records;
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        void write(long sequence, byte[] payload) {
+            int start = position;
+            buffer.putLong(start + Integer.BYTES, sequence);
+            buffer.put(start + Integer.BYTES + Long.BYTES, payload);
+            buffer.putInt(start + Integer.BYTES + Long.BYTES + payload.length, checksum(sequence, payload));
+            // Length goes in last so a partially written record is never mistaken for a complete one
+            buffer.putInt(start, payload.length);
+            buffer.force(start, RECORD_OVERHEAD + payload.length);
+            position += RECORD_OVERHEAD + payload.length;
+            lastSequence = sequence;
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+
+        private static int checksum(long sequence, byte[] payload) {
+            CRC32 crc = new CRC32();
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                crc.update((int) (sequence >>> shift));
+            }
+            crc.update(payload);
+            return (int) crc.getValue();
+        }
+    }
+}
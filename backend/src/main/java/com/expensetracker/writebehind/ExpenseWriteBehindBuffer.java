@@ -0,0 +1,391 @@
+package com.expensetracker.writebehind;
+
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.User;
+import com.expensetracker.entity.WriteBehindCheckpoint;
+import com.expensetracker.repository.WriteBehindCheckpointRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional write-behind path for expense creation, enabled with {@code app.write-behind.enabled=true}.
+ *
+ * An accepted expense is appended to the memory-mapped {@link ExpenseWriteAheadLog} and
+ * acknowledged once it is forced to local disk. A single background writer drains the log to
+ * the database in JDBC batches, in log order, so each user's writes commit in the order they
+ * were accepted. Until then the user's reads include the pending rows.
+ *
+ * A batch that keeps failing is retried {@code app.write-behind.max-attempts} times and then
+ * written one record at a time. A single record that still fails while the database is
+ * reachable is appended to {@code dead-letter.log} in the log directory and skipped, so one
+ * bad row cannot hold up the rest of the log.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.write-behind", name = "enabled", havingValue = "true")
+public class ExpenseWriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseWriteBehindBuffer.class);
+
+    private static final String INSERT_EXPENSE = "INSERT INTO expenses "
+            + "(title, amount, description, date, type, currency, created_at, updated_at, user_id, category_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ExpenseWriteAheadLog writeAheadLog;
+    private final WriteBehindCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final String configuredNodeId;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration drainInterval;
+    private String nodeId;
+
+    private final Queue<PendingExpense> drainQueue = new ConcurrentLinkedQueue<>();
+    private final Map<Long, ConcurrentLinkedDeque<PendingExpense>> pendingByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expense-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter acceptedCounter;
+    private Counter drainedCounter;
+    private Counter deadLetteredCounter;
+
+    // Only touched by the drainer thread
+    private int failedAttempts;
+    private int writeOneByOne;
+
+    public ExpenseWriteBehindBuffer(WriteBehindCheckpointRepository checkpointRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.write-behind.directory:data/write-behind}") Path directory,
+                                    @Value("${app.write-behind.node-id:}") String nodeId,
+                                    @Value("${app.write-behind.segment-size:64MB}") DataSize segmentSize,
+                                    @Value("${app.write-behind.batch-size:500}") int batchSize,
+                                    @Value("${app.write-behind.max-attempts:5}") int maxAttempts,
+                                    @Value("${app.write-behind.drain-interval:200ms}") Duration drainInterval,
+                                    @Value("${app.sharding.enabled:false}") boolean shardingEnabled) {
+        if (shardingEnabled) {
+            throw new IllegalStateException("app.write-behind cannot be combined with app.sharding");
+        }
+        this.writeAheadLog = new ExpenseWriteAheadLog(directory, Math.toIntExact(segmentSize.toBytes()));
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.configuredNodeId = nodeId;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.drainInterval = drainInterval;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        nodeId = resolveNodeId();
+        long checkpoint = checkpointRepository.findById(nodeId)
+                .map(WriteBehindCheckpoint::getLastSequence)
+                .orElse(0L);
+        List<PendingExpense> replay = writeAheadLog.open(checkpoint);
+        replay.forEach(this::enqueue);
+        if (!replay.isEmpty()) {
+            logger.info("Replaying {} write-behind expenses after checkpoint {} of node {}",
+                    replay.size(), checkpoint, nodeId);
+        }
+
+        Gauge.builder("expense.write_behind.queue.depth", queueDepth, AtomicInteger::get)
+                .description("Accepted expenses not yet written to the database")
+                .register(meterRegistry);
+        Gauge.builder("expense.write_behind.pending.users", pendingByUser, Map::size)
+                .description("Users with at least one pending expense")
+                .register(meterRegistry);
+        Gauge.builder("expense.write_behind.segments", writeAheadLog, ExpenseWriteAheadLog::segmentCount)
+                .description("Write-ahead log segment files on disk")
+                .register(meterRegistry);
+        acceptedCounter = Counter.builder("expense.write_behind.accepted").register(meterRegistry);
+        drainedCounter = Counter.builder("expense.write_behind.drained").register(meterRegistry);
+        deadLetteredCounter = Counter.builder("expense.write_behind.dead_lettered")
+                .description("Accepted expenses that could not be written and were moved to the dead-letter file")
+                .register(meterRegistry);
+
+        drainer.scheduleWithFixedDelay(this::drainSafely,
+                drainInterval.toMillis(), drainInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Durably records the expense and returns a response for it. The response carries a
+     * negative provisional id until the row has been written to the database.
+     */
+    public ExpenseResponse accept(String title, BigDecimal amount, String description,
+                                  LocalDate date, String type, String currency, User user, Category category) {
+        PendingExpense expense = new PendingExpense(0, user.getId(), category.getId(), title, amount,
+                description, date, type, currency, Instant.now());
+        try {
+            PendingExpense sequenced = writeAheadLog.append(expense, this::enqueue);
+            acceptedCounter.increment();
+            return toResponse(sequenced, category);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append expense to the write-ahead log", e);
+        }
+    }
+
+    /**
+     * Pending expenses for one user, oldest first.
+     */
+    public List<PendingExpense> pendingFor(Long userId) {
+        ConcurrentLinkedDeque<PendingExpense> pending = pendingByUser.get(userId);
+        return pending != null ? new ArrayList<>(pending) : Collections.emptyList();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Queued expenses are returned with the negation of their log sequence as id. Such an
+     * id is not the id of the row once it is written, so it cannot be used to update or
+     * delete the expense.
+     */
+    public static boolean isProvisionalId(Long id) {
+        return id != null && id < 0;
+    }
+
+    public static ExpenseResponse toResponse(PendingExpense pending, Category category) {
+        ExpenseResponse response = new ExpenseResponse();
+        response.setId(-pending.sequence());
+        response.setTitle(pending.title());
+        response.setAmount(pending.amount());
+        response.setDescription(pending.description());
+        response.setDate(pending.date());
+        response.setType(pending.type());
+        response.setCurrency(pending.currency());
+        LocalDateTime acceptedAt = LocalDateTime.ofInstant(pending.acceptedAt(), ZoneId.systemDefault());
+        response.setCreatedAt(acceptedAt);
+        response.setUpdatedAt(acceptedAt);
+        response.setCategoryId(category.getId());
+        response.setCategoryName(category.getName());
+        response.setCategoryIcon(category.getIcon());
+        return response;
+    }
+
+    private void enqueue(PendingExpense expense) {
+        pendingByUser.compute(expense.userId(), (id, pending) -> {
+            ConcurrentLinkedDeque<PendingExpense> deque = pending != null ? pending : new ConcurrentLinkedDeque<>();
+            deque.addLast(expense);
+            return deque;
+        });
+        drainQueue.add(expense);
+        queueDepth.incrementAndGet();
+    }
+
+    private void drainSafely() {
+        while (true) {
+            int limit = writeOneByOne > 0 ? 1 : batchSize;
+            int drained;
+            try {
+                drained = drainBatch(limit);
+            } catch (Exception e) {
+                if (!drainFailed(limit, e)) {
+                    return;
+                }
+                continue;
+            }
+            failedAttempts = 0;
+            writeOneByOne = Math.max(0, writeOneByOne - drained);
+            // Keep draining full batches until the queue runs dry
+            if (drained < limit) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns whether draining should go on right away rather than on the next run.
+     */
+    private boolean drainFailed(int limit, Exception failure) {
+        failedAttempts++;
+        if (failedAttempts < maxAttempts) {
+            logger.warn("Write-behind drain failed (attempt {} of {}), will retry: {}",
+                    failedAttempts, maxAttempts, failure.getMessage());
+            return false;
+        }
+        failedAttempts = 0;
+        if (limit > 1) {
+            // Find the failing record by writing the batch's records one at a time
+            writeOneByOne = Math.min(limit, queueDepth.get());
+            logger.warn("Write-behind batch failed {} times, writing its {} expenses one at a time",
+                    maxAttempts, writeOneByOne, failure);
+            return true;
+        }
+        if (!databaseReachable()) {
+            logger.error("Write-behind drain failed and the database is unreachable, will retry", failure);
+            return false;
+        }
+        try {
+            deadLetter(drainQueue.peek(), failure);
+        } catch (Exception e) {
+            logger.error("Could not dead-letter write-behind expense, will retry", e);
+            return false;
+        }
+        writeOneByOne = Math.max(0, writeOneByOne - 1);
+        return true;
+    }
+
+    private boolean databaseReachable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends the expense to the dead-letter file, then moves the checkpoint past it.
+     */
+    private void deadLetter(PendingExpense expense, Exception failure) throws IOException {
+        Path deadLetters = directory.resolve("dead-letter.log");
+        Files.writeString(deadLetters, objectMapper.writeValueAsString(expense) + System.lineSeparator(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        transactionTemplate.executeWithoutResult(status ->
+                checkpointRepository.save(new WriteBehindCheckpoint(nodeId, expense.sequence())));
+        removeDrained(List.of(expense));
+        writeAheadLog.release(expense.sequence());
+        deadLetteredCounter.increment();
+        logger.error("Write-behind expense {} of user {} failed {} times on its own and was moved to {}",
+                expense.sequence(), expense.userId(), maxAttempts, deadLetters, failure);
+    }
+
+    private int drainBatch(int limit) throws IOException {
+        List<PendingExpense> batch = new ArrayList<>(limit);
+        for (PendingExpense expense : drainQueue) {
+            batch.add(expense);
+            if (batch.size() == limit) {
+                break;
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long lastSequence = batch.get(batch.size() - 1).sequence();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_EXPENSE, batch.stream()
+                    .map(expense -> {
+                        Timestamp acceptedAt = Timestamp.from(expense.acceptedAt());
+                        return new Object[] {expense.title(), expense.amount(), expense.description(),
+                                Date.valueOf(expense.date()), expense.type(), expense.currency(), acceptedAt, acceptedAt,
+                                expense.userId(), expense.categoryId()};
+                    })
+                    .toList());
+            checkpointRepository.save(new WriteBehindCheckpoint(nodeId, lastSequence));
+        });
+
+        removeDrained(batch);
+        drainedCounter.increment(batch.size());
+        writeAheadLog.release(lastSequence);
+        return batch.size();
+    }
+
+    private void removeDrained(List<PendingExpense> drained) {
+        // Only the drainer removes from the head, so the drained records are still at the front of the queue
+        for (PendingExpense expense : drained) {
+            drainQueue.poll();
+            queueDepth.decrementAndGet();
+            pendingByUser.computeIfPresent(expense.userId(), (id, pending) -> {
+                pending.pollFirst();
+                return pending.isEmpty() ? null : pending;
+            });
+        }
+    }
+
+    /**
+     * The configured node id, or one generated once and kept next to the log: the log and
+     * its checkpoint belong together, whichever instance later opens the directory.
+     */
+    private String resolveNodeId() throws IOException {
+        if (StringUtils.hasText(configuredNodeId)) {
+            return configuredNodeId;
+        }
+        Path file = directory.resolve("node-id");
+        if (Files.exists(file)) {
+            return Files.readString(file).trim();
+        }
+        Files.createDirectories(directory);
+        String generated = UUID.randomUUID().toString();
+        Files.writeString(file, generated);
+        return generated;
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        drainer.shutdown();
+        boolean terminated = false;
+        try {
+            terminated = drainer.awaitTermination(drainInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!terminated) {
+            // The drainer is still inside a batch, and only it may read the head of the queue or
+            // release the log. Leave the log open for it; the OS closes it at exit
+            logger.warn("Write-behind drainer did not stop in time; {} queued expenses stay in the log "
+                    + "and are replayed on the next start", queueDepth.get());
+            return;
+        }
+        // The drainer has stopped, so this thread takes its place for a last drain. Anything
+        // still queued after it stays in the log and is replayed on the next start
+        drainSafely();
+        writeAheadLog.close();
+    }
+}
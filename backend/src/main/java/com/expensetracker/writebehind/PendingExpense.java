@@ -0,0 +1,74 @@
+package com.expensetracker.writebehind;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * An accepted expense that is durable in the write-ahead log but not yet in the database.
+ */
+public record PendingExpense(long sequence,
+                             Long userId,
+                             Long categoryId,
+                             String title,
+                             BigDecimal amount,
+                             String description,
+                             LocalDate date,
+                             String type,
+                             String currency,
+                             Instant acceptedAt) {
+
+    public PendingExpense withSequence(long sequence) {
+        return new PendingExpense(sequence, userId, categoryId, title, amount, description, date, type, currency,
+                acceptedAt);
+    }
+
+    byte[] encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(userId);
+            out.writeLong(categoryId);
+            out.writeUTF(title);
+            out.writeUTF(amount.toPlainString());
+            out.writeBoolean(description != null);
+            if (description != null) {
+                out.writeUTF(description);
+            }
+            out.writeLong(date.toEpochDay());
+            out.writeUTF(type);
+            out.writeLong(acceptedAt.toEpochMilli());
+            // Last, so records logged before currencies existed still decode
+            out.writeUTF(currency);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static PendingExpense decode(long sequence, byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            Long userId = in.readLong();
+            Long categoryId = in.readLong();
+            String title = in.readUTF();
+            BigDecimal amount = new BigDecimal(in.readUTF());
+            String description = in.readBoolean() ? in.readUTF() : null;
+            LocalDate date = LocalDate.ofEpochDay(in.readLong());
+            String type = in.readUTF();
+            Instant acceptedAt = Instant.ofEpochMilli(in.readLong());
+            String currency = in.available() > 0 ? in.readUTF() : null;
+            return new PendingExpense(sequence, userId, categoryId, title, amount, description, date, type, currency,
+                    acceptedAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
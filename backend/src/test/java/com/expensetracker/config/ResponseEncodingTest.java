@@ -0,0 +1,165 @@
+package com.expensetracker.config;
+
+import com.expensetracker.dto.CategoryResponse;
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.dto.NormalizedExpenseListResponse;
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.Expense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encoded size of a synthetic expense history in each list shape and encoding the API offers:
+ * the full and {@code shape=normalized} lists, as JSON and CBOR, with and without gzip.
+ *
+ * {@link #reportsSizeAndSerializationTime} is a benchmark, skipped unless started with
+ * {@code -Dencoding.benchmark.expenses=<count>}; see the README for how to run it.
+ */
+class ResponseEncodingTest {
+
+    // Mapped like Boot's auto-configured mappers, which ContentNegotiationConfig reuses for CBOR
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory())
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    @Test
+    void compactEncodingsAndShapesAreSmaller() {
+        History history = history(2_000);
+
+        byte[] json = encode(jsonMapper, history.full());
+        byte[] cbor = encode(cborMapper, history.full());
+        byte[] normalizedJson = encode(jsonMapper, history.normalized());
+
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(normalizedJson.length).isLessThan(json.length);
+        assertThat(encode(cborMapper, history.normalized()).length).isLessThan(normalizedJson.length);
+        assertThat(gzip(json).length).isLessThan(json.length / 4);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "encoding.benchmark.expenses", matches = "\\d+")
+    void reportsSizeAndSerializationTime() {
+        int expenses = Integer.getInteger("encoding.benchmark.expenses");
+        int iterations = Integer.getInteger("encoding.benchmark.iterations", 20);
+        History history = history(expenses);
+
+        System.out.printf("%d expenses, median of %d runs after %d warm-up runs%n", expenses, iterations,
+                iterations);
+        System.out.printf("%-17s %12s %12s %10s %10s%n", "encoding", "bytes", "gzip bytes", "encode ms",
+                "gzip ms");
+        report("JSON", jsonMapper, history.full(), iterations);
+        report("JSON normalized", jsonMapper, history.normalized(), iterations);
+        report("CBOR", cborMapper, history.full(), iterations);
+        report("CBOR normalized", cborMapper, history.normalized(), iterations);
+    }
+
+    private void report(String name, ObjectMapper mapper, Object body, int iterations) {
+        byte[] encoded = encode(mapper, body);
+        byte[] compressed = gzip(encoded);
+        double encodeMillis = medianMillis(() -> encode(mapper, body), iterations);
+        double gzipMillis = medianMillis(() -> gzip(encoded), iterations);
+        System.out.printf("%-17s %12d %12d %10.1f %10.1f%n", name, encoded.length, compressed.length,
+                encodeMillis, gzipMillis);
+    }
+
+    private static double medianMillis(Runnable task, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            task.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[iterations / 2] / 1_000_000.0;
+    }
+
+    private static byte[] encode(ObjectMapper mapper, Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Tomcat's compression uses GZIPOutputStream at its default level as well
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Expenses over 20 categories and five years, with titles and amounts drawn from a fixed
+     * seed so every run encodes the same history. Tags are left empty: the normalized shape
+     * does not carry them.
+     */
+    private static History history(int size) {
+        String[] titles = {"Groceries", "Coffee", "Lunch", "Rent", "Electricity bill", "Train ticket",
+                "Cinema", "Gym membership", "Phone plan", "Dinner with friends", "Taxi", "Books"};
+        Random random = new Random(42);
+        List<Category> categories = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Category category = new Category("Category " + id, "icon-" + id);
+            category.setId(id);
+            categories.add(category);
+        }
+
+        LocalDate today = LocalDate.of(2024, 6, 30);
+        List<Expense> expenses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Expense expense = new Expense();
+            expense.setId((long) size - i);
+            expense.setTitle(titles[random.nextInt(titles.length)]);
+            expense.setAmount(BigDecimal.valueOf(100 + random.nextInt(50_000), 2));
+            expense.setDescription(random.nextInt(4) == 0 ? "Paid by card at the usual place" : null);
+            expense.setDate(today.minusDays((long) i * 1826 / size));
+            expense.setType(random.nextInt(10) == 0 ? "income" : "expense");
+            expense.setCurrency("USD");
+            LocalDateTime created = expense.getDate().atTime(12, random.nextInt(60));
+            expense.setCreatedAt(created);
+            expense.setUpdatedAt(created);
+            expense.setCategory(categories.get(random.nextInt(categories.size())));
+            expenses.add(expense);
+        }
+
+        List<ExpenseResponse> full = expenses.stream().map(ExpenseResponse::new).toList();
+        Map<Long, CategoryResponse> dictionary = new LinkedHashMap<>();
+        List<NormalizedExpenseListResponse.ExpenseRow> rows = new ArrayList<>(size);
+        for (Expense expense : expenses) {
+            dictionary.computeIfAbsent(expense.getCategory().getId(), id -> new CategoryResponse(expense.getCategory()));
+            rows.add(new NormalizedExpenseListResponse.ExpenseRow(expense));
+        }
+        return new History(full, new NormalizedExpenseListResponse(dictionary, rows));
+    }
+
+    private record History(List<ExpenseResponse> full, NormalizedExpenseListResponse normalized) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.expensetracker.controller;
+
+import com.expensetracker.config.ReactiveReadConfig;
+import com.expensetracker.dto.ExpenseResponse;
+import com.expensetracker.dto.ExpenseSummaryResponse;
+import com.expensetracker.fx.FxRateTable;
+import com.expensetracker.repository.ReactiveExpenseQueries;
+import com.expensetracker.security.UserPrincipal;
+import com.expensetracker.tag.TagIndex;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The reactive endpoints over R2DBC against an in-memory H2 database, with the schema
+ * created over JDBC and reduced to the columns the queries read.
+ */
+class ReactiveExpenseControllerTest {
+
+    private static final String DATABASE = "reactive-test";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final String[] SCHEMA = {
+            "CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50), base_currency VARCHAR(3))",
+            "CREATE TABLE categories (id BIGINT PRIMARY KEY, name VARCHAR(50), icon VARCHAR(10))",
+            "CREATE TABLE expenses (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "category_id BIGINT NOT NULL, title VARCHAR(100), amount DECIMAL(12, 2), "
+                    + "description VARCHAR(500), date DATE, type VARCHAR(20), currency VARCHAR(3), "
+                    + "created_at TIMESTAMP, updated_at TIMESTAMP)"};
+
+    @TempDir
+    Path tempDir;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:" + DATABASE + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    private ConnectionPool connectionPool;
+    private ReactiveExpenseController controller;
+
+    @BeforeEach
+    void createDatabase() throws IOException {
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+        jdbcTemplate.update("INSERT INTO users (id, username, base_currency) VALUES (1, 'alice', NULL), "
+                + "(2, 'bob', 'EUR')");
+        jdbcTemplate.update("INSERT INTO categories (id, name, icon) VALUES (1, 'Food', 'F'), (2, 'Travel', 'T')");
+
+        // Units of EUR per USD, different on each day
+        Path rates = Files.writeString(tempDir.resolve("rates.csv"),
+                "date,currency,rate\n2024-01-01,EUR,0.5\n2024-01-02,EUR,0.8\n");
+        FxRateTable fxRateTable = new FxRateTable(new DefaultResourceLoader(), rates.toUri().toString(), "USD",
+                Duration.ofHours(1));
+
+        ReactiveReadConfig config = new ReactiveReadConfig(false, false, false);
+        connectionPool = config.reactiveConnectionFactory(
+                "r2dbc:h2:mem:///" + DATABASE + "?options=MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "", 4);
+        DatabaseClient databaseClient = config.reactiveDatabaseClient(connectionPool);
+
+        TagIndex.UserTags tags = mock(TagIndex.UserTags.class);
+        when(tags.tagsOf(anyLong())).thenAnswer(invocation -> List.of("tag-" + invocation.getArgument(0)));
+        TagIndex tagIndex = mock(TagIndex.class);
+        when(tagIndex.forUser(anyLong())).thenReturn(tags);
+
+        controller = new ReactiveExpenseController(new ReactiveExpenseQueries(databaseClient, fxRateTable), tagIndex);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        connectionPool.dispose();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void streamsTheUsersExpensesNewestFirstWithTheirTags() {
+        long lunch = expense(1, 1, "Lunch", "12.50", LocalDate.of(2024, 1, 2), "USD");
+        long flight = expense(1, 2, "Flight", "300.00", LocalDate.of(2024, 1, 3), "EUR");
+        long coffee = expense(1, 1, "Coffee", "3.20", LocalDate.of(2024, 1, 1), null);
+        expense(2, 1, "Dinner", "40.00", LocalDate.of(2024, 1, 2), "EUR");
+
+        List<ExpenseResponse> expenses = controller.getAllExpenses(principal(1)).collectList().block(TIMEOUT);
+
+        assertThat(expenses).extracting(ExpenseResponse::getId).containsExactly(flight, lunch, coffee);
+        ExpenseResponse first = expenses.get(0);
+        assertThat(first.getTitle()).isEqualTo("Flight");
+        assertThat(first.getAmount()).isEqualByComparingTo("300.00");
+        assertThat(first.getDate()).isEqualTo(LocalDate.of(2024, 1, 3));
+        assertThat(first.getCurrency()).isEqualTo("EUR");
+        assertThat(first.getCategoryName()).isEqualTo("Travel");
+        assertThat(first.getCategoryIcon()).isEqualTo("T");
+        assertThat(first.getTags()).containsExactly("tag-" + flight);
+    }
+
+    @Test
+    void searchesByCategoryAndDateRange() {
+        expense(1, 1, "Lunch", "12.50", LocalDate.of(2024, 1, 2), "USD");
+        long breakfast = expense(1, 1, "Breakfast", "6.00", LocalDate.of(2024, 1, 3), "USD");
+        expense(1, 2, "Flight", "300.00", LocalDate.of(2024, 1, 3), "EUR");
+        expense(1, 1, "Snack", "2.00", LocalDate.of(2024, 1, 5), "USD");
+
+        List<ExpenseResponse> expenses = controller.searchExpenses(principal(1), 1L, null,
+                LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 4)).collectList().block(TIMEOUT);
+
+        assertThat(expenses).extracting(ExpenseResponse::getId).containsExactly(breakfast);
+    }
+
+    @Test
+    void summarizesInTheBaseCurrencyAtEachDaysRate() {
+        // alice has no base currency of her own and reports in the table's USD
+        expense(1, 1, "Lunch", "10.00", LocalDate.now(), "USD");
+        expense(1, 2, "Hotel", "20.00", LocalDate.of(2024, 1, 1), "EUR");
+        expense(1, 2, "Taxi", "8.00", LocalDate.of(2024, 1, 2), "EUR");
+        expense(1, 1, "Coffee", "3.00", LocalDate.of(2024, 1, 2), null);
+
+        ExpenseSummaryResponse summary = controller.getExpenseSummary(principal(1)).block(TIMEOUT);
+
+        assertThat(summary.getCurrency()).isEqualTo("USD");
+        // 20 EUR at 0.5 and 8 EUR at 0.8 are 40 and 10 USD
+        assertThat(summary.getTotalExpenses()).isEqualByComparingTo("63.00");
+        assertThat(summary.getTotalCount()).isEqualTo(4);
+        assertThat(summary.getMonthlyTotal()).isEqualByComparingTo("10.00");
+        assertThat(summary.getUnconvertedCount()).isZero();
+        assertThat(summary.getCategorySummary()).containsOnlyKeys("Food", "Travel");
+        assertThat(summary.getCategorySummary().get("Food").getTotal()).isEqualByComparingTo("13.00");
+        assertThat(summary.getCategorySummary().get("Food").getCount()).isEqualTo(2);
+        assertThat(summary.getCategorySummary().get("Travel").getTotal()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void summarizesInTheUsersOwnBaseCurrency() {
+        expense(2, 1, "Lunch", "10.00", LocalDate.of(2024, 1, 1), "USD");
+        expense(2, 1, "Dinner", "4.00", LocalDate.of(2024, 1, 2), "EUR");
+        expense(2, 2, "Ferry", "7.00", LocalDate.of(2024, 1, 2), "GBP");
+
+        ExpenseSummaryResponse summary = controller.getExpenseSummary(principal(2)).block(TIMEOUT);
+
+        assertThat(summary.getCurrency()).isEqualTo("EUR");
+        // 10 USD at 0.5 is 5 EUR; GBP has no rates and is left out
+        assertThat(summary.getTotalExpenses()).isEqualByComparingTo("9.00");
+        assertThat(summary.getTotalCount()).isEqualTo(3);
+        assertThat(summary.getUnconvertedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void summarizesAUserWithoutExpensesAsZero() {
+        ExpenseSummaryResponse summary = controller.getExpenseSummary(principal(1)).block(TIMEOUT);
+
+        assertThat(summary.getCurrency()).isEqualTo("USD");
+        assertThat(summary.getTotalExpenses()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(summary.getTotalCount()).isZero();
+        assertThat(summary.getCategorySummary()).isEmpty();
+    }
+
+    private long expense(long userId, long categoryId, String title, String amount, LocalDate date,
+                         String currency) {
+        jdbcTemplate.update("INSERT INTO expenses (user_id, category_id, title, amount, date, type, currency, "
+                        + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, 'EXPENSE', ?, NOW(), NOW())",
+                userId, categoryId, title, new BigDecimal(amount), date, currency);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM expenses", Long.class);
+    }
+
+    private static UserPrincipal principal(long userId) {
+        return new UserPrincipal(userId, "user" + userId, "user" + userId + "@example.com", "secret", List.of());
+    }
+}
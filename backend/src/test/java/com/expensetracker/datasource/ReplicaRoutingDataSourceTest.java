@@ -0,0 +1,128 @@
+package com.expensetracker.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases standing in for the primary and the replica. Each holds a
+ * {@code marker} row naming it, so a read shows which one served it.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofMillis(300);
+
+    private final JdbcTemplate primary = database("primary");
+    private final JdbcTemplate replica = database("replica");
+    private JdbcTemplate routed;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void route() {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(new RecentWriteTracker(MAX_LAG));
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primary.getDataSource(),
+                ReplicaRoutingDataSource.REPLICA, replica.getDataSource()));
+        routingDataSource.setDefaultTargetDataSource(primary.getDataSource());
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        routed = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void drop() {
+        SecurityContextHolder.clearContext();
+        primary.execute("DROP ALL OBJECTS");
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void sendsReadOnlyTransactionsToTheReplica() {
+        signIn("alice");
+        assertThat(servedBy(readOnly)).isEqualTo("replica");
+        assertThat(servedBy(readWrite)).isEqualTo("primary");
+    }
+
+    @Test
+    void keepsReadsOnThePrimaryWithinMaxLagOfACommittedWrite() throws InterruptedException {
+        signIn("alice");
+        readWrite.executeWithoutResult(status -> routed.update("INSERT INTO notes (text) VALUES ('lunch')"));
+
+        assertThat(servedBy(readOnly)).isEqualTo("primary");
+        List<String> notes = readOnly.execute(status -> routed.queryForList("SELECT text FROM notes", String.class));
+        assertThat(notes).containsExactly("lunch");
+        // Other users' reads are not held back
+        signIn("bob");
+        assertThat(servedBy(readOnly)).isEqualTo("replica");
+
+        Thread.sleep(MAX_LAG.toMillis() + 100);
+        signIn("alice");
+        assertThat(servedBy(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void ignoresTransactionsThatOnlyReadOrRollBack() {
+        signIn("alice");
+        readWrite.executeWithoutResult(status -> servedBy());
+        assertThat(servedBy(readOnly)).isEqualTo("replica");
+
+        readWrite.executeWithoutResult(status -> {
+            routed.update("INSERT INTO notes (text) VALUES ('lunch')");
+            status.setRollbackOnly();
+        });
+        assertThat(servedBy(readOnly)).isEqualTo("replica");
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM notes", Integer.class)).isZero();
+    }
+
+    @Test
+    void recordsWritesOutsideATransactionImmediately() {
+        signIn("alice");
+        routed.update("INSERT INTO notes (text) VALUES ('lunch')");
+        assertThat(servedBy(readOnly)).isEqualTo("primary");
+    }
+
+    private String servedBy(TransactionTemplate transaction) {
+        return transaction.execute(status -> servedBy());
+    }
+
+    private String servedBy() {
+        return routed.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static void signIn(String username) {
+        UserDetails user = User.withUsername(username).password("secret").authorities(List.of()).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:replica-test-" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker (name) VALUES (?)", name);
+        jdbcTemplate.execute("CREATE TABLE notes (id BIGINT AUTO_INCREMENT PRIMARY KEY, text VARCHAR(100))");
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,238 @@
+package com.expensetracker.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Three in-memory H2 databases standing in for shards, with the user-owned tables the
+ * rebalancer copies reduced to the columns these tests use.
+ */
+class ShardingTest {
+
+    private static final int SHARDS = 3;
+    private static final String[] SCHEMA = {
+            "CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(50), "
+                    + "base_currency VARCHAR(3))",
+            "CREATE TABLE categories (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(50), icon VARCHAR(10), "
+                    + "created_at TIMESTAMP, updated_at TIMESTAMP)",
+            "CREATE TABLE expenses (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "title VARCHAR(100), amount DECIMAL(12, 2))",
+            "CREATE TABLE expenses_archive (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, title VARCHAR(100))",
+            "CREATE TABLE expense_archive_versions (user_id BIGINT PRIMARY KEY, version BIGINT)",
+            "CREATE TABLE tags (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, name VARCHAR(50))",
+            "CREATE TABLE expense_tags (expense_id BIGINT NOT NULL, tag_id BIGINT NOT NULL)",
+            "CREATE TABLE recurring_expenses (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "title VARCHAR(100))",
+            "CREATE TABLE budgets (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "monthly_limit DECIMAL(12, 2))",
+            "CREATE TABLE budget_alerts (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "threshold INT)",
+            "CREATE TABLE tag_index_snapshots (user_id BIGINT PRIMARY KEY, version BIGINT)"};
+
+    private final List<DataSource> shards = new ArrayList<>();
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final ExecutorService fanOutExecutor = Executors.newFixedThreadPool(SHARDS);
+    private ShardDirectory directory;
+    private ShardReferenceDataSync referenceDataSync;
+    private ShardRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void createShards() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard-test-" + shard + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            for (String table : SCHEMA) {
+                jdbcTemplate.execute(table);
+            }
+            shards.add(dataSource);
+            jdbcTemplates.add(jdbcTemplate);
+        }
+        directory = new ShardDirectory(SHARDS, jdbcTemplates.get(ShardDirectory.DIRECTORY_SHARD),
+                Duration.ofMillis(20), Duration.ofSeconds(30));
+        directory.initialize();
+        referenceDataSync = new ShardReferenceDataSync(jdbcTemplates, directory);
+
+        routingDataSource = new ShardRoutingDataSource(directory);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shards.get(ShardDirectory.DIRECTORY_SHARD));
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void dropShards() {
+        ShardContext.clear();
+        directory.stop();
+        fanOutExecutor.shutdownNow();
+        jdbcTemplates.forEach(jdbcTemplate -> jdbcTemplate.execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    void routesEachUserToTheirShard() {
+        JdbcTemplate routed = new JdbcTemplate(routingDataSource);
+        Map<Integer, Long> userOnShard = usersOnEveryShard();
+        for (Map.Entry<Integer, Long> user : userOnShard.entrySet()) {
+            ShardContext.bind(user.getValue(), directory.shardFor(user.getValue()));
+            try {
+                routed.update("INSERT INTO expenses (user_id, title, amount) VALUES (?, 'Lunch', 10)",
+                        user.getValue());
+            } finally {
+                ShardContext.clear();
+            }
+        }
+        // Unbound work, such as login, goes to the directory shard
+        routed.update("INSERT INTO expenses (user_id, title, amount) VALUES (0, 'Unbound', 1)");
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Long> owners = jdbcTemplates.get(shard).queryForList(
+                    "SELECT user_id FROM expenses WHERE title = 'Lunch'", Long.class);
+            assertThat(owners).containsExactly(userOnShard.get(shard));
+        }
+        assertThat(jdbcTemplates.get(ShardDirectory.DIRECTORY_SHARD).queryForObject(
+                "SELECT COUNT(*) FROM expenses WHERE title = 'Unbound'", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWritesOfAFrozenUser() {
+        Long userId = usersOnEveryShard().get(1);
+        directory.freeze(userId, 1, 2);
+        directory.reload();
+
+        ShardContext.bind(userId, 1);
+        assertThatThrownBy(() -> new JdbcTemplate(routingDataSource)
+                .update("INSERT INTO expenses (user_id, title, amount) VALUES (?, 'Lunch', 10)", userId))
+                .hasStackTraceContaining("being rebalanced");
+    }
+
+    @Test
+    void interleavesIdsAcrossShards() {
+        // A shard that already has rows continues above them
+        jdbcTemplates.get(1).update("INSERT INTO expenses (user_id, title, amount) VALUES (1, 'Existing', 1)");
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertThat(ShardIdInterleaving.applyToIdentityColumns(shards.get(shard), shard, SHARDS))
+                    .isEqualTo(7);
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (int i = 0; i < 5; i++) {
+                jdbcTemplates.get(shard).update("INSERT INTO expenses (user_id, title, amount) VALUES (1, 'New', 1)");
+            }
+            List<Long> shardIds = jdbcTemplates.get(shard).queryForList(
+                    "SELECT id FROM expenses WHERE title = 'New' ORDER BY id", Long.class);
+            for (Long id : shardIds) {
+                assertThat(Math.floorMod(id - 1, SHARDS)).isEqualTo(shard);
+            }
+            ids.addAll(shardIds);
+        }
+        assertThat(ids).hasSize(SHARDS * 5);
+        assertThat(jdbcTemplates.get(1).queryForObject(
+                "SELECT MIN(id) FROM expenses WHERE title = 'New'", Long.class)).isEqualTo(2L);
+        assertThat(ShardIdInterleaving.nextId(7L, 1, SHARDS)).isEqualTo(8L);
+        assertThat(ShardIdInterleaving.nextId(8L, 1, SHARDS)).isEqualTo(11L);
+        assertThat(ShardIdInterleaving.connectionInitSql(2, SHARDS))
+                .isEqualTo("SET SESSION auto_increment_increment = 3, auto_increment_offset = 3");
+    }
+
+    @Test
+    void movesAUserWithAllTheirRows() {
+        Long userId = usersOnEveryShard().get(1);
+        JdbcTemplate source = jdbcTemplates.get(1);
+        source.update("INSERT INTO expenses (id, user_id, title, amount) VALUES (101, ?, 'Rent', 900)", userId);
+        source.update("INSERT INTO expenses (id, user_id, title, amount) VALUES (104, ?, 'Taxi', 20)", userId);
+        source.update("INSERT INTO expenses_archive (id, user_id, title) VALUES (50, ?, 'Old')", userId);
+        source.update("INSERT INTO tags (id, user_id, name) VALUES (7, ?, 'work')", userId);
+        source.update("INSERT INTO expense_tags (expense_id, tag_id) VALUES (104, 7)");
+        source.update("INSERT INTO budgets (id, user_id, monthly_limit) VALUES (9, ?, 1000)", userId);
+        // Another user on the same shard stays put
+        source.update("INSERT INTO expenses (id, user_id, title, amount) VALUES (107, 999, 'Other', 5)");
+        ShardRebalancer rebalancer = new ShardRebalancer(directory, jdbcTemplates, referenceDataSync, 1,
+                Duration.ofSeconds(10));
+
+        long copied = rebalancer.moveUser(userId, 2);
+
+        assertThat(copied).isEqualTo(6);
+        JdbcTemplate target = jdbcTemplates.get(2);
+        assertThat(target.queryForList("SELECT id FROM expenses WHERE user_id = ? ORDER BY id", Long.class, userId))
+                .containsExactly(101L, 104L);
+        assertThat(target.queryForObject("SELECT tag_id FROM expense_tags WHERE expense_id = 104", Long.class))
+                .isEqualTo(7L);
+        assertThat(target.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId))
+                .isEqualTo(1);
+        assertThat(source.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?", Integer.class, userId))
+                .isZero();
+        assertThat(source.queryForObject("SELECT COUNT(*) FROM expense_tags", Integer.class)).isZero();
+        assertThat(source.queryForObject("SELECT COUNT(*) FROM expenses", Integer.class)).isEqualTo(1);
+
+        assertThat(directory.persistedShardFor(userId)).isEqualTo(2);
+        assertThat(directory.pendingMove(userId)).isNull();
+        directory.reload();
+        assertThat(directory.shardFor(userId)).isEqualTo(2);
+        assertThat(directory.isFrozen(userId)).isFalse();
+        // Moving to where the user already is does nothing
+        assertThat(rebalancer.moveUser(userId, 2)).isZero();
+    }
+
+    @Test
+    void fansAdminReadsOutToEveryShard() {
+        jdbcTemplates.get(0).update("INSERT INTO expenses (user_id, title, amount) VALUES (10, 'A', 1)");
+        jdbcTemplates.get(1).update("INSERT INTO expenses (user_id, title, amount) VALUES (11, 'A', 1)");
+        jdbcTemplates.get(1).update("INSERT INTO expenses (user_id, title, amount) VALUES (11, 'B', 1)");
+        jdbcTemplates.get(2).update("INSERT INTO expenses (user_id, title, amount) VALUES (12, 'A', 1)");
+        jdbcTemplates.get(2).update("INSERT INTO expenses (user_id, title, amount) VALUES (12, 'B', 1)");
+        jdbcTemplates.get(2).update("INSERT INTO expenses (user_id, title, amount) VALUES (12, 'C', 1)");
+        ShardFanOut fanOut = new ShardFanOut(jdbcTemplates, fanOutExecutor);
+
+        assertThat(fanOut.sumLong("SELECT COUNT(*) FROM expenses")).isEqualTo(6);
+
+        Map<String, Object> report = new ShardStatsEndpoint(fanOut, directory, 2).report();
+        assertThat(report.get("users")).isEqualTo(3L);
+        assertThat(report.get("expenses")).isEqualTo(6L);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> perShard = (List<Map<String, Object>>) report.get("shards");
+        assertThat(perShard).extracting(row -> row.get("expenses")).containsExactly(1L, 2L, 3L);
+        @SuppressWarnings("unchecked")
+        List<ShardStatsEndpoint.UserExpenses> largest = (List<ShardStatsEndpoint.UserExpenses>) report.get(
+                "largestUsers");
+        assertThat(largest).extracting(ShardStatsEndpoint.UserExpenses::userId).containsExactly(12L, 11L);
+    }
+
+    /**
+     * One user homed on each shard, keyed by shard, with their row on the directory and
+     * on their shard.
+     */
+    private Map<Integer, Long> usersOnEveryShard() {
+        Map<Integer, Long> users = new HashMap<>();
+        for (long userId = 1; users.size() < SHARDS; userId++) {
+            int shard = directory.homeShard(userId);
+            if (!users.containsKey(shard)) {
+                users.put(shard, userId);
+                jdbcTemplates.get(ShardDirectory.DIRECTORY_SHARD).update(
+                        "INSERT INTO users (id, username, base_currency) VALUES (?, ?, 'USD')", userId, "user" + userId);
+                referenceDataSync.ensureUserOnShard(userId, shard);
+            }
+        }
+        return users;
+    }
+}
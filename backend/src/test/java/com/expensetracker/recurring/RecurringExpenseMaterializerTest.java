@@ -0,0 +1,203 @@
+package com.expensetracker.recurring;
+
+import com.expensetracker.budget.BudgetEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The materializer against an in-memory H2 database, with {@code recurring_expenses} and
+ * {@code expenses} reduced to the columns it reads and writes.
+ *
+ * {@link #postsAMillionRulesInOneRun} is a load run, skipped unless started with
+ * {@code -Drecurring.load.rules=<count>}; see the README for how to run it. H2 locks every
+ * due row for each claim, not just the chunk, so on H2 a run slows down as the backlog grows.
+ */
+class RecurringExpenseMaterializerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+    private static final String[] SCHEMA = {
+            "CREATE TABLE recurring_expenses (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "category_id BIGINT NOT NULL, title VARCHAR(100), amount DECIMAL(10, 2), "
+                    + "description VARCHAR(500), type VARCHAR(20), currency VARCHAR(3), frequency VARCHAR(10), "
+                    + "interval_count INT, start_date DATE, end_date DATE, max_occurrences INT, "
+                    + "next_occurrence INT, next_due_date DATE, active BOOLEAN, updated_at TIMESTAMP)",
+            "CREATE INDEX idx_recurring_due ON recurring_expenses (active, next_due_date)",
+            "CREATE TABLE expenses (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(100), "
+                    + "amount DECIMAL(10, 2), description VARCHAR(500), date DATE, type VARCHAR(20), "
+                    + "created_at TIMESTAMP, updated_at TIMESTAMP, user_id BIGINT NOT NULL, "
+                    + "category_id BIGINT NOT NULL, occurrence_key VARCHAR(40), currency VARCHAR(3))",
+            "CREATE UNIQUE INDEX uk_expenses_occurrence_key ON expenses (occurrence_key)"};
+
+    // Any database can stand in with -Drecurring.load.url; the two tables are created and dropped per test
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            System.getProperty("recurring.load.url",
+                    "jdbc:h2:mem:recurring-test;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"),
+            System.getProperty("recurring.load.username", ""), System.getProperty("recurring.load.password", ""));
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final BudgetEngine budgetEngine = mock(BudgetEngine.class);
+    private final List<RecurringExpenseMaterializer> materializers = new ArrayList<>();
+
+    @BeforeEach
+    void createSchema() {
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    @AfterEach
+    void drop() {
+        materializers.forEach(RecurringExpenseMaterializer::stop);
+        jdbcTemplate.execute("DROP TABLE expenses, recurring_expenses");
+    }
+
+    @Test
+    void postsEveryDueOccurrenceInTheRulesCurrencyAndAdvancesTheRule() {
+        long rule = rule("DAILY", TODAY.minusDays(2), "EUR");
+
+        assertThat(materializer(100, 1).runOnce(TODAY)).isEqualTo(3);
+
+        assertThat(occurrenceKeys()).containsExactly(
+                "r" + rule + ":2024-03-08", "r" + rule + ":2024-03-09", "r" + rule + ":2024-03-10");
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT currency FROM expenses", String.class))
+                .containsExactly("EUR");
+        assertThat(jdbcTemplate.queryForMap("SELECT next_occurrence, next_due_date FROM recurring_expenses"))
+                .containsEntry("NEXT_OCCURRENCE", 3)
+                .containsEntry("NEXT_DUE_DATE", Date.valueOf(TODAY.plusDays(1)));
+        verify(budgetEngine, times(3)).record(eq(1L), eq(1L), any(), eq("expense"), any(), eq("EUR"));
+    }
+
+    @Test
+    void rerunningAChunkNeverPostsAnOccurrenceTwice() {
+        long rule = rule("DAILY", TODAY.minusDays(4), "USD");
+        RecurringExpenseMaterializer materializer = materializer(100, 1);
+        assertThat(materializer.runOnce(TODAY)).isEqualTo(5);
+
+        // As if the chunk were claimed again with the rule's schedule where it started
+        resetSchedule();
+        assertThat(materializer.runOnce(TODAY)).isZero();
+
+        assertThat(occurrenceKeys()).hasSize(5).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT next_occurrence FROM recurring_expenses", Integer.class))
+                .isEqualTo(5);
+        verify(budgetEngine, times(5)).record(any(), any(), any(), any(), any(), any());
+
+        // Occurrences posted before the rerun are skipped while the missing ones are still posted
+        jdbcTemplate.update("DELETE FROM expenses WHERE occurrence_key IN (?, ?)",
+                "r" + rule + ":2024-03-07", "r" + rule + ":2024-03-09");
+        resetSchedule();
+        assertThat(materializer.runOnce(TODAY)).isEqualTo(2);
+        assertThat(occurrenceKeys()).hasSize(5).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void catchesUpARuleFarBehindAcrossSeveralClaims() {
+        rule("DAILY", TODAY.minusDays(249), "USD");
+
+        // At most 100 occurrences per claim; the rule is claimed again until it is up to date
+        assertThat(materializer(100, 1).runOnce(TODAY)).isEqualTo(250);
+        assertThat(occurrenceKeys()).hasSize(250).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void concurrentInstancesShareTheQueueWithoutDoublePosting() {
+        for (int i = 0; i < 200; i++) {
+            rule("DAILY", TODAY.minusDays(2), "USD");
+        }
+        RecurringExpenseMaterializer first = materializer(7, 2);
+        RecurringExpenseMaterializer second = materializer(7, 2);
+
+        CompletableFuture<Integer> firstRun = CompletableFuture.supplyAsync(() -> first.runOnce(TODAY));
+        CompletableFuture<Integer> secondRun = CompletableFuture.supplyAsync(() -> second.runOnce(TODAY));
+
+        assertThat(firstRun.join() + secondRun.join()).isEqualTo(600);
+        assertThat(occurrenceKeys()).hasSize(600).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM recurring_expenses WHERE next_due_date <= ?", Integer.class,
+                Date.valueOf(TODAY))).isZero();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "recurring.load.rules", matches = "\\d+")
+    void postsAMillionRulesInOneRun() {
+        int rules = Integer.getInteger("recurring.load.rules");
+        int chunkSize = Integer.getInteger("recurring.load.chunk-size", 1000);
+        int workers = Integer.getInteger("recurring.load.workers", 2);
+
+        long seedStart = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < rules; i++) {
+            // Spread over users, one due occurrence each
+            batch.add(ruleRow(1 + i % 10_000, "MONTHLY", TODAY, "USD"));
+            if (batch.size() == 10_000 || i == rules - 1) {
+                jdbcTemplate.batchUpdate(INSERT_RULE, batch);
+                batch.clear();
+            }
+        }
+        long seedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart);
+
+        RecurringExpenseMaterializer materializer = materializer(chunkSize, workers);
+        long start = System.nanoTime();
+        int posted = materializer.runOnce(TODAY);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        System.out.printf("recurring load: %d rules seeded in %dms; posted %d in %.1fs (%.0f rules/s, "
+                        + "chunk-size %d, workers %d)%n", rules, seedMillis, posted, elapsed.toMillis() / 1000.0,
+                rules * 1000.0 / Math.max(1, elapsed.toMillis()), chunkSize, workers);
+        assertThat(posted).isEqualTo(rules);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT occurrence_key) FROM expenses",
+                Integer.class)).isEqualTo(rules);
+    }
+
+    private static final String INSERT_RULE = "INSERT INTO recurring_expenses (user_id, category_id, title, "
+            + "amount, description, type, currency, frequency, interval_count, start_date, end_date, "
+            + "max_occurrences, next_occurrence, next_due_date, active, updated_at) "
+            + "VALUES (?, 1, 'Rent', ?, NULL, 'expense', ?, ?, 1, ?, NULL, NULL, 0, ?, TRUE, NULL)";
+
+    private long rule(String frequency, LocalDate start, String currency) {
+        jdbcTemplate.update(INSERT_RULE, ruleRow(1, frequency, start, currency));
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM recurring_expenses", Long.class);
+    }
+
+    private static Object[] ruleRow(long userId, String frequency, LocalDate start, String currency) {
+        return new Object[] {userId, new BigDecimal("950.00"), currency, frequency, Date.valueOf(start),
+                Date.valueOf(start)};
+    }
+
+    private void resetSchedule() {
+        jdbcTemplate.update("UPDATE recurring_expenses SET next_occurrence = 0, next_due_date = start_date");
+    }
+
+    private List<String> occurrenceKeys() {
+        return jdbcTemplate.queryForList("SELECT occurrence_key FROM expenses ORDER BY date, id", String.class);
+    }
+
+    private RecurringExpenseMaterializer materializer(int chunkSize, int workers) {
+        RecurringExpenseMaterializer materializer = new RecurringExpenseMaterializer(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), budgetEngine, new SimpleMeterRegistry(),
+                chunkSize, workers, 100, Duration.ofMinutes(1), false);
+        materializers.add(materializer);
+        return materializer;
+    }
+}
@@ -0,0 +1,97 @@
+package com.expensetracker.service;
+
+import com.expensetracker.archive.ExpenseArchiver;
+import com.expensetracker.dto.ExpenseField;
+import com.expensetracker.dto.ExpenseRequest;
+import com.expensetracker.dto.NormalizedExpenseListResponse;
+import com.expensetracker.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lists that merge live and archived rows, on a database of their own so the archive runs do
+ * not move other tests' expenses.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archived_list;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "app.archive.enabled=true"})
+class ArchivedExpenseListTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseArchiver expenseArchiver;
+
+    private User user;
+    private Long categoryId;
+
+    @BeforeEach
+    void createUserWithArchivedExpenses() {
+        String name = "user" + UUID.randomUUID().toString().substring(0, 8);
+        user = userService.createUser(new User(name, name + "@example.com", "not-a-real-hash"));
+        categoryId = categoryService.getAllCategories().get(0).getId();
+        LocalDate old = LocalDate.now().minusYears(5);
+        create("Archived older", old);
+        create("Archived newer", old.plusMonths(1));
+        expenseArchiver.archiveOnce(LocalDate.now());
+
+        // Backdated past the archived rows after the archive run, and one recent expense
+        create("Backdated", old.minusMonths(1));
+        create("Recent", LocalDate.now());
+    }
+
+    @Test
+    void fieldListsSortArchivedRowsAmongLiveOnesByDate() {
+        List<Map<String, Object>> rows = expenseService.getAllExpensesByUser(user,
+                EnumSet.of(ExpenseField.TITLE, ExpenseField.DATE));
+
+        assertThat(rows).extracting(row -> row.get("title"))
+                .containsExactly("Recent", "Archived newer", "Archived older", "Backdated");
+    }
+
+    @Test
+    void fieldListsWithoutTheDateAreSortedByItAndDropIt() {
+        List<Map<String, Object>> rows = expenseService.getAllExpensesByUser(user,
+                EnumSet.of(ExpenseField.ID, ExpenseField.TITLE));
+
+        assertThat(rows).extracting(row -> row.get("title"))
+                .containsExactly("Recent", "Archived newer", "Archived older", "Backdated");
+        assertThat(rows).allSatisfy(row -> assertThat(row).containsOnlyKeys("id", "title"));
+    }
+
+    @Test
+    void normalizedListSortsArchivedRowsAmongLiveOnesByDate() {
+        NormalizedExpenseListResponse response = expenseService.getAllExpensesByUserNormalized(user);
+
+        assertThat(response.getExpenses()).extracting(NormalizedExpenseListResponse.ExpenseRow::getTitle)
+                .containsExactly("Recent", "Archived newer", "Archived older", "Backdated");
+    }
+
+    private void create(String title, LocalDate date) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setTitle(title);
+        request.setAmount(new BigDecimal("12.50"));
+        request.setDate(date);
+        request.setType("expense");
+        request.setCategoryId(categoryId);
+        expenseService.createExpense(request, user);
+    }
+}
@@ -0,0 +1,75 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.ExpenseRequest;
+import com.expensetracker.entity.User;
+import com.expensetracker.observability.SqlCapture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@SpringBootTest
+class ExpenseQueryCountTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    private User user;
+
+    @BeforeEach
+    void createUserWithExpenses() {
+        String name = "user" + UUID.randomUUID().toString().substring(0, 8);
+        user = userService.createUser(new User(name, name + "@example.com", "not-a-real-hash"));
+        Long categoryId = categoryService.getAllCategories().get(0).getId();
+        for (int day = 1; day <= 30; day++) {
+            ExpenseRequest request = new ExpenseRequest();
+            request.setTitle("Expense " + day);
+            request.setAmount(new BigDecimal("12.50"));
+            request.setDate(LocalDate.now().withDayOfMonth(1).minusDays(day));
+            request.setType("expense");
+            request.setCategoryId(categoryId);
+            expenseService.createExpense(request, user);
+        }
+    }
+
+    @Test
+    void expenseListRunsAFixedNumberOfQueries() {
+        try (SqlCapture capture = SqlCapture.start()) {
+            expenseService.getAllExpensesByUser(user);
+            // expenses, which carry the tag index version, and the tag index load; categories come
+            // from the second-level cache
+            capture.assertStatementCount(2).assertNoRepeatedStatements(1);
+        }
+        try (SqlCapture capture = SqlCapture.start()) {
+            expenseService.getAllExpensesByUser(user);
+            // The tag index is cached now and checked against the version read with the expenses
+            capture.assertStatementCount(1).assertNoRepeatedStatements(1);
+        }
+    }
+
+    @Test
+    void dashboardRunsAFixedNumberOfQueries() {
+        // Warm the tag index, which is covered by the list test
+        expenseService.getAllExpensesByUser(user);
+
+        try (SqlCapture capture = SqlCapture.start()) {
+            dashboardService.getDashboard(user, 0, 20);
+            // page with the tag index version, four summary queries and the daily trend; sub-queries
+            // on the dashboard pool are counted with the caller's capture
+            capture.assertStatementCount(6).assertNoRepeatedStatements(1);
+        }
+    }
+}
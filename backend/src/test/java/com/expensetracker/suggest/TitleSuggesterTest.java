@@ -0,0 +1,223 @@
+package com.expensetracker.suggest;
+
+import com.expensetracker.entity.Category;
+import com.expensetracker.entity.User;
+import com.expensetracker.repository.ExpenseRepository;
+import com.expensetracker.suggest.TitleSuggester.Suggestion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the suggester against a mocked usage query. Lookups wait for cold loads here, except
+ * where a test needs to act while a load is running.
+ */
+class TitleSuggesterTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final Duration COLD_WAIT = Duration.ofSeconds(5);
+
+    private final ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+    private final List<TitleSuggester> started = new ArrayList<>();
+
+    @AfterEach
+    void stop() {
+        started.forEach(TitleSuggester::stop);
+    }
+
+    @Test
+    void ranksByDecayedCountThenKeyIgnoringCase() {
+        User user = user(1L);
+        when(expenseRepository.getTitleUsageByUser(user)).thenReturn(rows(
+                // Two half-lives old, so 10 uses score 2.5
+                row("Coffee", 1L, 10, TODAY.minusDays(60)),
+                row("Coles", 1L, 3, TODAY),
+                row("Cola", 1L, 3, TODAY),
+                row("Taxi", 2L, 50, TODAY)));
+        TitleSuggester suggester = suggester(10, 100, Duration.ofMinutes(30), COLD_WAIT);
+
+        assertThat(titles(suggester.suggest(user, "CO", 10))).containsExactly("Cola", "Coles", "Coffee");
+        assertThat(titles(suggester.suggest(user, " co", 2))).containsExactly("Cola", "Coles");
+        assertThat(titles(suggester.suggest(user, "", 1))).containsExactly("Taxi");
+        assertThat(suggester.suggest(user, "x", 10)).isEmpty();
+    }
+
+    @Test
+    void mergesCasingsKeepingTheLatestTitleAndCategory() {
+        User user = user(1L);
+        when(expenseRepository.getTitleUsageByUser(user)).thenReturn(rows(
+                row("coffee", 1L, 2, TODAY.minusDays(5)),
+                row("Coffee ", 2L, 1, TODAY)));
+        TitleSuggester suggester = suggester(10, 100, Duration.ofMinutes(30), COLD_WAIT);
+
+        List<Suggestion> suggestions = suggester.suggest(user, "cof", 10);
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).title()).isEqualTo("Coffee");
+        assertThat(suggestions.get(0).category().id()).isEqualTo(2L);
+        assertThat(suggestions.get(0).count()).isEqualTo(3);
+    }
+
+    @Test
+    void keepsTheBestTitlesUpToTheLimit() {
+        User user = user(1L);
+        when(expenseRepository.getTitleUsageByUser(user)).thenReturn(rows(
+                row("Rent", 1L, 1, TODAY.minusDays(300)),
+                row("Lunch", 1L, 1, TODAY.minusDays(60)),
+                row("Taxi", 1L, 5, TODAY)));
+        TitleSuggester suggester = suggester(10, 2, Duration.ofMinutes(30), COLD_WAIT);
+
+        assertThat(titles(suggester.suggest(user, "", 10))).containsExactly("Taxi", "Lunch");
+
+        // A new title scoring above the weakest one replaces it; one scoring below is dropped
+        suggester.added(user.getId(), "Cinema", category(1L), TODAY.minusDays(400));
+        assertThat(titles(suggester.suggest(user, "", 10))).containsExactly("Taxi", "Lunch");
+        suggester.added(user.getId(), "Cinema", category(1L), TODAY);
+        assertThat(titles(suggester.suggest(user, "", 10))).containsExactly("Taxi", "Cinema");
+    }
+
+    @Test
+    void reloadsAfterADeleteToRefreshTheCategory() throws InterruptedException {
+        User user = user(1L);
+        when(expenseRepository.getTitleUsageByUser(user))
+                .thenReturn(rows(row("Lunch", 1L, 2, TODAY)))
+                // The deleted expense was the latest one, in category 1
+                .thenReturn(rows(row("Lunch", 2L, 1, TODAY.minusDays(3))));
+        TitleSuggester suggester = suggester(10, 100, Duration.ofMinutes(30), COLD_WAIT);
+        assertThat(suggester.suggest(user, "lu", 10).get(0).category().id()).isEqualTo(1L);
+
+        suggester.removed(user.getId(), "Lunch");
+
+        Suggestion reloaded = await(suggester, user,
+                suggestions -> suggestions.get(0).category().id().equals(2L)).get(0);
+        assertThat(reloaded.count()).isEqualTo(1);
+        verify(expenseRepository, times(2)).getTitleUsageByUser(user);
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedUserBeyondTheLimit() {
+        User first = user(1L);
+        User second = user(2L);
+        when(expenseRepository.getTitleUsageByUser(any())).thenReturn(rows(row("Lunch", 1L, 1, TODAY)));
+        TitleSuggester suggester = suggester(1, 100, Duration.ofMinutes(30), COLD_WAIT);
+
+        suggester.suggest(first, "", 10);
+        suggester.suggest(first, "", 10);
+        suggester.suggest(second, "", 10);
+        suggester.suggest(first, "", 10);
+
+        verify(expenseRepository, times(2)).getTitleUsageByUser(first);
+        verify(expenseRepository, times(1)).getTitleUsageByUser(second);
+    }
+
+    @Test
+    void dropsIdleUsers() throws InterruptedException {
+        User user = user(1L);
+        when(expenseRepository.getTitleUsageByUser(user)).thenReturn(rows(row("Lunch", 1L, 1, TODAY)));
+        TitleSuggester suggester = suggester(10, 100, Duration.ofMillis(50), COLD_WAIT);
+
+        suggester.suggest(user, "", 10);
+        suggester.evictIdle();
+        suggester.suggest(user, "", 10);
+        verify(expenseRepository, times(1)).getTitleUsageByUser(user);
+
+        Thread.sleep(100);
+        suggester.evictIdle();
+        suggester.suggest(user, "", 10);
+        verify(expenseRepository, times(2)).getTitleUsageByUser(user);
+    }
+
+    @Test
+    void keepsAWriteCommittedWhileLoading() throws InterruptedException {
+        User user = user(1L);
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(expenseRepository.getTitleUsageByUser(user)).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                // Read before the write below commits, so it is missing from these rows
+                queried.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return rows(row("Lunch", 1L, 1, TODAY));
+            }
+            return rows(row("Lunch", 1L, 1, TODAY), row("Taxi", 1L, 1, TODAY));
+        });
+        TitleSuggester suggester = suggester(10, 100, Duration.ofMinutes(30), Duration.ZERO);
+
+        assertThat(suggester.suggest(user, "", 10)).isEmpty();
+        assertThat(queried.await(5, TimeUnit.SECONDS)).isTrue();
+        suggester.added(user.getId(), "Taxi", category(1L), TODAY);
+        release.countDown();
+
+        assertThat(titles(await(suggester, user, suggestions -> suggestions.size() == 2)))
+                .containsExactly("Lunch", "Taxi");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private TitleSuggester suggester(int maxUsers, int maxTitles, Duration idleTimeout, Duration coldWait) {
+        TitleSuggester suggester = new TitleSuggester(expenseRepository, new SimpleMeterRegistry(),
+                Duration.ofMinutes(10), idleTimeout, maxUsers, maxTitles, Duration.ofDays(30), 1, coldWait);
+        started.add(suggester);
+        return suggester;
+    }
+
+    /**
+     * Looks up every title of the user until the result matches, as the index reloads in the
+     * background.
+     */
+    private static List<Suggestion> await(TitleSuggester suggester, User user, Predicate<List<Suggestion>> done)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            List<Suggestion> suggestions = suggester.suggest(user, "", 10);
+            if (!suggestions.isEmpty() && done.test(suggestions)) {
+                return suggestions;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Suggestions never matched, last " + suggestions);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> titles(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::title).toList();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    private static Object[] row(String title, Long categoryId, long count, LocalDate lastDate) {
+        return new Object[] {title, categoryId, "Category " + categoryId, "icon", count, lastDate};
+    }
+
+    private static Category category(Long id) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName("Category " + id);
+        category.setIcon("icon");
+        return category;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,160 @@
+package com.expensetracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the bitmap against {@link BitSet} over three containers (values below 3 * 65536),
+ * at densities on both sides of the 4096-value switch between array and bitmap containers.
+ */
+class CompressedBitmapTest {
+
+    private static final int RANGE = 3 * 65536;
+
+    @Test
+    void addAndRemoveMatchBitSet() {
+        Random random = new Random(7);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+
+        // Dense enough to turn every container into a bitmap, then thinned back into arrays
+        for (int i = 0; i < 30000; i++) {
+            int value = random.nextInt(RANGE);
+            bitmap.add(value);
+            expected.set(value);
+        }
+        assertSame(expected, bitmap);
+        for (int i = 0; i < 60000; i++) {
+            int value = random.nextInt(RANGE);
+            assertThat(bitmap.remove(value)).isEqualTo(expected.get(value));
+            expected.clear(value);
+        }
+        assertSame(expected, bitmap);
+    }
+
+    @Test
+    void valuesAtContainerEdges() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int value : new int[] {0, 65535, 65536, 131071, 131072, RANGE - 1}) {
+            bitmap.add(value);
+            expected.set(value);
+        }
+        assertSame(expected, bitmap);
+
+        bitmap.remove(65536);
+        expected.clear(65536);
+        assertSame(expected, bitmap);
+        assertThat(bitmap.contains(65535)).isTrue();
+        assertThat(bitmap.contains(131071)).isTrue();
+    }
+
+    @Test
+    void arrayContainerConvertsAtTheLimitAndBack() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        // Every other value, so the container stays sparse but passes 4096 values
+        for (int i = 0; i < 4097; i++) {
+            bitmap.add(65536 + 2 * i);
+            expected.set(65536 + 2 * i);
+            if (i >= 4094) {
+                assertSame(expected, bitmap);
+            }
+        }
+        for (int i = 0; i < 4097; i++) {
+            bitmap.remove(65536 + 2 * i);
+            expected.clear(65536 + 2 * i);
+            if (i <= 2) {
+                assertSame(expected, bitmap);
+            }
+        }
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertSame(expected, bitmap);
+    }
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(11);
+        // Sparse and dense containers on each side, so every container pairing is exercised
+        int[][] densities = {{100, 100}, {100, 20000}, {20000, 100}, {20000, 20000}, {0, 5000}};
+        for (int[] density : densities) {
+            BitSet leftBits = new BitSet();
+            BitSet rightBits = new BitSet();
+            CompressedBitmap left = randomBitmap(random, density[0], leftBits);
+            CompressedBitmap right = randomBitmap(random, density[1], rightBits);
+
+            BitSet and = (BitSet) leftBits.clone();
+            and.and(rightBits);
+            assertSame(and, CompressedBitmap.and(left, right));
+
+            BitSet or = (BitSet) leftBits.clone();
+            or.or(rightBits);
+            assertSame(or, CompressedBitmap.or(left, right));
+
+            BitSet andNot = (BitSet) leftBits.clone();
+            andNot.andNot(rightBits);
+            assertSame(andNot, CompressedBitmap.andNot(left, right));
+
+            // The operands are left unchanged
+            assertSame(leftBits, left);
+            assertSame(rightBits, right);
+        }
+    }
+
+    @Test
+    void copyIsIndependent() {
+        BitSet expected = new BitSet();
+        CompressedBitmap bitmap = randomBitmap(new Random(3), 10000, expected);
+        CompressedBitmap copy = bitmap.copy();
+        copy.add(RANGE + 1);
+        copy.remove(expected.nextSetBit(0));
+        assertSame(expected, bitmap);
+    }
+
+    @Test
+    void survivesSerialization() throws IOException {
+        BitSet expected = new BitSet();
+        CompressedBitmap bitmap = randomBitmap(new Random(5), 12000, expected);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.writeTo(new DataOutputStream(bytes));
+        CompressedBitmap read = CompressedBitmap.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertSame(expected, read);
+    }
+
+    private static CompressedBitmap randomBitmap(Random random, int count, BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < count; i++) {
+            // Concentrated in the middle container, so it alone turns dense
+            int value = random.nextInt(4) == 0 ? random.nextInt(RANGE) : 65536 + random.nextInt(65536);
+            bitmap.add(value);
+            bits.set(value);
+        }
+        return bitmap;
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        assertThat(actual.cardinality()).isEqualTo(expected.cardinality());
+        assertThat(actual.isEmpty()).isEqualTo(expected.isEmpty());
+        assertThat(actual.toArray()).containsExactly(expected.stream().asLongStream().toArray());
+        for (int value = 0; value < RANGE; value++) {
+            if (actual.contains(value) != expected.get(value)) {
+                throw new AssertionError("contains(" + value + ") is " + actual.contains(value));
+            }
+        }
+        long[] visited = new long[expected.cardinality()];
+        int[] position = {0};
+        actual.forEach(value -> visited[position[0]++] = value);
+        assertThat(visited).containsExactly(expected.stream().asLongStream().toArray());
+    }
+}
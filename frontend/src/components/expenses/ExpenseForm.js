@@ -13,12 +13,14 @@ import {
   Box,
   Typography,
   Switch,
-  FormControlLabel
+  FormControlLabel,
+  Autocomplete
 } from '@mui/material';
 import { DatePicker } from '@mui/x-date-pickers/DatePicker';
 import { LocalizationProvider } from '@mui/x-date-pickers/LocalizationProvider';
 import { AdapterDateFns } from '@mui/x-date-pickers/AdapterDateFns';
 import { useExpense } from '../../contexts/ExpenseContext';
+import expenseService from '../../services/expenseService';
 import { EXPENSE_CATEGORIES, validateExpenseForm } from '../../types/expense';
 import { getCategoryIcon } from '../../utils/helpers';
 import { CATEGORY_IDS } from '../../types/expense';
@@ -38,6 +40,7 @@ const ExpenseForm = ({ open, onClose, expense = null, onSuccess }) => {
 
   const [errors, setErrors] = useState({});
   const [loading, setLoading] = useState(false);
+  const [titleSuggestions, setTitleSuggestions] = useState([]);
 
   // Initialize form when expense prop changes
   useEffect(() => {
@@ -63,6 +66,30 @@ const ExpenseForm = ({ open, onClose, expense = null, onSuccess }) => {
     setErrors({});
   }, [expense, open]);
 
+  // Suggest previously used titles while the title is typed
+  useEffect(() => {
+    const prefix = formData.title.trim();
+    if (!open || !prefix) {
+      setTitleSuggestions([]);
+      return;
+    }
+    const timer = setTimeout(async () => {
+      const result = await expenseService.suggestTitles(prefix);
+      if (result.success) {
+        setTitleSuggestions(result.data);
+      }
+    }, 150);
+    return () => clearTimeout(timer);
+  }, [formData.title, open]);
+
+  // A picked suggestion fills in its category unless one is already chosen
+  const handleSuggestionSelect = (suggestion) => {
+    if (suggestion && typeof suggestion === 'object' && !formData.category
+        && CATEGORY_IDS[suggestion.categoryName]) {
+      handleInputChange('category', suggestion.categoryName);
+    }
+  };
+
   const handleInputChange = (field, value) => {
     setFormData(prev => ({
       ...prev,
@@ -177,16 +204,34 @@ const ExpenseForm = ({ open, onClose, expense = null, onSuccess }) => {
               </Box>
 
               {/* Title */}
-              <TextField
-                label="Title"
-                value={formData.title}
-                onChange={(e) => handleInputChange('title', e.target.value)}
-                error={!!errors.title}
-                helperText={errors.title}
-                fullWidth
-                required
-                variant="outlined"
-                sx={{ '& .MuiOutlinedInput-root': { borderRadius: 2 } }}
+              <Autocomplete
+                freeSolo
+                options={titleSuggestions}
+                filterOptions={(options) => options}
+                getOptionLabel={(option) => (typeof option === 'string' ? option : option.title)}
+                inputValue={formData.title}
+                onInputChange={(e, value) => handleInputChange('title', value)}
+                onChange={(e, value) => handleSuggestionSelect(value)}
+                renderOption={(props, option) => (
+                  <li {...props} key={option.title}>
+                    <Box sx={{ display: 'flex', alignItems: 'center', gap: 1 }}>
+                      <span>{option.categoryIcon}</span>
+                      {option.title}
+                    </Box>
+                  </li>
+                )}
+                renderInput={(params) => (
+                  <TextField
+                    {...params}
+                    label="Title"
+                    error={!!errors.title}
+                    helperText={errors.title}
+                    fullWidth
+                    required
+                    variant="outlined"
+                    sx={{ '& .MuiOutlinedInput-root': { borderRadius: 2 } }}
+                  />
+                )}
               />
 
               {/* Amount */}
@@ -21,16 +21,41 @@ export const ExpenseProvider = ({ children }) => {
     categorySummary: {},
     monthlyTotal: 0
   });
+  const [categories, setCategories] = useState([]);
+  const [trend, setTrend] = useState([]);
   const { isAuthenticated } = useAuth();
 
   // Load expenses on component mount
   useEffect(() => {
     if (expenseService.isAuthenticated()) {
-      loadExpenses();
-      loadSummary();
+      loadDashboard();
     }
   }, [isAuthenticated]);
 
+  // Load expenses, summary, categories and trend in one request
+  const loadDashboard = async () => {
+    setLoading(true);
+    try {
+      const response = await expenseService.getDashboard();
+      if (response.success) {
+        setExpenses(response.data.expenses);
+        setSummary(response.data.summary);
+        setCategories(response.data.categories);
+        setTrend(response.data.trend);
+        // The list view filters on the client, so fetch the rest when there is more than one page
+        if (response.data.hasMore) {
+          await loadExpenses();
+        }
+      } else {
+        toast.error(response.message || 'Failed to load dashboard');
+      }
+    } catch (error) {
+      toast.error('Error loading dashboard: ' + error.message);
+    } finally {
+      setLoading(false);
+    }
+  };
+
   // Load all expenses
   const loadExpenses = async () => {
     setLoading(true);
@@ -180,8 +205,11 @@ export const ExpenseProvider = ({ children }) => {
     expenses,
     loading,
     summary,
+    categories,
+    trend,
 
     // Actions
+    loadDashboard,
     loadExpenses,
     loadSummary,
     addExpense,
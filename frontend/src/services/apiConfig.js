@@ -11,6 +11,10 @@ const API_CONFIG = {
     EXPENSES: '/expenses',
     EXPENSE_BY_ID: (id) => `/expenses/${id}`,
     EXPENSE_SUMMARY: '/expenses/summary',
+    EXPENSE_SUGGEST: '/expenses/suggest',
+
+    // Dashboard endpoint (first page of expenses, summary, categories and monthly trend)
+    DASHBOARD: '/dashboard',
 
     // Category endpoints
     CATEGORIES: '/categories',
@@ -154,6 +154,42 @@ class ExpenseService {
     }
   }
 
+  // Get previously used titles starting with a prefix, most used and recent first
+  async suggestTitles(prefix, limit = 5) {
+    try {
+      const response = await this.api.get(API_CONFIG.ENDPOINTS.EXPENSE_SUGGEST, { params: { prefix, limit } });
+      return {
+        success: true,
+        data: response.data,
+        message: 'Suggestions retrieved successfully'
+      };
+    } catch (error) {
+      return {
+        success: false,
+        error: error.response?.data?.message || error.message,
+        message: 'Failed to retrieve suggestions'
+      };
+    }
+  }
+
+  // Get everything the dashboard needs in a single request
+  async getDashboard(size = 20) {
+    try {
+      const response = await this.api.get(API_CONFIG.ENDPOINTS.DASHBOARD, { params: { size } });
+      return {
+        success: true,
+        data: response.data,
+        message: 'Dashboard retrieved successfully'
+      };
+    } catch (error) {
+      return {
+        success: false,
+        error: error.response?.data?.message || error.message,
+        message: 'Failed to retrieve dashboard'
+      };
+    }
+  }
+
   // Get categories
   async getCategories() {
     try {